@@ -3,6 +3,8 @@ package ca.josephroque.campusguide;
 import android.app.Application;
 import android.util.Log;
 
+import ca.josephroque.campusguide.graph.RoutingPackage;
+
 import com.agontuk.RNFusedLocation.RNFusedLocationPackage;
 import com.facebook.react.ReactApplication;
 import com.smixx.fabric.FabricPackage;
@@ -23,6 +25,8 @@ import java.util.List;
 
 public class MainApplication extends Application implements ReactApplication {
 
+  private final RoutingPackage mRoutingPackage = new RoutingPackage();
+
   private final ReactNativeHost mReactNativeHost = new ReactNativeHost(this) {
     @Override
     public boolean getUseDeveloperSupport() {
@@ -45,7 +49,8 @@ public class MainApplication extends Application implements ReactApplication {
           new RNDeviceInfo(),
           new MapsPackage(),
           new VectorIconsPackage(),
-          new RNFusedLocationPackage()
+          new RNFusedLocationPackage(),
+          mRoutingPackage
       );
     }
   };
@@ -60,4 +65,10 @@ public class MainApplication extends Application implements ReactApplication {
     super.onCreate();
     SoLoader.init(this, /* native exopackage */ false);
   }
+
+  @Override
+  public void onTrimMemory(int level) {
+    super.onTrimMemory(level);
+    mRoutingPackage.onTrimMemory(level);
+  }
 }
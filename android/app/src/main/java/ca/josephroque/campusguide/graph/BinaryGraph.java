@@ -0,0 +1,448 @@
+package ca.josephroque.campusguide.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiled, binary format of a graph, so graphs can be memory mapped and searched without being parsed.
+ *
+ * All values are big endian and every section starts on a multiple of 4 bytes. The header holds the magic
+ * number, version, number of nodes, number of edges, the heuristic scale, and the graph's flags. After the header, a
+ * graph is stored as the following sections, in order:
+ * <ul>
+ *     <li>string table of the building and campus</li>
+ *     <li>string table of the formatting rules, as alternating keys and values</li>
+ *     <li>string table of the street names, as alternating IDs and names</li>
+ *     <li>string table of the building of nodes</li>
+ *     <li>string table of the formatted ID of each node</li>
+ *     <li>int of the displacement of each bucket of the node ID hash, then int of the node in each of its slots</li>
+ *     <li>string table of the street names of each node</li>
+ *     <li>byte of the type of each node</li>
+ *     <li>byte of the flags of each node</li>
+ *     <li>int of the floor of each node</li>
+ *     <li>int of the building of each node</li>
+ *     <li>int of the floor cell of each node</li>
+ *     <li>float pair of the exit coordinates of each node</li>
+ *     <li>float pair of the layout coordinates of each node</li>
+ *     <li>int of the offset of each node's first edge, plus the end of the last node's edges</li>
+ *     <li>int of the source, target, and distance of each edge, as three sections</li>
+ *     <li>byte of the direction of each edge</li>
+ *     <li>byte of the flags of each edge</li>
+ *     <li>int of the index of each edge in its source's list of edges in the graph file</li>
+ *     <li>int of the number of excluded pairs, then int pairs of the nodes in each excluded pair</li>
+ *     <li>int of the number of doors in the distance table, then int of the node of each door</li>
+ *     <li>int of the door table column and row of each node, as two sections</li>
+ *     <li>int of the number of rows in the distance table, then int of each distance</li>
+ * </ul>
+ * See {@link StringTable} for the layout of string tables, and {@link NodeIdHash} for the node ID hash.
+ */
+final class BinaryGraph {
+
+    /** Magic number at the start of compiled graphs, "CGGR". */
+    private static final int MAGIC = 0x43474752;
+    /** Version of the format. Increment when the layout changes so outdated files are recompiled. */
+    static final int VERSION = 8;
+    /** File extension of compiled graphs. */
+    static final String EXTENSION = ".bin";
+    /** Suffix of compiled graphs which only have the edges accessible paths can follow, before the extension. */
+    static final String ACCESSIBLE_SUFFIX = "_accessible";
+
+    /** Size of the header, in bytes. */
+    private static final int HEADER_SIZE = 24;
+    /** Message of the exception thrown when a section runs past the end of a compiled graph. */
+    private static final String TRUNCATED_MESSAGE = "Compiled graph is truncated";
+    /** Graph flag for graphs which only have the edges accessible paths can follow. */
+    private static final int GRAPH_ACCESSIBLE_ONLY = 1;
+
+    /**
+     * Default constructor.
+     */
+    private BinaryGraph() {
+        // Does nothing
+    }
+
+    /**
+     * Compile a parsed graph and load it from memory.
+     *
+     * @param parsed the parsed graph
+     * @return the graph
+     * @throws IOException if the graph could not be compiled
+     */
+    static Graph fromParsed(ParsedGraph parsed) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        encode(parsed, out);
+        out.flush();
+        return decode(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * Compile a parsed graph to a file. The graph is written to a temporary file first, so a partially written
+     * graph is never left in place of a complete one.
+     *
+     * @param parsed the parsed graph
+     * @param file   destination of the compiled graph
+     * @throws IOException if the graph could not be written
+     */
+    static void write(ParsedGraph parsed, File file) throws IOException {
+        final File temp = new File(file.getPath() + ".tmp");
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            encode(parsed, out);
+        } finally {
+            out.close();
+        }
+
+        if (!temp.renameTo(file)) {
+            if (!temp.delete()) {
+                temp.deleteOnExit();
+            }
+            throw new IOException("Could not move compiled graph to " + file.getPath());
+        }
+    }
+
+    /**
+     * Load a compiled graph by memory mapping its file.
+     *
+     * @param file the compiled graph
+     * @return the graph
+     * @throws IOException if the file could not be mapped or is not a compiled graph
+     */
+    static Graph map(File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = input.getChannel();
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            // The mapping stays valid after the file is closed
+            input.close();
+        }
+    }
+
+    /**
+     * Returns true if a file is a compiled graph of the current version, reading only its header. Graphs compiled
+     * by an older version of the app must be compiled again, even if they are newer than their text.
+     *
+     * @param file the compiled graph
+     * @return true if the file can be loaded by {@link #map(File)}, false if it is missing or outdated
+     */
+    static boolean hasCurrentVersion(File file) {
+        try {
+            final DataInputStream input = new DataInputStream(new FileInputStream(file));
+            try {
+                return input.readInt() == MAGIC && input.readInt() == VERSION;
+            } finally {
+                input.close();
+            }
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Read a compiled graph. The graph reads directly from the buffer, which must not be modified afterwards.
+     *
+     * @param buffer the compiled graph
+     * @return the graph
+     * @throws IOException if the buffer does not hold a complete compiled graph of the current version
+     */
+    static Graph decode(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a compiled graph");
+        }
+
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported compiled graph version " + version);
+        }
+
+        final int nodeCount = buffer.getInt();
+        final int edgeCount = buffer.getInt();
+        final float heuristicScale = buffer.getFloat();
+        final int flags = buffer.getInt();
+
+        final StringTable meta = new StringTable(buffer);
+        final Map<String, String> formattingRules = readMap(new StringTable(buffer));
+        final Map<String, String> streetNames = readMap(new StringTable(buffer));
+        final StringTable buildingTable = new StringTable(buffer);
+        final String[] buildings = new String[buildingTable.size()];
+        for (int i = 0; i < buildings.length; i++) {
+            buildings[i] = buildingTable.get(i);
+        }
+
+        final StringTable nodeIds = new StringTable(buffer);
+        final IntBuffer nodeDisplacements = sliceInts(buffer, nodeCount);
+        final IntBuffer nodeSlots = sliceInts(buffer, nodeCount);
+        final StringTable nodeDetails = new StringTable(buffer);
+        final ByteBuffer nodeTypes = sliceBytes(buffer, nodeCount);
+        final ByteBuffer nodeFlags = sliceBytes(buffer, nodeCount);
+        final IntBuffer nodeFloors = sliceInts(buffer, nodeCount);
+        final IntBuffer nodeBuildings = sliceInts(buffer, nodeCount);
+        final IntBuffer nodeCells = sliceInts(buffer, nodeCount);
+        final FloatBuffer exits = sliceFloats(buffer, nodeCount * 2L);
+        final FloatBuffer coordinates = sliceFloats(buffer, nodeCount * 2L);
+
+        final IntBuffer edgeOffsets = sliceInts(buffer, nodeCount + 1L);
+        final IntBuffer edgeSources = sliceInts(buffer, edgeCount);
+        final IntBuffer edgeTargets = sliceInts(buffer, edgeCount);
+        final IntBuffer edgeDistances = sliceInts(buffer, edgeCount);
+        final ByteBuffer edgeDirections = sliceBytes(buffer, edgeCount);
+        final ByteBuffer edgeFlags = sliceBytes(buffer, edgeCount);
+        final IntBuffer edgeIndices = sliceInts(buffer, edgeCount);
+        final IntBuffer excludedPairs = sliceInts(buffer, readCount(buffer) * 2L);
+        final int doorCount = readCount(buffer);
+        final IntBuffer doors = sliceInts(buffer, doorCount);
+        final IntBuffer doorColumns = sliceInts(buffer, nodeCount);
+        final IntBuffer doorRows = sliceInts(buffer, nodeCount);
+        final IntBuffer doorDistances = sliceInts(buffer, (long) readCount(buffer) * doorCount * 2);
+
+        return new Graph(
+                meta.get(0),
+                meta.get(1),
+                formattingRules,
+                streetNames,
+                nodeIds,
+                nodeDisplacements,
+                nodeSlots,
+                nodeDetails,
+                nodeTypes,
+                nodeFlags,
+                nodeFloors,
+                nodeBuildings,
+                nodeCells,
+                buildings,
+                exits,
+                coordinates,
+                heuristicScale,
+                edgeOffsets,
+                edgeSources,
+                edgeTargets,
+                edgeDistances,
+                edgeDirections,
+                edgeFlags,
+                edgeIndices,
+                (flags & GRAPH_ACCESSIBLE_ONLY) != 0,
+                excludedPairs,
+                doors,
+                doorColumns,
+                doorRows,
+                doorDistances);
+    }
+
+    /**
+     * Write a parsed graph in the compiled format.
+     *
+     * @param parsed the parsed graph
+     * @param out    stream to write to
+     * @throws IOException if the graph could not be written
+     */
+    private static void encode(ParsedGraph parsed, DataOutputStream out) throws IOException {
+        final int nodeCount = parsed.nodeIds.length;
+        final int edgeCount = parsed.edgeTargets.length;
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(nodeCount);
+        out.writeInt(edgeCount);
+        out.writeFloat(parsed.heuristicScale);
+        out.writeInt(parsed.accessibleOnly ? GRAPH_ACCESSIBLE_ONLY : 0);
+
+        StringTable.write(out, new String[] {parsed.building, parsed.campus});
+        StringTable.write(out, flattenMap(parsed.formattingRules));
+        StringTable.write(out, flattenMap(parsed.streetNames));
+        StringTable.write(out, parsed.buildings);
+
+        StringTable.write(out, parsed.nodeIds);
+        final int[] nodeDisplacements = new int[nodeCount];
+        final int[] nodeSlots = new int[nodeCount];
+        NodeIdHash.build(parsed.nodeIds, nodeDisplacements, nodeSlots);
+        writeInts(out, nodeDisplacements);
+        writeInts(out, nodeSlots);
+        StringTable.write(out, parsed.nodeDetails);
+        writeBytes(out, parsed.nodeTypes);
+        writeBytes(out, parsed.nodeFlags);
+        writeInts(out, parsed.nodeFloors);
+        writeInts(out, parsed.nodeBuildings);
+        writeInts(out, parsed.nodeCells);
+        writeFloats(out, parsed.exits);
+        writeFloats(out, parsed.coordinates);
+
+        writeInts(out, parsed.edgeOffsets);
+        writeInts(out, parsed.edgeSources);
+        writeInts(out, parsed.edgeTargets);
+        writeInts(out, parsed.edgeDistances);
+        writeBytes(out, parsed.edgeDirections);
+        writeBytes(out, parsed.edgeFlags);
+        writeInts(out, parsed.edgeIndices);
+        out.writeInt(parsed.excludedPairs.length / 2);
+        writeInts(out, parsed.excludedPairs);
+        out.writeInt(parsed.doors.length);
+        writeInts(out, parsed.doors);
+        writeInts(out, parsed.doorColumns);
+        writeInts(out, parsed.doorRows);
+        out.writeInt(parsed.doors.length == 0 ? 0 : parsed.doorDistances.length / (parsed.doors.length * 2));
+        writeInts(out, parsed.doorDistances);
+    }
+
+    /**
+     * Flatten a map to alternating keys and values.
+     *
+     * @param map the map to flatten
+     * @return the keys and values of the map, in iteration order
+     */
+    private static String[] flattenMap(Map<String, String> map) {
+        final String[] flattened = new String[map.size() * 2];
+        int index = 0;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            flattened[index++] = entry.getKey();
+            flattened[index++] = entry.getValue();
+        }
+        return flattened;
+    }
+
+    /**
+     * Read a map from alternating keys and values.
+     *
+     * @param table the keys and values
+     * @return the map, in the order the entries were written
+     */
+    private static Map<String, String> readMap(StringTable table) {
+        final Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < table.size(); i += 2) {
+            map.put(table.get(i), table.get(i + 1));
+        }
+        return map;
+    }
+
+    /**
+     * Write a section of ints.
+     *
+     * @param out    stream to write to
+     * @param values the values to write
+     * @throws IOException if the values could not be written
+     */
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Write a section of floats.
+     *
+     * @param out    stream to write to
+     * @param values the values to write
+     * @throws IOException if the values could not be written
+     */
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    /**
+     * Write a section of bytes, padded to a multiple of 4 bytes.
+     *
+     * @param out    stream to write to
+     * @param values the values to write
+     * @throws IOException if the values could not be written
+     */
+    private static void writeBytes(DataOutputStream out, byte[] values) throws IOException {
+        out.write(values);
+        pad(out, values.length);
+    }
+
+    /**
+     * Pad a section so the next section starts on a multiple of 4 bytes.
+     *
+     * @param out    stream to write to
+     * @param length length of the section, in bytes
+     * @throws IOException if the padding could not be written
+     */
+    static void pad(DataOutputStream out, int length) throws IOException {
+        for (int i = length; i % 4 != 0; i++) {
+            out.writeByte(0);
+        }
+    }
+
+    /**
+     * Read the number of entries in the next section.
+     *
+     * @param buffer the buffer to read
+     * @return the number of entries
+     * @throws IOException if the buffer ends before the number, or the number is negative
+     */
+    static int readCount(ByteBuffer buffer) throws IOException {
+        final int count = buffer.remaining() < 4 ? -1 : buffer.getInt();
+        if (count < 0) {
+            throw new IOException(TRUNCATED_MESSAGE);
+        }
+
+        return count;
+    }
+
+    /**
+     * Get a view of the bytes at the buffer's position and skip past them, and past any padding.
+     *
+     * @param buffer the buffer to read
+     * @param count  number of bytes in the section
+     * @return a view of the section
+     * @throws IOException if the section is longer than the rest of the buffer
+     */
+    static ByteBuffer sliceBytes(ByteBuffer buffer, long count) throws IOException {
+        final long length = (count + 3) & ~3L;
+        if (count < 0 || length > buffer.remaining()) {
+            throw new IOException(TRUNCATED_MESSAGE);
+        }
+
+        final ByteBuffer slice = buffer.slice();
+        slice.limit((int) count);
+        buffer.position(buffer.position() + (int) length);
+        return slice;
+    }
+
+    /**
+     * Get a view of the ints at the buffer's position and skip past them.
+     *
+     * @param buffer the buffer to read
+     * @param count  number of ints in the section
+     * @return a view of the section
+     * @throws IOException if the section is longer than the rest of the buffer
+     */
+    static IntBuffer sliceInts(ByteBuffer buffer, long count) throws IOException {
+        if (count > buffer.remaining() / 4) {
+            throw new IOException(TRUNCATED_MESSAGE);
+        }
+
+        return sliceBytes(buffer, count * 4).asIntBuffer();
+    }
+
+    /**
+     * Get a view of the floats at the buffer's position and skip past them.
+     *
+     * @param buffer the buffer to read
+     * @param count  number of floats in the section
+     * @return a view of the section
+     * @throws IOException if the section is longer than the rest of the buffer
+     */
+    static FloatBuffer sliceFloats(ByteBuffer buffer, long count) throws IOException {
+        if (count > buffer.remaining() / 4) {
+            throw new IOException(TRUNCATED_MESSAGE);
+        }
+
+        return sliceBytes(buffer, count * 4).asFloatBuffer();
+    }
+}
@@ -0,0 +1,347 @@
+package ca.josephroque.campusguide.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the best path between nodes in two buildings, through the doors of each building and the outdoor graph.
+ * For the shortest path, ranks each pairing of doors with the distances precomputed by {@link GraphCompiler}, so
+ * only the paths through the best pairing need to be searched. The easiest path is found by a single
+ * {@link EasiestRouteSearch} instead. Follows the same rules as {@code getBestPathAcross} in
+ * {@code src/util/graph/Navigation.ts}, but with walking distances between doors instead of straight lines.
+ * Searches in the target building and outside run on a pool of worker threads, alongside the searches in the
+ * starting building, since each engine is only used by one thread at a time.
+ */
+final class CrossBuildingRouter {
+
+    /** Metres per unit of distance in the outdoor graph. Mirrors {@code OUTER_UNIT_TO_M}. */
+    static final double OUTER_UNIT_TO_M = 1.7;
+    /** Metres per unit of distance in building graphs. Mirrors {@code INNER_UNIT_TO_M}. */
+    static final double INNER_UNIT_TO_M = 0.29;
+
+    /** Engine for the graph of the starting building. */
+    private final RoutingEngine mStartEngine;
+    /** Engine for the graph of the target building. */
+    private final RoutingEngine mTargetEngine;
+    /** Engine for the outdoor graph. */
+    private final RoutingEngine mOutdoorEngine;
+    /** Runs the searches which do not use the starting building's engine. */
+    private final Executor mSearchPool;
+    /** Generation of the latest searches, incremented when searches are cancelled. */
+    private final AtomicInteger mSearchGeneration;
+    /** Generation the search was started in. */
+    private final int mGeneration;
+
+    /**
+     * Constructor for a router between two buildings.
+     *
+     * @param startEngine      engine for the graph of the starting building
+     * @param targetEngine     engine for the graph of the target building
+     * @param outdoorEngine    engine for the outdoor graph
+     * @param searchPool       runs the searches in the target building and outside
+     * @param searchGeneration generation of the latest searches, incremented when searches are cancelled
+     * @param generation       generation the search was started in
+     */
+    CrossBuildingRouter(
+            RoutingEngine startEngine,
+            RoutingEngine targetEngine,
+            RoutingEngine outdoorEngine,
+            Executor searchPool,
+            AtomicInteger searchGeneration,
+            int generation) {
+        mStartEngine = startEngine;
+        mTargetEngine = targetEngine;
+        mOutdoorEngine = outdoorEngine;
+        mSearchPool = searchPool;
+        mSearchGeneration = searchGeneration;
+        mGeneration = generation;
+    }
+
+    /**
+     * Find the best path from a node in the starting building to a node in the target building.
+     *
+     * @param startId     formatted ID of the starting node
+     * @param startDoors  formatted IDs of the doors of the starting building
+     * @param targetId    formatted ID of the target node
+     * @param targetDoors formatted IDs of the doors of the target building
+     * @param accessible  true to force an accessible path, false for any path
+     * @param shortest    true for the shortest path, false for the easiest to follow
+     * @return the paths from the start to its exit, outside, and from the entrance to the target, or null if
+     *         there is no path
+     * @throws CancellationException if the searches were cancelled before a path was found
+     */
+    Path[] findPathAcross(
+            String startId,
+            String[] startDoors,
+            String targetId,
+            final String[] targetDoors,
+            final boolean accessible,
+            boolean shortest) {
+        final Graph startGraph = mStartEngine.getGraph();
+        final Graph targetGraph = mTargetEngine.getGraph();
+        final Graph outdoorGraph = mOutdoorEngine.getGraph();
+        final int start = startGraph.indexOf(startId);
+        final int target = targetGraph.indexOf(targetId);
+        if (start < 0 || target < 0) {
+            return null;
+        }
+
+        checkCancelled();
+        if (!shortest) {
+            return new EasiestRouteSearch(mStartEngine, mTargetEngine, mOutdoorEngine)
+                    .findPath(start, startDoors, target, targetDoors, accessible);
+        }
+
+        final Future<int[]> entranceSearch = searchAlongside(mTargetEngine, new Callable<int[]>() {
+            @Override
+            public int[] call() {
+                return getDistancesToDoors(mTargetEngine, target, targetDoors, accessible);
+            }
+        });
+
+        final int[] exitDistances;
+        final int[][] outerDistances = new int[startDoors.length][];
+        try {
+            exitDistances = getDistancesToDoors(mStartEngine, start, startDoors, accessible);
+            for (int i = 0; i < startDoors.length; i++) {
+                final int exit = outdoorGraph.indexOf(startDoors[i]);
+                if (exitDistances[i] >= 0 && exit >= 0) {
+                    outerDistances[i] = getDistancesToDoors(mOutdoorEngine, exit, targetDoors, accessible);
+                }
+            }
+        } finally {
+            waitFor(entranceSearch);
+        }
+        final int[] entranceDistances = getResult(entranceSearch);
+
+        final List<DoorPair> pairings = new ArrayList<>();
+        for (int i = 0; i < startDoors.length; i++) {
+            if (outerDistances[i] == null) {
+                continue;
+            }
+
+            for (int j = 0; j < targetDoors.length; j++) {
+                if (entranceDistances[j] < 0 || outerDistances[i][j] < 0) {
+                    continue;
+                }
+
+                final double distance = (exitDistances[i] + entranceDistances[j]) * INNER_UNIT_TO_M
+                        + outerDistances[i][j] * OUTER_UNIT_TO_M;
+                pairings.add(new DoorPair(i, j, distance));
+            }
+        }
+
+        Collections.sort(pairings, new Comparator<DoorPair>() {
+            @Override
+            public int compare(DoorPair first, DoorPair second) {
+                return Double.compare(first.distance, second.distance);
+            }
+        });
+
+        for (final DoorPair pairing : pairings) {
+            checkCancelled();
+            final int exit = outdoorGraph.indexOf(startDoors[pairing.exit]);
+            final Future<Path> outerSearch = searchAlongside(mOutdoorEngine, new Callable<Path>() {
+                @Override
+                public Path call() {
+                    return findPath(mOutdoorEngine, exit, targetDoors[pairing.entrance], accessible, false);
+                }
+            });
+            final Future<Path> entrancePathSearch = searchAlongside(mTargetEngine, new Callable<Path>() {
+                @Override
+                public Path call() {
+                    return findPath(mTargetEngine, target, targetDoors[pairing.entrance], accessible, true);
+                }
+            });
+
+            final Path exitPath;
+            try {
+                exitPath = findPath(mStartEngine, start, startDoors[pairing.exit], accessible, false);
+            } finally {
+                waitFor(outerSearch);
+                waitFor(entrancePathSearch);
+            }
+
+            final Path outerPath = getResult(outerSearch);
+            final Path entrancePath = getResult(entrancePathSearch);
+            if (exitPath != null && outerPath != null && entrancePath != null) {
+                return new Path[] {exitPath, outerPath, entrancePath};
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Throw if the searches have been cancelled since this search started.
+     *
+     * @throws CancellationException if the searches were cancelled
+     */
+    private void checkCancelled() {
+        if (mSearchGeneration.get() != mGeneration) {
+            throw new CancellationException("Search was superseded by a newer search");
+        }
+    }
+
+    /**
+     * Start a search on the pool of worker threads, to run alongside a search in the starting building. Searches
+     * which use the starting building's engine run immediately instead, since engines are not thread safe.
+     *
+     * @param engine engine the search uses
+     * @param search the search
+     * @param <T>    result of the search
+     * @return the running search
+     */
+    private <T> Future<T> searchAlongside(RoutingEngine engine, Callable<T> search) {
+        final FutureTask<T> task = new FutureTask<>(search);
+        if (engine == mStartEngine) {
+            task.run();
+        } else {
+            mSearchPool.execute(task);
+        }
+        return task;
+    }
+
+    /**
+     * Wait for a search to finish, so its engine is not in use when this search returns.
+     *
+     * @param search the search
+     */
+    private static void waitFor(Future<?> search) {
+        boolean interrupted = false;
+        while (!search.isDone()) {
+            try {
+                search.get();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            } catch (ExecutionException ex) {
+                // Reported by getResult
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the result of a finished search, rethrowing its failure on this thread.
+     *
+     * @param search the search
+     * @param <T>    result of the search
+     * @return the result of the search
+     */
+    private static <T> T getResult(Future<T> search) {
+        try {
+            return search.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Search was interrupted");
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Get the distance from a node to each of a set of doors, from the precomputed table if it is available.
+     * Starting from a door of the same building, the only door reached is the starting door.
+     *
+     * @param engine     engine for the graph with the node and doors
+     * @param node       index of the node
+     * @param doorIds    formatted IDs of the doors
+     * @param accessible true for the distances of accessible paths, false for any path
+     * @return the distance to each door, or -1 for doors which cannot be reached
+     */
+    private static int[] getDistancesToDoors(RoutingEngine engine, int node, String[] doorIds, boolean accessible) {
+        final Graph graph = engine.getGraph();
+        final int[] doors = new int[doorIds.length];
+        for (int i = 0; i < doorIds.length; i++) {
+            doors[i] = graph.indexOf(doorIds[i]);
+        }
+
+        if (graph.nodeType(node) == NodeType.DOOR
+                && doors.length > 0
+                && doors[0] >= 0
+                && graph.nodeBuilding(doors[0]) == graph.nodeBuilding(node)) {
+            final int[] distances = new int[doors.length];
+            for (int i = 0; i < doors.length; i++) {
+                distances[i] = doors[i] == node ? 0 : -1;
+            }
+            return distances;
+        }
+
+        // Precomputed distances do not know about closed edges, so search graphs with closures instead
+        if (!graph.hasDoorDistances(node) || engine.hasClosedEdges()) {
+            return engine.findDistances(node, doors, accessible);
+        }
+
+        final int[] distances = new int[doors.length];
+        for (int i = 0; i < doors.length; i++) {
+            distances[i] = doors[i] < 0 ? -1 : graph.doorDistance(node, doors[i], accessible);
+        }
+        return distances;
+    }
+
+    /**
+     * Find the shortest path between two nodes.
+     *
+     * @param engine     engine for the graph with the nodes
+     * @param start      index of the starting node
+     * @param targetId   formatted ID of the target node
+     * @param accessible true to force an accessible path, false for any path
+     * @param reverse    true to return the path from the target to the start
+     * @return the path, or null if there is none
+     */
+    private static Path findPath(
+            RoutingEngine engine,
+            int start,
+            String targetId,
+            boolean accessible,
+            boolean reverse) {
+        final int target = engine.getGraph().indexOf(targetId);
+        final List<Path> paths = engine.findShortestPaths(start, new int[] {target}, accessible, reverse);
+        return paths.isEmpty() ? null : paths.get(0);
+    }
+
+    /**
+     * An exit from the starting building and entrance to the target building, and the distance of the path
+     * between the nodes through them.
+     */
+    private static final class DoorPair {
+
+        /** Index of the exit from the starting building. */
+        final int exit;
+        /** Index of the entrance to the target building. */
+        final int entrance;
+        /** Ranking of the pair, lower is better. */
+        final double distance;
+
+        /**
+         * Constructor for a pair of doors.
+         *
+         * @param exit     index of the exit
+         * @param entrance index of the entrance
+         * @param distance ranking of the pair
+         */
+        DoorPair(int exit, int entrance, double distance) {
+            this.exit = exit;
+            this.entrance = entrance;
+            this.distance = distance;
+        }
+    }
+}
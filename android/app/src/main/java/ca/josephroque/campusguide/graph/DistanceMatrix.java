@@ -0,0 +1,284 @@
+package ca.josephroque.campusguide.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the walking distance and time between every pair of a set of locations, such as the locations of a
+ * student's lectures, with one search from each location. The search from a location finds its distance to the
+ * other locations in its building, and to each door of its building. Locations in different buildings are joined
+ * through the outdoor graph, with the distance from a door to a location taken from the location's own search, the
+ * same as {@link CrossBuildingRouter} does. Distances between doors outside come from a search from each door, once
+ * for each building, since the table precomputed by {@link GraphCompiler} does not know the time to cross streets.
+ * Paths are found the same way routes are, but their distances are the distances walked, without the penalties
+ * which steer routes away from long staircases. Times are the times of the paths found, from {@link WalkingTime}.
+ *
+ * Each location is searched by a separate call to {@link #searchNext(RoutingEngine, RoutingEngine)}, so other
+ * searches can run between them. Instances are not thread safe.
+ */
+final class DistanceMatrix {
+
+    /** Shorthand of the building of each location. */
+    private final String[] mBuildings;
+    /** Formatted ID of the node of each location. */
+    private final String[] mNodeIds;
+    /** True to only follow accessible paths. */
+    private final boolean mAccessible;
+    /** Shorthands of the buildings of the locations, without duplicates. */
+    private final List<String> mBuildingNames = new ArrayList<>();
+    /** Index into {@link #mBuildingNames} of the building of each location. */
+    private final int[] mLocationBuildings;
+
+    /** Doors of each building in the outdoor graph, in order of {@link #mBuildingNames}, or null until found. */
+    private int[] mDoors;
+    /** Offset of the first door of each building in {@link #mDoors}, with one extra entry for the end. */
+    private int[] mDoorOffsets;
+    /** Distance walked from each location to each door of its building, in metres, or -1, by location. */
+    private final double[][] mDoorDistances;
+    /** Time to walk from each location to each door of its building, in seconds, or -1, by location. */
+    private final double[][] mDoorSeconds;
+    /** Distance walked outside from each door of each building to every door in {@link #mDoors}, in metres, or -1. */
+    private final double[][] mOutdoorDistances;
+    /** Time to walk outside from each door of each building to every door in {@link #mDoors}, in seconds, or -1. */
+    private final double[][] mOutdoorSeconds;
+    /** Distance walked from each location to each other, in metres, or -1 if there is no path. */
+    private final double[][] mDistances;
+    /** Time to walk from each location to each other, in seconds, or -1 if there is no path. */
+    private final double[][] mSeconds;
+    /** Next location to search from. */
+    private int mNextLocation;
+
+    /**
+     * Constructor for the distances between a set of locations.
+     *
+     * @param buildings  shorthand of the building of each location
+     * @param nodeIds    formatted ID of the node of each location
+     * @param accessible true to only follow accessible paths, false for any path
+     */
+    DistanceMatrix(String[] buildings, String[] nodeIds, boolean accessible) {
+        mBuildings = buildings;
+        mNodeIds = nodeIds;
+        mAccessible = accessible;
+        mLocationBuildings = new int[buildings.length];
+        for (int i = 0; i < buildings.length; i++) {
+            int building = mBuildingNames.indexOf(buildings[i]);
+            if (building < 0) {
+                building = mBuildingNames.size();
+                mBuildingNames.add(buildings[i]);
+            }
+            mLocationBuildings[i] = building;
+        }
+
+        mDoorDistances = new double[buildings.length][];
+        mDoorSeconds = new double[buildings.length][];
+        mOutdoorDistances = new double[mBuildingNames.size()][];
+        mOutdoorSeconds = new double[mBuildingNames.size()][];
+        mDistances = new double[buildings.length][buildings.length];
+        mSeconds = new double[buildings.length][buildings.length];
+    }
+
+    /**
+     * Returns the shorthand of the building of the next location to search from.
+     *
+     * @return the building, or null if every location has been searched
+     */
+    String getNextBuilding() {
+        return isComplete() ? null : mBuildings[mNextLocation];
+    }
+
+    /**
+     * Returns true if every location has been searched from.
+     *
+     * @return true if {@link #getDistances()} and {@link #getSeconds()} can be called
+     */
+    boolean isComplete() {
+        return mNextLocation >= mBuildings.length;
+    }
+
+    /**
+     * Search from the next location to the other locations in its building and to its building's doors, and find
+     * the distances outside from its building's doors, if they have not been found for another location.
+     *
+     * @param engine        engine for the graph of the next location's building
+     * @param outdoorEngine engine for the outdoor graph
+     */
+    void searchNext(RoutingEngine engine, RoutingEngine outdoorEngine) {
+        final Graph graph = engine.getGraph();
+        final Graph outdoorGraph = outdoorEngine.getGraph();
+        if (mDoors == null) {
+            findDoors(outdoorGraph);
+        }
+
+        final int location = mNextLocation++;
+        final int building = mLocationBuildings[location];
+        final int doorStart = mDoorOffsets[building];
+        final int doorCount = mDoorOffsets[building + 1] - doorStart;
+
+        // One search reaches the building's doors, then the other locations in the building
+        final int[] targets = new int[doorCount + mBuildings.length];
+        for (int i = 0; i < doorCount; i++) {
+            targets[i] = graph.indexOf(outdoorGraph.nodeId(mDoors[doorStart + i]));
+        }
+        for (int i = 0; i < mBuildings.length; i++) {
+            targets[doorCount + i] = mLocationBuildings[i] == building ? graph.indexOf(mNodeIds[i]) : -1;
+        }
+
+        final double[] seconds = new double[targets.length];
+        final int[] distances = new int[targets.length];
+        engine.findDistances(graph.indexOf(mNodeIds[location]), targets, mAccessible, seconds, distances);
+        mDoorDistances[location] = new double[doorCount];
+        mDoorSeconds[location] = Arrays.copyOf(seconds, doorCount);
+        for (int i = 0; i < doorCount; i++) {
+            mDoorDistances[location][i] = toMetres(distances[i], CrossBuildingRouter.INNER_UNIT_TO_M);
+        }
+        for (int i = 0; i < mBuildings.length; i++) {
+            mDistances[location][i] = i == location
+                    ? 0
+                    : toMetres(distances[doorCount + i], CrossBuildingRouter.INNER_UNIT_TO_M);
+            mSeconds[location][i] = i == location ? 0 : seconds[doorCount + i];
+        }
+
+        if (mOutdoorDistances[building] == null) {
+            findOutdoorDistances(outdoorEngine, building);
+        }
+    }
+
+    /**
+     * Returns the distance walked from each location to each other. Locations in different buildings are joined
+     * through the pair of doors with the shortest total distance.
+     *
+     * @return the distance from each location to each other, in metres, or -1 if there is no path
+     * @throws IllegalStateException if a location has not been searched from
+     */
+    double[][] getDistances() {
+        joinBuildings();
+        return mDistances;
+    }
+
+    /**
+     * Returns the time to walk from each location to each other, along the paths of {@link #getDistances()}.
+     *
+     * @return the time to walk from each location to each other, in seconds, or -1 if there is no path
+     * @throws IllegalStateException if a location has not been searched from
+     */
+    double[][] getSeconds() {
+        joinBuildings();
+        return mSeconds;
+    }
+
+    /**
+     * Join each pair of locations in different buildings through the pair of doors with the shortest total
+     * distance.
+     *
+     * @throws IllegalStateException if a location has not been searched from
+     */
+    private void joinBuildings() {
+        if (!isComplete()) {
+            throw new IllegalStateException("Every location must be searched before distances are known");
+        }
+
+        final int totalDoors = mDoors == null ? 0 : mDoors.length;
+        for (int start = 0; start < mBuildings.length; start++) {
+            final int startBuilding = mLocationBuildings[start];
+            for (int target = 0; target < mBuildings.length; target++) {
+                final int targetBuilding = mLocationBuildings[target];
+                if (targetBuilding == startBuilding) {
+                    continue;
+                }
+
+                double best = -1;
+                double bestSeconds = -1;
+                final double[] outdoorDistances = mOutdoorDistances[startBuilding];
+                final double[] outdoorSeconds = mOutdoorSeconds[startBuilding];
+                for (int exit = 0; exit < mDoorDistances[start].length; exit++) {
+                    final double exitDistance = mDoorDistances[start][exit];
+                    if (exitDistance < 0) {
+                        continue;
+                    }
+
+                    for (int entrance = 0; entrance < mDoorDistances[target].length; entrance++) {
+                        final double entranceDistance = mDoorDistances[target][entrance];
+                        final int outer = exit * totalDoors + mDoorOffsets[targetBuilding] + entrance;
+                        final double outerDistance = outdoorDistances[outer];
+                        if (entranceDistance < 0 || outerDistance < 0) {
+                            continue;
+                        }
+
+                        final double distance = exitDistance + outerDistance + entranceDistance;
+                        if (best < 0 || distance < best) {
+                            best = distance;
+                            bestSeconds = mDoorSeconds[start][exit]
+                                    + outdoorSeconds[outer]
+                                    + mDoorSeconds[target][entrance];
+                        }
+                    }
+                }
+                mDistances[start][target] = best;
+                mSeconds[start][target] = bestSeconds;
+            }
+        }
+    }
+
+    /**
+     * Find the doors of each building in the outdoor graph.
+     *
+     * @param outdoorGraph the outdoor graph
+     */
+    private void findDoors(Graph outdoorGraph) {
+        final IntList doors = new IntList();
+        mDoorOffsets = new int[mBuildingNames.size() + 1];
+        for (int building = 0; building < mBuildingNames.size(); building++) {
+            mDoorOffsets[building] = doors.size();
+            for (int node = 0; node < outdoorGraph.getNodeCount(); node++) {
+                if (outdoorGraph.nodeType(node) == NodeType.DOOR
+                        && outdoorGraph.isListed(node)
+                        && outdoorGraph.nodeBuildingName(node).equals(mBuildingNames.get(building))) {
+                    doors.add(node);
+                }
+            }
+        }
+
+        mDoorOffsets[mBuildingNames.size()] = doors.size();
+        mDoors = doors.toArray();
+    }
+
+    /**
+     * Find the distance and time outside from each door of a building to every door of the locations' buildings,
+     * one row of {@link #mDoors} after another.
+     *
+     * @param outdoorEngine engine for the outdoor graph
+     * @param building      index of the building
+     */
+    private void findOutdoorDistances(RoutingEngine outdoorEngine, int building) {
+        final int exitStart = mDoorOffsets[building];
+        final int exitCount = mDoorOffsets[building + 1] - exitStart;
+        final double[] outdoorDistances = new double[exitCount * mDoors.length];
+        final double[] outdoorSeconds = new double[exitCount * mDoors.length];
+        final double[] seconds = new double[mDoors.length];
+        final int[] distances = new int[mDoors.length];
+
+        for (int exit = 0; exit < exitCount; exit++) {
+            outdoorEngine.findDistances(mDoors[exitStart + exit], mDoors, mAccessible, seconds, distances);
+            for (int door = 0; door < mDoors.length; door++) {
+                outdoorDistances[exit * mDoors.length + door] =
+                        toMetres(distances[door], CrossBuildingRouter.OUTER_UNIT_TO_M);
+            }
+            System.arraycopy(seconds, 0, outdoorSeconds, exit * mDoors.length, mDoors.length);
+        }
+
+        mOutdoorDistances[building] = outdoorDistances;
+        mOutdoorSeconds[building] = outdoorSeconds;
+    }
+
+    /**
+     * Convert a distance in a graph's units to metres.
+     *
+     * @param distance the distance, or -1 if there is no path
+     * @param unitToM  metres per unit of the graph
+     * @return the distance in metres, or -1 if there is no path
+     */
+    private static double toMetres(int distance, double unitToM) {
+        return distance < 0 ? -1 : distance * unitToM;
+    }
+}
@@ -0,0 +1,325 @@
+package ca.josephroque.campusguide.graph;
+
+import java.util.Arrays;
+
+/**
+ * Finds the easiest route from a node in one building to a node in another, through the outdoor graph, with a
+ * single search. The search runs over the edges of the three graphs instead of their nodes, so the cost of each
+ * edge can depend on the edge before it: turns, changes of floor, and street crossings are penalized on top of
+ * the distance walked. Follows the same rules as {@code findEasiestPathAcross} in
+ * {@code src/util/graph/Navigation.ts}.
+ *
+ * Instances are not thread safe, and search with the engines they were given.
+ */
+final class EasiestRouteSearch {
+
+    /** Penalty for each turn, in metres. Mirrors {@code EASIEST_TURN_PENALTY}. */
+    static final double TURN_PENALTY = 20;
+    /** Penalty for each staircase or elevator taken, in metres. Mirrors {@code EASIEST_FLOOR_CHANGE_PENALTY}. */
+    static final double FLOOR_CHANGE_PENALTY = 40;
+    /** Penalty for each street crossed, in metres. Mirrors {@code EASIEST_CROSSING_PENALTY}. */
+    static final double CROSSING_PENALTY = 30;
+
+    /** Costs are searched in centimetres, so they can be compared as ints. */
+    private static final int CENTIMETRES_PER_METRE = 100;
+    /** Cost of states which have not been reached. */
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    /** Graph of the starting building. */
+    private static final int START = 0;
+    /** Outdoor graph. */
+    private static final int OUTDOOR = 1;
+    /** Graph of the target building. */
+    private static final int TARGET = 2;
+
+    /** Engine for each graph, indexed by {@link #START}, {@link #OUTDOOR}, and {@link #TARGET}. */
+    private final RoutingEngine[] mEngines;
+    /** Metres per unit of distance in each graph. */
+    private final double[] mUnitToMetres;
+    /** First state of each graph's edges. The state of the start, without an edge, follows the last graph. */
+    private final int[] mStateOffsets;
+
+    /** Cost of the easiest route to each state. */
+    private final int[] mCosts;
+    /** Estimated time to walk the easiest route to each state, in seconds. */
+    private final double[] mSeconds;
+    /** State each state was reached from, or -1. */
+    private final int[] mPrevious;
+    /** True for each state whose route has taken a staircase or elevator since entering the node's building. */
+    private final boolean[] mUsedFloorChange;
+    /** States waiting to be visited, by their cost. */
+    private final IndexedHeap mQueue;
+
+    /**
+     * Constructor for a search between two buildings.
+     *
+     * @param startEngine   engine for the graph of the starting building
+     * @param targetEngine  engine for the graph of the target building
+     * @param outdoorEngine engine for the outdoor graph
+     */
+    EasiestRouteSearch(RoutingEngine startEngine, RoutingEngine targetEngine, RoutingEngine outdoorEngine) {
+        mEngines = new RoutingEngine[] {startEngine, outdoorEngine, targetEngine};
+        mUnitToMetres = new double[] {
+                CrossBuildingRouter.INNER_UNIT_TO_M,
+                CrossBuildingRouter.OUTER_UNIT_TO_M,
+                CrossBuildingRouter.INNER_UNIT_TO_M,
+        };
+
+        mStateOffsets = new int[mEngines.length + 1];
+        for (int graph = 0; graph < mEngines.length; graph++) {
+            mStateOffsets[graph + 1] = mStateOffsets[graph] + mEngines[graph].getGraph().getEdgeCount();
+        }
+
+        final int stateCount = mStateOffsets[mEngines.length] + 1;
+        mCosts = new int[stateCount];
+        mSeconds = new double[stateCount];
+        mPrevious = new int[stateCount];
+        mUsedFloorChange = new boolean[stateCount];
+        mQueue = new IndexedHeap(stateCount);
+    }
+
+    /**
+     * Find the easiest route from a node in the starting building to a node in the target building. A route
+     * starting or ending at a door of its building leaves or enters the building through that door.
+     *
+     * @param start       index of the starting node, in the graph of the starting building
+     * @param startDoors  formatted IDs of the doors of the starting building
+     * @param target      index of the target node, in the graph of the target building
+     * @param targetDoors formatted IDs of the doors of the target building
+     * @param accessible  true to force an accessible route, false for any route
+     * @return the paths from the start to its exit, outside, and from the entrance to the target, or null if
+     *         there is no route
+     */
+    Path[] findPath(int start, String[] startDoors, int target, String[] targetDoors, boolean accessible) {
+        final Graph startGraph = mEngines[START].getGraph();
+        final Graph outdoorGraph = mEngines[OUTDOOR].getGraph();
+        final Graph targetGraph = mEngines[TARGET].getGraph();
+
+        // Outdoor node of each door of the starting building, and the target building's node of each entrance
+        final int[] exits = new int[startGraph.getNodeCount()];
+        final int[] entrances = new int[outdoorGraph.getNodeCount()];
+        Arrays.fill(exits, -1);
+        Arrays.fill(entrances, -1);
+        for (String doorId : startDoors) {
+            final int door = startGraph.indexOf(doorId);
+            if (door >= 0) {
+                exits[door] = outdoorGraph.indexOf(doorId);
+            }
+        }
+        for (String doorId : targetDoors) {
+            final int door = outdoorGraph.indexOf(doorId);
+            if (door >= 0) {
+                entrances[door] = targetGraph.indexOf(doorId);
+            }
+        }
+
+        final boolean startsAtDoor = startGraph.nodeType(start) == NodeType.DOOR && exits[start] >= 0;
+        final boolean endsAtDoor = targetGraph.nodeType(target) == NodeType.DOOR;
+
+        final int[] costs = mCosts;
+        final int[] previous = mPrevious;
+        Arrays.fill(costs, UNREACHED);
+        Arrays.fill(previous, -1);
+
+        final int startState = mStateOffsets[mEngines.length];
+        final IndexedHeap queue = mQueue;
+        queue.clear();
+        costs[startState] = 0;
+        mSeconds[startState] = 0;
+        mUsedFloorChange[startState] = NodeType.isFloorChange(startGraph.nodeType(start));
+        queue.push(startState, 0);
+
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            final int graph = graphOf(state);
+            final int node = nodeOf(state, graph, start);
+
+            if ((graph == TARGET && node == target)
+                    || (endsAtDoor && graph == OUTDOOR && entrances[node] == target)) {
+                return rebuildPaths(state, start);
+            }
+
+            if (graph == START) {
+                if (!startsAtDoor) {
+                    expand(state, START, node, target, accessible);
+                }
+                if (exits[node] >= 0) {
+                    expand(state, OUTDOOR, exits[node], target, accessible);
+                }
+            } else if (graph == OUTDOOR) {
+                expand(state, OUTDOOR, node, target, accessible);
+                if (!endsAtDoor && entrances[node] >= 0) {
+                    expand(state, TARGET, entrances[node], target, accessible);
+                }
+            } else {
+                expand(state, TARGET, node, target, accessible);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Queue the states reached by following each edge of a node from a state.
+     *
+     * @param state      the state the edges are followed from
+     * @param graph      graph with the node
+     * @param node       the node, which the state has reached
+     * @param target     index of the target node, in the graph of the target building
+     * @param accessible true to force an accessible route, false for any route
+     */
+    private void expand(int state, int graph, int node, int target, boolean accessible) {
+        final RoutingEngine engine = mEngines[graph];
+        final Graph searched = engine.getGraph();
+        final int stateGraph = graphOf(state);
+
+        // The edge and node before the state, if it was reached along an edge of the same graph. Each graph is drawn
+        // in its own orientation, so the first edge in a graph is never a turn
+        final int incomingEdge = stateGraph == graph && state < mStateOffsets[mEngines.length]
+                ? state - mStateOffsets[graph]
+                : -1;
+        final int previousNode = incomingEdge >= 0 ? searched.edgeSource(incomingEdge) : -1;
+        final byte incomingDirection = incomingEdge >= 0 ? searched.edgeDirection(incomingEdge) : 0;
+
+        for (int edge = searched.edgeStart(node); edge < searched.edgeEnd(node); edge++) {
+            final int neighbour = searched.edgeTarget(edge);
+            final int distance = engine.getEdgeCost(
+                    node,
+                    edge,
+                    previousNode,
+                    mUsedFloorChange[state],
+                    graph == TARGET && neighbour == target,
+                    accessible);
+            if (distance < 0) {
+                continue;
+            }
+
+            double cost = distance * mUnitToMetres[graph];
+            if (incomingDirection != 0 && isTurn(incomingDirection, searched.edgeDirection(edge))) {
+                cost += TURN_PENALTY;
+            }
+            if (NodeType.isFloorChange(searched.nodeType(neighbour))
+                    && !NodeType.isFloorChange(searched.nodeType(node))) {
+                cost += FLOOR_CHANGE_PENALTY;
+            }
+            if (searched.nodeType(node) == NodeType.INTERSECTION
+                    && searched.nodeType(neighbour) == NodeType.INTERSECTION) {
+                cost += CROSSING_PENALTY;
+            }
+
+            final int next = mStateOffsets[graph] + edge;
+            final int alt = mCosts[state] + (int) Math.round(cost * CENTIMETRES_PER_METRE);
+            if (alt < mCosts[next]) {
+                mCosts[next] = alt;
+                mSeconds[next] = mSeconds[state]
+                        + WalkingTime.edgeSeconds(searched, graph == OUTDOOR, node, edge, previousNode);
+                mPrevious[next] = state;
+                mUsedFloorChange[next] = engine.hasUsedFloorChange(node, neighbour, mUsedFloorChange[state]);
+                mQueue.push(next, alt);
+            }
+        }
+    }
+
+    /**
+     * Get the graph of a state's edge.
+     *
+     * @param state the state
+     * @return {@link #START}, {@link #OUTDOOR}, or {@link #TARGET}, or {@link #START} for the start
+     */
+    private int graphOf(int state) {
+        if (state >= mStateOffsets[TARGET] && state < mStateOffsets[mEngines.length]) {
+            return TARGET;
+        } else if (state >= mStateOffsets[OUTDOOR] && state < mStateOffsets[TARGET]) {
+            return OUTDOOR;
+        }
+        return START;
+    }
+
+    /**
+     * Get the node a state has reached.
+     *
+     * @param state the state
+     * @param graph graph of the state's edge
+     * @param start index of the starting node
+     * @return index of the node, in the graph of the state's edge
+     */
+    private int nodeOf(int state, int graph, int start) {
+        if (state == mStateOffsets[mEngines.length]) {
+            return start;
+        }
+
+        return mEngines[graph].getGraph().edgeTarget(state - mStateOffsets[graph]);
+    }
+
+    /**
+     * Get the paths in each graph along the route to a state.
+     *
+     * @param state the last state of the route
+     * @param start index of the starting node
+     * @return the paths from the start to its exit, outside, and from the entrance to the target
+     */
+    private Path[] rebuildPaths(int state, int start) {
+        final IntList[] edges = new IntList[mEngines.length];
+        final int[] distances = new int[mEngines.length];
+        final double[] seconds = new double[mEngines.length];
+        for (int graph = 0; graph < mEngines.length; graph++) {
+            edges[graph] = new IntList();
+        }
+
+        final int startState = mStateOffsets[mEngines.length];
+        for (int current = state; current != startState; current = mPrevious[current]) {
+            final int graph = graphOf(current);
+            final int edge = current - mStateOffsets[graph];
+            edges[graph].add(edge);
+            distances[graph] += mEngines[graph].getGraph().edgeDistance(edge);
+            seconds[graph] += mSeconds[current] - mSeconds[mPrevious[current]];
+        }
+
+        final Graph startGraph = mEngines[START].getGraph();
+        final Graph outdoorGraph = mEngines[OUTDOOR].getGraph();
+        final Graph targetGraph = mEngines[TARGET].getGraph();
+        for (IntList graphEdges : edges) {
+            graphEdges.reverse();
+        }
+
+        // Each path ends at the node the next path starts from, which has the same ID in both graphs
+        final int exit = edges[START].size() > 0
+                ? startGraph.edgeTarget(edges[START].get(edges[START].size() - 1))
+                : start;
+        final int outdoorExit = outdoorGraph.indexOf(startGraph.nodeId(exit));
+        final int outdoorEntrance = edges[OUTDOOR].size() > 0
+                ? outdoorGraph.edgeTarget(edges[OUTDOOR].get(edges[OUTDOOR].size() - 1))
+                : outdoorExit;
+        final int entrance = targetGraph.indexOf(outdoorGraph.nodeId(outdoorEntrance));
+        final int target = edges[TARGET].size() > 0
+                ? targetGraph.edgeTarget(edges[TARGET].get(edges[TARGET].size() - 1))
+                : entrance;
+
+        return new Path[] {
+                new Path(exit, start, distances[START], seconds[START], edges[START].toArray()),
+                new Path(outdoorEntrance, outdoorExit, distances[OUTDOOR], seconds[OUTDOOR], edges[OUTDOOR].toArray()),
+                new Path(target, entrance, distances[TARGET], seconds[TARGET], edges[TARGET].toArray()),
+        };
+    }
+
+    /**
+     * Returns true if changing from one direction to another is a turn, rather than continuing straight.
+     *
+     * @param first  the direction being faced
+     * @param second the direction to face
+     * @return true if one direction is up or down and the other is left or right
+     */
+    private static boolean isTurn(byte first, byte second) {
+        return isVertical(first) != isVertical(second);
+    }
+
+    /**
+     * Returns true for directions which are up or down.
+     *
+     * @param direction the direction
+     * @return true for up and down, false for left and right
+     */
+    private static boolean isVertical(byte direction) {
+        return direction == 'U' || direction == 'D';
+    }
+}
@@ -0,0 +1,561 @@
+package ca.josephroque.campusguide.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Map;
+
+/**
+ * Graph of rooms of a building, or buildings of a campus, with nodes assigned dense integer indices and edges
+ * stored in compressed sparse rows. The edges of node {@code n} are {@code [edgeStart(n), edgeEnd(n))}, in the
+ * same order they appear in the graph file, and {@link #edgeIndex(int)} is an edge's index in the node's adjacency
+ * list in {@code src/util/graph/CampusGraph.ts}. Accessible graphs only have the edges which accessible paths can
+ * follow, so their edges may be missing from a node's list.
+ *
+ * Graphs are read from the compiled format written by {@link BinaryGraph}, usually straight from a memory mapped
+ * file, so loading a graph does not require parsing or copying it.
+ */
+final class Graph {
+
+    /** Indicates a node is not on any floor. */
+    static final int NO_FLOOR = Integer.MIN_VALUE;
+    /** Edge flag for edges which are accessible. */
+    static final byte EDGE_ACCESSIBLE = 1;
+    /** Edge flag for edges which are closed. */
+    static final byte EDGE_EXCLUDED = 2;
+    /** Node flag for nodes with edges of their own in the graph file, before any edges were pruned. */
+    static final byte NODE_LISTED = 1;
+
+    /** Shorthand of the building the graph describes. */
+    private final String mBuilding;
+    /** Name or ID of the campus the building is on. */
+    private final String mCampus;
+    /** Formatting rules, in the order they were defined. */
+    private final Map<String, String> mFormattingRules;
+    /** Mapping of street IDs to their names. */
+    private final Map<String, String> mStreetNames;
+
+    /** Formatted ID of each node. */
+    private final StringTable mNodeIds;
+    /** Displacement of each bucket of the minimal perfect hash of node IDs. See {@link NodeIdHash}. */
+    private final IntBuffer mNodeDisplacements;
+    /** Node in each slot of the minimal perfect hash of node IDs. */
+    private final IntBuffer mNodeSlots;
+    /** Street names of each intersection or street node. */
+    private final StringTable mNodeDetails;
+    /** Type of each node. */
+    private final ByteBuffer mNodeTypes;
+    /** Combination of {@link #NODE_LISTED} for each node. */
+    private final ByteBuffer mNodeFlags;
+    /** Floor of each node, or {@link #NO_FLOOR}. */
+    private final IntBuffer mNodeFloors;
+    /** Index into {@link #mBuildings} of the building each node is in. */
+    private final IntBuffer mNodeBuildings;
+    /** Floor cell each node is in, or -1. */
+    private final IntBuffer mNodeCells;
+    /** Buildings which nodes in the graph belong to. */
+    private final String[] mBuildings;
+    /** Outdoor x and y coordinates of each node which is an exit, or NaN for other nodes. */
+    private final FloatBuffer mExits;
+    /** Layout x and y coordinates of each node, or NaN if the layout of the graph is unknown. */
+    private final FloatBuffer mCoordinates;
+    /** Factor which converts layout distances into a lower bound of path distances, or 0 with no layout. */
+    private final float mHeuristicScale;
+
+    /** Offset of the first edge of each node, with one extra entry marking the end of the last node's edges. */
+    private final IntBuffer mEdgeOffsets;
+    /** Node each edge starts from. */
+    private final IntBuffer mEdgeSources;
+    /** Node each edge leads to. */
+    private final IntBuffer mEdgeTargets;
+    /** Length of each edge. */
+    private final IntBuffer mEdgeDistances;
+    /** Direction of travel along each edge. */
+    private final ByteBuffer mEdgeDirections;
+    /** Combination of {@link #EDGE_ACCESSIBLE} and {@link #EDGE_EXCLUDED} for each edge. */
+    private final ByteBuffer mEdgeFlags;
+    /** Index of each edge in its source's list of edges in the graph file. */
+    private final IntBuffer mEdgeIndices;
+    /** True if the graph only has the edges which accessible paths can follow. */
+    private final boolean mAccessibleOnly;
+
+    /** Pairs of nodes with closed edges between them. */
+    private final IntBuffer mExcludedPairs;
+
+    /** Doors which distances were precomputed to. */
+    private final IntBuffer mDoors;
+    /** Index into {@link #mDoors} of each node, or -1. */
+    private final IntBuffer mDoorColumns;
+    /** Row of precomputed distances of each node, or -1. */
+    private final IntBuffer mDoorRows;
+    /** Distance from each row's node to each door, for any path and then for accessible paths, or -1. */
+    private final IntBuffer mDoorDistances;
+
+    /**
+     * Constructor for a graph over the sections of a compiled graph. See {@link BinaryGraph} for the layout.
+     * Buffers are not copied and must not be modified afterwards.
+     *
+     * @param building          shorthand of the building the graph describes
+     * @param campus            campus the building is on
+     * @param formattingRules   formatting rules of the graph
+     * @param streetNames       street names, by ID
+     * @param nodeIds           formatted ID of each node
+     * @param nodeDisplacements displacement of each bucket of the node ID hash
+     * @param nodeSlots         node in each slot of the node ID hash
+     * @param nodeDetails       street names of each node
+     * @param nodeTypes         type of each node
+     * @param nodeFlags         flags of each node
+     * @param nodeFloors        floor of each node
+     * @param nodeBuildings     building index of each node
+     * @param nodeCells         floor cell of each node
+     * @param buildings         building shorthands referenced by {@code nodeBuildings}
+     * @param exits             exit coordinates of each node
+     * @param coordinates       layout coordinates of each node
+     * @param heuristicScale    factor to convert layout distances to a lower bound of path distances
+     * @param edgeOffsets       offset of the first edge of each node
+     * @param edgeSources       node each edge starts from
+     * @param edgeTargets       node each edge leads to
+     * @param edgeDistances     length of each edge
+     * @param edgeDirections    direction of each edge
+     * @param edgeFlags         accessibility and closure of each edge
+     * @param edgeIndices       index of each edge in its source's list of edges in the graph file
+     * @param accessibleOnly    true if the graph only has the edges accessible paths can follow
+     * @param excludedPairs     pairs of nodes with closed edges between them
+     * @param doors             doors which distances were precomputed to
+     * @param doorColumns       index of each node in {@code doors}
+     * @param doorRows          row of precomputed distances of each node
+     * @param doorDistances     precomputed distances from each row's node to each door
+     */
+    Graph(String building,
+          String campus,
+          Map<String, String> formattingRules,
+          Map<String, String> streetNames,
+          StringTable nodeIds,
+          IntBuffer nodeDisplacements,
+          IntBuffer nodeSlots,
+          StringTable nodeDetails,
+          ByteBuffer nodeTypes,
+          ByteBuffer nodeFlags,
+          IntBuffer nodeFloors,
+          IntBuffer nodeBuildings,
+          IntBuffer nodeCells,
+          String[] buildings,
+          FloatBuffer exits,
+          FloatBuffer coordinates,
+          float heuristicScale,
+          IntBuffer edgeOffsets,
+          IntBuffer edgeSources,
+          IntBuffer edgeTargets,
+          IntBuffer edgeDistances,
+          ByteBuffer edgeDirections,
+          ByteBuffer edgeFlags,
+          IntBuffer edgeIndices,
+          boolean accessibleOnly,
+          IntBuffer excludedPairs,
+          IntBuffer doors,
+          IntBuffer doorColumns,
+          IntBuffer doorRows,
+          IntBuffer doorDistances) {
+        mBuilding = building;
+        mCampus = campus;
+        mFormattingRules = formattingRules;
+        mStreetNames = streetNames;
+        mNodeIds = nodeIds;
+        mNodeDisplacements = nodeDisplacements;
+        mNodeSlots = nodeSlots;
+        mNodeDetails = nodeDetails;
+        mNodeTypes = nodeTypes;
+        mNodeFlags = nodeFlags;
+        mNodeFloors = nodeFloors;
+        mNodeBuildings = nodeBuildings;
+        mNodeCells = nodeCells;
+        mBuildings = buildings;
+        mExits = exits;
+        mCoordinates = coordinates;
+        mHeuristicScale = heuristicScale;
+        mEdgeOffsets = edgeOffsets;
+        mEdgeSources = edgeSources;
+        mEdgeTargets = edgeTargets;
+        mEdgeDistances = edgeDistances;
+        mEdgeDirections = edgeDirections;
+        mEdgeFlags = edgeFlags;
+        mEdgeIndices = edgeIndices;
+        mAccessibleOnly = accessibleOnly;
+        mExcludedPairs = excludedPairs;
+        mDoors = doors;
+        mDoorColumns = doorColumns;
+        mDoorRows = doorRows;
+        mDoorDistances = doorDistances;
+    }
+
+    /**
+     * Returns the shorthand of the building the graph describes.
+     *
+     * @return the building shorthand
+     */
+    String getBuilding() {
+        return mBuilding;
+    }
+
+    /**
+     * Returns the campus the building is on.
+     *
+     * @return the campus name or ID
+     */
+    String getCampus() {
+        return mCampus;
+    }
+
+    /**
+     * Returns the formatting rules of the graph.
+     *
+     * @return the formatting rules, in the order they were defined
+     */
+    Map<String, String> getFormattingRules() {
+        return mFormattingRules;
+    }
+
+    /**
+     * Returns the name of a street.
+     *
+     * @param streetId ID of the street
+     * @return the street's name, or null if it is not in the graph
+     */
+    String getStreetName(String streetId) {
+        return mStreetNames.get(streetId);
+    }
+
+    /**
+     * Returns true if the graph only has the edges which accessible paths can follow, so searches for accessible
+     * paths do not need to check each edge.
+     *
+     * @return true for accessible graphs, false for graphs with every edge
+     */
+    boolean isAccessibleOnly() {
+        return mAccessibleOnly;
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return the number of nodes
+     */
+    int getNodeCount() {
+        return mNodeIds.size();
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return the number of edges
+     */
+    int getEdgeCount() {
+        return mEdgeTargets.limit();
+    }
+
+    /**
+     * Returns the index of a node.
+     *
+     * @param nodeId formatted ID of the node
+     * @return the index of the node, or -1 if it is not in the graph
+     */
+    int indexOf(String nodeId) {
+        if (mNodeSlots.limit() == 0) {
+            return -1;
+        }
+
+        final byte[] key = nodeId.getBytes(StringTable.UTF_8);
+        final int node = mNodeSlots.get(NodeIdHash.slotOf(key, mNodeDisplacements));
+        return mNodeIds.compare(node, key) == 0 ? node : -1;
+    }
+
+    /**
+     * Returns the formatted ID of a node.
+     *
+     * @param node index of the node
+     * @return the node's ID
+     */
+    String nodeId(int node) {
+        return mNodeIds.get(node);
+    }
+
+    /**
+     * Returns the type of a node.
+     *
+     * @param node index of the node
+     * @return the node's type, from {@link NodeType}
+     */
+    byte nodeType(int node) {
+        return mNodeTypes.get(node);
+    }
+
+    /**
+     * Returns the floor of a node.
+     *
+     * @param node index of the node
+     * @return the floor the node is on, or {@link #NO_FLOOR}
+     */
+    int nodeFloor(int node) {
+        return mNodeFloors.get(node);
+    }
+
+    /**
+     * Returns an identifier for the building a node is in, which is equal for two nodes in the same building.
+     *
+     * @param node index of the node
+     * @return the node's building identifier
+     */
+    int nodeBuilding(int node) {
+        return mNodeBuildings.get(node);
+    }
+
+    /**
+     * Returns the floor cell a node is in. Paths only move between cells through stairs and elevators, which are
+     * in no cell.
+     *
+     * @param node index of the node
+     * @return the node's cell, or -1 for stairs, elevators, and graphs which are not split into cells
+     */
+    int nodeCell(int node) {
+        return mNodeCells.get(node);
+    }
+
+    /**
+     * Returns the shorthand of the building a node is in.
+     *
+     * @param node index of the node
+     * @return the node's building shorthand
+     */
+    String nodeBuildingName(int node) {
+        return mBuildings[mNodeBuildings.get(node)];
+    }
+
+    /**
+     * Returns true if a node is an exit of its building, with coordinates on the outdoor graph.
+     *
+     * @param node index of the node
+     * @return true if the node has exit coordinates
+     */
+    boolean isExit(int node) {
+        return !Float.isNaN(mExits.get(node * 2));
+    }
+
+    /**
+     * Returns the outdoor x coordinate of an exit.
+     *
+     * @param node index of the node
+     * @return the node's x coordinate, or NaN if it is not an exit
+     */
+    float exitX(int node) {
+        return mExits.get(node * 2);
+    }
+
+    /**
+     * Returns the outdoor y coordinate of an exit.
+     *
+     * @param node index of the node
+     * @return the node's y coordinate, or NaN if it is not an exit
+     */
+    float exitY(int node) {
+        return mExits.get(node * 2 + 1);
+    }
+
+    /**
+     * Returns true if the graph has the layout of every node, so searches can estimate remaining distances.
+     *
+     * @return true if {@link #estimateDistance(int, int)} can be used
+     */
+    boolean hasHeuristic() {
+        return mHeuristicScale > 0;
+    }
+
+    /**
+     * Estimate the distance of a path between two nodes from their layout coordinates. Never more than the
+     * shortest path between the nodes.
+     *
+     * @param node   index of the first node
+     * @param target index of the second node
+     * @return the estimated distance, or 0 if the graph has no layout
+     */
+    int estimateDistance(int node, int target) {
+        if (mHeuristicScale <= 0) {
+            return 0;
+        }
+
+        final double length = Math.hypot(
+                mCoordinates.get(node * 2) - mCoordinates.get(target * 2),
+                mCoordinates.get(node * 2 + 1) - mCoordinates.get(target * 2 + 1));
+        return (int) (length * mHeuristicScale);
+    }
+
+    /**
+     * Returns the street names of an intersection or street.
+     *
+     * @param node index of the node
+     * @return the node's street names, or the empty string for other nodes
+     */
+    String nodeDetail(int node) {
+        return mNodeDetails.get(node);
+    }
+
+    /**
+     * Returns true if the node has edges of its own.
+     *
+     * @param node index of the node
+     * @return true if the node has outgoing edges
+     */
+    boolean hasEdges(int node) {
+        return mEdgeOffsets.get(node + 1) > mEdgeOffsets.get(node);
+    }
+
+    /**
+     * Returns true if the node had edges of its own in the graph file. Nodes which are only referenced by other
+     * nodes are not considered part of the graph for searches. Accessible graphs keep every node which was listed
+     * in the graph with every edge, even if none of its edges can be followed by accessible paths, the same as
+     * {@code getAccessibleGraph} in {@code src/util/graph/CampusGraph.ts}.
+     *
+     * @param node index of the node
+     * @return true if the node is part of the graph
+     */
+    boolean isListed(int node) {
+        return (mNodeFlags.get(node) & NODE_LISTED) != 0;
+    }
+
+    /**
+     * Returns the index of the first edge of a node.
+     *
+     * @param node index of the node
+     * @return index of the node's first edge
+     */
+    int edgeStart(int node) {
+        return mEdgeOffsets.get(node);
+    }
+
+    /**
+     * Returns the index after the last edge of a node.
+     *
+     * @param node index of the node
+     * @return index after the node's last edge
+     */
+    int edgeEnd(int node) {
+        return mEdgeOffsets.get(node + 1);
+    }
+
+    /**
+     * Returns the node an edge starts from.
+     *
+     * @param edge index of the edge
+     * @return index of the edge's source node
+     */
+    int edgeSource(int edge) {
+        return mEdgeSources.get(edge);
+    }
+
+    /**
+     * Returns the node an edge leads to.
+     *
+     * @param edge index of the edge
+     * @return index of the edge's target node
+     */
+    int edgeTarget(int edge) {
+        return mEdgeTargets.get(edge);
+    }
+
+    /**
+     * Returns the index of an edge in its source's list of edges in the graph file.
+     *
+     * @param edge index of the edge
+     * @return the edge's index in its source's adjacency list
+     */
+    int edgeIndex(int edge) {
+        return mEdgeIndices.get(edge);
+    }
+
+    /**
+     * Returns the length of an edge.
+     *
+     * @param edge index of the edge
+     * @return the edge's distance
+     */
+    int edgeDistance(int edge) {
+        return mEdgeDistances.get(edge);
+    }
+
+    /**
+     * Returns the direction of travel along an edge.
+     *
+     * @param edge index of the edge
+     * @return one of 'U', 'D', 'L' or 'R'
+     */
+    byte edgeDirection(int edge) {
+        return mEdgeDirections.get(edge);
+    }
+
+    /**
+     * Returns true if an edge is accessible.
+     *
+     * @param edge index of the edge
+     * @return true if the edge is marked accessible
+     */
+    boolean isEdgeAccessible(int edge) {
+        return (mEdgeFlags.get(edge) & EDGE_ACCESSIBLE) != 0;
+    }
+
+    /**
+     * Returns true if an edge is closed.
+     *
+     * @param edge index of the edge
+     * @return true if the edge appears in the graph's excluded section
+     */
+    boolean isEdgeExcluded(int edge) {
+        return (mEdgeFlags.get(edge) & EDGE_EXCLUDED) != 0;
+    }
+
+    /**
+     * Returns the number of pairs of nodes which have closed edges between them.
+     *
+     * @return the number of excluded pairs
+     */
+    int getExcludedPairCount() {
+        return mExcludedPairs.limit() / 2;
+    }
+
+    /**
+     * Returns a node of an excluded pair.
+     *
+     * @param pair  index of the pair
+     * @param which 0 for the first node of the pair, 1 for the second
+     * @return index of the node
+     */
+    int excludedPairNode(int pair, int which) {
+        return mExcludedPairs.get(pair * 2 + which);
+    }
+
+    /**
+     * Returns true if distances from a node to each door of the graph were precomputed.
+     *
+     * @param node index of the node
+     * @return true if {@link #doorDistance(int, int, boolean)} can be used for the node
+     */
+    boolean hasDoorDistances(int node) {
+        return mDoorRows.get(node) >= 0;
+    }
+
+    /**
+     * Returns the precomputed distance of the shortest path from a node to a door.
+     *
+     * @param node       index of the node, which must have precomputed distances
+     * @param door       index of the door
+     * @param accessible true for the distance of an accessible path, false for any path
+     * @return the distance, or -1 if the door cannot be reached or is not in the table
+     */
+    int doorDistance(int node, int door, boolean accessible) {
+        final int column = mDoorColumns.get(door);
+        if (column < 0) {
+            return -1;
+        }
+
+        final int row = mDoorRows.get(node) * 2 + (accessible ? 1 : 0);
+        return mDoorDistances.get(row * mDoors.limit() + column);
+    }
+}
@@ -0,0 +1,126 @@
+package ca.josephroque.campusguide.graph;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of engines for loaded graphs, by building. Each engine is stored with the version of
+ * the configuration its graph was loaded from, and is only returned for that version, so graphs are reloaded
+ * after a configuration update. Counts hits and misses, to tune the size of the cache. Safe to use from multiple
+ * threads, so the cache can be trimmed from the main thread while searches run.
+ */
+final class GraphCache {
+
+    /** Maximum number of engines to keep. */
+    private final int mMaxSize;
+    /** Cached engines, by building, in order from least to most recently used. */
+    private final Map<String, Entry> mEntries;
+    /** Number of times an engine was found in the cache. */
+    private int mHitCount;
+    /** Number of times an engine was not found in the cache. */
+    private int mMissCount;
+
+    /**
+     * Constructor for an empty cache.
+     *
+     * @param maxSize maximum number of engines to keep
+     */
+    GraphCache(int maxSize) {
+        mMaxSize = maxSize;
+        mEntries = new LinkedHashMap<>(maxSize, 0.75f, true);
+    }
+
+    /**
+     * Get the engine for a building's graph, if it has been loaded from a version of the configuration.
+     *
+     * @param building shorthand of the building
+     * @param version  version of the configuration the graph must be loaded from
+     * @return the engine, or null if it has not been loaded from the version
+     */
+    synchronized RoutingEngine get(String building, String version) {
+        final Entry entry = mEntries.get(building);
+        if (entry == null || !entry.version.equals(version)) {
+            mMissCount++;
+            return null;
+        }
+
+        mHitCount++;
+        return entry.engine;
+    }
+
+    /**
+     * Add the engine for a building's graph, replacing any engine for another version of its graph. Removes the
+     * least recently used engine if the cache is full.
+     *
+     * @param building shorthand of the building
+     * @param version  version of the configuration the graph was loaded from
+     * @param engine   engine for the graph
+     */
+    synchronized void put(String building, String version, RoutingEngine engine) {
+        mEntries.put(building, new Entry(version, engine));
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * Remove the least recently used engines until there are at most {@code size} in the cache.
+     *
+     * @param size maximum number of engines to keep
+     */
+    synchronized void trimToSize(int size) {
+        final Iterator<Entry> entries = mEntries.values().iterator();
+        while (mEntries.size() > Math.max(size, 0) && entries.hasNext()) {
+            entries.next();
+            entries.remove();
+        }
+    }
+
+    /**
+     * Get the number of engines in the cache.
+     *
+     * @return the number of engines
+     */
+    synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Get the number of times an engine was found in the cache.
+     *
+     * @return the number of hits
+     */
+    synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Get the number of times an engine was not found in the cache.
+     *
+     * @return the number of misses
+     */
+    synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * An engine and the version of the configuration its graph was loaded from.
+     */
+    private static final class Entry {
+
+        /** Version of the configuration the graph was loaded from. */
+        final String version;
+        /** Engine for the graph. */
+        final RoutingEngine engine;
+
+        /**
+         * Constructor for an entry.
+         *
+         * @param version version of the configuration the graph was loaded from
+         * @param engine  engine for the graph
+         */
+        Entry(String version, RoutingEngine engine) {
+            this.version = version;
+            this.engine = engine;
+        }
+    }
+}
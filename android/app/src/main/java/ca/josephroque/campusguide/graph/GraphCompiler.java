@@ -0,0 +1,268 @@
+package ca.josephroque.campusguide.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles a building's graph file, with its layout, into the binary format read by {@link Graph}. Distances
+ * which do not change between configuration updates are precomputed, so searches can look them up.
+ */
+final class GraphCompiler {
+
+    /**
+     * Default constructor.
+     */
+    private GraphCompiler() {
+        // Does nothing
+    }
+
+    /**
+     * Parse a graph and precompute its tables.
+     *
+     * @param building   shorthand of the building the graph describes
+     * @param textFile   the text graph file
+     * @param layoutFile the graph's layout file, or null if there is none
+     * @return the graph, ready to be written by {@link BinaryGraph}
+     * @throws IOException if the graph or its layout could not be read
+     */
+    static ParsedGraph compile(String building, File textFile, File layoutFile) throws IOException {
+        final ParsedGraph parsed = GraphParser.parse(building, textFile);
+        if (layoutFile != null && layoutFile.exists()) {
+            GraphParser.setCoordinates(parsed, GraphLayout.read(layoutFile, building));
+        }
+
+        computeFloorCells(parsed);
+        computeDoorDistances(parsed);
+        return parsed;
+    }
+
+    /**
+     * Split a building's graph into cells, one for each floor named by its floor formatting rules. The building's
+     * stairs and elevators are the portals between cells, and belong to none. Nodes without a floor, such as doors,
+     * join the cell of the nodes they have edges with, and floors joined by an edge which is not a portal share a
+     * cell, so paths only move between cells through portals. Graphs with fewer than two cells are not split.
+     *
+     * @param parsed the parsed graph
+     */
+    private static void computeFloorCells(ParsedGraph parsed) {
+        final int nodeCount = parsed.nodeIds.length;
+        final int[] groups = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            groups[node] = node;
+        }
+
+        // Nodes on the same floor share a cell, even if they are only connected through another floor
+        final Map<Integer, Integer> floorNodes = new HashMap<>();
+        for (int node = 0; node < nodeCount; node++) {
+            final int floor = parsed.nodeFloors[node];
+            if (floor == Graph.NO_FLOOR || isPortal(parsed, node)) {
+                continue;
+            }
+
+            final Integer floorNode = floorNodes.get(floor);
+            if (floorNode == null) {
+                floorNodes.put(floor, node);
+            } else {
+                joinGroups(groups, floorNode, node);
+            }
+        }
+
+        for (int edge = 0; edge < parsed.edgeTargets.length; edge++) {
+            final int source = parsed.edgeSources[edge];
+            final int target = parsed.edgeTargets[edge];
+            if (!isPortal(parsed, source) && !isPortal(parsed, target)) {
+                joinGroups(groups, source, target);
+            }
+        }
+
+        final int[] groupCells = new int[nodeCount];
+        Arrays.fill(groupCells, -1);
+        Arrays.fill(parsed.nodeCells, -1);
+        int cellCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (isPortal(parsed, node)) {
+                continue;
+            }
+
+            final int group = findGroup(groups, node);
+            if (groupCells[group] < 0) {
+                groupCells[group] = cellCount++;
+            }
+            parsed.nodeCells[node] = groupCells[group];
+        }
+
+        if (cellCount < 2) {
+            Arrays.fill(parsed.nodeCells, -1);
+        }
+    }
+
+    /**
+     * Returns true if a node is a portal between the floor cells of a graph: a staircase or elevator of the
+     * graph's own building.
+     *
+     * @param parsed the parsed graph
+     * @param node   index of the node
+     * @return true if the node is a portal, false otherwise
+     */
+    private static boolean isPortal(ParsedGraph parsed, int node) {
+        return NodeType.isFloorChange(parsed.nodeTypes[node])
+                && parsed.buildings[parsed.nodeBuildings[node]].equals(parsed.building);
+    }
+
+    /**
+     * Find the group a node belongs to, shortening the way to the group for the nodes along the way.
+     *
+     * @param groups the node each node was grouped with, or itself
+     * @param node   the node
+     * @return the node which identifies the group
+     */
+    static int findGroup(int[] groups, int node) {
+        int group = node;
+        while (groups[group] != group) {
+            groups[group] = groups[groups[group]];
+            group = groups[group];
+        }
+        return group;
+    }
+
+    /**
+     * Join the groups of two nodes.
+     *
+     * @param groups the node each node was grouped with, or itself
+     * @param first  the first node
+     * @param second the second node
+     */
+    static void joinGroups(int[] groups, int first, int second) {
+        final int firstGroup = findGroup(groups, first);
+        final int secondGroup = findGroup(groups, second);
+        groups[Math.max(firstGroup, secondGroup)] = Math.min(firstGroup, secondGroup);
+    }
+
+    /**
+     * Build a graph with only the edges which accessible paths can follow: edges marked accessible, and edges which
+     * do not lead to stairs. Nodes keep their indices, flags, and the door table, so accessible searches can run on
+     * the smaller graph without checking each edge. A node whose edges are all dropped is still listed, so it can
+     * still be reached as a target.
+     *
+     * @param parsed the graph with every edge, after its tables are precomputed
+     * @return the accessible graph, ready to be written by {@link BinaryGraph}
+     */
+    static ParsedGraph pruneToAccessible(ParsedGraph parsed) {
+        final int nodeCount = parsed.nodeIds.length;
+        final IntList kept = new IntList();
+        final int[] edgeOffsets = new int[nodeCount + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            edgeOffsets[node] = kept.size();
+            for (int edge = parsed.edgeOffsets[node]; edge < parsed.edgeOffsets[node + 1]; edge++) {
+                if ((parsed.edgeFlags[edge] & Graph.EDGE_ACCESSIBLE) != 0
+                        || parsed.nodeTypes[parsed.edgeTargets[edge]] != NodeType.STAIRS) {
+                    kept.add(edge);
+                }
+            }
+        }
+        edgeOffsets[nodeCount] = kept.size();
+
+        final int edgeCount = kept.size();
+        final int[] edgeSources = new int[edgeCount];
+        final int[] edgeTargets = new int[edgeCount];
+        final int[] edgeDistances = new int[edgeCount];
+        final byte[] edgeDirections = new byte[edgeCount];
+        final byte[] edgeFlags = new byte[edgeCount];
+        final int[] edgeIndices = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            final int edge = kept.get(i);
+            edgeSources[i] = parsed.edgeSources[edge];
+            edgeTargets[i] = parsed.edgeTargets[edge];
+            edgeDistances[i] = parsed.edgeDistances[edge];
+            edgeDirections[i] = parsed.edgeDirections[edge];
+            edgeFlags[i] = parsed.edgeFlags[edge];
+            edgeIndices[i] = parsed.edgeIndices[edge];
+        }
+
+        final ParsedGraph accessible = new ParsedGraph();
+        accessible.building = parsed.building;
+        accessible.campus = parsed.campus;
+        accessible.formattingRules = parsed.formattingRules;
+        accessible.streetNames = parsed.streetNames;
+        accessible.nodeIds = parsed.nodeIds;
+        accessible.nodeTypes = parsed.nodeTypes;
+        accessible.nodeFlags = parsed.nodeFlags;
+        accessible.nodeFloors = parsed.nodeFloors;
+        accessible.nodeBuildings = parsed.nodeBuildings;
+        accessible.nodeCells = parsed.nodeCells;
+        accessible.buildings = parsed.buildings;
+        accessible.exits = parsed.exits;
+        accessible.nodeDetails = parsed.nodeDetails;
+        accessible.coordinates = parsed.coordinates;
+        accessible.heuristicScale = parsed.heuristicScale;
+        accessible.edgeOffsets = edgeOffsets;
+        accessible.edgeSources = edgeSources;
+        accessible.edgeTargets = edgeTargets;
+        accessible.edgeDistances = edgeDistances;
+        accessible.edgeDirections = edgeDirections;
+        accessible.edgeFlags = edgeFlags;
+        accessible.edgeIndices = edgeIndices;
+        accessible.accessibleOnly = true;
+        accessible.excludedPairs = parsed.excludedPairs;
+        accessible.sourceOrder = parsed.sourceOrder;
+        accessible.exitOrder = parsed.exitOrder;
+        accessible.detailOrder = parsed.detailOrder;
+        accessible.doors = parsed.doors;
+        accessible.doorColumns = parsed.doorColumns;
+        accessible.doorRows = parsed.doorRows;
+        accessible.doorDistances = parsed.doorDistances;
+        return accessible;
+    }
+
+    /**
+     * Find the distance from every room and door to every door of a graph, for any path and for accessible paths.
+     * Inside a building, these are the distances from each room to each exit. Outside, they are the distances
+     * between every pair of doors.
+     *
+     * @param parsed the parsed graph
+     * @throws IOException if the graph could not be compiled to search it
+     */
+    private static void computeDoorDistances(ParsedGraph parsed) throws IOException {
+        final int nodeCount = parsed.nodeIds.length;
+        final IntList doors = new IntList();
+        final IntList rows = new IntList();
+        for (int node = 0; node < nodeCount; node++) {
+            if (parsed.edgeOffsets[node + 1] == parsed.edgeOffsets[node]) {
+                continue;
+            }
+
+            final byte type = parsed.nodeTypes[node];
+            if (type == NodeType.DOOR) {
+                parsed.doorColumns[node] = doors.size();
+                doors.add(node);
+            }
+            if (type == NodeType.DOOR || type == NodeType.ROOM) {
+                parsed.doorRows[node] = rows.size();
+                rows.add(node);
+            }
+        }
+
+        parsed.doors = doors.toArray();
+        parsed.doorDistances = new int[rows.size() * parsed.doors.length * 2];
+        if (parsed.doors.length == 0) {
+            Arrays.fill(parsed.doorRows, -1);
+            return;
+        }
+
+        final RoutingEngine engine = new RoutingEngine(BinaryGraph.fromParsed(parsed));
+        for (int row = 0; row < rows.size(); row++) {
+            final int[] distances = engine.findDistances(rows.get(row), parsed.doors, false);
+            final int[] accessibleDistances = engine.findDistances(rows.get(row), parsed.doors, true);
+            System.arraycopy(distances, 0, parsed.doorDistances, row * 2 * distances.length, distances.length);
+            System.arraycopy(
+                    accessibleDistances,
+                    0,
+                    parsed.doorDistances,
+                    (row * 2 + 1) * distances.length,
+                    distances.length);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ca.josephroque.campusguide.graph;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Streams graph files into a {@link GraphParser} one line at a time, decoding them straight from a
+ * {@link FileChannel} without reading the whole file into memory. The buffers are kept between files, so a reader
+ * which parses many graphs allocates nothing but the lines themselves.
+ *
+ * Instances are not thread safe.
+ */
+final class GraphFileReader {
+
+    /** Size of the byte and character buffers. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Bytes read from the file, waiting to be decoded. */
+    private final ByteBuffer mBytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    /** Characters decoded from the file, waiting to be split into lines. */
+    private final CharBuffer mChars = CharBuffer.allocate(BUFFER_SIZE);
+    /** Decodes UTF-8 bytes, replacing invalid input like {@link java.io.InputStreamReader} does. */
+    private final CharsetDecoder mDecoder = StringTable.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    /** Characters of the line being read. */
+    private final StringBuilder mLine = new StringBuilder();
+    /** True if the last character was a carriage return, so a following line feed ends the same line. */
+    private boolean mSkipLineFeed;
+
+    /**
+     * Parse a graph file.
+     *
+     * @param building shorthand of the building the graph describes
+     * @param file     the graph file
+     * @return the parsed graph
+     * @throws IOException if the file could not be read
+     */
+    ParsedGraph read(String building, File file) throws IOException {
+        final GraphParser parser = new GraphParser(building);
+        mDecoder.reset();
+        mBytes.clear();
+        mChars.clear();
+        mLine.setLength(0);
+        mSkipLineFeed = false;
+
+        final FileInputStream input = new FileInputStream(file);
+        try {
+            final FileChannel channel = input.getChannel();
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                endOfInput = channel.read(mBytes) < 0;
+                mBytes.flip();
+                CoderResult result;
+                do {
+                    result = mDecoder.decode(mBytes, mChars, endOfInput);
+                    parseLines(parser);
+                } while (result.isOverflow());
+                mBytes.compact();
+            }
+
+            while (mDecoder.flush(mChars).isOverflow()) {
+                parseLines(parser);
+            }
+            parseLines(parser);
+        } finally {
+            input.close();
+        }
+
+        // The last line may not have a line terminator
+        if (mLine.length() > 0) {
+            parser.parseLine(mLine.toString());
+        }
+
+        return parser.build();
+    }
+
+    /**
+     * Pass each complete line of the decoded characters to the parser, and keep the start of any incomplete line.
+     * Lines end with a line feed, a carriage return, or both, like {@link java.io.BufferedReader#readLine()}.
+     *
+     * @param parser the parser to pass lines to
+     * @throws IOException if a line could not be parsed
+     */
+    private void parseLines(GraphParser parser) throws IOException {
+        mChars.flip();
+        while (mChars.hasRemaining()) {
+            final char next = mChars.get();
+            if (mSkipLineFeed) {
+                mSkipLineFeed = false;
+                if (next == '\n') {
+                    continue;
+                }
+            }
+
+            if (next == '\n' || next == '\r') {
+                parser.parseLine(mLine.toString());
+                mLine.setLength(0);
+                mSkipLineFeed = next == '\r';
+            } else {
+                mLine.append(next);
+            }
+        }
+        mChars.clear();
+    }
+}
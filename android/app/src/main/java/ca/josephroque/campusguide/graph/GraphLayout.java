@@ -0,0 +1,101 @@
+package ca.josephroque.campusguide.graph;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the coordinates of nodes from the {@code <building>.gg} layout file a graph was drawn in, so searches can
+ * estimate the distance remaining to their target.
+ */
+final class GraphLayout {
+
+    /** Node type for each type code in a layout file. */
+    private static final byte[] TYPE_CODES = {
+        NodeType.DOOR,
+        NodeType.STAIRS,
+        NodeType.ELEVATOR,
+        NodeType.HALLWAY,
+        NodeType.ROOM,
+        NodeType.STREET,
+        NodeType.PATH,
+        NodeType.INTERSECTION,
+        NodeType.OUTDOOR_STEPS,
+    };
+
+    /** Extension of layout files. */
+    static final String EXTENSION = ".gg";
+
+    /**
+     * Default constructor.
+     */
+    private GraphLayout() {
+        // Does nothing
+    }
+
+    /**
+     * Read the coordinates of every node in a layout file.
+     *
+     * @param file     the layout file
+     * @param building shorthand of the building the layout describes
+     * @return the x and y coordinates of each node, by formatted ID
+     * @throws IOException if the file could not be read or is not a valid layout
+     */
+    static Map<String, float[]> read(File file, String building) throws IOException {
+        final Map<String, float[]> coordinates = new HashMap<>();
+        try {
+            final JSONArray floors = new JSONObject(readText(file)).getJSONArray("floors");
+            for (int i = 0; i < floors.length(); i++) {
+                final JSONArray nodes = floors.getJSONObject(i).getJSONArray("nodes");
+                for (int j = 0; j < nodes.length(); j++) {
+                    final JSONObject node = nodes.getJSONObject(j);
+                    final int type = node.getInt("type");
+                    if (type < 0 || type >= TYPE_CODES.length) {
+                        continue;
+                    }
+
+                    final String nodeBuilding = node.optString("bid", "");
+                    final String id = "B" + (nodeBuilding.length() == 0 ? building : nodeBuilding)
+                            + "#" + (char) TYPE_CODES[type] + node.getString("name");
+                    coordinates.put(id, new float[] {(float) node.getDouble("x"), (float) node.getDouble("y")});
+                }
+            }
+        } catch (JSONException ex) {
+            throw new IOException("Invalid graph layout " + file.getPath(), ex);
+        }
+
+        return coordinates;
+    }
+
+    /**
+     * Read the contents of a file as UTF-8 text.
+     *
+     * @param file the file to read
+     * @return the contents of the file
+     * @throws IOException if the file could not be read
+     */
+    private static String readText(File file) throws IOException {
+        final InputStream input = new FileInputStream(file);
+        try {
+            final Reader reader = new InputStreamReader(input, StringTable.UTF_8);
+            final StringBuilder text = new StringBuilder();
+            final char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+            return text.toString();
+        } finally {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,609 @@
+package ca.josephroque.campusguide.graph;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the text format of {@code <building>_graph.txt} files into a {@link ParsedGraph}, to be compiled by
+ * {@link BinaryGraph}. Follows the same rules as {@code getGraphs} in {@code src/util/graph/CampusGraph.ts}.
+ */
+final class GraphParser {
+
+    /** Default campus for graphs which do not specify one. */
+    private static final String DEFAULT_CAMPUS = "main";
+    /** Prefix of formatting rules which identify floors. */
+    private static final String FLOOR_FORMAT_PREFIX = "floor";
+
+    /** Possible states for parsing graphs. */
+    private enum State {
+        FORMAT,
+        EDGES,
+        EXCLUDED,
+        NODES,
+        STREETS,
+        CAMPUS,
+        NONE,
+    }
+
+    /** Shorthand of the building being parsed. */
+    private final String mBuilding;
+    /** Campus of the building. */
+    private String mCampus = DEFAULT_CAMPUS;
+
+    /** Formatting rules, in the order they were defined. */
+    private final Map<String, String> mFormattingRules = new LinkedHashMap<>();
+    /** Mapping of street IDs to their names. */
+    private final Map<String, String> mStreetNames = new LinkedHashMap<>();
+
+    /** Formatted IDs of nodes, by index. */
+    private final List<String> mNodeIds = new ArrayList<>();
+    /** Indices of nodes, by formatted ID. */
+    private final Map<String, Integer> mNodeIndices = new HashMap<>();
+    /** Buildings referenced by nodes, by index. */
+    private final List<String> mBuildings = new ArrayList<>();
+    /** Indices of buildings, by shorthand. */
+    private final Map<String, Integer> mBuildingIndices = new HashMap<>();
+    /** Building index of each node. */
+    private final IntList mNodeBuildings = new IntList();
+    /** Exit coordinates of doors, by node index, in the order they were first listed. */
+    private final Map<Integer, float[]> mExits = new LinkedHashMap<>();
+    /** Street names of intersections and streets, by node index, in the order they were first listed. */
+    private final Map<Integer, String> mNodeDetails = new LinkedHashMap<>();
+
+    /** Source node of each edge, in file order. */
+    private final IntList mEdgeSources = new IntList();
+    /** Target node of each edge, in file order. */
+    private final IntList mEdgeTargets = new IntList();
+    /** Distance of each edge, in file order. */
+    private final IntList mEdgeDistances = new IntList();
+    /** Direction of each edge, in file order. */
+    private final IntList mEdgeDirections = new IntList();
+    /** Accessibility of each edge, in file order, 1 for accessible. */
+    private final IntList mEdgeAccessible = new IntList();
+
+    /** Pairs of nodes with closed edges between them. */
+    private final IntList mExcludedPairs = new IntList();
+
+    /** Section of the file being parsed. */
+    private State mState = State.NONE;
+
+    /**
+     * Constructor for a parser of a single building's graph. Lines are passed to {@link #parseLine(String)} in
+     * order, and then the graph is built with {@link #build()}.
+     *
+     * @param building shorthand of the building
+     */
+    GraphParser(String building) {
+        mBuilding = building;
+    }
+
+    /**
+     * Parse a graph file.
+     *
+     * @param building shorthand of the building the graph describes
+     * @param file     the graph file
+     * @return the parsed graph
+     * @throws IOException if the file could not be read
+     */
+    static ParsedGraph parse(String building, File file) throws IOException {
+        return new GraphFileReader().read(building, file);
+    }
+
+    /**
+     * Parse a graph from a reader.
+     *
+     * @param building shorthand of the building the graph describes
+     * @param reader   source of the graph text
+     * @return the parsed graph
+     * @throws IOException if the text could not be read
+     */
+    static ParsedGraph parse(String building, Reader reader) throws IOException {
+        final GraphParser parser = new GraphParser(building);
+        final BufferedReader lines = new BufferedReader(reader);
+
+        String line;
+        while ((line = lines.readLine()) != null) {
+            parser.parseLine(line);
+        }
+
+        return parser.build();
+    }
+
+    /**
+     * Parse the next line of the graph file.
+     *
+     * @param line the line, without its line terminator
+     * @throws IOException if the line is not in the format of its section
+     */
+    void parseLine(String line) throws IOException {
+        if (line.length() == 0) {
+            return;
+        }
+
+        // Handle state switch
+        if (line.charAt(0) == '[') {
+            mState = getState(line);
+            return;
+        }
+
+        try {
+            parseSectionLine(line);
+        } catch (IndexOutOfBoundsException | NumberFormatException ex) {
+            throw new IOException("Invalid line in graph of " + mBuilding + ": " + line, ex);
+        }
+    }
+
+    /**
+     * Get the graph parsing state from a section header.
+     *
+     * @param line the section header
+     * @return the state for the section
+     */
+    private static State getState(String line) {
+        switch (line) {
+            case "[FORMAT]":
+                return State.FORMAT;
+            case "[EDGES]":
+                return State.EDGES;
+            case "[EXCLUDED]":
+                return State.EXCLUDED;
+            case "[NODES]":
+                return State.NODES;
+            case "[STREETS]":
+                return State.STREETS;
+            case "[CAMPUS]":
+                return State.CAMPUS;
+            default:
+                return State.NONE;
+        }
+    }
+
+    /**
+     * Parse a single line of the current section.
+     *
+     * @param line the line to parse
+     */
+    private void parseSectionLine(String line) {
+        switch (mState) {
+            case FORMAT: {
+                final int separator = line.indexOf('=');
+                mFormattingRules.put(line.substring(0, separator), line.substring(separator + 1));
+                break;
+            }
+            case EDGES: {
+                final int separator = line.indexOf('|');
+                final int source = getOrAddNode(line.substring(0, separator));
+                if (nodeType(source) == NodeType.DOOR && !mExits.containsKey(source)) {
+                    // Add doors to the graph if not already present
+                    mExits.put(source, new float[] {0, 0});
+                }
+                parseEdges(source, line, separator + 1);
+                break;
+            }
+            case NODES: {
+                final int separator = line.indexOf('|');
+                final int node = getOrAddNode(line.substring(0, separator));
+                parseNode(node, line.substring(separator + 1));
+                break;
+            }
+            case EXCLUDED: {
+                final int separator = line.indexOf('|');
+                mExcludedPairs.add(getOrAddNode(line.substring(0, separator)));
+                mExcludedPairs.add(getOrAddNode(line.substring(separator + 1)));
+                break;
+            }
+            case STREETS: {
+                final int separator = line.indexOf('|');
+                mStreetNames.put(line.substring(0, separator), line.substring(separator + 1));
+                break;
+            }
+            case CAMPUS:
+                mCampus = line;
+                break;
+            default:
+                // Does nothing
+        }
+    }
+
+    /**
+     * Parse the details of a node.
+     *
+     * @param node    index of the node
+     * @param details the node's details
+     */
+    private void parseNode(int node, String details) {
+        switch (nodeType(node)) {
+            case NodeType.INTERSECTION:
+            case NodeType.STREET:
+                mNodeDetails.put(node, details);
+                break;
+            case NodeType.DOOR: {
+                final String[] coordinates = details.split(",");
+                mExits.put(node, new float[] {parseFloat(coordinates[0]), parseFloat(coordinates[1])});
+                break;
+            }
+            default:
+                // Does nothing
+        }
+    }
+
+    /**
+     * Get the type of a node from its formatted ID.
+     *
+     * @param node index of the node
+     * @return the node's type, from {@link NodeType}
+     */
+    private byte nodeType(int node) {
+        final String nodeId = mNodeIds.get(node);
+        return (byte) nodeId.charAt(nodeId.indexOf('#') + 1);
+    }
+
+    /**
+     * Parse the '%' separated list of edges of a node.
+     *
+     * @param source index of the node the edges start from
+     * @param line   the line with the edges
+     * @param start  index in the line where the edges begin
+     */
+    private void parseEdges(int source, String line, int start) {
+        int edgeStart = start;
+        while (edgeStart < line.length()) {
+            int edgeEnd = line.indexOf('%', edgeStart);
+            if (edgeEnd < 0) {
+                edgeEnd = line.length();
+            }
+
+            // Edges are formatted as <node>:<direction>:<distance>:<accessible>
+            final int directionStart = line.indexOf(':', edgeStart) + 1;
+            final int distanceStart = line.indexOf(':', directionStart) + 1;
+            final int accessibleStart = line.indexOf(':', distanceStart) + 1;
+
+            mEdgeSources.add(source);
+            mEdgeTargets.add(getOrAddNode(line.substring(edgeStart, directionStart - 1)));
+            mEdgeDirections.add(line.charAt(directionStart));
+            mEdgeDistances.add(parseLeadingInt(line, distanceStart, accessibleStart - 1));
+            mEdgeAccessible.add(line.charAt(accessibleStart) == 'T' ? 1 : 0);
+
+            edgeStart = edgeEnd + 1;
+        }
+    }
+
+    /**
+     * Get the index of a node, adding it to the graph if it has not been seen yet.
+     *
+     * @param id the node ID, formatted or unformatted
+     * @return the index of the node
+     */
+    private int getOrAddNode(String id) {
+        final String nodeId = buildId(id, mBuilding);
+        final Integer existing = mNodeIndices.get(nodeId);
+        if (existing != null) {
+            return existing;
+        }
+
+        final int index = mNodeIds.size();
+        mNodeIds.add(nodeId);
+        mNodeIndices.put(nodeId, index);
+
+        final String building = nodeId.substring(1, nodeId.indexOf('#'));
+        Integer buildingIndex = mBuildingIndices.get(building);
+        if (buildingIndex == null) {
+            buildingIndex = mBuildings.size();
+            mBuildings.add(building);
+            mBuildingIndices.put(building, buildingIndex);
+        }
+        mNodeBuildings.add(buildingIndex);
+
+        return index;
+    }
+
+    /**
+     * Build the graph from the parsed lines.
+     *
+     * @return the graph
+     */
+    ParsedGraph build() {
+        final int nodeCount = mNodeIds.size();
+        final int edgeCount = mEdgeTargets.size();
+
+        final String[] nodeIds = mNodeIds.toArray(new String[nodeCount]);
+        final byte[] nodeTypes = new byte[nodeCount];
+        final int[] nodeFloors = new int[nodeCount];
+        final FloorFormat floorFormat = new FloorFormat(mFormattingRules);
+        final float[] exits = new float[nodeCount * 2];
+        final String[] nodeDetails = new String[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            final int typeIndex = nodeIds[node].indexOf('#') + 1;
+            nodeTypes[node] = (byte) nodeIds[node].charAt(typeIndex);
+            nodeFloors[node] = NodeType.hasFloor(nodeTypes[node])
+                    ? floorFormat.getFloor(nodeIds[node].substring(typeIndex + 1))
+                    : Graph.NO_FLOOR;
+
+            final float[] exit = mExits.get(node);
+            exits[node * 2] = exit == null ? Float.NaN : exit[0];
+            exits[node * 2 + 1] = exit == null ? Float.NaN : exit[1];
+            nodeDetails[node] = mNodeDetails.get(node);
+        }
+
+        final float[] coordinates = new float[nodeCount * 2];
+        Arrays.fill(coordinates, Float.NaN);
+
+        // Sort edges by their source, keeping the order they were defined in for each node
+        final int[] edgeOffsets = new int[nodeCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            edgeOffsets[mEdgeSources.get(i) + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            edgeOffsets[node + 1] += edgeOffsets[node];
+        }
+
+        final int[] nextEdge = new int[nodeCount];
+        System.arraycopy(edgeOffsets, 0, nextEdge, 0, nodeCount);
+        final int[] edgeSources = new int[edgeCount];
+        final int[] edgeTargets = new int[edgeCount];
+        final int[] edgeDistances = new int[edgeCount];
+        final byte[] edgeDirections = new byte[edgeCount];
+        final byte[] edgeFlags = new byte[edgeCount];
+        final int[] edgeIndices = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            final int source = mEdgeSources.get(i);
+            final int edge = nextEdge[source]++;
+            edgeSources[edge] = source;
+            edgeIndices[edge] = edge - edgeOffsets[source];
+            edgeTargets[edge] = mEdgeTargets.get(i);
+            edgeDistances[edge] = mEdgeDistances.get(i);
+            edgeDirections[edge] = (byte) mEdgeDirections.get(i);
+            if (mEdgeAccessible.get(i) == 1) {
+                edgeFlags[edge] |= Graph.EDGE_ACCESSIBLE;
+            }
+        }
+
+        // Exclusions apply in both directions
+        for (int i = 0; i < mExcludedPairs.size(); i += 2) {
+            final int nodeA = mExcludedPairs.get(i);
+            final int nodeB = mExcludedPairs.get(i + 1);
+            for (int edge = edgeOffsets[nodeA]; edge < edgeOffsets[nodeA + 1]; edge++) {
+                if (edgeTargets[edge] == nodeB) {
+                    edgeFlags[edge] |= Graph.EDGE_EXCLUDED;
+                }
+            }
+            for (int edge = edgeOffsets[nodeB]; edge < edgeOffsets[nodeB + 1]; edge++) {
+                if (edgeTargets[edge] == nodeA) {
+                    edgeFlags[edge] |= Graph.EDGE_EXCLUDED;
+                }
+            }
+        }
+
+        // Nodes with edges of their own are part of the graph, even if an accessible graph later drops every edge
+        final byte[] nodeFlags = new byte[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            if (edgeOffsets[node + 1] > edgeOffsets[node]) {
+                nodeFlags[node] |= Graph.NODE_LISTED;
+            }
+        }
+
+        final ParsedGraph parsed = new ParsedGraph();
+        parsed.building = mBuilding;
+        parsed.campus = mCampus;
+        parsed.formattingRules = mFormattingRules;
+        parsed.streetNames = mStreetNames;
+        parsed.nodeIds = nodeIds;
+        parsed.nodeTypes = nodeTypes;
+        parsed.nodeFlags = nodeFlags;
+        parsed.nodeFloors = nodeFloors;
+        parsed.nodeBuildings = mNodeBuildings.toArray();
+        parsed.nodeCells = new int[nodeCount];
+        parsed.buildings = mBuildings.toArray(new String[mBuildings.size()]);
+        parsed.exits = exits;
+        parsed.nodeDetails = nodeDetails;
+        parsed.coordinates = coordinates;
+        parsed.edgeOffsets = edgeOffsets;
+        parsed.edgeSources = edgeSources;
+        parsed.edgeTargets = edgeTargets;
+        parsed.edgeDistances = edgeDistances;
+        parsed.edgeDirections = edgeDirections;
+        parsed.edgeFlags = edgeFlags;
+        parsed.edgeIndices = edgeIndices;
+        parsed.excludedPairs = mExcludedPairs.toArray();
+        parsed.sourceOrder = getSourceOrder(nodeCount);
+        parsed.exitOrder = toArray(mExits.keySet());
+        parsed.detailOrder = toArray(mNodeDetails.keySet());
+        parsed.doors = new int[0];
+        parsed.doorColumns = new int[nodeCount];
+        parsed.doorRows = new int[nodeCount];
+        parsed.doorDistances = new int[0];
+        Arrays.fill(parsed.doorColumns, -1);
+        Arrays.fill(parsed.doorRows, -1);
+        Arrays.fill(parsed.nodeCells, -1);
+        return parsed;
+    }
+
+    /**
+     * Get the nodes with edges, in the order their edges were first listed.
+     *
+     * @param nodeCount number of nodes in the graph
+     * @return the nodes with edges
+     */
+    private int[] getSourceOrder(int nodeCount) {
+        final boolean[] listed = new boolean[nodeCount];
+        final IntList sources = new IntList();
+        for (int i = 0; i < mEdgeSources.size(); i++) {
+            final int source = mEdgeSources.get(i);
+            if (!listed[source]) {
+                listed[source] = true;
+                sources.add(source);
+            }
+        }
+
+        return sources.toArray();
+    }
+
+    /**
+     * Convert a collection of node indices to an array, in iteration order.
+     *
+     * @param nodes the node indices
+     * @return the node indices
+     */
+    private static int[] toArray(Iterable<Integer> nodes) {
+        final IntList array = new IntList();
+        for (int node : nodes) {
+            array.add(node);
+        }
+
+        return array.toArray();
+    }
+
+    /**
+     * Set the layout coordinates of a graph's nodes and find the largest factor which scales the straight line
+     * distance between two nodes to no more than the length of any edge between them. Estimates scaled by this
+     * factor never exceed the true distance of a path, so they can guide searches without changing their result.
+     * If any edge is missing coordinates, the graph is left without a heuristic.
+     *
+     * @param parsed      the parsed graph
+     * @param coordinates x and y coordinates of nodes, by formatted ID
+     */
+    static void setCoordinates(ParsedGraph parsed, Map<String, float[]> coordinates) {
+        for (int node = 0; node < parsed.nodeIds.length; node++) {
+            final float[] position = coordinates.get(parsed.nodeIds[node]);
+            parsed.coordinates[node * 2] = position == null ? Float.NaN : position[0];
+            parsed.coordinates[node * 2 + 1] = position == null ? Float.NaN : position[1];
+        }
+
+        double scale = Double.MAX_VALUE;
+        for (int edge = 0; edge < parsed.edgeTargets.length; edge++) {
+            final int source = parsed.edgeSources[edge];
+            final int target = parsed.edgeTargets[edge];
+            final double length = Math.hypot(
+                    parsed.coordinates[source * 2] - parsed.coordinates[target * 2],
+                    parsed.coordinates[source * 2 + 1] - parsed.coordinates[target * 2 + 1]);
+            if (Double.isNaN(length)) {
+                parsed.heuristicScale = 0;
+                return;
+            } else if (length > 0) {
+                scale = Math.min(scale, parsed.edgeDistances[edge] / length);
+            }
+        }
+
+        // Round down, so the float never exceeds the bound
+        parsed.heuristicScale = scale == Double.MAX_VALUE ? 0 : Math.max(0, Math.nextAfter((float) scale, 0));
+    }
+
+    /**
+     * Construct a node ID. Mirrors {@code Node.buildId}.
+     *
+     * @param id       base node ID
+     * @param building building the node is in
+     * @return the formatted node ID
+     */
+    static String buildId(String id, String building) {
+        return id.startsWith("B") ? id : "B" + building + "#" + id;
+    }
+
+    /**
+     * Parse the integer portion of a decimal number, truncating any fraction like {@code parseInt} does.
+     *
+     * @param text  text containing the number
+     * @param start index of the first character of the number
+     * @param end   index after the last character of the number
+     * @return the integer value, or 0 if there are no digits
+     */
+    static int parseLeadingInt(CharSequence text, int start, int end) {
+        boolean negative = false;
+        int index = start;
+        if (index < end && text.charAt(index) == '-') {
+            negative = true;
+            index++;
+        }
+
+        int value = 0;
+        while (index < end && Character.isDigit(text.charAt(index))) {
+            value = value * 10 + (text.charAt(index) - '0');
+            index++;
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse a decimal number like {@code parseFloat}, which ignores surrounding whitespace.
+     *
+     * @param text the number
+     * @return the value, or NaN if the text is not a number
+     */
+    private static float parseFloat(String text) {
+        try {
+            return Float.parseFloat(text.trim());
+        } catch (NumberFormatException ex) {
+            return Float.NaN;
+        }
+    }
+
+    /**
+     * Floor formatting rules of a graph, compiled once so they can be matched against every room and hallway.
+     */
+    static final class FloorFormat {
+
+        /** Compiled expressions of each floor rule. */
+        private final Pattern[] mPatterns;
+        /** Floor to assign for each rule, or null if the floor is taken from the expression's first group. */
+        private final String[] mFloors;
+
+        /**
+         * Compile the floor rules from a set of formatting rules.
+         *
+         * @param formattingRules all of the graph's formatting rules, in order
+         */
+        FloorFormat(Map<String, String> formattingRules) {
+            final List<Pattern> patterns = new ArrayList<>();
+            final List<String> floors = new ArrayList<>();
+            for (Map.Entry<String, String> rule : formattingRules.entrySet()) {
+                final String key = rule.getKey();
+                if (!key.startsWith(FLOOR_FORMAT_PREFIX)) {
+                    continue;
+                }
+
+                patterns.add(Pattern.compile(rule.getValue()));
+                floors.add(key.endsWith("*") ? null : key.substring(FLOOR_FORMAT_PREFIX.length()));
+            }
+
+            mPatterns = patterns.toArray(new Pattern[patterns.size()]);
+            mFloors = floors.toArray(new String[floors.size()]);
+        }
+
+        /**
+         * Get the floor of a node from its name. Mirrors {@code Node.getFloorInt}, where a floor of 00 is -1.
+         *
+         * @param name the node's name
+         * @return the floor, or {@link Graph#NO_FLOOR} if no rule matches
+         */
+        int getFloor(String name) {
+            for (int i = 0; i < mPatterns.length; i++) {
+                final Matcher matcher = mPatterns[i].matcher(name);
+                if (!matcher.find()) {
+                    continue;
+                }
+
+                final String floor = mFloors[i] == null ? matcher.group(1) : mFloors[i];
+                if (floor == null || floor.length() == 0) {
+                    return Graph.NO_FLOOR;
+                } else if (floor.length() > 1 && floor.charAt(0) == '0') {
+                    return 1 - floor.length();
+                } else {
+                    return parseLeadingInt(floor, 0, floor.length());
+                }
+            }
+
+            return Graph.NO_FLOOR;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ca.josephroque.campusguide.graph;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap of nodes keyed by their dense indices, with int priorities. Each node is in the heap at most once, and
+ * lowering the priority of a node already in the heap moves it in place instead of adding another entry. Nodes
+ * with equal priorities are polled in order of their indices. Allocates nothing after construction.
+ */
+final class IndexedHeap {
+
+    /** Number of children of each entry. Wider than binary for fewer levels and better locality. */
+    private static final int ARITY = 4;
+    /** Position of nodes which are not in the heap. */
+    private static final int NOT_IN_HEAP = -1;
+
+    /** Nodes in heap order. */
+    private final int[] mHeap;
+    /** Position of each node in {@link #mHeap}, or {@link #NOT_IN_HEAP}. */
+    private final int[] mPositions;
+    /** Priority of each node in the heap. */
+    private final int[] mPriorities;
+    /** Number of nodes in the heap. */
+    private int mSize;
+
+    /**
+     * Constructor for a heap of nodes with indices from 0 up to, but not including, {@code capacity}.
+     *
+     * @param capacity number of nodes
+     */
+    IndexedHeap(int capacity) {
+        mHeap = new int[capacity];
+        mPositions = new int[capacity];
+        mPriorities = new int[capacity];
+        Arrays.fill(mPositions, NOT_IN_HEAP);
+    }
+
+    /**
+     * Returns true if there are no nodes in the heap.
+     *
+     * @return true if the heap is empty
+     */
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Remove every node from the heap.
+     */
+    void clear() {
+        for (int i = 0; i < mSize; i++) {
+            mPositions[mHeap[i]] = NOT_IN_HEAP;
+        }
+        mSize = 0;
+    }
+
+    /**
+     * Add a node to the heap, or lower its priority if it is already in the heap. Does nothing if the node is in
+     * the heap with a lower priority.
+     *
+     * @param node     index of the node
+     * @param priority priority of the node, lower is polled first
+     */
+    void push(int node, int priority) {
+        int position = mPositions[node];
+        if (position == NOT_IN_HEAP) {
+            position = mSize++;
+        } else if (priority >= mPriorities[node]) {
+            return;
+        }
+
+        mPriorities[node] = priority;
+        siftUp(node, position);
+    }
+
+    /**
+     * Remove the node with the lowest priority from the heap.
+     *
+     * @return index of the node, which must not be called on an empty heap
+     */
+    int poll() {
+        final int first = mHeap[0];
+        mPositions[first] = NOT_IN_HEAP;
+
+        final int last = mHeap[--mSize];
+        if (mSize > 0) {
+            siftDown(last, 0);
+        }
+
+        return first;
+    }
+
+    /**
+     * Move a node up from a position until its parent is polled before it.
+     *
+     * @param node     index of the node
+     * @param position position to start from
+     */
+    private void siftUp(int node, int position) {
+        int current = position;
+        while (current > 0) {
+            final int parentPosition = (current - 1) / ARITY;
+            final int parent = mHeap[parentPosition];
+            if (!isBefore(node, parent)) {
+                break;
+            }
+
+            place(parent, current);
+            current = parentPosition;
+        }
+
+        place(node, current);
+    }
+
+    /**
+     * Move a node down from a position until it is polled before all of its children.
+     *
+     * @param node     index of the node
+     * @param position position to start from
+     */
+    private void siftDown(int node, int position) {
+        int current = position;
+        while (true) {
+            final int firstChild = current * ARITY + 1;
+            if (firstChild >= mSize) {
+                break;
+            }
+
+            int best = firstChild;
+            final int lastChild = Math.min(firstChild + ARITY, mSize);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (isBefore(mHeap[child], mHeap[best])) {
+                    best = child;
+                }
+            }
+
+            if (!isBefore(mHeap[best], node)) {
+                break;
+            }
+
+            place(mHeap[best], current);
+            current = best;
+        }
+
+        place(node, current);
+    }
+
+    /**
+     * Returns true if a node should be polled before another.
+     *
+     * @param first  index of the first node
+     * @param second index of the second node
+     * @return true if the first node has a lower priority, or an equal priority and lower index
+     */
+    private boolean isBefore(int first, int second) {
+        final int firstPriority = mPriorities[first];
+        final int secondPriority = mPriorities[second];
+        return firstPriority < secondPriority || (firstPriority == secondPriority && first < second);
+    }
+
+    /**
+     * Put a node at a position in the heap.
+     *
+     * @param node     index of the node
+     * @param position position in the heap
+     */
+    private void place(int node, int position) {
+        mHeap[position] = node;
+        mPositions[node] = position;
+    }
+}
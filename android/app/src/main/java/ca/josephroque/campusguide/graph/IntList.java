@@ -0,0 +1,92 @@
+package ca.josephroque.campusguide.graph;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive integers, to avoid boxing while building graphs and paths.
+ */
+final class IntList {
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Values in the list. */
+    private int[] mValues;
+    /** Number of values in the list. */
+    private int mSize;
+
+    /**
+     * Constructor for an empty list.
+     */
+    IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for an empty list with an initial capacity.
+     *
+     * @param capacity initial capacity
+     */
+    IntList(int capacity) {
+        mValues = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value the value to add
+     */
+    void add(int value) {
+        if (mSize == mValues.length) {
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        }
+
+        mValues[mSize++] = value;
+    }
+
+    /**
+     * Returns the value at an index.
+     *
+     * @param index index of the value
+     * @return the value
+     */
+    int get(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * Returns the number of values in the list.
+     *
+     * @return the size of the list
+     */
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Removes all values from the list, keeping its capacity.
+     */
+    void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * Reverses the order of the values in the list.
+     */
+    void reverse() {
+        for (int i = 0, j = mSize - 1; i < j; i++, j--) {
+            final int temp = mValues[i];
+            mValues[i] = mValues[j];
+            mValues[j] = temp;
+        }
+    }
+
+    /**
+     * Returns a copy of the values in the list.
+     *
+     * @return a new array with the values of the list
+     */
+    int[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+}
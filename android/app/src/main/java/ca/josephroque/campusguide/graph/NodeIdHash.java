@@ -0,0 +1,189 @@
+package ca.josephroque.campusguide.graph;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Minimal perfect hash of the formatted IDs of a graph's nodes, built when the graph is compiled, so a node is found
+ * from its ID with two hashes, two table lookups, and a single comparison.
+ *
+ * Built with hash and displace: IDs are grouped into as many buckets as there are nodes by a first hash, then the
+ * largest buckets are placed first, each by finding a seed for a second hash which sends every ID in the bucket to
+ * a free slot. Buckets with a single ID are placed in the remaining free slots directly. The hash is stored as the
+ * displacement of each bucket, either the seed of its second hash or {@code -1 - slot} for buckets placed directly,
+ * and the node in each slot.
+ */
+final class NodeIdHash {
+
+    /** FNV-1a offset basis, used as the seed of the first hash. */
+    private static final int FNV_OFFSET_BASIS = 0x811C9DC5;
+    /** FNV-1a prime. */
+    private static final int FNV_PRIME = 0x01000193;
+    /** First multiplier of the MurmurHash3 finalizer. */
+    private static final int MIX_FIRST = 0x85EBCA6B;
+    /** Second multiplier of the MurmurHash3 finalizer. */
+    private static final int MIX_SECOND = 0xC2B2AE35;
+
+    /**
+     * Default constructor.
+     */
+    private NodeIdHash() {
+        // Does nothing
+    }
+
+    /**
+     * Find the slot of an ID. The slot holds the ID's node if the ID is in the graph, and any node otherwise.
+     *
+     * @param key           the encoded ID
+     * @param displacements displacement of each bucket
+     * @return the ID's slot
+     */
+    static int slotOf(byte[] key, IntBuffer displacements) {
+        final int size = displacements.limit();
+        final int displacement = displacements.get(hash(key, FNV_OFFSET_BASIS) % size);
+        return displacement < 0 ? -1 - displacement : hash(key, displacement) % size;
+    }
+
+    /**
+     * Build the hash of a graph's node IDs.
+     *
+     * @param nodeIds       formatted ID of each node
+     * @param displacements filled with the displacement of each bucket, one for each node
+     * @param slots         filled with the node in each slot, one for each node
+     * @throws IOException if two nodes have the same ID
+     */
+    static void build(String[] nodeIds, int[] displacements, int[] slots) throws IOException {
+        final int size = nodeIds.length;
+        final byte[][] keys = new byte[size][];
+        final IntList[] buckets = new IntList[size];
+        final Integer[] order = new Integer[size];
+        for (int node = 0; node < size; node++) {
+            keys[node] = nodeIds[node].getBytes(StringTable.UTF_8);
+            final int bucket = hash(keys[node], FNV_OFFSET_BASIS) % size;
+            if (buckets[bucket] == null) {
+                buckets[bucket] = new IntList(1);
+            }
+            buckets[bucket].add(node);
+            order[node] = node;
+        }
+
+        // Largest buckets are placed first, while there are the most free slots
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return bucketSize(buckets[second]) - bucketSize(buckets[first]);
+            }
+        });
+
+        Arrays.fill(displacements, 0);
+        Arrays.fill(slots, -1);
+        final int[] bucketSlots = new int[size];
+        int index = 0;
+        for (; index < size && bucketSize(buckets[order[index]]) > 1; index++) {
+            final IntList bucket = buckets[order[index]];
+            checkDistinct(keys, bucket, nodeIds);
+
+            int seed = 1;
+            while (!tryPlace(keys, bucket, seed, slots, bucketSlots)) {
+                seed++;
+            }
+
+            for (int i = 0; i < bucket.size(); i++) {
+                slots[bucketSlots[i]] = bucket.get(i);
+            }
+            displacements[order[index]] = seed;
+        }
+
+        int freeSlot = 0;
+        for (; index < size && bucketSize(buckets[order[index]]) == 1; index++) {
+            while (slots[freeSlot] >= 0) {
+                freeSlot++;
+            }
+
+            slots[freeSlot] = buckets[order[index]].get(0);
+            displacements[order[index]] = -1 - freeSlot;
+        }
+    }
+
+    /**
+     * Find the slot of each ID in a bucket with a seed, if every slot is free and different.
+     *
+     * @param keys        encoded ID of each node
+     * @param bucket      nodes in the bucket
+     * @param seed        seed of the second hash
+     * @param slots       node in each slot, or -1 for free slots
+     * @param bucketSlots filled with the slot of each node in the bucket
+     * @return true if the bucket can be placed with the seed, false otherwise
+     */
+    private static boolean tryPlace(byte[][] keys, IntList bucket, int seed, int[] slots, int[] bucketSlots) {
+        for (int i = 0; i < bucket.size(); i++) {
+            final int slot = hash(keys[bucket.get(i)], seed) % slots.length;
+            if (slots[slot] >= 0) {
+                return false;
+            }
+
+            for (int j = 0; j < i; j++) {
+                if (bucketSlots[j] == slot) {
+                    return false;
+                }
+            }
+            bucketSlots[i] = slot;
+        }
+
+        return true;
+    }
+
+    /**
+     * Check that the IDs in a bucket are different, since equal IDs can never be placed in different slots.
+     *
+     * @param keys    encoded ID of each node
+     * @param bucket  nodes in the bucket
+     * @param nodeIds formatted ID of each node
+     * @throws IOException if two nodes in the bucket have the same ID
+     */
+    private static void checkDistinct(byte[][] keys, IntList bucket, String[] nodeIds) throws IOException {
+        for (int i = 0; i < bucket.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                if (Arrays.equals(keys[bucket.get(i)], keys[bucket.get(j)])) {
+                    throw new IOException("Duplicate node ID " + nodeIds[bucket.get(i)]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of IDs in a bucket.
+     *
+     * @param bucket nodes in the bucket, or null for empty buckets
+     * @return the number of IDs
+     */
+    private static int bucketSize(IntList bucket) {
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    /**
+     * Hash an encoded ID with FNV-1a, then mix it with the MurmurHash3 finalizer. The low bits of FNV-1a only depend
+     * on the low bits of each byte, so without mixing, IDs which end in bytes with the same low bits share a slot
+     * for every seed when the number of nodes is a power of two, and their bucket can never be placed.
+     *
+     * @param key  the encoded ID
+     * @param seed offset basis of the hash
+     * @return the non-negative hash
+     */
+    private static int hash(byte[] key, int seed) {
+        int hash = seed;
+        for (byte value : key) {
+            hash ^= value & 0xFF;
+            hash *= FNV_PRIME;
+        }
+
+        hash ^= hash >>> 16;
+        hash *= MIX_FIRST;
+        hash ^= hash >>> 13;
+        hash *= MIX_SECOND;
+        hash ^= hash >>> 16;
+        return hash & Integer.MAX_VALUE;
+    }
+}
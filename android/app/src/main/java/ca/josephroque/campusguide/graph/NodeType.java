@@ -0,0 +1,45 @@
+package ca.josephroque.campusguide.graph;
+
+/**
+ * Types of nodes which can appear in a campus graph, identified by the character following the '#' in a
+ * node ID. Mirrors the {@code Type} enum in {@code src/util/graph/Node.ts}.
+ */
+final class NodeType {
+
+    static final byte DOOR = 'D';
+    static final byte ELEVATOR = 'E';
+    static final byte HALLWAY = 'H';
+    static final byte INTERSECTION = 'I';
+    static final byte OUTDOOR_STEPS = 'O';
+    static final byte PATH = 'P';
+    static final byte ROOM = 'R';
+    static final byte STAIRS = 'S';
+    static final byte STREET = 'T';
+
+    /**
+     * Default constructor.
+     */
+    private NodeType() {
+        // Does nothing
+    }
+
+    /**
+     * Returns true if the node type moves a user between floors.
+     *
+     * @param type the node type
+     * @return true for stairs and elevators, false otherwise
+     */
+    static boolean isFloorChange(byte type) {
+        return type == STAIRS || type == ELEVATOR;
+    }
+
+    /**
+     * Returns true if a node of the given type is on a floor of a building, according to the floor formatting rules.
+     *
+     * @param type the node type
+     * @return true for rooms and hallways, false otherwise
+     */
+    static boolean hasFloor(byte type) {
+        return type == ROOM || type == HALLWAY;
+    }
+}
@@ -0,0 +1,79 @@
+package ca.josephroque.campusguide.graph;
+
+import java.util.Map;
+
+/**
+ * Contents of a graph file after parsing, before being compiled into the binary format read by {@link Graph}.
+ * Edges are already sorted into compressed sparse rows.
+ */
+final class ParsedGraph {
+
+    /** Shorthand of the building the graph describes. */
+    String building;
+    /** Name or ID of the campus the building is on. */
+    String campus;
+    /** Formatting rules, in the order they were defined. */
+    Map<String, String> formattingRules;
+    /** Mapping of street IDs to their names. */
+    Map<String, String> streetNames;
+
+    /** Formatted ID of each node. */
+    String[] nodeIds;
+    /** Type of each node. */
+    byte[] nodeTypes;
+    /** Combination of {@link Graph#NODE_LISTED} for each node. */
+    byte[] nodeFlags;
+    /** Floor of each node, or {@link Graph#NO_FLOOR}. */
+    int[] nodeFloors;
+    /** Index into {@link #buildings} of the building each node is in. */
+    int[] nodeBuildings;
+    /** Floor cell each node is in, or -1 for stairs, elevators, and graphs which are not split into cells. */
+    int[] nodeCells;
+    /** Buildings which nodes in the graph belong to. */
+    String[] buildings;
+    /** Outdoor x and y coordinates of each node which is an exit, or NaN for other nodes. */
+    float[] exits;
+    /** Street names of each intersection or street node, or the empty string for other nodes. */
+    String[] nodeDetails;
+    /** Layout x and y coordinates of each node, or NaN if the layout of the graph is unknown. */
+    float[] coordinates;
+    /** Factor which converts layout distances into a lower bound of edge distances, or 0 with no layout. */
+    float heuristicScale;
+
+    /** Offset of the first edge of each node, with one extra entry marking the end of the last node's edges. */
+    int[] edgeOffsets;
+    /** Node each edge starts from. */
+    int[] edgeSources;
+    /** Node each edge leads to. */
+    int[] edgeTargets;
+    /** Length of each edge. */
+    int[] edgeDistances;
+    /** Direction of travel along each edge. */
+    byte[] edgeDirections;
+    /** Accessibility and closure of each edge, as a combination of {@link Graph#EDGE_ACCESSIBLE} and
+     * {@link Graph#EDGE_EXCLUDED}. */
+    byte[] edgeFlags;
+    /** Index of each edge in its source's list of edges in the graph file. */
+    int[] edgeIndices;
+    /** True if the graph only has the edges which accessible paths can follow. */
+    boolean accessibleOnly;
+
+    /** Pairs of nodes with closed edges between them, as they were listed in the graph file. */
+    int[] excludedPairs;
+
+    /** Nodes with edges, in the order their edges were first listed in the graph file. */
+    int[] sourceOrder;
+    /** Nodes with exit coordinates, in the order they were first listed in the graph file. */
+    int[] exitOrder;
+    /** Nodes with street names, in the order they were first listed in the graph file. */
+    int[] detailOrder;
+
+    /** Doors which distances were precomputed to. */
+    int[] doors;
+    /** Index into {@link #doors} of each node, or -1 for nodes which are not in the table. */
+    int[] doorColumns;
+    /** Row of precomputed distances of each node, or -1 for nodes without precomputed distances. */
+    int[] doorRows;
+    /** Distance from each row's node to each door, for any path and then for accessible paths, or -1. */
+    int[] doorDistances;
+}
@@ -0,0 +1,36 @@
+package ca.josephroque.campusguide.graph;
+
+/**
+ * A path from a source node to a target node in a {@link Graph}. Mirrors {@code Path} in
+ * {@code src/util/graph/Navigation.ts}.
+ */
+final class Path {
+
+    /** Node the path was searched for. */
+    final int target;
+    /** Node the path starts from. */
+    final int source;
+    /** Total distance of the path, including penalties. */
+    final int distance;
+    /** Estimated time to walk the path, in seconds, found by {@link WalkingTime} as the path was searched. */
+    final double seconds;
+    /** Indices of the edges to follow from the source. */
+    final int[] edges;
+
+    /**
+     * Constructor for a path.
+     *
+     * @param target   node the path was searched for
+     * @param source   node the path starts from
+     * @param distance total distance of the path
+     * @param seconds  estimated time to walk the path, in seconds
+     * @param edges    indices of the edges to follow from the source
+     */
+    Path(int target, int source, int distance, double seconds, int[] edges) {
+        this.target = target;
+        this.source = source;
+        this.distance = distance;
+        this.seconds = seconds;
+        this.edges = edges;
+    }
+}
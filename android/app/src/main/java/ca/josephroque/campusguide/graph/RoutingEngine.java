@@ -0,0 +1,620 @@
+package ca.josephroque.campusguide.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shortest path searches over a {@link Graph}. Follows the same rules as {@code findShortestPathsBetween} in
+ * {@code src/util/graph/Navigation.ts}, so both engines produce the same routes.
+ *
+ * Searches for a single target in a graph with a layout, such as the outdoor graph searched for each pair of
+ * doors between buildings, run as A* and expand the nodes closest to the target first.
+ *
+ * In buildings split into floor cells, searches first expand only the floors of the start and the targets, and the
+ * stairs and elevators between them. Paths through any other floor change floors twice, which is always penalized,
+ * so the first search's paths are the shortest unless they were penalized themselves, and only then is the whole
+ * graph searched.
+ *
+ * Instances are not thread safe.
+ */
+final class RoutingEngine {
+
+    /** Distance of nodes which have not been reached. */
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    /** Shift from an edge index to the index of the word with its bit in {@link #mClosedEdges}. */
+    private static final int WORD_SHIFT = 6;
+    /** Maximum number of floors before stairs become unreasonable. */
+    private static final int MAX_FLOOR_DIFF_FOR_STAIRS = 2;
+    /** Penalty to elongate paths which are not ideal, but still possible. */
+    static final int NAVIGATION_PENALTY = 10000;
+
+    /** Graph to search. */
+    private final Graph mGraph;
+    /** True if the graph is the outdoor graph. */
+    private final boolean mOutdoor;
+
+    /** Distance of each node from the start of the last search. */
+    private final int[] mDistances;
+    /** Estimated time to walk to each node along its path in the last search, in seconds. */
+    private final double[] mSeconds;
+    /** Distance walked to each node along its path in the last search, without penalties. */
+    private final int[] mWalkedDistances;
+    /** Node which led to each node in the last search, or -1. */
+    private final int[] mPrevious;
+    /** Edge which led to each node in the last search. */
+    private final int[] mPreviousEdge;
+    /** True for each target of the last search. */
+    private final boolean[] mIsTarget;
+    /** True for each target reached by the last search. */
+    private final boolean[] mFound;
+    /** Targets reached by the last search, in the order they were reached. */
+    private final int[] mFoundOrder;
+    /** True for each node whose path has taken a staircase or elevator since entering the node's building. */
+    private final boolean[] mUsedFloorChange;
+    /** Nodes waiting to be visited, by their distance plus the estimate of the distance remaining. */
+    private final IndexedHeap mQueue;
+    /** True for each floor cell the current search may expand. */
+    private final boolean[] mSearchedCells;
+
+    /** One bit for each edge, set for edges which are closed on top of the graph's excluded edges, or null. */
+    private long[] mClosedEdges;
+    /** Version of the closures {@link #mClosedEdges} was built from. */
+    private int mClosureVersion;
+    /** Number of nodes visited by the last search. */
+    private int mExpansionCount;
+    /** Number of different targets of the last search. */
+    private int mTargetCount;
+
+    /**
+     * Constructor for an engine which searches a single graph.
+     *
+     * @param graph the graph to search
+     */
+    RoutingEngine(Graph graph) {
+        mGraph = graph;
+        mOutdoor = WalkingTime.isOutdoor(graph);
+
+        final int nodeCount = graph.getNodeCount();
+        mDistances = new int[nodeCount];
+        mSeconds = new double[nodeCount];
+        mWalkedDistances = new int[nodeCount];
+        mPrevious = new int[nodeCount];
+        mPreviousEdge = new int[nodeCount];
+        mIsTarget = new boolean[nodeCount];
+        mFound = new boolean[nodeCount];
+        mFoundOrder = new int[nodeCount];
+        mUsedFloorChange = new boolean[nodeCount];
+        mQueue = new IndexedHeap(nodeCount);
+        mSearchedCells = new boolean[nodeCount];
+    }
+
+    /**
+     * Returns the graph the engine searches.
+     *
+     * @return the graph
+     */
+    Graph getGraph() {
+        return mGraph;
+    }
+
+    /**
+     * Returns the number of nodes the last search visited before it stopped, to measure how expensive searches
+     * of the graph are.
+     *
+     * @return the number of nodes taken from the queue by the last search
+     */
+    int getExpansionCount() {
+        return mExpansionCount;
+    }
+
+    /**
+     * Returns the version of the closures the engine was last given.
+     *
+     * @return the version passed to {@link #setClosedEdges(String[], int)}, or 0
+     */
+    int getClosureVersion() {
+        return mClosureVersion;
+    }
+
+    /**
+     * Close the edges between pairs of nodes, in both directions, replacing any edges closed before. Closed edges
+     * are skipped by searches the same as the graph's excluded edges, without parsing the graph again.
+     *
+     * @param closedNodeIds alternating formatted IDs of the nodes at each end of the closed edges, or null
+     * @param version       version of the closures, to check if they are out of date later
+     */
+    void setClosedEdges(String[] closedNodeIds, int version) {
+        mClosedEdges = null;
+        mClosureVersion = version;
+        if (closedNodeIds == null) {
+            return;
+        }
+
+        for (int i = 0; i + 1 < closedNodeIds.length; i += 2) {
+            final int nodeA = mGraph.indexOf(closedNodeIds[i]);
+            final int nodeB = mGraph.indexOf(closedNodeIds[i + 1]);
+            if (nodeA >= 0 && nodeB >= 0) {
+                closeEdges(nodeA, nodeB);
+                closeEdges(nodeB, nodeA);
+            }
+        }
+    }
+
+    /**
+     * Returns true if any edges of the graph are closed, so distances precomputed when the graph was compiled may
+     * be too short.
+     *
+     * @return true if there are closed edges
+     */
+    boolean hasClosedEdges() {
+        return mClosedEdges != null;
+    }
+
+    /**
+     * Close each edge from one node to another.
+     *
+     * @param source node the edges start from
+     * @param target node the edges lead to
+     */
+    private void closeEdges(int source, int target) {
+        for (int edge = mGraph.edgeStart(source); edge < mGraph.edgeEnd(source); edge++) {
+            if (mGraph.edgeTarget(edge) == target) {
+                if (mClosedEdges == null) {
+                    mClosedEdges = new long[(mGraph.getEdgeCount() >>> WORD_SHIFT) + 1];
+                }
+                mClosedEdges[edge >>> WORD_SHIFT] |= 1L << edge;
+            }
+        }
+    }
+
+    /**
+     * Returns true if an edge has been closed by {@link #setClosedEdges(String[], int)}.
+     *
+     * @param edge index of the edge
+     * @return true if the edge is closed
+     */
+    private boolean isEdgeClosed(int edge) {
+        return mClosedEdges != null && (mClosedEdges[edge >>> WORD_SHIFT] & (1L << edge)) != 0;
+    }
+
+    /**
+     * Given a starting node, returns the shortest path from the starting node to each of the target nodes.
+     *
+     * @param start      index of the starting node
+     * @param targets    indices of the nodes to reach, in order. Negative indices are ignored
+     * @param accessible true to force an accessible path, false for any path
+     * @param reverse    true to return paths from each target to the start
+     * @return the paths to each target which could be reached
+     */
+    List<Path> findShortestPaths(int start, int[] targets, boolean accessible, boolean reverse) {
+        final List<Path> paths = new ArrayList<>();
+        if (start < 0) {
+            return paths;
+        }
+
+        // Starting from a door of the building being searched means the user is already at their destination
+        if (mGraph.nodeType(start) == NodeType.DOOR
+                && targets.length > 0
+                && targets[0] >= 0
+                && mGraph.nodeBuilding(targets[0]) == mGraph.nodeBuilding(start)) {
+            paths.add(new Path(start, start, 0, 0, new int[0]));
+            return paths;
+        }
+
+        search(start, targets, Integer.MAX_VALUE, accessible);
+
+        for (int target : targets) {
+            if (target >= 0 && mFound[target]) {
+                mFound[target] = false;
+                final Path path = rebuildPath(start, target, mDistances[target], reverse);
+                if (path != null) {
+                    paths.add(path);
+                }
+            }
+        }
+
+        return paths;
+    }
+
+    /**
+     * Given a starting node, returns the distance of the shortest path from the starting node to each of the
+     * target nodes. Unlike {@link #findShortestPaths(int, int[], boolean, boolean)}, starting from a door always
+     * searches the graph.
+     *
+     * @param start      index of the starting node
+     * @param targets    indices of the nodes to reach. Negative indices are ignored
+     * @param accessible true to force an accessible path, false for any path
+     * @return the distance to each target, or -1 for targets which could not be reached
+     */
+    int[] findDistances(int start, int[] targets, boolean accessible) {
+        return findDistances(start, targets, accessible, null, null);
+    }
+
+    /**
+     * Given a starting node, returns the distance of the shortest path from the starting node to each of the
+     * target nodes, with the estimated time to walk each path and the distance walked along it. The distance of a
+     * path includes the penalties which steer searches away from paths which are not ideal, so it is only
+     * comparable with other distances from searches. The distance walked has no penalties.
+     *
+     * @param start           index of the starting node
+     * @param targets         indices of the nodes to reach. Negative indices are ignored
+     * @param accessible      true to force an accessible path, false for any path
+     * @param seconds         filled with the time to walk to each target, in seconds, or -1 for targets which could
+     *                        not be reached. May be null when the times are not needed
+     * @param walkedDistances filled with the distance walked to each target, or -1 for targets which could not be
+     *                        reached. May be null when the distances walked are not needed
+     * @return the distance to each target, or -1 for targets which could not be reached
+     */
+    int[] findDistances(int start, int[] targets, boolean accessible, double[] seconds, int[] walkedDistances) {
+        final int[] distances = new int[targets.length];
+        Arrays.fill(distances, -1);
+        if (seconds != null) {
+            Arrays.fill(seconds, -1);
+        }
+        if (walkedDistances != null) {
+            Arrays.fill(walkedDistances, -1);
+        }
+        if (start < 0) {
+            return distances;
+        }
+
+        search(start, targets, Integer.MAX_VALUE, accessible);
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] >= 0 && mFound[targets[i]]) {
+                distances[i] = mDistances[targets[i]];
+                if (seconds != null) {
+                    seconds[i] = mSeconds[targets[i]];
+                }
+                if (walkedDistances != null) {
+                    walkedDistances[i] = mWalkedDistances[targets[i]];
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * Given a starting node, returns the shortest paths to the targets nearest to the starting node. Searches the
+     * graph once, and stops as soon as enough targets are reached.
+     *
+     * @param start      index of the starting node
+     * @param targets    indices of the candidate nodes to reach. Negative indices are ignored
+     * @param count      maximum number of targets to find paths to
+     * @param accessible true to force an accessible path, false for any path
+     * @return the paths to the nearest targets, from nearest to farthest
+     */
+    List<Path> findNearestPaths(int start, int[] targets, int count, boolean accessible) {
+        final List<Path> paths = new ArrayList<>();
+        if (start < 0 || count < 1) {
+            return paths;
+        }
+
+        final int targetsFound = search(start, targets, count, accessible);
+        for (int i = 0; i < targetsFound; i++) {
+            final int target = mFoundOrder[i];
+            paths.add(rebuildPath(start, target, mDistances[target], false));
+        }
+
+        return paths;
+    }
+
+    /**
+     * Search the graph from a starting node until enough targets are reached, or no more nodes can be reached.
+     * Searches the floor cells of the start and targets first, when the graph is split into cells.
+     *
+     * @param start      index of the starting node
+     * @param targets    indices of the nodes to reach. Negative indices are ignored
+     * @param maxTargets number of targets to reach before stopping
+     * @param accessible true to force an accessible path, false for any path
+     * @return the number of targets reached
+     */
+    private int search(int start, int[] targets, int maxTargets, boolean accessible) {
+        mExpansionCount = 0;
+        if (selectCells(start, targets)) {
+            final int targetsFound = search(start, targets, maxTargets, accessible, true);
+            if (targetsFound == Math.min(mTargetCount, maxTargets) && !isPenalized(targetsFound)) {
+                return targetsFound;
+            }
+        }
+
+        return search(start, targets, maxTargets, accessible, false);
+    }
+
+    /**
+     * Select the floor cells of the start and the targets of a search as the only cells it expands.
+     *
+     * @param start   index of the starting node
+     * @param targets indices of the nodes to reach. Negative indices are ignored
+     * @return true if the search can be limited to the selected cells, false if the start or a target is in no cell
+     */
+    private boolean selectCells(int start, int[] targets) {
+        final int startCell = mGraph.nodeCell(start);
+        if (startCell < 0) {
+            return false;
+        }
+
+        Arrays.fill(mSearchedCells, false);
+        mSearchedCells[startCell] = true;
+        for (int target : targets) {
+            if (target < 0) {
+                continue;
+            }
+
+            final int targetCell = mGraph.nodeCell(target);
+            if (targetCell < 0) {
+                return false;
+            }
+            mSearchedCells[targetCell] = true;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns true if the path to any target reached by the last search was penalized.
+     *
+     * @param targetsFound number of targets reached by the last search
+     * @return true if a path has a penalty, false otherwise
+     */
+    private boolean isPenalized(int targetsFound) {
+        for (int i = 0; i < targetsFound; i++) {
+            if (mDistances[mFoundOrder[i]] >= NAVIGATION_PENALTY) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Search the graph from a starting node until enough targets are reached, or no more nodes can be reached.
+     *
+     * @param start         index of the starting node
+     * @param targets       indices of the nodes to reach. Negative indices are ignored
+     * @param maxTargets    number of targets to reach before stopping
+     * @param accessible    true to force an accessible path, false for any path
+     * @param selectedCells true to only expand nodes in the cells chosen by {@link #selectCells(int, int[])}, and
+     *                      stairs and elevators, false to expand any node
+     * @return the number of targets reached
+     */
+    private int search(int start, int[] targets, int maxTargets, boolean accessible, boolean selectedCells) {
+        final int[] distances = mDistances;
+        final double[] seconds = mSeconds;
+        final int[] walkedDistances = mWalkedDistances;
+        final int[] previous = mPrevious;
+        final int[] previousEdge = mPreviousEdge;
+        final boolean[] isTarget = mIsTarget;
+        final boolean[] found = mFound;
+        final boolean[] usedFloorChange = mUsedFloorChange;
+        Arrays.fill(distances, UNREACHED);
+        Arrays.fill(previous, -1);
+        Arrays.fill(isTarget, false);
+        Arrays.fill(found, false);
+
+        int targetCount = 0;
+        int lastTarget = -1;
+        for (int target : targets) {
+            if (target >= 0 && !isTarget[target]) {
+                isTarget[target] = true;
+                targetCount++;
+                lastTarget = target;
+            }
+        }
+        mTargetCount = targetCount;
+
+        // Estimates of the distance remaining are only used to search towards a single target
+        final int heuristicTarget = targetCount == 1 && mGraph.hasHeuristic() ? lastTarget : -1;
+
+        // Only the start is queued at first, other nodes are queued as they are reached
+        final IndexedHeap queue = mQueue;
+        queue.clear();
+        if (mGraph.isListed(start)) {
+            distances[start] = 0;
+            seconds[start] = 0;
+            walkedDistances[start] = 0;
+            usedFloorChange[start] = NodeType.isFloorChange(mGraph.nodeType(start));
+            queue.push(start, estimate(start, heuristicTarget));
+        }
+
+        int targetsFound = 0;
+        while (!queue.isEmpty()) {
+            final int node = queue.poll();
+            mExpansionCount++;
+
+            if (isTarget[node] && !found[node]) {
+                found[node] = true;
+                mFoundOrder[targetsFound++] = node;
+                if (targetsFound == targetCount || targetsFound >= maxTargets) {
+                    break;
+                }
+            }
+
+            for (int edge = mGraph.edgeStart(node); edge < mGraph.edgeEnd(node); edge++) {
+                final int neighbour = mGraph.edgeTarget(edge);
+                if (selectedCells && !isInSelectedCell(neighbour)) {
+                    continue;
+                }
+
+                final int cost = getEdgeCost(
+                        node,
+                        edge,
+                        previous[node],
+                        usedFloorChange[node],
+                        isTarget[neighbour],
+                        accessible);
+                if (cost < 0) {
+                    continue;
+                }
+
+                final int alt = distances[node] + cost;
+                if (alt < distances[neighbour]) {
+                    distances[neighbour] = alt;
+                    seconds[neighbour] = seconds[node]
+                            + WalkingTime.edgeSeconds(mGraph, mOutdoor, node, edge, previous[node]);
+                    walkedDistances[neighbour] = walkedDistances[node] + mGraph.edgeDistance(edge);
+                    previous[neighbour] = node;
+                    previousEdge[neighbour] = edge;
+                    usedFloorChange[neighbour] = hasUsedFloorChange(node, neighbour, usedFloorChange[node]);
+                    queue.push(neighbour, alt + estimate(neighbour, heuristicTarget));
+                }
+            }
+        }
+
+        return targetsFound;
+    }
+
+    /**
+     * Returns true if a node is in a cell selected by {@link #selectCells(int, int[])}, or is a staircase or
+     * elevator between cells.
+     *
+     * @param node index of the node
+     * @return true if the node may be expanded, false otherwise
+     */
+    private boolean isInSelectedCell(int node) {
+        final int cell = mGraph.nodeCell(node);
+        return cell < 0 || mSearchedCells[cell];
+    }
+
+    /**
+     * Get the cost of following an edge in a search, including penalties for paths which are not ideal.
+     *
+     * @param node            node the edge starts from
+     * @param edge            the edge to follow
+     * @param previousNode    node which led to the first node, or -1
+     * @param usedFloorChange true if the path to the first node has changed floors in its building
+     * @param isTarget        true if the node the edge leads to is a target of the search
+     * @param accessible      true to force an accessible path, false for any path
+     * @return the cost of the edge, or -1 if it cannot be followed
+     */
+    int getEdgeCost(
+            int node,
+            int edge,
+            int previousNode,
+            boolean usedFloorChange,
+            boolean isTarget,
+            boolean accessible) {
+        final int neighbour = mGraph.edgeTarget(edge);
+        final byte neighbourType = mGraph.nodeType(neighbour);
+        if (!mGraph.isListed(neighbour)) {
+            return -1;
+        }
+
+        if (neighbourType == NodeType.ROOM && !isTarget) {
+            // You'll never have to pass through a room to get to another room, so skip nodes
+            // that aren't targets
+            return -1;
+        }
+
+        if ((accessible
+                && !mGraph.isAccessibleOnly()
+                && !(mGraph.isEdgeAccessible(edge) || neighbourType != NodeType.STAIRS))
+                || mGraph.isEdgeExcluded(edge)
+                || isEdgeClosed(edge)) {
+            // Skip non-accessible edges when the user wants an accessible route, unless the graph only has
+            // accessible edges, and skip routes which are closed.
+            return -1;
+        }
+
+        int cost = mGraph.edgeDistance(edge);
+
+        // If node is a staircase and neighbour is more than X floors away, add extra weight
+        if (mGraph.nodeType(node) == NodeType.STAIRS && previousNode >= 0) {
+            final int previousFloor = mGraph.nodeFloor(previousNode);
+            final int neighbourFloor = mGraph.nodeFloor(neighbour);
+            if (previousFloor != Graph.NO_FLOOR
+                    && neighbourFloor != Graph.NO_FLOOR
+                    && Math.abs(previousFloor - neighbourFloor) > MAX_FLOOR_DIFF_FOR_STAIRS) {
+                cost += NAVIGATION_PENALTY;
+            }
+        }
+
+        // Add penalty to taking stairs and elevator in same building, should only need one
+        if (NodeType.isFloorChange(neighbourType)
+                && mGraph.nodeBuilding(neighbour) == mGraph.nodeBuilding(node)
+                && usedFloorChange) {
+            cost += NAVIGATION_PENALTY;
+        }
+
+        return cost;
+    }
+
+    /**
+     * Returns true if a path has taken a staircase or elevator since entering a node's building, after following an
+     * edge to the node.
+     *
+     * @param node            node the edge starts from
+     * @param neighbour       node the edge leads to
+     * @param usedFloorChange true if the path to the first node has changed floors in its building
+     * @return true if the path to the neighbour has changed floors in its building
+     */
+    boolean hasUsedFloorChange(int node, int neighbour, boolean usedFloorChange) {
+        return NodeType.isFloorChange(mGraph.nodeType(neighbour))
+                || (mGraph.nodeBuilding(neighbour) == mGraph.nodeBuilding(node) && usedFloorChange);
+    }
+
+    /**
+     * Estimate the distance remaining from a node to the target of the search.
+     *
+     * @param node   the node to estimate from
+     * @param target the target of the search, or -1 to search without estimates
+     * @return a lower bound of the distance remaining, or 0
+     */
+    private int estimate(int node, int target) {
+        return target < 0 ? 0 : mGraph.estimateDistance(node, target);
+    }
+
+    /**
+     * Get the path from a start node to a target node, with the time to walk it found by the last search. The
+     * time of a reversed path is the time of the path searched, since each fixed cost of {@link WalkingTime} is
+     * paid once in either direction.
+     *
+     * @param start        starting node
+     * @param target       target node
+     * @param distance     distance of the path
+     * @param reverse      true to build a path from target to start
+     * @return the path, or null if a reversed path is requested and an edge has no opposite
+     */
+    private Path rebuildPath(int start, int target, int distance, boolean reverse) {
+        final int[] previous = mPrevious;
+        final IntList edges = new IntList();
+        int node = target;
+        while (previous[node] >= 0) {
+            if (reverse) {
+                final int edge = findEdge(node, previous[node]);
+                if (edge < 0) {
+                    return null;
+                }
+                edges.add(edge);
+            } else {
+                edges.add(mPreviousEdge[node]);
+            }
+            node = previous[node];
+        }
+
+        if (reverse) {
+            return new Path(target, target, distance, mSeconds[target], edges.toArray());
+        }
+
+        edges.reverse();
+        return new Path(target, start, distance, mSeconds[target], edges.toArray());
+    }
+
+    /**
+     * Find the first edge between two nodes.
+     *
+     * @param source node the edge starts from
+     * @param target node the edge leads to
+     * @return the index of the edge, or -1 if there is none
+     */
+    private int findEdge(int source, int target) {
+        for (int edge = mGraph.edgeStart(source); edge < mGraph.edgeEnd(source); edge++) {
+            if (mGraph.edgeTarget(edge) == target) {
+                return edge;
+            }
+        }
+
+        return -1;
+    }
+}
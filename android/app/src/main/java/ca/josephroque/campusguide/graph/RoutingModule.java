@@ -0,0 +1,815 @@
+package ca.josephroque.campusguide.graph;
+
+import android.content.ComponentCallbacks2;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Native module which runs shortest path searches for {@code src/util/graph/NativeNavigation.ts}, so they don't
+ * block the JS thread. Searches run one at a time on a routing thread, so the module's thread is free to cancel
+ * them, and searches across buildings split their work between the routing thread and a small pool of workers.
+ */
+class RoutingModule extends ReactContextBaseJavaModule {
+
+    /** Error code when a graph could not be loaded. */
+    private static final String E_GRAPH_LOAD = "E_GRAPH_LOAD";
+    /** Error code when a graph could not be compiled. */
+    private static final String E_GRAPH_COMPILE = "E_GRAPH_COMPILE";
+    /** Error code when a graph could not be parsed. */
+    private static final String E_GRAPH_PARSE = "E_GRAPH_PARSE";
+    /** Error code when a search was cancelled before it finished. */
+    private static final String E_SEARCH_CANCELLED = "E_SEARCH_CANCELLED";
+    /** Error code when a search failed, such as on a graph which is not valid. */
+    private static final String E_SEARCH_FAILED = "E_SEARCH_FAILED";
+    /** Shorthand of the outdoor graph. */
+    private static final String OUTDOOR_BUILDING = "OUT";
+    /** Suffix of the text graph files. */
+    private static final String GRAPH_SUFFIX = "_graph.txt";
+    /** Extension of the text graph files. */
+    private static final String TEXT_EXTENSION = ".txt";
+    /** Maximum number of graphs to keep loaded. Enough for a search across buildings, and a few recent ones. */
+    private static final int MAX_CACHED_GRAPHS = 6;
+    /** Event sent to JS when the system is low on memory, so it can shrink its caches too. */
+    private static final String EVENT_TRIM_MEMORY = "CampusGuideRoutingTrimMemory";
+    /** Number of workers for searches across buildings. One for the target building, and one for outside. */
+    private static final int SEARCH_POOL_SIZE = 2;
+    /** Most searches waiting for a worker. Further searches run on the routing thread instead. */
+    private static final int SEARCH_QUEUE_SIZE = 4;
+
+    /** Engines for the most recently loaded graphs. */
+    private final GraphCache mGraphs = new GraphCache(MAX_CACHED_GRAPHS);
+    /** Parses graph files for JS, off of the thread which runs searches. */
+    private final ExecutorService mParseExecutor = Executors.newSingleThreadExecutor();
+    /** Reader for graph files, only used by {@link #mParseExecutor}. */
+    private final GraphFileReader mGraphReader = new GraphFileReader();
+    /** Runs searches, and loads and compiles graphs, one at a time, since engines are not thread safe. */
+    private final ExecutorService mRoutingExecutor = Executors.newSingleThreadExecutor();
+    /** Runs the searches in the target building and outside for searches across buildings. */
+    private final ThreadPoolExecutor mSearchPool = new ThreadPoolExecutor(
+            SEARCH_POOL_SIZE,
+            SEARCH_POOL_SIZE,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(SEARCH_QUEUE_SIZE),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    /** Generation of the latest searches. Searches started in an earlier generation have been cancelled. */
+    private final AtomicInteger mSearchGeneration = new AtomicInteger();
+    /** Alternating IDs of the nodes at each end of the edges closed in each building, by shorthand. */
+    private final Map<String, String[]> mClosedEdges = new HashMap<>();
+    /** Incremented each time the closed edges change, so engines can tell if their closures are out of date. */
+    private int mClosureVersion;
+
+    /**
+     * Constructor for the module.
+     *
+     * @param reactContext the React Native context
+     */
+    RoutingModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "CampusGuideRouting";
+    }
+
+    @Override
+    public void onCatalystInstanceDestroy() {
+        super.onCatalystInstanceDestroy();
+        mParseExecutor.shutdownNow();
+        mRoutingExecutor.shutdownNow();
+        mSearchPool.shutdownNow();
+    }
+
+    /**
+     * Parses a graph file on a background thread. Resolves with the graph in a compact structure which JS can
+     * build its graph from without parsing the text, with the nodes, edges, and details in the order they were
+     * listed in the file.
+     *
+     * @param graphPath absolute path to the graph file
+     * @param building  shorthand of the building the graph describes
+     * @param promise   resolves with the parsed graph
+     */
+    @ReactMethod
+    public void parseGraph(final String graphPath, final String building, final Promise promise) {
+        mParseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(toWritableGraph(mGraphReader.read(building, new File(graphPath))));
+                } catch (IOException | RuntimeException ex) {
+                    promise.reject(E_GRAPH_PARSE, ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Given a starting node, finds the shortest path from the starting node to each of the target nodes.
+     * Resolves with a list of paths, with the index of the node that starts each edge and the index of the edge
+     * in that node's list of edges.
+     *
+     * @param graphPath  absolute path to the graph file
+     * @param building   shorthand of the building the graph describes
+     * @param startId    formatted ID of the starting node
+     * @param targetIds  formatted IDs of the nodes to reach
+     * @param accessible true to force an accessible path, false for any path
+     * @param reverse    true to return paths from each target to the start
+     * @param promise    resolves with the paths found
+     */
+    @ReactMethod
+    public void findShortestPathsBetween(
+            final String graphPath,
+            final String building,
+            final String startId,
+            ReadableArray targetIds,
+            final boolean accessible,
+            final boolean reverse,
+            final Promise promise) {
+        final String[] targetIdStrings = toStringArray(targetIds);
+        final int generation = mSearchGeneration.get();
+        mRoutingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isCancelled(generation, promise)) {
+                    return;
+                }
+
+                final RoutingEngine engine;
+                try {
+                    engine = getEngine(graphPath, building, accessible);
+                } catch (IOException | RuntimeException ex) {
+                    promise.reject(E_GRAPH_LOAD, ex);
+                    return;
+                }
+
+                final Graph graph = engine.getGraph();
+                final WritableArray result = Arguments.createArray();
+                try {
+                    final int[] targets = indicesOf(graph, targetIdStrings);
+                    final List<Path> paths =
+                            engine.findShortestPaths(graph.indexOf(startId), targets, accessible, reverse);
+                    for (Path path : paths) {
+                        result.pushMap(toWritablePath(graph, path));
+                    }
+                } catch (RuntimeException ex) {
+                    promise.reject(E_SEARCH_FAILED, ex);
+                    return;
+                }
+
+                promise.resolve(result);
+            }
+        });
+    }
+
+    /**
+     * Given a starting node, finds the shortest paths to the nearest of a set of candidate nodes, with a single
+     * search. Resolves with the paths, from nearest to farthest, in the same format as
+     * {@link #findShortestPathsBetween}.
+     *
+     * @param graphPath  absolute path to the graph file
+     * @param building   shorthand of the building the graph describes
+     * @param startId    formatted ID of the starting node
+     * @param targetIds  formatted IDs of the candidate nodes
+     * @param count      maximum number of paths to find
+     * @param accessible true to force an accessible path, false for any path
+     * @param promise    resolves with the paths found
+     */
+    @ReactMethod
+    public void findNearestPathsBetween(
+            final String graphPath,
+            final String building,
+            final String startId,
+            ReadableArray targetIds,
+            final int count,
+            final boolean accessible,
+            final Promise promise) {
+        final String[] targetIdStrings = toStringArray(targetIds);
+        final int generation = mSearchGeneration.get();
+        mRoutingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isCancelled(generation, promise)) {
+                    return;
+                }
+
+                final RoutingEngine engine;
+                try {
+                    engine = getEngine(graphPath, building, accessible);
+                } catch (IOException | RuntimeException ex) {
+                    promise.reject(E_GRAPH_LOAD, ex);
+                    return;
+                }
+
+                final Graph graph = engine.getGraph();
+                final WritableArray result = Arguments.createArray();
+                try {
+                    final int[] targets = indicesOf(graph, targetIdStrings);
+                    final List<Path> paths =
+                            engine.findNearestPaths(graph.indexOf(startId), targets, count, accessible);
+                    for (Path path : paths) {
+                        result.pushMap(toWritablePath(graph, path));
+                    }
+                } catch (RuntimeException ex) {
+                    promise.reject(E_SEARCH_FAILED, ex);
+                    return;
+                }
+
+                promise.resolve(result);
+            }
+        });
+    }
+
+    /**
+     * Finds the best path from a node in one building to a node in another, through the outdoor graph. Resolves
+     * with the path from the start to its building's exit, the path outside, and the path from the entrance of
+     * the target's building to the target, or null if there is no path. Rejects if the search is cancelled by
+     * {@link #cancelSearches} before a path is found.
+     *
+     * @param startGraphPath   absolute path to the graph file of the starting building
+     * @param startBuilding    shorthand of the starting building
+     * @param startId          formatted ID of the starting node
+     * @param startDoorIds     formatted IDs of the doors of the starting building
+     * @param targetGraphPath  absolute path to the graph file of the target building
+     * @param targetBuilding   shorthand of the target building
+     * @param targetId         formatted ID of the target node
+     * @param targetDoorIds    formatted IDs of the doors of the target building
+     * @param outdoorGraphPath absolute path to the outdoor graph file
+     * @param accessible       true to force an accessible path, false for any path
+     * @param shortest         true for the shortest path, false for the easiest to follow
+     * @param promise          resolves with the paths found
+     */
+    @ReactMethod
+    public void findPathAcross(
+            final String startGraphPath,
+            final String startBuilding,
+            final String startId,
+            ReadableArray startDoorIds,
+            final String targetGraphPath,
+            final String targetBuilding,
+            final String targetId,
+            ReadableArray targetDoorIds,
+            final String outdoorGraphPath,
+            final boolean accessible,
+            final boolean shortest,
+            final Promise promise) {
+        final String[] startDoors = toStringArray(startDoorIds);
+        final String[] targetDoors = toStringArray(targetDoorIds);
+        final int generation = mSearchGeneration.get();
+        mRoutingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isCancelled(generation, promise)) {
+                    return;
+                }
+
+                final RoutingEngine startEngine;
+                final RoutingEngine targetEngine;
+                final RoutingEngine outdoorEngine;
+                try {
+                    startEngine = getEngine(startGraphPath, startBuilding, accessible);
+                    targetEngine = getEngine(targetGraphPath, targetBuilding, accessible);
+                    outdoorEngine = getEngine(outdoorGraphPath, OUTDOOR_BUILDING, accessible);
+                } catch (IOException | RuntimeException ex) {
+                    promise.reject(E_GRAPH_LOAD, ex);
+                    return;
+                }
+
+                final CrossBuildingRouter router = new CrossBuildingRouter(
+                        startEngine,
+                        targetEngine,
+                        outdoorEngine,
+                        mSearchPool,
+                        mSearchGeneration,
+                        generation);
+                final WritableArray result;
+                try {
+                    final Path[] paths =
+                            router.findPathAcross(startId, startDoors, targetId, targetDoors, accessible, shortest);
+                    if (paths == null) {
+                        promise.resolve(null);
+                        return;
+                    }
+
+                    result = Arguments.createArray();
+                    result.pushMap(toWritablePath(startEngine.getGraph(), paths[0]));
+                    result.pushMap(toWritablePath(outdoorEngine.getGraph(), paths[1]));
+                    result.pushMap(toWritablePath(targetEngine.getGraph(), paths[2]));
+                } catch (CancellationException ex) {
+                    promise.reject(E_SEARCH_CANCELLED, ex);
+                    return;
+                } catch (RuntimeException ex) {
+                    promise.reject(E_SEARCH_FAILED, ex);
+                    return;
+                }
+
+                promise.resolve(result);
+            }
+        });
+    }
+
+    /**
+     * Find the walking distance and time between every pair of a set of locations, with one search from each
+     * location.
+     * Each location is searched in a separate task on the routing thread, so searches for directions started in the
+     * meantime do not wait for every location. Not cancelled by {@link #cancelSearches()}, since the distances do
+     * not depend on the directions being shown.
+     *
+     * @param graphPaths       absolute path to the graph file of the building of each location
+     * @param buildings        shorthand of the building of each location
+     * @param nodeIds          formatted ID of the node of each location
+     * @param outdoorGraphPath absolute path to the outdoor graph file
+     * @param accessible       true to only follow accessible paths, false for any path
+     * @param promise          resolves with the distance from each location to each other, in metres, and the
+     *                         time to walk it, in seconds, or -1 if there is no path
+     */
+    @ReactMethod
+    public void findDistanceMatrix(
+            ReadableArray graphPaths,
+            ReadableArray buildings,
+            ReadableArray nodeIds,
+            final String outdoorGraphPath,
+            final boolean accessible,
+            final Promise promise) {
+        final String[] locationGraphPaths = toStringArray(graphPaths);
+        final String[] locationBuildings = toStringArray(buildings);
+        final DistanceMatrix matrix = new DistanceMatrix(locationBuildings, toStringArray(nodeIds), accessible);
+        mRoutingExecutor.execute(new Runnable() {
+            /** Index of the next location to search from. */
+            private int mLocation;
+
+            @Override
+            public void run() {
+                if (matrix.isComplete()) {
+                    final WritableMap result = Arguments.createMap();
+                    result.putArray("distances", toWritableMatrix(matrix.getDistances()));
+                    result.putArray("seconds", toWritableMatrix(matrix.getSeconds()));
+                    promise.resolve(result);
+                    return;
+                }
+
+                final RoutingEngine engine;
+                final RoutingEngine outdoorEngine;
+                try {
+                    engine = getEngine(locationGraphPaths[mLocation], matrix.getNextBuilding(), accessible);
+                    outdoorEngine = getEngine(outdoorGraphPath, OUTDOOR_BUILDING, accessible);
+                } catch (IOException | RuntimeException ex) {
+                    promise.reject(E_GRAPH_LOAD, ex);
+                    return;
+                }
+
+                try {
+                    matrix.searchNext(engine, outdoorEngine);
+                } catch (RuntimeException ex) {
+                    promise.reject(E_SEARCH_FAILED, ex);
+                    return;
+                }
+
+                mLocation++;
+                mRoutingExecutor.execute(this);
+            }
+        });
+    }
+
+    /**
+     * Cancel every search which has not finished yet. Searches waiting to run are rejected without searching, and
+     * searches across buildings stop before their next search, so a newer search does not wait behind them.
+     */
+    @ReactMethod
+    public void cancelSearches() {
+        mSearchGeneration.incrementAndGet();
+    }
+
+    /**
+     * Close the edges between pairs of nodes in a building, in both directions, replacing the edges closed in the
+     * building before. Loaded graphs skip the closed edges in their next search, without being parsed again.
+     *
+     * @param building      shorthand of the building with the edges
+     * @param closedNodeIds alternating formatted IDs of the nodes at each end of the closed edges
+     * @param promise       resolves when the edges have been closed
+     */
+    @ReactMethod
+    public void setClosedEdges(final String building, ReadableArray closedNodeIds, final Promise promise) {
+        final String[] closedIds = toStringArray(closedNodeIds);
+        mRoutingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (closedIds.length == 0) {
+                    mClosedEdges.remove(building);
+                } else {
+                    mClosedEdges.put(building, closedIds);
+                }
+
+                mClosureVersion++;
+                promise.resolve(null);
+            }
+        });
+    }
+
+    /**
+     * Compile every text graph file in a directory to the binary format, so later searches can memory map them
+     * instead of parsing the text. Graphs with a {@code <building>.gg} layout file in the same directory are
+     * compiled with the coordinates of their nodes, for A* searches. Distances to the doors of each graph are
+     * precomputed, and a second graph with only accessible edges is compiled beside each one. Graphs which are
+     * already compiled from their current text by the current version of the app are skipped. Resolves with the
+     * number of graphs compiled, or rejects if a graph is not valid.
+     *
+     * @param directory absolute path to the directory with the graph files
+     * @param promise   resolves when all of the graphs have been compiled
+     */
+    @ReactMethod
+    public void compileGraphs(final String directory, final Promise promise) {
+        // Compiled on the routing thread, so searches never load a graph while it is being written
+        mRoutingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final File[] files = new File(directory).listFiles();
+                int compiled = 0;
+                if (files != null) {
+                    for (File textFile : files) {
+                        final String name = textFile.getName();
+                        if (!name.endsWith(GRAPH_SUFFIX)) {
+                            continue;
+                        }
+
+                        // Graphs compiled when the app was built are only compiled again when their text changes
+                        final File compiledFile = getCompiledFile(textFile, false);
+                        final File accessibleFile = getCompiledFile(textFile, true);
+                        if (isUpToDate(compiledFile, textFile) && isUpToDate(accessibleFile, textFile)) {
+                            continue;
+                        }
+
+                        final String building = name.substring(0, name.length() - GRAPH_SUFFIX.length());
+                        try {
+                            compileGraph(textFile, building);
+                        } catch (IOException | RuntimeException ex) {
+                            promise.reject(E_GRAPH_COMPILE, ex);
+                            return;
+                        }
+                        compiled++;
+                    }
+                }
+
+                promise.resolve(compiled);
+            }
+        });
+    }
+
+    /**
+     * Resolves with the number of graphs loaded, and the number of times a search found or did not find its
+     * graphs already loaded.
+     *
+     * @param promise resolves with the hits, misses, and size of the cache of graphs
+     */
+    @ReactMethod
+    public void getGraphCacheStats(Promise promise) {
+        final WritableMap stats = Arguments.createMap();
+        stats.putInt("hits", mGraphs.getHitCount());
+        stats.putInt("misses", mGraphs.getMissCount());
+        stats.putInt("size", mGraphs.size());
+        promise.resolve(stats);
+    }
+
+    /**
+     * Unload graphs when the system is low on memory, and ask JS to do the same with its parsed graphs. Graphs
+     * which are unloaded are loaded again by the next search which needs them.
+     *
+     * @param level the level of the memory warning, from {@link ComponentCallbacks2}
+     */
+    void onTrimMemory(int level) {
+        final double keepFraction;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            keepFraction = 0;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            keepFraction = 0.5;
+        } else {
+            return;
+        }
+
+        mGraphs.trimToSize((int) (mGraphs.size() * keepFraction));
+
+        final ReactApplicationContext context = getReactApplicationContext();
+        if (context.hasActiveCatalystInstance()) {
+            final WritableMap event = Arguments.createMap();
+            event.putDouble("keepFraction", keepFraction);
+            context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(EVENT_TRIM_MEMORY, event);
+        }
+    }
+
+    /**
+     * Get the engine for a graph file, loading the graph if it is not cached or has changed since it was loaded.
+     * Only called on {@link #mRoutingExecutor}.
+     * Compiled graphs which are older than the text, or were compiled by an older version of the app, are compiled
+     * again first, and the text is only parsed if they cannot be. Accessible searches use the graph with only
+     * accessible edges, which is loaded and cached separately. The engine's closed edges are updated if they have
+     * changed since its last search.
+     *
+     * @param graphPath  absolute path to the text graph file
+     * @param building   shorthand of the building the graph describes
+     * @param accessible true for the engine of the accessible graph, false for the graph with every edge
+     * @return an engine to search the graph
+     * @throws IOException if the graph could not be read
+     */
+    private RoutingEngine getEngine(String graphPath, String building, boolean accessible) throws IOException {
+        final File textFile = new File(graphPath);
+        final File compiledFile = getCompiledFile(textFile, accessible);
+        boolean useCompiled = isUpToDate(compiledFile, textFile);
+        if (!useCompiled) {
+            try {
+                compileGraph(textFile, building);
+                useCompiled = true;
+            } catch (IOException ex) {
+                // The directory may not be writable, so search the text without the precomputed tables
+            }
+        }
+
+        final File sourceFile = useCompiled ? compiledFile : textFile;
+        final String loadedFrom = sourceFile.getPath() + "@" + sourceFile.lastModified();
+        final String key = accessible ? building + BinaryGraph.ACCESSIBLE_SUFFIX : building;
+
+        RoutingEngine engine = mGraphs.get(key, loadedFrom);
+        if (engine == null) {
+            Graph graph = null;
+            if (useCompiled) {
+                try {
+                    graph = BinaryGraph.map(compiledFile);
+                } catch (IOException ex) {
+                    // Damaged, so fall back to the text
+                }
+            }
+
+            if (graph == null || !graph.getBuilding().equals(building)) {
+                final ParsedGraph parsed = GraphParser.parse(building, textFile);
+                graph = BinaryGraph.fromParsed(accessible ? GraphCompiler.pruneToAccessible(parsed) : parsed);
+            }
+
+            engine = new RoutingEngine(graph);
+            mGraphs.put(key, loadedFrom, engine);
+        }
+
+        if (engine.getClosureVersion() != mClosureVersion) {
+            engine.setClosedEdges(mClosedEdges.get(building), mClosureVersion);
+        }
+
+        return engine;
+    }
+
+    /**
+     * Reject a search if it was cancelled while it waited to run.
+     *
+     * @param generation generation the search was started in
+     * @param promise    promise of the search, rejected if it was cancelled
+     * @return true if the search was cancelled, false if it should run
+     */
+    private boolean isCancelled(int generation, Promise promise) {
+        if (mSearchGeneration.get() == generation) {
+            return false;
+        }
+
+        promise.reject(E_SEARCH_CANCELLED, "Search was superseded by a newer search");
+        return true;
+    }
+
+    /**
+     * Get the indices of nodes in a graph.
+     *
+     * @param graph   the graph
+     * @param nodeIds formatted IDs of the nodes
+     * @return the index of each node, or -1 for nodes which are not in the graph
+     */
+    private static int[] indicesOf(Graph graph, String[] nodeIds) {
+        final int[] indices = new int[nodeIds.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = graph.indexOf(nodeIds[i]);
+        }
+        return indices;
+    }
+
+    /**
+     * Compile a text graph file, and its graph with only accessible edges, beside the text file. The graph is
+     * compiled with the {@code <building>.gg} layout file in the same directory, if there is one.
+     *
+     * @param textFile the text graph file
+     * @param building shorthand of the building the graph describes
+     * @throws IOException if the graph could not be read or written
+     */
+    private static void compileGraph(File textFile, String building) throws IOException {
+        final File layoutFile = new File(textFile.getParentFile(), building + GraphLayout.EXTENSION);
+        final ParsedGraph parsed = GraphCompiler.compile(building, textFile, layoutFile);
+        BinaryGraph.write(parsed, getCompiledFile(textFile, false));
+        BinaryGraph.write(GraphCompiler.pruneToAccessible(parsed), getCompiledFile(textFile, true));
+    }
+
+    /**
+     * Returns true if a compiled graph exists, is at least as new as its text graph file, and was compiled by the
+     * current version of the app.
+     *
+     * @param compiledFile the compiled graph file
+     * @param textFile     the text graph file
+     * @return true if the compiled graph does not need to be compiled again
+     */
+    private static boolean isUpToDate(File compiledFile, File textFile) {
+        return compiledFile.exists()
+                && compiledFile.lastModified() >= textFile.lastModified()
+                && BinaryGraph.hasCurrentVersion(compiledFile);
+    }
+
+    /**
+     * Get the location of a compiled version of a text graph file.
+     *
+     * @param textFile   the text graph file
+     * @param accessible true for the graph with only accessible edges, false for the graph with every edge
+     * @return the compiled graph file, beside the text file
+     */
+    private static File getCompiledFile(File textFile, boolean accessible) {
+        final String path = textFile.getPath();
+        final String basePath = path.endsWith(TEXT_EXTENSION)
+                ? path.substring(0, path.length() - TEXT_EXTENSION.length())
+                : path;
+        return new File(basePath + (accessible ? BinaryGraph.ACCESSIBLE_SUFFIX : "") + BinaryGraph.EXTENSION);
+    }
+
+    /**
+     * Convert an array from JS to an array of strings.
+     *
+     * @param array the array to convert
+     * @return the strings in the array
+     */
+    private static String[] toStringArray(ReadableArray array) {
+        final String[] strings = new String[array.size()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = array.getString(i);
+        }
+        return strings;
+    }
+
+    /**
+     * Convert a parsed graph to a structure to send to JS. Edges are listed by source node, with their targets,
+     * distances, directions, and accessibility in parallel arrays. Directions and accessibility are strings with
+     * one character per edge, as they appear in the graph file.
+     *
+     * @param parsed the parsed graph
+     * @return the graph's nodes, edges, exits, details, exclusions, and rules
+     */
+    private static WritableMap toWritableGraph(ParsedGraph parsed) {
+        final int edgeCount = parsed.edgeTargets.length;
+        final char[] directions = new char[edgeCount];
+        final char[] accessible = new char[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            directions[edge] = (char) parsed.edgeDirections[edge];
+            accessible[edge] = (parsed.edgeFlags[edge] & Graph.EDGE_ACCESSIBLE) != 0 ? 'T' : 'F';
+        }
+
+        final WritableArray exitCoordinates = Arguments.createArray();
+        for (int node : parsed.exitOrder) {
+            exitCoordinates.pushDouble(toDouble(parsed.exits[node * 2]));
+            exitCoordinates.pushDouble(toDouble(parsed.exits[node * 2 + 1]));
+        }
+
+        final WritableArray details = Arguments.createArray();
+        for (int node : parsed.detailOrder) {
+            details.pushString(parsed.nodeDetails[node]);
+        }
+
+        final WritableMap result = Arguments.createMap();
+        result.putString("building", parsed.building);
+        result.putString("campus", parsed.campus);
+        result.putArray("formattingRules", toWritableArray(parsed.formattingRules));
+        result.putArray("streetNames", toWritableArray(parsed.streetNames));
+        result.putArray("nodeIds", toWritableArray(parsed.nodeIds));
+        result.putArray("sources", toWritableArray(parsed.sourceOrder));
+        result.putArray("edgeOffsets", toWritableArray(parsed.edgeOffsets));
+        result.putArray("edgeTargets", toWritableArray(parsed.edgeTargets));
+        result.putArray("edgeDistances", toWritableArray(parsed.edgeDistances));
+        result.putString("edgeDirections", new String(directions));
+        result.putString("edgeAccessible", new String(accessible));
+        result.putArray("excluded", toWritableArray(parsed.excludedPairs));
+        result.putArray("exits", toWritableArray(parsed.exitOrder));
+        result.putArray("exitCoordinates", exitCoordinates);
+        result.putArray("details", toWritableArray(parsed.detailOrder));
+        result.putArray("detailTexts", details);
+        return result;
+    }
+
+    /**
+     * Convert a coordinate to a double with the shortest decimal representation of the float, so it matches the
+     * value {@code parseFloat} reads from the graph file.
+     *
+     * @param value the coordinate
+     * @return the coordinate as a double
+     */
+    private static double toDouble(float value) {
+        return Double.parseDouble(Float.toString(value));
+    }
+
+    /**
+     * Convert an array of ints to an array to send to JS.
+     *
+     * @param values the ints
+     * @return the array
+     */
+    private static WritableArray toWritableArray(int[] values) {
+        final WritableArray array = Arguments.createArray();
+        for (int value : values) {
+            array.pushInt(value);
+        }
+        return array;
+    }
+
+    /**
+     * Convert a matrix of distances or times to an array of rows to send to JS.
+     *
+     * @param values the distances or times
+     * @return the rows of values
+     */
+    private static WritableArray toWritableMatrix(double[][] values) {
+        final WritableArray matrix = Arguments.createArray();
+        for (double[] row : values) {
+            final WritableArray array = Arguments.createArray();
+            for (double value : row) {
+                array.pushDouble(value);
+            }
+            matrix.pushArray(array);
+        }
+        return matrix;
+    }
+
+    /**
+     * Convert an array of strings to an array to send to JS.
+     *
+     * @param values the strings
+     * @return the array
+     */
+    private static WritableArray toWritableArray(String[] values) {
+        final WritableArray array = Arguments.createArray();
+        for (String value : values) {
+            array.pushString(value);
+        }
+        return array;
+    }
+
+    /**
+     * Convert a map of strings to an array of alternating keys and values to send to JS, keeping the order of the
+     * entries.
+     *
+     * @param values the map
+     * @return the keys and values
+     */
+    private static WritableArray toWritableArray(Map<String, String> values) {
+        final WritableArray array = Arguments.createArray();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            array.pushString(entry.getKey());
+            array.pushString(entry.getValue());
+        }
+        return array;
+    }
+
+    /**
+     * Convert a path to a structure to send to JS. Nodes are sent as their indices in the graph, which are the same
+     * as their indices in the graph sent by {@link #parseGraph}, so JS never builds or looks up node IDs for a path.
+     *
+     * @param graph the graph the path is in
+     * @param path  the path to convert
+     * @return the path's target, source, distance, time to walk, and edges
+     */
+    private static WritableMap toWritablePath(Graph graph, Path path) {
+        final WritableArray edgeSources = Arguments.createArray();
+        final WritableArray edgeIndices = Arguments.createArray();
+        for (int edge : path.edges) {
+            edgeSources.pushInt(graph.edgeSource(edge));
+            edgeIndices.pushInt(graph.edgeIndex(edge));
+        }
+
+        final WritableMap result = Arguments.createMap();
+        result.putInt("target", path.target);
+        result.putInt("source", path.source);
+        result.putInt("distance", path.distance);
+        result.putDouble("seconds", path.seconds);
+        result.putArray("edgeSources", edgeSources);
+        result.putArray("edgeIndices", edgeIndices);
+        return result;
+    }
+}
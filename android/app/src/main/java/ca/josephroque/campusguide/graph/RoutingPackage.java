@@ -0,0 +1,41 @@
+package ca.josephroque.campusguide.graph;
+
+import com.facebook.react.ReactPackage;
+import com.facebook.react.bridge.NativeModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.uimanager.ViewManager;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provides the native routing engine to React Native.
+ */
+public class RoutingPackage implements ReactPackage {
+
+    /** The most recently created module, or null if none has been created. */
+    private RoutingModule mModule;
+
+    @Override
+    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
+        mModule = new RoutingModule(reactContext);
+        return Collections.<NativeModule>singletonList(mModule);
+    }
+
+    @Override
+    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Release loaded graphs when the system is low on memory. Should be called from the application's
+     * {@code onTrimMemory}.
+     *
+     * @param level the level of the memory warning
+     */
+    public void onTrimMemory(int level) {
+        if (mModule != null) {
+            mModule.onTrimMemory(level);
+        }
+    }
+}
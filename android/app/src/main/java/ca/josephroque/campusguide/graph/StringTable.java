@@ -0,0 +1,116 @@
+package ca.josephroque.campusguide.graph;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Table of UTF-8 strings in a compiled graph. Stored as a count, the offset of each string plus the end of the
+ * last string, then the bytes of every string, padded to a multiple of 4 bytes. Strings are only decoded when
+ * they are first requested.
+ */
+final class StringTable {
+
+    /** Encoding of strings in the table. */
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Offset of each string in {@link #mBytes}, with one extra entry marking the end of the last string. */
+    private final IntBuffer mOffsets;
+    /** Encoded strings. */
+    private final ByteBuffer mBytes;
+    /** Strings which have been decoded, by index. */
+    private final String[] mDecoded;
+
+    /**
+     * Read a table from a buffer, advancing the buffer's position past the end of the table.
+     *
+     * @param buffer buffer positioned at the start of the table
+     * @throws IOException if the table is longer than the rest of the buffer
+     */
+    StringTable(ByteBuffer buffer) throws IOException {
+        final int count = BinaryGraph.readCount(buffer);
+        mOffsets = BinaryGraph.sliceInts(buffer, count + 1L);
+        mBytes = BinaryGraph.sliceBytes(buffer, mOffsets.get(count));
+        mDecoded = new String[count];
+    }
+
+    /**
+     * Returns the number of strings in the table.
+     *
+     * @return the number of strings
+     */
+    int size() {
+        return mDecoded.length;
+    }
+
+    /**
+     * Returns a string from the table.
+     *
+     * @param index index of the string
+     * @return the decoded string
+     */
+    String get(int index) {
+        String value = mDecoded[index];
+        if (value == null) {
+            final int start = mOffsets.get(index);
+            final byte[] bytes = new byte[mOffsets.get(index + 1) - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = mBytes.get(start + i);
+            }
+
+            value = new String(bytes, UTF_8);
+            mDecoded[index] = value;
+        }
+
+        return value;
+    }
+
+    /**
+     * Compare a string in the table to an encoded string, by their unsigned bytes.
+     *
+     * @param index index of the string in the table
+     * @param other the encoded string to compare to
+     * @return a negative number, zero, or a positive number if the string in the table is less than, equal to, or
+     *         greater than {@code other}
+     */
+    int compare(int index, byte[] other) {
+        final int start = mOffsets.get(index);
+        final int length = mOffsets.get(index + 1) - start;
+        final int shared = Math.min(length, other.length);
+        for (int i = 0; i < shared; i++) {
+            final int difference = (mBytes.get(start + i) & 0xFF) - (other[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+
+        return length - other.length;
+    }
+
+    /**
+     * Write a table of strings.
+     *
+     * @param out     stream to write to
+     * @param strings the strings to write. Null strings are written as empty strings
+     * @throws IOException if the table could not be written
+     */
+    static void write(DataOutputStream out, String[] strings) throws IOException {
+        final byte[][] encoded = new byte[strings.length][];
+        out.writeInt(strings.length);
+
+        int offset = 0;
+        for (int i = 0; i < strings.length; i++) {
+            encoded[i] = strings[i] == null ? new byte[0] : strings[i].getBytes(UTF_8);
+            out.writeInt(offset);
+            offset += encoded[i].length;
+        }
+        out.writeInt(offset);
+
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+        BinaryGraph.pad(out, offset);
+    }
+}
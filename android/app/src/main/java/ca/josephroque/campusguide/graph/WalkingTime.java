@@ -0,0 +1,88 @@
+package ca.josephroque.campusguide.graph;
+
+/**
+ * Estimates the time to walk along the edges of a graph, from the distance walked and fixed costs for climbing
+ * stairs, waiting for and riding elevators, passing through doors, and crossing streets. Searches add the time of
+ * an edge when they reach a node along it, so each path's time is known as soon as the path is found. Mirrors
+ * {@code _getEdgeSeconds} in {@code src/util/graph/Navigation.ts}.
+ */
+final class WalkingTime {
+
+    /** Average walking speed, in metres per second. Mirrors {@code WALKING_METRES_PER_MINUTE}. */
+    static final double WALKING_METRES_PER_SECOND = 80 / 60.0;
+    /** Time to climb or descend the stairs between two floors, in seconds. */
+    static final double STAIRS_SECONDS_PER_FLOOR = 15;
+    /** Time to wait for an elevator, in seconds. */
+    static final double ELEVATOR_WAIT_SECONDS = 30;
+    /** Time for an elevator to travel between two floors, in seconds. */
+    static final double ELEVATOR_SECONDS_PER_FLOOR = 5;
+    /** Time to pass through a door of a building, in seconds. */
+    static final double DOOR_SECONDS = 5;
+    /** Time to cross a street, including waiting to cross, in seconds. */
+    static final double CROSSING_SECONDS = 20;
+
+    /** Shorthand of the outdoor graph's building. */
+    private static final String OUTDOOR_BUILDING = "OUT";
+
+    /**
+     * Default constructor.
+     */
+    private WalkingTime() {
+        // Does nothing
+    }
+
+    /**
+     * Returns true if a graph is the outdoor graph, whose distances are in outdoor units.
+     *
+     * @param graph the graph
+     * @return true for the outdoor graph, false for buildings
+     */
+    static boolean isOutdoor(Graph graph) {
+        return OUTDOOR_BUILDING.equals(graph.getBuilding());
+    }
+
+    /**
+     * Get the time to follow an edge. Stairs and elevators cost time for each floor between the nodes before and
+     * after them, and elevators cost a wait when they are entered. A door costs time when a path inside a building
+     * reaches it, or starts from it, so a route through a door pays for it once. Crossings are edges between two
+     * intersections, the same as the easiest route penalizes.
+     *
+     * @param graph        graph with the edge
+     * @param outdoor      true if the graph is the outdoor graph
+     * @param node         node the edge starts from
+     * @param edge         the edge to follow
+     * @param previousNode node which led to the first node, or -1
+     * @return the time to follow the edge, in seconds
+     */
+    static double edgeSeconds(Graph graph, boolean outdoor, int node, int edge, int previousNode) {
+        final int neighbour = graph.edgeTarget(edge);
+        final byte nodeType = graph.nodeType(node);
+        final byte neighbourType = graph.nodeType(neighbour);
+        final double unitToMetres = outdoor ? CrossBuildingRouter.OUTER_UNIT_TO_M : CrossBuildingRouter.INNER_UNIT_TO_M;
+        double seconds = graph.edgeDistance(edge) * unitToMetres / WALKING_METRES_PER_SECOND;
+
+        if (NodeType.isFloorChange(nodeType) && previousNode >= 0) {
+            final int previousFloor = graph.nodeFloor(previousNode);
+            final int neighbourFloor = graph.nodeFloor(neighbour);
+            if (previousFloor != Graph.NO_FLOOR && neighbourFloor != Graph.NO_FLOOR) {
+                seconds += Math.abs(previousFloor - neighbourFloor) * (nodeType == NodeType.STAIRS
+                        ? STAIRS_SECONDS_PER_FLOOR
+                        : ELEVATOR_SECONDS_PER_FLOOR);
+            }
+        }
+
+        if (neighbourType == NodeType.ELEVATOR && nodeType != NodeType.ELEVATOR) {
+            seconds += ELEVATOR_WAIT_SECONDS;
+        }
+
+        if (!outdoor && (neighbourType == NodeType.DOOR || (nodeType == NodeType.DOOR && previousNode < 0))) {
+            seconds += DOOR_SECONDS;
+        }
+
+        if (nodeType == NodeType.INTERSECTION && neighbourType == NodeType.INTERSECTION) {
+            seconds += CROSSING_SECONDS;
+        }
+
+        return seconds;
+    }
+}
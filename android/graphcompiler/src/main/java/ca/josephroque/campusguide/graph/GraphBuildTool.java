@@ -0,0 +1,160 @@
+package ca.josephroque.campusguide.graph;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Validates the graph files bundled with the app and compiles them to the binary format read by {@link Graph}, so
+ * the app never parses the text of its bundled graphs. Each graph is also compiled with only its accessible edges,
+ * for wheelchair routes. Run by the {@code compileGraphs} task in
+ * {@code android/app/build.gradle}, which fails if any graph has errors.
+ */
+final class GraphBuildTool {
+
+    /** Suffix of the text graph files. */
+    private static final String GRAPH_SUFFIX = "_graph.txt";
+    /** Extension of the text graph files. */
+    private static final String TEXT_EXTENSION = ".txt";
+    /** Shorthand of the outdoor graph. */
+    private static final String OUTDOOR_BUILDING = "OUT";
+
+    /**
+     * Default constructor.
+     */
+    private GraphBuildTool() {
+        // Does nothing
+    }
+
+    /**
+     * Validate and compile every graph file in a directory.
+     *
+     * @param args the directory with the graph files and their layouts, the directory to write compiled graphs to,
+     *             and the file to write the report to
+     * @throws IOException if the directory has no graphs, a graph could not be read, or its compiled graph or the
+     *                     report could not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: GraphBuildTool <graph directory> <output directory> <report file>");
+            System.exit(2);
+        }
+
+        final File reportFile = new File(args[2]);
+        final List<GraphValidator.Result> results = compileGraphs(new File(args[0]), new File(args[1]));
+        final int errorCount = writeReport(results, reportFile);
+        if (errorCount > 0) {
+            System.err.println(errorCount + " errors found in graphs. See " + reportFile);
+            System.exit(1);
+        }
+
+        System.out.println("Compiled " + results.size() + " graphs. See " + reportFile);
+    }
+
+    /**
+     * Validate and compile every graph file in a directory. A directory without graphs is an error, so a build
+     * which is missing its bundled graphs fails instead of shipping without them.
+     *
+     * @param graphDirectory  the directory with the graph files and their layouts
+     * @param outputDirectory the directory to write compiled graphs to
+     * @return the results of validating each graph
+     * @throws IOException if the directory has no graphs, a graph could not be read, or its compiled graph could not
+     *                     be written
+     */
+    static List<GraphValidator.Result> compileGraphs(File graphDirectory, File outputDirectory) throws IOException {
+        final File[] files = graphDirectory.listFiles();
+        if (files == null) {
+            throw new IOException("No graph directory at " + graphDirectory.getAbsolutePath());
+        }
+        Arrays.sort(files);
+
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Could not create " + outputDirectory);
+        }
+
+        final List<Graph> graphs = new ArrayList<>();
+        final List<GraphValidator.Result> results = new ArrayList<>();
+        Graph outdoor = null;
+        for (File textFile : files) {
+            final String name = textFile.getName();
+            if (!name.endsWith(GRAPH_SUFFIX)) {
+                continue;
+            }
+
+            final String building = name.substring(0, name.length() - GRAPH_SUFFIX.length());
+            final File layoutFile = new File(graphDirectory, building + GraphLayout.EXTENSION);
+            final ParsedGraph parsed = GraphCompiler.compile(building, textFile, layoutFile);
+            final String baseName = name.substring(0, name.length() - TEXT_EXTENSION.length());
+            BinaryGraph.write(parsed, new File(outputDirectory, baseName + BinaryGraph.EXTENSION));
+            BinaryGraph.write(
+                    GraphCompiler.pruneToAccessible(parsed),
+                    new File(outputDirectory, baseName + BinaryGraph.ACCESSIBLE_SUFFIX + BinaryGraph.EXTENSION));
+
+            final Graph graph = BinaryGraph.fromParsed(parsed);
+            graphs.add(graph);
+            results.add(GraphValidator.validate(graph));
+            if (building.equals(OUTDOOR_BUILDING)) {
+                outdoor = graph;
+            }
+        }
+
+        if (graphs.isEmpty()) {
+            throw new IOException("No *" + GRAPH_SUFFIX + " files in " + graphDirectory.getAbsolutePath());
+        }
+
+        if (outdoor != null) {
+            for (int i = 0; i < graphs.size(); i++) {
+                if (graphs.get(i) != outdoor) {
+                    GraphValidator.checkExits(graphs.get(i), outdoor, results.get(i));
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Write the problems and measurements of each graph to a report, and print the errors.
+     *
+     * @param results    the results of validating each graph
+     * @param reportFile the file to write the report to
+     * @return the number of errors in every graph
+     * @throws IOException if the report could not be written
+     */
+    private static int writeReport(List<GraphValidator.Result> results, File reportFile) throws IOException {
+        final File reportDirectory = reportFile.getAbsoluteFile().getParentFile();
+        if (!reportDirectory.isDirectory() && !reportDirectory.mkdirs()) {
+            throw new IOException("Could not create " + reportDirectory);
+        }
+
+        int errorCount = 0;
+        final PrintWriter report = new PrintWriter(
+                new OutputStreamWriter(new FileOutputStream(reportFile), StringTable.UTF_8));
+        try {
+            for (GraphValidator.Result result : results) {
+                report.println(result.building + ": "
+                        + result.nodeCount + " nodes, "
+                        + result.edgeCount + " edges, "
+                        + "diameter " + result.diameter + ", "
+                        + "at most " + result.maxExpansions + " nodes visited by a search");
+                for (String error : result.errors) {
+                    report.println("    error: " + error);
+                    System.err.println(result.building + ": " + error);
+                }
+                for (String warning : result.warnings) {
+                    report.println("    warning: " + warning);
+                }
+                errorCount += result.errors.size();
+            }
+        } finally {
+            report.close();
+        }
+
+        return errorCount;
+    }
+}
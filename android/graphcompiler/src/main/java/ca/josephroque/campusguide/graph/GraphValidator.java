@@ -0,0 +1,251 @@
+package ca.josephroque.campusguide.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks a graph for mistakes which would break searches, and measures how expensive the graph is to search. Run
+ * when the app is built, so broken or pathological graphs are caught before they are bundled with the app.
+ */
+final class GraphValidator {
+
+    /**
+     * Problems found in a graph, and its measurements.
+     */
+    static final class Result {
+
+        /** Shorthand of the building the graph describes. */
+        final String building;
+        /** Problems which would give users wrong directions, or no directions at all. */
+        final List<String> errors = new ArrayList<>();
+        /** Problems which may be intended, such as one way edges. */
+        final List<String> warnings = new ArrayList<>();
+        /** Number of nodes in the graph. */
+        int nodeCount;
+        /** Number of edges in the graph. */
+        int edgeCount;
+        /** Longest of the shortest paths between two rooms or doors, including the penalties searches add. */
+        int diameter;
+        /** Most nodes visited by a search from a room or door to the farthest room or door it can reach. */
+        int maxExpansions;
+
+        /**
+         * Constructor for the result of validating a graph.
+         *
+         * @param building shorthand of the building the graph describes
+         */
+        Result(String building) {
+            this.building = building;
+        }
+    }
+
+    /**
+     * Default constructor.
+     */
+    private GraphValidator() {
+        // Does nothing
+    }
+
+    /**
+     * Check a graph for disconnected nodes, asymmetric edges, dangling doors, and unreachable rooms, and measure
+     * its size, diameter, and the cost of its most expensive search.
+     *
+     * @param graph the graph to check
+     * @return the problems found, and the graph's measurements
+     */
+    static Result validate(Graph graph) {
+        final Result result = new Result(graph.getBuilding());
+        result.nodeCount = graph.getNodeCount();
+        result.edgeCount = graph.getEdgeCount();
+
+        checkConnectivity(graph, result);
+        checkEdgeSymmetry(graph, result);
+        checkDoors(graph, result);
+        checkRooms(graph, result);
+        measureSearches(graph, result);
+        return result;
+    }
+
+    /**
+     * Check that each door of a building leads outside, through an exit of the outdoor graph.
+     *
+     * @param graph   the building's graph
+     * @param outdoor the outdoor graph
+     * @param result  result to add problems to
+     */
+    static void checkExits(Graph graph, Graph outdoor, Result result) {
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (graph.nodeType(node) != NodeType.DOOR
+                    || !graph.hasEdges(node)
+                    || !graph.nodeBuildingName(node).equals(graph.getBuilding())) {
+                continue;
+            }
+
+            final int exit = outdoor.indexOf(graph.nodeId(node));
+            if (exit < 0 || !outdoor.isExit(exit) || !outdoor.hasEdges(exit)) {
+                result.errors.add("Door " + graph.nodeId(node) + " is not an exit of the outdoor graph");
+            }
+        }
+    }
+
+    /**
+     * Check that every node with edges can reach every other, ignoring the direction of the edges.
+     *
+     * @param graph  the graph to check
+     * @param result result to add problems to
+     */
+    private static void checkConnectivity(Graph graph, Result result) {
+        final int nodeCount = graph.getNodeCount();
+        final int[] groups = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            groups[node] = node;
+        }
+
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            GraphCompiler.joinGroups(groups, graph.edgeSource(edge), graph.edgeTarget(edge));
+        }
+
+        // Every group other than the first is reported, by its first node with edges
+        final boolean[] seenGroups = new boolean[nodeCount];
+        int firstNode = -1;
+        for (int node = 0; node < nodeCount; node++) {
+            final int group = GraphCompiler.findGroup(groups, node);
+            if (!graph.hasEdges(node) || seenGroups[group]) {
+                continue;
+            }
+
+            seenGroups[group] = true;
+            if (firstNode < 0) {
+                firstNode = node;
+            } else {
+                result.errors.add("Node " + graph.nodeId(node) + " is not connected to " + graph.nodeId(firstNode));
+            }
+        }
+    }
+
+    /**
+     * Check that each edge has an edge back, with the same distance.
+     *
+     * @param graph  the graph to check
+     * @param result result to add problems to
+     */
+    private static void checkEdgeSymmetry(Graph graph, Result result) {
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            final int source = graph.edgeSource(edge);
+            final int target = graph.edgeTarget(edge);
+            final String description = "Edge from " + graph.nodeId(source) + " to " + graph.nodeId(target);
+
+            int reverse = -1;
+            for (int other = graph.edgeStart(target); other < graph.edgeEnd(target); other++) {
+                if (graph.edgeTarget(other) == source) {
+                    reverse = other;
+                    break;
+                }
+            }
+
+            if (reverse < 0) {
+                result.warnings.add(description + " has no edge back");
+            } else if (graph.edgeDistance(reverse) != graph.edgeDistance(edge)) {
+                result.warnings.add(description + " is " + graph.edgeDistance(edge)
+                        + " long, but the edge back is " + graph.edgeDistance(reverse));
+            }
+        }
+    }
+
+    /**
+     * Check that each door has edges, so it can be entered and left.
+     *
+     * @param graph  the graph to check
+     * @param result result to add problems to
+     */
+    private static void checkDoors(Graph graph, Result result) {
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (graph.nodeType(node) == NodeType.DOOR && !graph.hasEdges(node)) {
+                result.errors.add("Door " + graph.nodeId(node) + " has no edges");
+            }
+        }
+    }
+
+    /**
+     * Check that each room can be reached from a door of the graph's building, for buildings with doors.
+     *
+     * @param graph  the graph to check
+     * @param result result to add problems to
+     */
+    private static void checkRooms(Graph graph, Result result) {
+        final IntList doors = new IntList();
+        final IntList rooms = new IntList();
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (!graph.hasEdges(node)) {
+                continue;
+            }
+
+            if (graph.nodeType(node) == NodeType.DOOR) {
+                doors.add(node);
+            } else if (graph.nodeType(node) == NodeType.ROOM) {
+                rooms.add(node);
+            }
+        }
+
+        if (rooms.size() == 0) {
+            return;
+        } else if (doors.size() == 0) {
+            result.warnings.add("Graph has rooms, but no doors to reach them from");
+            return;
+        }
+
+        final RoutingEngine engine = new RoutingEngine(graph);
+        final int[] targets = rooms.toArray();
+        final boolean[] reached = new boolean[targets.length];
+        for (int i = 0; i < doors.size(); i++) {
+            final int[] distances = engine.findDistances(doors.get(i), targets, false);
+            for (int j = 0; j < distances.length; j++) {
+                reached[j] = reached[j] || distances[j] >= 0;
+            }
+        }
+
+        for (int j = 0; j < targets.length; j++) {
+            if (!reached[j]) {
+                result.errors.add("Room " + graph.nodeId(targets[j]) + " cannot be reached from any door");
+            }
+        }
+    }
+
+    /**
+     * Measure the diameter of the graph between its rooms and doors, and the most nodes a search between them
+     * visits. Each room and door is searched from once to find the farthest it can reach, and then again to that
+     * target alone, the same as the searches for directions.
+     *
+     * @param graph  the graph to measure
+     * @param result result to set the measurements of
+     */
+    private static void measureSearches(Graph graph, Result result) {
+        final IntList endpoints = new IntList();
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            final byte type = graph.nodeType(node);
+            if (graph.hasEdges(node) && (type == NodeType.DOOR || type == NodeType.ROOM)) {
+                endpoints.add(node);
+            }
+        }
+
+        final RoutingEngine engine = new RoutingEngine(graph);
+        final int[] targets = endpoints.toArray();
+        for (int source : targets) {
+            final int[] distances = engine.findDistances(source, targets, false);
+            int farthest = -1;
+            for (int i = 0; i < distances.length; i++) {
+                if (farthest < 0 || distances[i] > distances[farthest]) {
+                    farthest = i;
+                }
+            }
+
+            if (farthest < 0 || distances[farthest] <= 0) {
+                continue;
+            }
+
+            result.diameter = Math.max(result.diameter, distances[farthest]);
+            engine.findDistances(source, new int[] {targets[farthest]}, false);
+            result.maxExpansions = Math.max(result.maxExpansions, engine.getExpansionCount());
+        }
+    }
+}
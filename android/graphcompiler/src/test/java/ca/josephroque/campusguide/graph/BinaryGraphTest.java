@@ -0,0 +1,241 @@
+package ca.josephroque.campusguide.graph;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that compiled graphs hold the same graph that was parsed from the graph file.
+ */
+public class BinaryGraphTest {
+
+    /** Buildings with a graph in {@code src/util/graph/__mocks__}. */
+    private static final String[] BUILDINGS = {"STE", "GSD", "OUT"};
+    /** Offset of the version in the header of a compiled graph. */
+    private static final int VERSION_OFFSET = 4;
+
+    /** Folder for compiled graphs. */
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Test that a graph written to a file and mapped again is the same as the graph which was parsed.
+     *
+     * @throws IOException if a graph could not be written or read
+     */
+    @Test
+    public void writesAndMapsGraphs() throws IOException {
+        for (String building : BUILDINGS) {
+            final ParsedGraph parsed = TestGraphs.compile(building);
+            final File file = mFolder.newFile(building + BinaryGraph.EXTENSION);
+            BinaryGraph.write(parsed, file);
+            assertSameGraph(parsed, BinaryGraph.map(file));
+        }
+    }
+
+    /**
+     * Test that an accessible graph is the same as its pruned graph, and is marked as accessible only.
+     *
+     * @throws IOException if a graph could not be compiled
+     */
+    @Test
+    public void encodesAccessibleGraphs() throws IOException {
+        final ParsedGraph parsed = TestGraphs.compile("GSD");
+        final ParsedGraph accessible = GraphCompiler.pruneToAccessible(parsed);
+        final Graph accessibleGraph = BinaryGraph.fromParsed(accessible);
+        assertSameGraph(accessible, accessibleGraph);
+        assertTrue(accessibleGraph.isAccessibleOnly());
+        assertFalse(BinaryGraph.fromParsed(parsed).isAccessibleOnly());
+
+        // Only the edges to and from the stairs are not accessible
+        assertEquals(parsed.edgeTargets.length - 2, accessibleGraph.getEdgeCount());
+        assertEquals(parsed.nodeIds.length, accessibleGraph.getNodeCount());
+    }
+
+    /**
+     * Test that a file which does not start with the magic number is not read.
+     *
+     * @throws IOException always, since the buffer is not a compiled graph
+     */
+    @Test(expected = IOException.class)
+    public void rejectsFilesWhichAreNotGraphs() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.putInt(0, 0x7B0A2020);
+        BinaryGraph.decode(buffer);
+    }
+
+    /**
+     * Test that a file which is too short to hold a header is not read.
+     *
+     * @throws IOException always, since the buffer is not a compiled graph
+     */
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedFiles() throws IOException {
+        BinaryGraph.decode(ByteBuffer.allocate(VERSION_OFFSET));
+    }
+
+    /**
+     * Test that a graph cut off anywhere is not read, rather than failing while it is searched.
+     *
+     * @throws IOException if the graph could not be compiled
+     */
+    @Test
+    public void rejectsGraphsCutOffAnywhere() throws IOException {
+        final File file = mFolder.newFile("GSD" + BinaryGraph.EXTENSION);
+        BinaryGraph.write(TestGraphs.compile("GSD"), file);
+        final byte[] bytes = readBytes(file);
+        for (int length = 0; length < bytes.length; length += 4) {
+            try {
+                BinaryGraph.decode(ByteBuffer.wrap(bytes, 0, length).slice());
+                fail("Read a graph cut off after " + length + " bytes");
+            } catch (IOException ex) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Test that only graphs compiled by the current version of the format are current.
+     *
+     * @throws IOException if the graph could not be written
+     */
+    @Test
+    public void checksVersionOfFiles() throws IOException {
+        final File file = mFolder.newFile("STE" + BinaryGraph.EXTENSION);
+        assertFalse(BinaryGraph.hasCurrentVersion(file));
+        assertFalse(BinaryGraph.hasCurrentVersion(new File(mFolder.getRoot(), "missing" + BinaryGraph.EXTENSION)));
+
+        BinaryGraph.write(TestGraphs.compile("STE"), file);
+        assertTrue(BinaryGraph.hasCurrentVersion(file));
+
+        writeVersion(file, BinaryGraph.VERSION - 1);
+        assertFalse(BinaryGraph.hasCurrentVersion(file));
+    }
+
+    /**
+     * Test that a graph compiled by a different version of the format is not read, so it is compiled again.
+     *
+     * @throws IOException always, since the graph has a different version
+     */
+    @Test(expected = IOException.class)
+    public void rejectsOtherVersions() throws IOException {
+        final File file = mFolder.newFile("STE" + BinaryGraph.EXTENSION);
+        BinaryGraph.write(TestGraphs.compile("STE"), file);
+        writeVersion(file, BinaryGraph.VERSION - 1);
+        BinaryGraph.map(file);
+    }
+
+    /**
+     * Replace the version in the header of a compiled graph.
+     *
+     * @param file    the compiled graph
+     * @param version the version to write
+     * @throws IOException if the file could not be written
+     */
+    private static void writeVersion(File file, int version) throws IOException {
+        final RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            output.seek(VERSION_OFFSET);
+            output.writeInt(version);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Read the contents of a file.
+     *
+     * @param file the file
+     * @return the bytes of the file
+     * @throws IOException if the file could not be read
+     */
+    private static byte[] readBytes(File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final byte[] bytes = new byte[(int) input.length()];
+            input.readFully(bytes);
+            return bytes;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Check that a compiled graph holds the same nodes, edges, and door distances as the graph it was compiled from.
+     *
+     * @param parsed the parsed graph
+     * @param graph  the compiled graph
+     */
+    private static void assertSameGraph(ParsedGraph parsed, Graph graph) {
+        final String building = parsed.building;
+        assertEquals(building, graph.getBuilding());
+        assertEquals(parsed.campus, graph.getCampus());
+        assertEquals(parsed.formattingRules, graph.getFormattingRules());
+        assertEquals(parsed.accessibleOnly, graph.isAccessibleOnly());
+        assertEquals(building, parsed.nodeIds.length, graph.getNodeCount());
+        assertEquals(building, parsed.edgeTargets.length, graph.getEdgeCount());
+
+        for (int node = 0; node < parsed.nodeIds.length; node++) {
+            final String nodeId = parsed.nodeIds[node];
+            assertEquals(nodeId, graph.nodeId(node));
+            assertEquals(nodeId, node, graph.indexOf(nodeId));
+            assertEquals(nodeId, parsed.nodeTypes[node], graph.nodeType(node));
+            assertEquals(nodeId, (parsed.nodeFlags[node] & Graph.NODE_LISTED) != 0, graph.isListed(node));
+            assertEquals(nodeId, parsed.nodeFloors[node], graph.nodeFloor(node));
+            assertEquals(nodeId, parsed.nodeBuildings[node], graph.nodeBuilding(node));
+            assertEquals(nodeId, parsed.nodeCells[node], graph.nodeCell(node));
+            assertEquals(nodeId, parsed.edgeOffsets[node], graph.edgeStart(node));
+            assertEquals(nodeId, parsed.edgeOffsets[node + 1], graph.edgeEnd(node));
+            assertEquals(nodeId, parsed.doorRows[node] >= 0, graph.hasDoorDistances(node));
+        }
+
+        for (int edge = 0; edge < parsed.edgeTargets.length; edge++) {
+            final String edgeName = building + " edge " + edge;
+            assertEquals(edgeName, parsed.edgeSources[edge], graph.edgeSource(edge));
+            assertEquals(edgeName, parsed.edgeTargets[edge], graph.edgeTarget(edge));
+            assertEquals(edgeName, parsed.edgeDistances[edge], graph.edgeDistance(edge));
+            assertEquals(edgeName, parsed.edgeDirections[edge], graph.edgeDirection(edge));
+            assertEquals(edgeName, parsed.edgeIndices[edge], graph.edgeIndex(edge));
+            assertEquals(
+                    edgeName,
+                    (parsed.edgeFlags[edge] & Graph.EDGE_ACCESSIBLE) != 0,
+                    graph.isEdgeAccessible(edge));
+        }
+
+        assertEquals(building, parsed.excludedPairs.length / 2, graph.getExcludedPairCount());
+        for (int pair = 0; pair < graph.getExcludedPairCount(); pair++) {
+            assertEquals(parsed.excludedPairs[pair * 2], graph.excludedPairNode(pair, 0));
+            assertEquals(parsed.excludedPairs[pair * 2 + 1], graph.excludedPairNode(pair, 1));
+        }
+
+        final int doorCount = parsed.doors.length;
+        for (int node = 0; node < parsed.nodeIds.length; node++) {
+            final int row = parsed.doorRows[node];
+            if (row < 0) {
+                continue;
+            }
+
+            for (int column = 0; column < doorCount; column++) {
+                final int door = parsed.doors[column];
+                assertEquals(
+                        parsed.nodeIds[node] + " to " + parsed.nodeIds[door],
+                        parsed.doorDistances[row * 2 * doorCount + column],
+                        graph.doorDistance(node, door, false));
+                assertEquals(
+                        parsed.nodeIds[node] + " to " + parsed.nodeIds[door] + ", accessible",
+                        parsed.doorDistances[(row * 2 + 1) * doorCount + column],
+                        graph.doorDistance(node, door, true));
+            }
+        }
+    }
+}
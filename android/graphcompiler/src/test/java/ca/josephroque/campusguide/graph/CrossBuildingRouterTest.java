@@ -0,0 +1,220 @@
+package ca.josephroque.campusguide.graph;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests routes between two buildings. Paths and distances are the same as {@code Navigation-test.ts} expects.
+ */
+public class CrossBuildingRouterTest {
+
+    /** Allowed error of walking times, in seconds. */
+    private static final double SECONDS_DELTA = 1e-6;
+    /** Doors of STE. */
+    private static final String[] STE_DOORS = {"BSTE#D1", "BSTE#D2"};
+    /** Doors of GSD. */
+    private static final String[] GSD_DOORS = {"BGSD#D1"};
+
+    /** Folder for graphs written by tests. */
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /** Graph of STE. */
+    private Graph mSteGraph;
+    /** Graph of GSD. */
+    private Graph mGsdGraph;
+    /** Outdoor graph. */
+    private Graph mOutdoorGraph;
+    /** Runs the searches of the target building and outside. */
+    private ExecutorService mSearchPool;
+    /** Generation of the latest searches. */
+    private AtomicInteger mSearchGeneration;
+
+    /**
+     * Load the graphs.
+     *
+     * @throws IOException if a graph could not be read
+     */
+    @Before
+    public void setUp() throws IOException {
+        mSteGraph = TestGraphs.load("STE");
+        mGsdGraph = TestGraphs.load("GSD");
+        mOutdoorGraph = TestGraphs.load("OUT");
+        mSearchPool = Executors.newFixedThreadPool(2);
+        mSearchGeneration = new AtomicInteger();
+    }
+
+    /**
+     * Stop the searches.
+     */
+    @After
+    public void tearDown() {
+        mSearchPool.shutdownNow();
+    }
+
+    /**
+     * Test that the shortest path across buildings leaves through the nearest door, and includes the time to walk
+     * through the doors and cross the streets.
+     */
+    @Test
+    public void findsShortestPathAcross() {
+        final Path[] paths = createRouter(0).findPathAcross(
+                "BSTE#H1h1", STE_DOORS, "BGSD#H1h2", GSD_DOORS, false, true);
+        assertEquals(3, paths.length);
+
+        assertArrayEquals(new String[] {"BSTE#H1h1", "BSTE#D1"}, TestGraphs.nodeIdsOf(mSteGraph, paths[0]));
+        assertEquals(60, paths[0].distance);
+        assertArrayEquals(
+                new String[] {
+                    "BSTE#D1",
+                    "BOUT#T24",
+                    "BOUT#T23",
+                    "BOUT#P19",
+                    "BOUT#P21",
+                    "BOUT#O22",
+                    "BOUT#P20",
+                    "BOUT#P18",
+                    "BOUT#P17",
+                    "BOUT#T16",
+                    "BOUT#T14",
+                    "BOUT#I8",
+                    "BOUT#I6",
+                    "BOUT#I5",
+                    "BOUT#T4",
+                    "BOUT#T3",
+                    "BGSD#D1",
+                },
+                TestGraphs.nodeIdsOf(mOutdoorGraph, paths[1]));
+        assertEquals(557, paths[1].distance);
+        assertArrayEquals(
+                new String[] {"BGSD#D1", "BGSD#H1h4", "BGSD#H1h2"},
+                TestGraphs.nodeIdsOf(mGsdGraph, paths[2]));
+        assertEquals(135, paths[2].distance);
+
+        assertEquals(802.5875, paths[0].seconds + paths[1].seconds + paths[2].seconds, SECONDS_DELTA);
+    }
+
+    /**
+     * Test that accessible and easiest paths find the same route when it is the only sensible route.
+     */
+    @Test
+    public void findsPathAcrossInEveryMode() {
+        for (boolean accessible : new boolean[] {false, true}) {
+            for (boolean shortest : new boolean[] {false, true}) {
+                final Path[] paths = createRouter(0).findPathAcross(
+                        "BSTE#H1h1", STE_DOORS, "BGSD#H1h2", GSD_DOORS, accessible, shortest);
+                assertEquals(752, paths[0].distance + paths[1].distance + paths[2].distance);
+                assertEquals(
+                        802.5875,
+                        paths[0].seconds + paths[1].seconds + paths[2].seconds,
+                        SECONDS_DELTA);
+            }
+        }
+    }
+
+    /**
+     * Test that the easiest route does not count a turn where it moves between graphs, since each graph is drawn in
+     * its own orientation. Turning at both doors through D2 would otherwise cost more than the longer walk from D1.
+     *
+     * @throws IOException if a graph could not be written or read
+     */
+    @Test
+    public void ignoresTurnsBetweenGraphs() throws IOException {
+        final File directory = mFolder.getRoot();
+        final Graph startGraph = TestGraphs.write(directory, "TSA", "[FORMAT]\n"
+                + "floor*=^(\\d).*$\n"
+                + "[EDGES]\n"
+                + "H1h1|D1:U:10.00:T%D2:U:10.00:T\n"
+                + "D1|H1h1:D:10.00:T\n"
+                + "D2|H1h1:D:10.00:T\n");
+        final Graph targetGraph = TestGraphs.write(directory, "TSB", "[FORMAT]\n"
+                + "floor*=^(\\d).*$\n"
+                + "[EDGES]\n"
+                + "D1|H1h1:U:10.00:T\n"
+                + "H1h1|D1:D:10.00:T\n");
+        final Graph outdoorGraph = TestGraphs.write(directory, "OUT", "[EDGES]\n"
+                + "BTSA#D1|BTSB#D1:R:10.00:T\n"
+                + "BTSA#D2|BTSB#D1:U:11.00:T\n"
+                + "BTSB#D1|BTSA#D1:L:10.00:T%BTSA#D2:D:11.00:T\n");
+
+        final Path[] paths = new CrossBuildingRouter(
+                new RoutingEngine(startGraph),
+                new RoutingEngine(targetGraph),
+                new RoutingEngine(outdoorGraph),
+                mSearchPool,
+                mSearchGeneration,
+                0).findPathAcross(
+                        "BTSA#H1h1",
+                        new String[] {"BTSA#D1", "BTSA#D2"},
+                        "BTSB#H1h1",
+                        new String[] {"BTSB#D1"},
+                        false,
+                        false);
+        assertArrayEquals(new String[] {"BTSA#H1h1", "BTSA#D1"}, TestGraphs.nodeIdsOf(startGraph, paths[0]));
+        assertArrayEquals(new String[] {"BTSA#D1", "BTSB#D1"}, TestGraphs.nodeIdsOf(outdoorGraph, paths[1]));
+    }
+
+    /**
+     * Test that a path from a door leaves through that door, without walking inside the starting building.
+     */
+    @Test
+    public void startsAtDoors() {
+        final Path[] paths = createRouter(0).findPathAcross(
+                "BSTE#D2", STE_DOORS, "BGSD#R200", GSD_DOORS, false, true);
+        assertEquals(0, paths[0].distance);
+        assertEquals("BSTE#D2", mOutdoorGraph.nodeId(paths[1].source));
+        assertEquals(735, paths[1].distance);
+        assertEquals(452, paths[2].distance);
+    }
+
+    /**
+     * Test that no path is found to or from a node which is not in its building.
+     */
+    @Test
+    public void findsNoPathToMissingNodes() {
+        assertNull(createRouter(0).findPathAcross(
+                "BSTE#H1hinvalid", STE_DOORS, "BGSD#H1h2", GSD_DOORS, false, true));
+        assertNull(createRouter(0).findPathAcross(
+                "BSTE#H1h1", STE_DOORS, "BGSD#H1hinvalid", GSD_DOORS, false, true));
+    }
+
+    /**
+     * Test that a search started before a newer search is cancelled.
+     */
+    @Test(expected = CancellationException.class)
+    public void cancelsSupersededSearches() {
+        final CrossBuildingRouter router = createRouter(mSearchGeneration.get());
+        mSearchGeneration.incrementAndGet();
+        router.findPathAcross("BSTE#H1h1", STE_DOORS, "BGSD#H1h2", GSD_DOORS, false, true);
+    }
+
+    /**
+     * Create a router from STE to GSD.
+     *
+     * @param generation generation the search was started in
+     * @return the router
+     */
+    private CrossBuildingRouter createRouter(int generation) {
+        return new CrossBuildingRouter(
+                new RoutingEngine(mSteGraph),
+                new RoutingEngine(mGsdGraph),
+                new RoutingEngine(mOutdoorGraph),
+                mSearchPool,
+                mSearchGeneration,
+                generation);
+    }
+}
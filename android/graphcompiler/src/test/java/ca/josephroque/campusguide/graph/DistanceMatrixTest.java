@@ -0,0 +1,173 @@
+package ca.josephroque.campusguide.graph;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the distances and times between locations, which must be the same as the routes between them.
+ */
+public class DistanceMatrixTest {
+
+    /** Allowed error of distances, in metres, and times, in seconds. */
+    private static final double DELTA = 1e-6;
+    /** Building of each location. */
+    private static final String[] BUILDINGS = {"STE", "GSD", "GSD", "STE"};
+    /** Node of each location. */
+    private static final String[] NODE_IDS = {"BSTE#H1h1", "BGSD#H1h2", "BGSD#R200", "BSTE#D2"};
+
+    /** Folder for graphs written by tests. */
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /** Graph of STE. */
+    private Graph mSteGraph;
+    /** Graph of GSD. */
+    private Graph mGsdGraph;
+    /** Outdoor graph. */
+    private Graph mOutdoorGraph;
+
+    /**
+     * Load the graphs.
+     *
+     * @throws IOException if a graph could not be read
+     */
+    @Before
+    public void setUp() throws IOException {
+        mSteGraph = TestGraphs.load("STE");
+        mGsdGraph = TestGraphs.load("GSD");
+        mOutdoorGraph = TestGraphs.load("OUT");
+    }
+
+    /**
+     * Test that each location is searched from once, in order.
+     */
+    @Test
+    public void searchesEachLocationOnce() {
+        final DistanceMatrix matrix = new DistanceMatrix(BUILDINGS, NODE_IDS, false);
+        final RoutingEngine outdoorEngine = new RoutingEngine(mOutdoorGraph);
+        for (String building : BUILDINGS) {
+            assertFalse(matrix.isComplete());
+            assertEquals(building, matrix.getNextBuilding());
+            matrix.searchNext(engineFor(building), outdoorEngine);
+        }
+
+        assertTrue(matrix.isComplete());
+        assertNull(matrix.getNextBuilding());
+    }
+
+    /**
+     * Test that the distance and time between locations in different buildings are those of the shortest route
+     * between them, including the time to walk through doors and cross streets.
+     */
+    @Test
+    public void matchesRoutesAcrossBuildings() {
+        final DistanceMatrix matrix = findMatrix(false);
+        assertEquals(1003.45, matrix.getDistances()[0][1], DELTA);
+        assertEquals(802.5875, matrix.getSeconds()[0][1], DELTA);
+        assertEquals(1003.45, matrix.getDistances()[1][0], DELTA);
+        assertEquals(802.5875, matrix.getSeconds()[1][0], DELTA);
+    }
+
+    /**
+     * Test that the distance and time between locations in the same building are those of the shortest path in the
+     * building, and that a location is no distance from itself.
+     */
+    @Test
+    public void findsDistancesInsideBuildings() {
+        for (boolean accessible : new boolean[] {false, true}) {
+            final DistanceMatrix matrix = findMatrix(accessible);
+            final int[] targets = TestGraphs.indicesOf(mSteGraph, NODE_IDS[3]);
+            final double[] seconds = new double[targets.length];
+            final int[] distances = new int[targets.length];
+            new RoutingEngine(mSteGraph)
+                    .findDistances(mSteGraph.indexOf(NODE_IDS[0]), targets, accessible, seconds, distances);
+            assertEquals(
+                    distances[0] * CrossBuildingRouter.INNER_UNIT_TO_M,
+                    matrix.getDistances()[0][3],
+                    DELTA);
+            assertEquals(seconds[0], matrix.getSeconds()[0][3], DELTA);
+
+            for (int i = 0; i < NODE_IDS.length; i++) {
+                assertEquals(0, matrix.getDistances()[i][i], DELTA);
+                assertEquals(0, matrix.getSeconds()[i][i], DELTA);
+            }
+        }
+    }
+
+    /**
+     * Test that distances are the distances walked, without the penalty for taking stairs past too many floors.
+     *
+     * @throws IOException if the graph could not be written or read
+     */
+    @Test
+    public void reportsDistancesWalked() throws IOException {
+        final Graph graph = TestGraphs.write(mFolder.getRoot(), "TST", "[FORMAT]\n"
+                + "floor*=^(\\d).*$\n"
+                + "[EDGES]\n"
+                + "H1h1|SA:U:10.00:T\n"
+                + "SA|H1h1:D:10.00:T%H4h2:U:20.00:T\n"
+                + "H4h2|SA:D:20.00:T\n");
+        final RoutingEngine engine = new RoutingEngine(graph);
+        final String[] nodeIds = {"BTST#H1h1", "BTST#H4h2"};
+        assertArrayEquals(
+                new int[] {30 + RoutingEngine.NAVIGATION_PENALTY},
+                engine.findDistances(graph.indexOf(nodeIds[0]), TestGraphs.indicesOf(graph, nodeIds[1]), false));
+
+        final DistanceMatrix matrix = findMatrix(new String[] {"TST", "TST"}, nodeIds, false, engine);
+        assertEquals(30 * CrossBuildingRouter.INNER_UNIT_TO_M, matrix.getDistances()[0][1], DELTA);
+        assertEquals(30 * CrossBuildingRouter.INNER_UNIT_TO_M, matrix.getDistances()[1][0], DELTA);
+    }
+
+    /**
+     * Search from every location.
+     *
+     * @param accessible true to only follow accessible paths, false for any path
+     * @return the distances and times between the locations
+     */
+    private DistanceMatrix findMatrix(boolean accessible) {
+        final DistanceMatrix matrix = new DistanceMatrix(BUILDINGS, NODE_IDS, accessible);
+        final RoutingEngine outdoorEngine = new RoutingEngine(mOutdoorGraph);
+        while (!matrix.isComplete()) {
+            matrix.searchNext(engineFor(matrix.getNextBuilding()), outdoorEngine);
+        }
+        return matrix;
+    }
+
+    /**
+     * Search from every location, each of which is in the same building.
+     *
+     * @param buildings  building of each location
+     * @param nodeIds    node of each location
+     * @param accessible true to only follow accessible paths, false for any path
+     * @param engine     engine for the graph of the building
+     * @return the distances and times between the locations
+     */
+    private DistanceMatrix findMatrix(String[] buildings, String[] nodeIds, boolean accessible, RoutingEngine engine) {
+        final DistanceMatrix matrix = new DistanceMatrix(buildings, nodeIds, accessible);
+        final RoutingEngine outdoorEngine = new RoutingEngine(mOutdoorGraph);
+        while (!matrix.isComplete()) {
+            matrix.searchNext(engine, outdoorEngine);
+        }
+        return matrix;
+    }
+
+    /**
+     * Create an engine for a building's graph.
+     *
+     * @param building shorthand of the building
+     * @return the engine
+     */
+    private RoutingEngine engineFor(String building) {
+        return new RoutingEngine("STE".equals(building) ? mSteGraph : mGsdGraph);
+    }
+}
@@ -0,0 +1,65 @@
+package ca.josephroque.campusguide.graph;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the graphs in {@code src/util/graph/__mocks__} are validated and compiled, and that a build without
+ * graphs fails.
+ */
+public class GraphBuildToolTest {
+
+    /** Folder for compiled graphs. */
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Test that every graph in a directory is compiled, with and without its edges which are not accessible.
+     *
+     * @throws IOException if a graph could not be compiled
+     */
+    @Test
+    public void compilesEveryGraph() throws IOException {
+        final File outputDirectory = new File(mFolder.getRoot(), "compiled");
+        final List<GraphValidator.Result> results =
+                GraphBuildTool.compileGraphs(TestGraphs.graphFile("STE").getParentFile(), outputDirectory);
+        assertEquals(3, results.size());
+        for (GraphValidator.Result result : results) {
+            assertEquals(result.building, 0, result.errors.size());
+            assertTrue(new File(outputDirectory, result.building + "_graph" + BinaryGraph.EXTENSION).isFile());
+            assertTrue(new File(
+                    outputDirectory,
+                    result.building + "_graph" + BinaryGraph.ACCESSIBLE_SUFFIX + BinaryGraph.EXTENSION).isFile());
+        }
+    }
+
+    /**
+     * Test that a missing graph directory fails the build.
+     *
+     * @throws IOException always, since there is no directory
+     */
+    @Test(expected = IOException.class)
+    public void rejectsMissingDirectories() throws IOException {
+        GraphBuildTool.compileGraphs(new File(mFolder.getRoot(), "missing"), mFolder.newFolder("compiled"));
+    }
+
+    /**
+     * Test that a graph directory without graph files fails the build.
+     *
+     * @throws IOException always, since there are no graphs
+     */
+    @Test(expected = IOException.class)
+    public void rejectsDirectoriesWithoutGraphs() throws IOException {
+        final File graphDirectory = mFolder.newFolder("text");
+        mFolder.newFile("text/STE.gg");
+        GraphBuildTool.compileGraphs(graphDirectory, mFolder.newFolder("compiled"));
+    }
+}
@@ -0,0 +1,65 @@
+package ca.josephroque.campusguide.graph;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the floor cells graphs are split into when they are compiled.
+ */
+public class GraphCompilerTest {
+
+    /** Folder for graphs written by tests. */
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Test that nodes on the same floor share a cell, nodes on other floors do not, and stairs and elevators belong
+     * to no cell.
+     *
+     * @throws IOException if the graph could not be read
+     */
+    @Test
+    public void splitsFloorsIntoCells() throws IOException {
+        final Graph graph = TestGraphs.load("STE");
+        final int firstFloor = graph.nodeCell(graph.indexOf("BSTE#H1h1"));
+        final int secondFloor = graph.nodeCell(graph.indexOf("BSTE#H2h16"));
+        assertTrue(firstFloor >= 0);
+        assertTrue(secondFloor >= 0);
+        assertNotEquals(firstFloor, secondFloor);
+        assertEquals(firstFloor, graph.nodeCell(graph.indexOf("BSTE#H1h12")));
+        assertEquals(firstFloor, graph.nodeCell(graph.indexOf("BSTE#D1")));
+
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (NodeType.isFloorChange(graph.nodeType(node))) {
+                assertEquals(graph.nodeId(node), -1, graph.nodeCell(node));
+            } else if (graph.nodeFloor(node) != Graph.NO_FLOOR) {
+                assertTrue(graph.nodeId(node), graph.nodeCell(node) >= 0);
+            }
+        }
+    }
+
+    /**
+     * Test that a graph with a single floor is not split.
+     *
+     * @throws IOException if the graph could not be written or read
+     */
+    @Test
+    public void doesNotSplitSingleFloors() throws IOException {
+        final Graph graph = TestGraphs.write(mFolder.getRoot(), "TST", "[FORMAT]\n"
+                + "floor*=^(\\d).*$\n"
+                + "[EDGES]\n"
+                + "D1|H1h1:R:10.00:T\n"
+                + "H1h1|D1:L:10.00:T%H1h2:R:10.00:T\n"
+                + "H1h2|H1h1:L:10.00:T\n");
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            assertEquals(graph.nodeId(node), -1, graph.nodeCell(node));
+        }
+    }
+}
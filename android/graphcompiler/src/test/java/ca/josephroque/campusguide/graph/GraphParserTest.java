@@ -0,0 +1,48 @@
+package ca.josephroque.campusguide.graph;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that graph files which are not in the expected format are rejected, rather than failing while they are
+ * searched.
+ */
+public class GraphParserTest {
+
+    /**
+     * Test that a well formed graph is parsed.
+     *
+     * @throws IOException if the graph could not be parsed
+     */
+    @Test
+    public void parsesGraphs() throws IOException {
+        final ParsedGraph parsed = GraphParser.parse("TST", new StringReader(
+                "[EDGES]\nD1|H1h1:R:10.00:T\nH1h1|D1:L:10.00:T\n[NODES]\nD1|12,34\n"));
+        assertEquals(2, parsed.nodeIds.length);
+        assertEquals(2, parsed.edgeTargets.length);
+    }
+
+    /**
+     * Test that an edge without a direction, distance, and accessibility is rejected.
+     *
+     * @throws IOException always, since the edge is incomplete
+     */
+    @Test(expected = IOException.class)
+    public void rejectsIncompleteEdges() throws IOException {
+        GraphParser.parse("TST", new StringReader("[EDGES]\nH1h1|H1h2\n"));
+    }
+
+    /**
+     * Test that an exit without both of its coordinates is rejected.
+     *
+     * @throws IOException always, since the exit has one coordinate
+     */
+    @Test(expected = IOException.class)
+    public void rejectsExitsWithoutCoordinates() throws IOException {
+        GraphParser.parse("TST", new StringReader("[EDGES]\nD1|H1h1:R:10.00:T\n[NODES]\nD1|12\n"));
+    }
+}
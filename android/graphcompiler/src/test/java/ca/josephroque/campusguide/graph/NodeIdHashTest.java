@@ -0,0 +1,102 @@
+package ca.josephroque.campusguide.graph;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the node ID hash finds every node of a graph, and only the nodes of the graph.
+ */
+public class NodeIdHashTest {
+
+    /** Largest number of synthetic IDs to hash. */
+    private static final int MAX_SIZE = 300;
+    /** Time to place every set of IDs, in milliseconds, since IDs which can never be placed are retried forever. */
+    private static final long PLACE_TIMEOUT = 10000;
+
+    /**
+     * Test that every node of the graphs is found from its ID.
+     *
+     * @throws IOException if a graph could not be read
+     */
+    @Test
+    public void findsEveryNode() throws IOException {
+        for (String building : new String[] {"STE", "GSD", "OUT"}) {
+            final Graph graph = TestGraphs.load(building);
+            for (int node = 0; node < graph.getNodeCount(); node++) {
+                assertEquals(graph.nodeId(node), node, graph.indexOf(graph.nodeId(node)));
+            }
+        }
+    }
+
+    /**
+     * Test that IDs which are not in the graph are not found.
+     *
+     * @throws IOException if the graph could not be read
+     */
+    @Test
+    public void findsNoUnknownNodes() throws IOException {
+        final Graph graph = TestGraphs.load("STE");
+        assertEquals(-1, graph.indexOf("BSTE#H1hinvalid"));
+        assertEquals(-1, graph.indexOf("BGSD#H1h1"));
+        assertEquals(-1, graph.indexOf(""));
+    }
+
+    /**
+     * Test that any number of IDs can be placed, including powers of two, and IDs which only differ in their last
+     * character.
+     *
+     * @throws IOException if the IDs could not be placed
+     */
+    @Test(timeout = PLACE_TIMEOUT)
+    public void placesEveryId() throws IOException {
+        for (int size = 1; size <= MAX_SIZE; size++) {
+            final String[] nodeIds = new String[size];
+            for (int node = 0; node < size; node++) {
+                nodeIds[node] = "BTST#H" + (node % 5) + "h" + node;
+            }
+
+            assertPlaced(nodeIds);
+        }
+
+        // Last characters which only differ above the lowest bits
+        assertPlaced(new String[] {"BTST#H1h1", "BTST#H1h5", "BTST#H1h9", "BTST#H1hA"});
+    }
+
+    /**
+     * Test that two nodes with the same ID cannot be placed.
+     *
+     * @throws IOException always, since the IDs are not unique
+     */
+    @Test(expected = IOException.class)
+    public void rejectsDuplicateIds() throws IOException {
+        final String[] nodeIds = {"BTST#H1h1", "BTST#H1h2", "BTST#H1h1"};
+        NodeIdHash.build(nodeIds, new int[nodeIds.length], new int[nodeIds.length]);
+    }
+
+    /**
+     * Build the hash of a set of IDs and check that each ID has its own slot, which holds its node.
+     *
+     * @param nodeIds formatted ID of each node
+     * @throws IOException if the IDs could not be placed
+     */
+    private static void assertPlaced(String[] nodeIds) throws IOException {
+        final int[] displacements = new int[nodeIds.length];
+        final int[] slots = new int[nodeIds.length];
+        NodeIdHash.build(nodeIds, displacements, slots);
+
+        final boolean[] used = new boolean[nodeIds.length];
+        for (int node = 0; node < nodeIds.length; node++) {
+            final int slot = NodeIdHash.slotOf(nodeIds[node].getBytes(StringTable.UTF_8), IntBuffer.wrap(displacements));
+            assertTrue(nodeIds[node], slot >= 0 && slot < nodeIds.length);
+            assertFalse(nodeIds[node], used[slot]);
+            assertEquals(nodeIds[node], node, slots[slot]);
+            used[slot] = true;
+        }
+    }
+}
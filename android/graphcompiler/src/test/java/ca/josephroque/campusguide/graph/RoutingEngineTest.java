@@ -0,0 +1,260 @@
+package ca.josephroque.campusguide.graph;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests searches of a single graph. Paths and distances are the same as {@code Navigation-test.ts} expects.
+ */
+public class RoutingEngineTest {
+
+    /** Allowed error of walking times, in seconds. */
+    private static final double SECONDS_DELTA = 1e-6;
+
+    /** Folder for graphs written by tests. */
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /** Graph of STE, with every edge. */
+    private Graph mSteGraph;
+    /** Engine for the graph of STE. */
+    private RoutingEngine mSteEngine;
+    /** Graph of GSD, with every edge. */
+    private Graph mGsdGraph;
+
+    /**
+     * Load the graphs.
+     *
+     * @throws IOException if a graph could not be read
+     */
+    @Before
+    public void setUp() throws IOException {
+        mSteGraph = TestGraphs.load("STE");
+        mSteEngine = new RoutingEngine(mSteGraph);
+        mGsdGraph = TestGraphs.load("GSD");
+    }
+
+    /**
+     * Test that the shortest path to each of two targets is found with one search.
+     */
+    @Test
+    public void findsShortestPathsToEachTarget() {
+        final int[] targets = TestGraphs.indicesOf(mSteGraph, "BSTE#H1h11", "BSTE#D1");
+        final List<Path> paths = mSteEngine.findShortestPaths(mSteGraph.indexOf("BSTE#H1h12"), targets, false, false);
+        assertEquals(2, paths.size());
+
+        assertEquals(targets[0], paths.get(0).target);
+        assertEquals(292, paths.get(0).distance);
+        assertEquals(63.51, paths.get(0).seconds, SECONDS_DELTA);
+        assertArrayEquals(
+                new String[] {"BSTE#H1h12", "BSTE#H1h1", "BSTE#H1h3", "BSTE#H1h4", "BSTE#H1h9", "BSTE#H1h11"},
+                TestGraphs.nodeIdsOf(mSteGraph, paths.get(0)));
+
+        assertEquals(targets[1], paths.get(1).target);
+        assertEquals(114, paths.get(1).distance);
+        assertEquals(29.795, paths.get(1).seconds, SECONDS_DELTA);
+        assertArrayEquals(
+                new String[] {"BSTE#H1h12", "BSTE#H1h1", "BSTE#D1"},
+                TestGraphs.nodeIdsOf(mSteGraph, paths.get(1)));
+    }
+
+    /**
+     * Test that no path is found to a node which is not in the graph.
+     */
+    @Test
+    public void findsNoPathToMissingNode() {
+        final int[] targets = TestGraphs.indicesOf(mSteGraph, "BSTE#H1hinvalid");
+        assertEquals(-1, targets[0]);
+        assertTrue(mSteEngine.findShortestPaths(mSteGraph.indexOf("BSTE#H1h12"), targets, false, false).isEmpty());
+        assertArrayEquals(new int[] {-1}, mSteEngine.findDistances(mSteGraph.indexOf("BSTE#H1h12"), targets, false));
+    }
+
+    /**
+     * Test that walking times include the time to wait for and ride an elevator.
+     */
+    @Test
+    public void includesElevatorTime() {
+        final int[] targets = TestGraphs.indicesOf(mSteGraph, "BSTE#H2h16", "BSTE#H3h17");
+        final List<Path> paths = mSteEngine.findShortestPaths(mSteGraph.indexOf("BSTE#H1h8"), targets, false, false);
+        assertEquals(2, paths.size());
+        assertEquals(TestGraphs.innerWalkingSeconds(54 + 44) + 30 + 5, paths.get(0).seconds, SECONDS_DELTA);
+        assertEquals(TestGraphs.innerWalkingSeconds(54 + 44) + 30 + 10, paths.get(1).seconds, SECONDS_DELTA);
+    }
+
+    /**
+     * Test that a reversed path starts from the target and leads to the start.
+     */
+    @Test
+    public void findsReversedPaths() {
+        final int start = mGsdGraph.indexOf("BGSD#H1h2");
+        final int door = mGsdGraph.indexOf("BGSD#D1");
+        final List<Path> paths = new RoutingEngine(mGsdGraph).findShortestPaths(start, new int[] {door}, false, true);
+        assertEquals(1, paths.size());
+        assertEquals(door, paths.get(0).source);
+        assertEquals(135, paths.get(0).distance);
+        assertArrayEquals(
+                new String[] {"BGSD#D1", "BGSD#H1h4", "BGSD#H1h2"},
+                TestGraphs.nodeIdsOf(mGsdGraph, paths.get(0)));
+    }
+
+    /**
+     * Test that the precomputed distances from rooms and doors to each door are the distances a search finds.
+     */
+    @Test
+    public void precomputesDistancesToDoors() {
+        for (Graph graph : new Graph[] {mSteGraph, mGsdGraph}) {
+            final RoutingEngine engine = new RoutingEngine(graph);
+            final int[] doors = TestGraphs.doorsOf(graph);
+            assertTrue(doors.length > 0);
+            for (int node = 0; node < graph.getNodeCount(); node++) {
+                if (!graph.hasDoorDistances(node)) {
+                    continue;
+                }
+
+                for (boolean accessible : new boolean[] {false, true}) {
+                    final int[] distances = engine.findDistances(node, doors, accessible);
+                    for (int i = 0; i < doors.length; i++) {
+                        assertEquals(
+                                graph.nodeId(node) + " to " + graph.nodeId(doors[i]),
+                                distances[i],
+                                graph.doorDistance(node, doors[i], accessible));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that the paths to the nearest targets are the shortest of the paths to every target.
+     */
+    @Test
+    public void findsPathsToNearestTargets() {
+        final int start = mSteGraph.indexOf("BSTE#H1h12");
+        final IntList hallways = new IntList();
+        for (int node = 0; node < mSteGraph.getNodeCount(); node++) {
+            if (node != start && mSteGraph.nodeType(node) == NodeType.HALLWAY) {
+                hallways.add(node);
+            }
+        }
+
+        final int[] candidates = hallways.toArray();
+        final int[] distances = mSteEngine.findDistances(start, candidates, false);
+        Arrays.sort(distances);
+
+        final int count = 3;
+        final List<Path> nearest = mSteEngine.findNearestPaths(start, candidates, count, false);
+        assertEquals(count, nearest.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(distances[i], nearest.get(i).distance);
+        }
+    }
+
+    /**
+     * Test that searches avoid closed edges until they are opened again.
+     */
+    @Test
+    public void avoidsClosedEdges() {
+        final int start = mSteGraph.indexOf("BSTE#H1h12");
+        final int[] targets = TestGraphs.indicesOf(mSteGraph, "BSTE#H1h11");
+        assertArrayEquals(new int[] {292}, mSteEngine.findDistances(start, targets, false));
+
+        mSteEngine.setClosedEdges(new String[] {"BSTE#H1h9", "BSTE#H1h11"}, 1);
+        assertTrue(mSteEngine.hasClosedEdges());
+        assertEquals(1, mSteEngine.getClosureVersion());
+        final List<Path> paths = mSteEngine.findShortestPaths(start, targets, false, false);
+        assertEquals(461, paths.get(0).distance);
+        assertArrayEquals(
+                new String[] {"BSTE#H1h12", "BSTE#H1h1", "BSTE#H1h2", "BSTE#H1h14", "BSTE#H1h15", "BSTE#H1h11"},
+                TestGraphs.nodeIdsOf(mSteGraph, paths.get(0)));
+
+        // Edges are closed in both directions
+        assertArrayEquals(new int[] {461}, mSteEngine.findDistances(targets[0], new int[] {start}, false));
+
+        mSteEngine.setClosedEdges(null, 2);
+        assertFalse(mSteEngine.hasClosedEdges());
+        assertArrayEquals(new int[] {292}, mSteEngine.findDistances(start, targets, false));
+    }
+
+    /**
+     * Test that accessible paths avoid stairs, and that the accessible graph finds the same distances as accessible
+     * searches of the graph with every edge.
+     *
+     * @throws IOException if the accessible graph could not be read
+     */
+    @Test
+    public void findsAccessiblePaths() throws IOException {
+        final Graph accessibleGraph = TestGraphs.loadAccessible("GSD");
+        final RoutingEngine engine = new RoutingEngine(mGsdGraph);
+        final RoutingEngine accessibleEngine = new RoutingEngine(accessibleGraph);
+        final int start = mGsdGraph.indexOf("BGSD#R102");
+        final int[] targets = TestGraphs.indicesOf(mGsdGraph, "BGSD#R200");
+
+        // The only way to the elevator from R102 passes an excluded pair of edges, so only the stairs lead upstairs
+        final List<Path> paths = engine.findShortestPaths(start, targets, false, false);
+        assertEquals(1, paths.size());
+        assertTrue(Arrays.asList(TestGraphs.nodeIdsOf(mGsdGraph, paths.get(0))).contains("BGSD#SB"));
+        assertTrue(engine.findShortestPaths(start, targets, true, false).isEmpty());
+        assertTrue(accessibleEngine.findShortestPaths(
+                accessibleGraph.indexOf("BGSD#R102"),
+                TestGraphs.indicesOf(accessibleGraph, "BGSD#R200"),
+                true,
+                false).isEmpty());
+
+        final int[] everyNode = new int[mGsdGraph.getNodeCount()];
+        for (int node = 0; node < everyNode.length; node++) {
+            everyNode[node] = node;
+        }
+        for (int node = 0; node < everyNode.length; node++) {
+            assertArrayEquals(
+                    mGsdGraph.nodeId(node),
+                    engine.findDistances(node, everyNode, true),
+                    accessibleEngine.findDistances(node, everyNode, true));
+        }
+    }
+
+    /**
+     * Test that a node whose only neighbours are stairs, reached over edges which are not accessible, can still be
+     * reached by accessible paths in the accessible graph, which has none of its edges.
+     *
+     * @throws IOException if the graph could not be written or read
+     */
+    @Test
+    public void reachesNodesWithoutAccessibleEdges() throws IOException {
+        final File graphFile = TestGraphs.writeGraphFile(mFolder.getRoot(), "TST", "[FORMAT]\n"
+                + "floor*=^(\\d).*$\n"
+                + "[EDGES]\n"
+                + "H1h1|H1h2:R:10.00:T\n"
+                + "H1h2|SA:U:5.00:F\n"
+                + "SA|H1h2:D:5.00:F%H2h3:U:5.00:F\n"
+                + "H2h3|SA:D:5.00:F\n");
+        final ParsedGraph parsed = GraphCompiler.compile("TST", graphFile, null);
+        final Graph accessibleGraph = BinaryGraph.fromParsed(GraphCompiler.pruneToAccessible(parsed));
+        final int start = accessibleGraph.indexOf("BTST#H1h1");
+        final int target = accessibleGraph.indexOf("BTST#H1h2");
+        assertFalse(accessibleGraph.hasEdges(target));
+        assertTrue(accessibleGraph.isListed(target));
+
+        final RoutingEngine engine = new RoutingEngine(accessibleGraph);
+        assertArrayEquals(new int[] {10}, engine.findDistances(start, new int[] {target}, true));
+        final List<Path> paths = engine.findShortestPaths(start, new int[] {target}, true, false);
+        assertEquals(1, paths.size());
+        assertArrayEquals(new String[] {"BTST#H1h1", "BTST#H1h2"}, TestGraphs.nodeIdsOf(accessibleGraph, paths.get(0)));
+
+        // The node can start a search, even though it cannot go anywhere
+        final List<Path> fromTarget = engine.findShortestPaths(target, new int[] {target}, true, false);
+        assertEquals(1, fromTarget.size());
+        assertEquals(0, fromTarget.get(0).distance);
+    }
+}
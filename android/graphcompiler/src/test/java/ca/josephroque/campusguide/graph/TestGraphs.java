@@ -0,0 +1,173 @@
+package ca.josephroque.campusguide.graph;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
+
+/**
+ * Loads the graphs in {@code src/util/graph/__mocks__}, which the tests of {@code src/util/graph} also search, and
+ * compiles them the same way {@link GraphBuildTool} compiles the graphs bundled with the app.
+ */
+final class TestGraphs {
+
+    /** Suffix of the text graph files. */
+    private static final String GRAPH_SUFFIX = "_graph.txt";
+
+    /**
+     * Default constructor.
+     */
+    private TestGraphs() {
+        // Does nothing
+    }
+
+    /**
+     * Returns the text graph file of a building.
+     *
+     * @param building shorthand of the building
+     * @return the graph file
+     * @throws IOException if the building has no graph file
+     */
+    static File graphFile(String building) throws IOException {
+        final URL resource = TestGraphs.class.getResource("/" + building + GRAPH_SUFFIX);
+        if (resource == null) {
+            throw new IOException("No graph file for " + building);
+        }
+
+        try {
+            return new File(resource.toURI());
+        } catch (URISyntaxException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Parse a building's graph and its layout, and precompute its tables.
+     *
+     * @param building shorthand of the building
+     * @return the parsed graph
+     * @throws IOException if the graph could not be read
+     */
+    static ParsedGraph compile(String building) throws IOException {
+        final File graphFile = graphFile(building);
+        final File layoutFile = new File(graphFile.getParentFile(), building + GraphLayout.EXTENSION);
+        return GraphCompiler.compile(building, graphFile, layoutFile);
+    }
+
+    /**
+     * Write the text of a graph to a file.
+     *
+     * @param directory directory to write the graph file to
+     * @param building  shorthand of the building
+     * @param text      the text of the graph file
+     * @return the graph file
+     * @throws IOException if the graph could not be written
+     */
+    static File writeGraphFile(File directory, String building, String text) throws IOException {
+        final File graphFile = new File(directory, building + GRAPH_SUFFIX);
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(graphFile), StringTable.UTF_8);
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+        return graphFile;
+    }
+
+    /**
+     * Write the text of a graph to a file and load it, with every edge.
+     *
+     * @param directory directory to write the graph file to
+     * @param building  shorthand of the building
+     * @param text      the text of the graph file
+     * @return the graph
+     * @throws IOException if the graph could not be written or read
+     */
+    static Graph write(File directory, String building, String text) throws IOException {
+        return BinaryGraph.fromParsed(GraphCompiler.compile(building, writeGraphFile(directory, building, text), null));
+    }
+
+    /**
+     * Load a building's graph, with every edge.
+     *
+     * @param building shorthand of the building
+     * @return the graph
+     * @throws IOException if the graph could not be read
+     */
+    static Graph load(String building) throws IOException {
+        return BinaryGraph.fromParsed(compile(building));
+    }
+
+    /**
+     * Load a building's graph, with only the edges accessible paths can follow.
+     *
+     * @param building shorthand of the building
+     * @return the accessible graph
+     * @throws IOException if the graph could not be read
+     */
+    static Graph loadAccessible(String building) throws IOException {
+        return BinaryGraph.fromParsed(GraphCompiler.pruneToAccessible(compile(building)));
+    }
+
+    /**
+     * Returns the index of each of a set of nodes.
+     *
+     * @param graph   the graph with the nodes
+     * @param nodeIds formatted ID of each node
+     * @return the index of each node, or -1 for nodes which are not in the graph
+     */
+    static int[] indicesOf(Graph graph, String... nodeIds) {
+        final int[] nodes = new int[nodeIds.length];
+        for (int i = 0; i < nodeIds.length; i++) {
+            nodes[i] = graph.indexOf(nodeIds[i]);
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the nodes a path visits, from its source.
+     *
+     * @param graph the graph the path was found in
+     * @param path  the path
+     * @return the formatted ID of each node of the path
+     */
+    static String[] nodeIdsOf(Graph graph, Path path) {
+        final String[] nodeIds = new String[path.edges.length + 1];
+        nodeIds[0] = graph.nodeId(path.source);
+        for (int i = 0; i < path.edges.length; i++) {
+            nodeIds[i + 1] = graph.nodeId(graph.edgeTarget(path.edges[i]));
+        }
+        return nodeIds;
+    }
+
+    /**
+     * Returns the doors of a graph which have edges.
+     *
+     * @param graph the graph
+     * @return the index of each door
+     */
+    static int[] doorsOf(Graph graph) {
+        int doorCount = 0;
+        final int[] doors = new int[graph.getNodeCount()];
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (graph.nodeType(node) == NodeType.DOOR && graph.edgeEnd(node) > graph.edgeStart(node)) {
+                doors[doorCount++] = node;
+            }
+        }
+        return Arrays.copyOf(doors, doorCount);
+    }
+
+    /**
+     * Returns the estimated time to walk a distance inside a building, without any fixed costs.
+     *
+     * @param distance the distance, in the units of a building's graph
+     * @return the time to walk the distance, in seconds
+     */
+    static double innerWalkingSeconds(int distance) {
+        return distance * CrossBuildingRouter.INNER_UNIT_TO_M / WalkingTime.WALKING_METRES_PER_SECOND;
+    }
+}
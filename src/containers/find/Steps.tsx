@@ -99,7 +99,13 @@ class Steps extends React.PureComponent<Props, State> {
         startingPoint,
         destination,
         accessible,
-        shortestRoute);
+        shortestRoute,
+        true);
+
+    // Newer directions replaced these before they were found
+    if (directionResults.cancelled) {
+      return;
+    }
 
     if (directionResults.showReport) {
       Analytics.failedNavigation(startingPoint, destination, accessible, shortestRoute);
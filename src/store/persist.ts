@@ -29,6 +29,8 @@ import { AsyncStorage } from 'react-native';
 import { saveSchedule } from '../util/Database';
 import * as Analytics from '../util/Analytics';
 import * as Preferences from '../util/Preferences';
+import { precomputeScheduleRoutes } from '../util/graph/RoutePrecompute';
+import { computeScheduleDistances } from '../util/graph/ScheduleDistances';
 
 import * as Actions from '../actionTypes';
 
@@ -56,6 +58,10 @@ export const persist: Middleware = ({ getState }: any): any => (next: any): any
               break;
             case 'prefersWheelchair':
               Preferences.setPrefersWheelchair(AsyncStorage, action.options[option]);
+
+              // Distances between lectures follow the new preference
+              computeScheduleDistances(store.schedule.semesters, action.options[option])
+                  .catch((err: any) => console.error('Distances between lectures could not be found.', err));
               break;
             case 'prefersShortestRoute':
               Preferences.setPrefersShortestRoute(AsyncStorage, action.options[option]);
@@ -70,8 +76,23 @@ export const persist: Middleware = ({ getState }: any): any => (next: any): any
       }
       break;
     case Actions.Schedule.AddCourse:
-    case Actions.Schedule.AddSemester:
+      saveSchedule(store.schedule.semesters);
+
+      // Find routes between the new lectures and the rest of the schedule before they are needed
+      precomputeScheduleRoutes(
+        store.schedule.semesters,
+        store.config.options.prefersWheelchair,
+        store.config.options.prefersShortestRoute
+      ).catch((err: any) => console.error('Routes between lectures could not be found.', err));
+      computeScheduleDistances(store.schedule.semesters, store.config.options.prefersWheelchair)
+          .catch((err: any) => console.error('Distances between lectures could not be found.', err));
+      break;
     case Actions.Schedule.RemoveCourse:
+      saveSchedule(store.schedule.semesters);
+      computeScheduleDistances(store.schedule.semesters, store.config.options.prefersWheelchair)
+          .catch((err: any) => console.error('Distances between lectures could not be found.', err));
+      break;
+    case Actions.Schedule.AddSemester:
       saveSchedule(store.schedule.semesters);
       break;
     default:
@@ -97,6 +97,9 @@ const CONFIG_SUBDIRECTORIES = {
   text: '/text',
 };
 
+// Extension of graphs compiled for the native routing engine
+const COMPILED_GRAPH_EXTENSION = '.bin';
+
 // Time, in milliseconds, to wait before connection timeout when downloading config files
 const CONFIG_CONNECTION_TIMEOUT = 5000;
 // Time, in milliseconds, to wait before data read timeout when downloading config files
@@ -289,6 +292,58 @@ function setConfigLastUpdatedAt(lastUpdatedAt: number): Promise<void> {
   return Database.saveConfigLastUpdatedAt(lastUpdatedAt);
 }
 
+/**
+ * Prepare files derived from the configuration, after new configuration files have been installed.
+ *
+ * @param {number} lastUpdatedAt lastUpdatedAt of the installed config
+ */
+async function _onConfigInstalled(lastUpdatedAt: number): Promise<void> {
+  // Graphs parsed, campus links loaded, and routes and isochrones found from the old files are out of date
+  const CampusGraph = require('./graph/CampusGraph');
+  CampusGraph.invalidateGraphCache(lastUpdatedAt);
+
+  const CampusTransit = require('./graph/CampusTransit');
+  CampusTransit.invalidateCampusLinks();
+
+  const Isochrone = require('./graph/Isochrone');
+  Isochrone.invalidateIsochrones();
+
+  const RouteCache = require('./graph/RouteCache');
+  try {
+    await RouteCache.invalidateRoutes(lastUpdatedAt);
+  } catch (err) {
+    console.error('Cached routes could not be removed.', err);
+  }
+
+  const NativeNavigation = require('./graph/NativeNavigation');
+  if (NativeNavigation.isAvailable()) {
+    try {
+      // Compile graphs so the native routing engine can load them without parsing
+      await NativeNavigation.compileGraphs(CONFIG_DIRECTORY + CONFIG_SUBDIRECTORIES.text);
+    } catch (err) {
+      // Graphs are parsed from text if they could not be compiled
+      console.error('Graphs could not be compiled for native routing.', err);
+    }
+  }
+
+  // Apply closures listed with the configuration, before routes between lectures are found
+  const Closures = require('./graph/Closures');
+  try {
+    await Closures.updateClosuresFromFile();
+  } catch (err) {
+    console.error('Closures could not be loaded.', err);
+  }
+
+  // Find routes and distances between the user's lectures in the new graphs, in the background
+  const RoutePrecompute = require('./graph/RoutePrecompute');
+  RoutePrecompute.precomputeSavedScheduleRoutes()
+      .catch((err: any) => console.error('Routes between lectures could not be found.', err));
+
+  const ScheduleDistances = require('./graph/ScheduleDistances');
+  ScheduleDistances.computeSavedScheduleDistances()
+      .catch((err: any) => console.error('Distances between lectures could not be found.', err));
+}
+
 /**
  * Updates the configuration, invoking a callback with progress on the download so the UI may be updated.
  *
@@ -385,6 +440,7 @@ async function _updateConfig(
     // Update config versions in database
     await Database.updateConfigVersions(configRowUpdates);
     await setConfigLastUpdatedAt(configDetails.lastUpdatedAt);
+    await _onConfigInstalled(configDetails.lastUpdatedAt);
 
     configurationInitialized = false;
     await init();
@@ -524,7 +580,10 @@ export async function setupDefaultConfiguration(os: PlatformOSType): Promise<voi
       continue;
     }
 
+    // Graphs compiled when the app was built are copied after their text, so they are newer and are loaded instead
     const assets = await readDir(`${assetBasePath}/${type.name}`);
+    const isCompiledGraph = (asset: any): number => asset.path.endsWith(COMPILED_GRAPH_EXTENSION) ? 1 : 0;
+    assets.sort((a: any, b: any) => isCompiledGraph(a) - isCompiledGraph(b));
     for (const asset of assets) {
       const sourcePath = asset.path;
       const fileName = asset.path.substr(asset.path.lastIndexOf('/'));
@@ -536,6 +595,7 @@ export async function setupDefaultConfiguration(os: PlatformOSType): Promise<voi
   // Update config versions in database
   await Database.updateConfigVersions(configDetails.files);
   await setConfigLastUpdatedAt(configDetails.lastUpdatedAt);
+  await _onConfigInstalled(configDetails.lastUpdatedAt);
 }
 
 /**
@@ -632,6 +692,16 @@ export async function getTextFile(textFile: string): Promise<string> {
   return await _getTextFile(textFile);
 }
 
+/**
+ * Returns the absolute path to a text file, for native modules which read the file themselves.
+ *
+ * @param {string} textFile name of the text file. Make sure it starts with a '/'
+ * @returns {string} absolute path to the text file
+ */
+export function getTextFilePath(textFile: string): string {
+  return `${CONFIG_DIRECTORY}${CONFIG_SUBDIRECTORIES.text}${textFile}`;
+}
+
 /**
  * Returns the path to the image.
  *
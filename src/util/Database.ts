@@ -27,6 +27,8 @@ import * as Arrays from './Arrays';
 import { default as store } from 'react-native-simple-store';
 
 import { ConfigFile } from './Configuration';
+import { StoredRoutes } from './graph/RouteCache';
+import { ScheduleDistances } from './graph/ScheduleDistances';
 
 /** Identifier for storing Configuration file versions.  */
 const STORE_CONFIG_VERSIONS = 'configFiles';
@@ -37,6 +39,12 @@ const STORE_CONFIG_LAST_UPDATED_AT = 'configLastUpdatedAt';
 /** Identifier for storing user schedule. */
 const STORE_SCHEDULE = 'schedule';
 
+/** Identifier for storing distances between lecture locations. */
+const STORE_SCHEDULE_DISTANCES = 'scheduleDistances';
+
+/** Identifier for storing cached routes. */
+const STORE_ROUTES = 'routes';
+
 /**
  * Returns the user's full schedule.
  *
@@ -57,6 +65,30 @@ export function saveSchedule(schedule: object): Promise<void> {
   return store.save(STORE_SCHEDULE, schedule);
 }
 
+/**
+ * Returns the walking distances between the lecture locations of each semester in the user's schedule.
+ *
+ * @returns {Promise<ScheduleDistances>} a promise which resolves with the distances, by semester ID
+ */
+export async function getScheduleDistances(): Promise<ScheduleDistances> {
+  const distances: ScheduleDistances = await store.get(STORE_SCHEDULE_DISTANCES);
+  if (distances == undefined) {
+    return {};
+  }
+
+  return distances;
+}
+
+/**
+ * Overrides the walking distances between the user's lecture locations, saving them.
+ *
+ * @param {ScheduleDistances} distances the distances to save
+ * @returns {Promise<void>} a promise which resolves when the distances have been saved
+ */
+export function saveScheduleDistances(distances: ScheduleDistances): Promise<void> {
+  return store.save(STORE_SCHEDULE_DISTANCES, distances);
+}
+
 /**
  * Gets a list of config files and their versions from the database.
  *
@@ -118,3 +150,27 @@ export async function updateConfigVersions(updates: ConfigFile[]): Promise<void>
   // Save the updated config files
   await store.save(STORE_CONFIG_VERSIONS, final);
 }
+
+/**
+ * Gets the routes saved by the route cache.
+ *
+ * @returns {Promise<StoredRoutes>} a promise which resolves with the saved routes
+ */
+export async function getRoutes(): Promise<StoredRoutes> {
+  const routes: StoredRoutes = await store.get(STORE_ROUTES);
+  if (routes == undefined) {
+    return { keys: [], routes: {} };
+  }
+
+  return routes;
+}
+
+/**
+ * Overrides the routes saved by the route cache.
+ *
+ * @param {StoredRoutes} routes the routes to save
+ * @returns {Promise<void>} a promise which resolves when the routes have been saved
+ */
+export function saveRoutes(routes: StoredRoutes): Promise<void> {
+  return store.save(STORE_ROUTES, routes);
+}
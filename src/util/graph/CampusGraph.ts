@@ -22,7 +22,7 @@
  */
 
 // Imports
-import { getCachedNodeOrBuild } from './Navigation';
+import { getCachedNodeOrBuild, pruneNodeCache } from './Navigation';
 
 // Types
 import { Coordinate } from '../../../typings/global';
@@ -44,6 +44,13 @@ export interface Edge {
   accessible: boolean;
 }
 
+/** Hits and misses of the cache of parsed graphs. */
+export interface GraphCacheStats {
+  hits: number;   // Number of graphs found in the cache
+  misses: number; // Number of graphs which had to be parsed
+  size: number;   // Number of graphs in the cache
+}
+
 /** Possible states for parsing graphs. */
 enum GraphParseState {
   Format = '[FORMAT]',
@@ -59,6 +66,9 @@ export interface Graph {
   /** List of edges which connect a Node to others in the graph. */
   adjacencies: Map<Node, Edge[]>;
 
+  /** Shorthand of the building the graph describes. */
+  building: string;
+
   /** Name or ID of the campus the building is on. */
   campus: string;
 
@@ -74,6 +84,9 @@ export interface Graph {
   /** Mapping of intersection nodes to the street names which they are positioned on. */
   intersections: Map<Node, string>;
 
+  /** Nodes of the graph by index. For graphs parsed by the native routing engine, the index in its graph. */
+  nodes: Node[];
+
   /** Mapping of street IDs to their names. */
   streetNames: Map<string, string>;
 
@@ -81,6 +94,24 @@ export interface Graph {
   streets: Map<Node, string>;
 }
 
+/** Maximum number of parsed graphs to keep. Enough for a path across buildings, and a few recent ones. */
+const MAX_CACHED_GRAPHS = 6;
+
+/** Parsed graphs, by building, from least to most recently used. */
+const graphCache = new Map<string, Graph>();
+
+/** Version of the configuration the cached graphs were parsed from. */
+let graphCacheVersion: number | undefined;
+
+/** Number of graphs found in the cache. */
+let graphCacheHits = 0;
+
+/** Number of graphs which were not found in the cache. */
+let graphCacheMisses = 0;
+
+/** Graphs with only accessible edges, built from each parsed graph when it is first searched for accessible paths. */
+const accessibleGraphs: WeakMap<Graph, Graph> = new WeakMap();
+
 /**
  * Get the graph parsing state from a string.
  *
@@ -127,15 +158,35 @@ function _parseAndAppendGraphFormat(graph: Graph, rawFormat: string): void {
   graph.formattingRules.set(elements[0], elements[1]);
 }
 
+/**
+ * Get a node by the ID it has in the graph file, adding it to the graph's nodes the first time it is seen, so each
+ * ID is only formatted and looked up in the node cache once while parsing.
+ *
+ * @param {string}              id          ID of the node in the graph file
+ * @param {Graph}               graph       building graph the node belongs to
+ * @param {Map<string, number>} nodeIndices index of each node in the graph, by its ID in the graph file
+ * @returns {Node} the node
+ */
+function _getGraphNode(id: string, graph: Graph, nodeIndices: Map<string, number>): Node {
+  let index = nodeIndices.get(id);
+  if (index == undefined) {
+    index = graph.nodes.length;
+    graph.nodes.push(getCachedNodeOrBuild(id, graph.building, graph.formattingRules));
+    nodeIndices.set(id, index);
+  }
+
+  return graph.nodes[index];
+}
+
 /**
  * Parse a list of Edge and add them to the existing graph.
  *
- * @param {Node}   node     the node connected to the edges
- * @param {string} building the building which the graph belongs to
- * @param {Graph}  graph    building graph to add edges to
- * @param {string} rawEdges the edge details to parse
+ * @param {Node}                node        the node connected to the edges
+ * @param {Graph}               graph       building graph to add edges to
+ * @param {string}              rawEdges    the edge details to parse
+ * @param {Map<string, number>} nodeIndices index of each node in the graph, by its ID in the graph file
  */
-function _parseAndAppendEdges(node: Node, building: string, graph: Graph, rawEdges: string): void {
+function _parseAndAppendEdges(node: Node, graph: Graph, rawEdges: string, nodeIndices: Map<string, number>): void {
   const connections: Edge[] = graph.adjacencies.has(node) ? graph.adjacencies.get(node) : [];
 
   // Add doors to the graph if not already present
@@ -152,7 +203,7 @@ function _parseAndAppendEdges(node: Node, building: string, graph: Graph, rawEdg
       accessible: edgeElements[3] === 'T',
       direction: edgeElements[1] as EdgeDirection,
       distance: parseInt(edgeElements[2]),
-      node: getCachedNodeOrBuild(edgeElements[0], building, graph.formattingRules),
+      node: _getGraphNode(edgeElements[0], graph, nodeIndices),
     });
     /* tslint:enable no-magic-numbers */
   }
@@ -210,89 +261,204 @@ function _parseAndAppendStreet(id: string, streetName: string, graph: Graph): vo
 }
 
 /**
- * Gets the requested set of Graph instances, mapped to their shorthands.
+ * Get the name of the text file which describes a building's graph.
+ *
+ * @param {string} building building shorthand
+ * @returns {string} name of the graph file, starting with a '/'
+ */
+export function getGraphFileName(building: string): string {
+  const buildingAsGraph = building.replace(/[\s/]+/g, '');
+
+  return `/${buildingAsGraph}_graph.txt`;
+}
+
+/**
+ * Parse the text file describing a building's graph.
+ *
+ * @param {string} building building shorthand
+ * @param {string} rawGraph contents of the building's graph file
+ * @returns {Graph} the parsed graph
+ */
+function _parseGraph(building: string, rawGraph: string): Graph {
+  const graph: Graph = {
+    adjacencies: new Map(),
+    building,
+    campus: 'main',
+    excluded: new Map(),
+    exits: new Map(),
+    formattingRules: new Map(),
+    intersections: new Map(),
+    nodes: [],
+    streetNames: new Map(),
+    streets: new Map(),
+  };
+
+  const nodeIndices: Map<string, number> = new Map();
+  const lines = rawGraph.split('\n');
+
+  let state = GraphParseState.None;
+  for (const line of lines) {
+    if (!line || line.length === 0) {
+      continue;
+    }
+
+    // Handle state switch
+    if (line.charAt(0) === '[') {
+      state = _getGraphState(line);
+      continue;
+    }
+
+    // If no state was set, skip element
+    if (state === GraphParseState.None) {
+      continue;
+    }
+
+    const graphComponents = line.split('|');
+
+    switch (state) {
+      case GraphParseState.Format:
+        _parseAndAppendGraphFormat(graph, line);
+        break;
+      case GraphParseState.Edges: {
+        const node = _getGraphNode(graphComponents[0], graph, nodeIndices);
+        _parseAndAppendEdges(node, graph, graphComponents[1], nodeIndices);
+        break;
+      }
+      case GraphParseState.Nodes: {
+        const node = _getGraphNode(graphComponents[0], graph, nodeIndices);
+        _parseAndAppendNode(node, graph, graphComponents[1]);
+        break;
+      }
+      case GraphParseState.Excluded: {
+        const nodeA = _getGraphNode(graphComponents[0], graph, nodeIndices);
+        const nodeB = _getGraphNode(graphComponents[1], graph, nodeIndices);
+        _parseAndAppendExcludedNode(nodeA, nodeB, graph);
+        _parseAndAppendExcludedNode(nodeB, nodeA, graph);
+        break;
+      }
+      case GraphParseState.Streets: {
+        _parseAndAppendStreet(graphComponents[0], graphComponents[1], graph);
+        break;
+      }
+      case GraphParseState.Campus: {
+        _parseAndSetCampus(graph, line);
+        break;
+      }
+      default:
+        // Do nothing
+    }
+  }
+
+  return graph;
+}
+
+/**
+ * Remove the least recently used graphs from the cache until there are at most `size` left. Their nodes stay in
+ * the node cache, since searches which are still running may look them up to search the evicted graphs.
+ *
+ * @param {number} size maximum number of graphs to keep
+ */
+export function trimGraphCache(size: number): void {
+  if (graphCache.size <= size) {
+    return;
+  }
+
+  for (const building of Array.from(graphCache.keys())) {
+    if (graphCache.size <= size) {
+      break;
+    }
+    graphCache.delete(building);
+  }
+}
+
+/**
+ * Remove every graph from the cache, and the nodes parsed with them. Should be called when new configuration
+ * files are installed, so graphs are parsed from the new files.
+ *
+ * @param {number|undefined} version version of the configuration which was installed
+ */
+export function invalidateGraphCache(version?: number): void {
+  graphCache.clear();
+  graphCacheVersion = version;
+  pruneNodeCache();
+}
+
+/**
+ * Get the number of graphs which were found and not found in the cache since the app started.
+ *
+ * @returns {GraphCacheStats} hits, misses, and size of the cache
+ */
+export function getGraphCacheStats(): GraphCacheStats {
+  return {
+    hits: graphCacheHits,
+    misses: graphCacheMisses,
+    size: graphCache.size,
+  };
+}
+
+/**
+ * Gets the requested set of Graph instances, mapped to their shorthands. Graphs are parsed once and cached until
+ * the configuration changes, or until they are the least recently used of more than `MAX_CACHED_GRAPHS`.
  *
  * @param {Set<string>} buildings set of building identifiers
  * @returns {Promise<Map<Graph>>} map of building shorthands to Graphs
  */
 export async function getGraphs(buildings: Set<string>): Promise<Map<string, Graph>> {
   const Configuration = require('../Configuration');
+  const NativeNavigation = require('./NativeNavigation');
+  const version = graphCacheVersion;
   const graphs: Map<string, Graph> = new Map();
   for (const building of buildings) {
-    const buildingAsGraph = building.replace(/[\s/]+/g, '');
-    const rawGraph = await Configuration.getTextFile(`/${buildingAsGraph}_graph.txt`);
-    const graph: Graph = {
-      adjacencies: new Map(),
-      campus: 'main',
-      excluded: new Map(),
-      exits: new Map(),
-      formattingRules: new Map(),
-      intersections: new Map(),
-      streetNames: new Map(),
-      streets: new Map(),
-    };
-
-    const lines = rawGraph.split('\n');
-
-    let state = GraphParseState.None;
-    for (const line of lines) {
-      if (!line || line.length === 0) {
-        continue;
-      }
-
-      // Handle state switch
-      if (line.charAt(0) === '[') {
-        state = _getGraphState(line);
-        continue;
-      }
-
-      // If no state was set, skip element
-      if (state === GraphParseState.None) {
-        continue;
-      }
-
-      const graphComponents = line.split('|');
-
-      switch (state) {
-        case GraphParseState.Format:
-          _parseAndAppendGraphFormat(graph, line);
-          break;
-        case GraphParseState.Edges: {
-          const node = getCachedNodeOrBuild(graphComponents[0], building, graph.formattingRules);
-          _parseAndAppendEdges(node, building, graph, graphComponents[1]);
-          break;
-        }
-        case GraphParseState.Nodes: {
-          const node = getCachedNodeOrBuild(graphComponents[0], building, graph.formattingRules);
-          _parseAndAppendNode(node, graph, graphComponents[1]);
-          break;
-        }
-        case GraphParseState.Excluded: {
-          const nodeA = getCachedNodeOrBuild(graphComponents[0], building, graph.formattingRules);
-          const nodeB = getCachedNodeOrBuild(graphComponents[1], building, graph.formattingRules);
-          _parseAndAppendExcludedNode(nodeA, nodeB, graph);
-          _parseAndAppendExcludedNode(nodeB, nodeA, graph);
-          break;
-        }
-        case GraphParseState.Streets: {
-          _parseAndAppendStreet(graphComponents[0], graphComponents[1], graph);
-          break;
-        }
-        case GraphParseState.Campus: {
-          _parseAndSetCampus(graph, line);
-          break;
-        }
-        default:
-          // Do nothing
+    let graph = graphCache.get(building);
+    if (graph == undefined) {
+      graphCacheMisses++;
+      if (NativeNavigation.isAvailable()) {
+        // Parse off of the JS thread, without passing the text of the graph to JS
+        graph = await NativeNavigation.parseGraph(building);
+      } else {
+        const rawGraph = await Configuration.getTextFile(getGraphFileName(building));
+        graph = _parseGraph(building, rawGraph);
       }
+    } else {
+      graphCacheHits++;
+      graphCache.delete(building);
     }
 
+    if (version === graphCacheVersion) {
+      graphCache.set(building, graph);
+    }
     graphs.set(building, graph);
   }
 
+  // Keep every requested graph, even if more were requested than can be cached
+  trimGraphCache(Math.max(MAX_CACHED_GRAPHS, buildings.size));
+
   return graphs;
 }
 
+/**
+ * Get a graph with only the edges of another which accessible paths can follow: edges marked accessible, and edges
+ * which do not lead to stairs. The graph shares its nodes and edges with the original, and is built once for each
+ * parsed graph.
+ *
+ * @param {Graph} graph graph with every edge
+ * @returns {Graph} the graph with only accessible edges
+ */
+export function getAccessibleGraph(graph: Graph): Graph {
+  let accessibleGraph = accessibleGraphs.get(graph);
+  if (accessibleGraph == undefined) {
+    const adjacencies: Map<Node, Edge[]> = new Map();
+    graph.adjacencies.forEach((edges: Edge[], node: Node) => {
+      adjacencies.set(node, edges.filter((edge: Edge) => edge.accessible || edge.node.isAccessible()));
+    });
+
+    accessibleGraph = { ...graph, adjacencies };
+    accessibleGraphs.set(graph, accessibleGraph);
+  }
+
+  return accessibleGraph;
+}
+
 /**
  * Get all the doors to a set of buildings from a graph.
  *
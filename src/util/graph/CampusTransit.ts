@@ -0,0 +1,249 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-11
+ * @file CampusTransit.ts
+ * @description Graph of campuses, connected by the university shuttle and city transit. Campuses are identified by
+ *              the campus of their building graphs, which match the IDs of shuttle stops and transit campuses.
+ */
+
+// Types
+import { LatLong, Name } from '../../../typings/global';
+import { ShuttleInfo, ShuttleStop, TransitCampus, TransitSystem } from '../../../typings/transit';
+
+/** A way to travel directly from one campus to another. */
+export interface CampusLink {
+  source: string;                   // ID of the campus the link starts from
+  sourceName: Name;                 // Name of the stop or campus the link starts from
+  sourceStop: LatLong | undefined;  // Location of the stop to board at, or undefined if it is not known
+  target: string;                   // ID of the campus the link leads to
+  targetName: Name;                 // Name of the stop or campus the link leads to
+  targetStop: LatLong | undefined;  // Location of the stop to get off at, or undefined if it is not known
+  routes: number[];                 // Numbers of the transit routes between the campuses, or empty for the shuttle
+}
+
+/** Links from each campus, by campus ID. Shuttle links come before transit links. */
+export type CampusLinks = Map<string, CampusLink[]>;
+
+/** Links between campuses, loaded from the configuration, or undefined if they have not been loaded. */
+let loadedLinks: Promise<CampusLinks> | undefined;
+
+/**
+ * Add a link to the links from its source campus.
+ *
+ * @param {CampusLinks} links links to add to
+ * @param {CampusLink}  link  the link to add
+ */
+function _addLink(links: CampusLinks, link: CampusLink): void {
+  const campusLinks = links.get(link.source) || [];
+  campusLinks.push(link);
+  links.set(link.source, campusLinks);
+}
+
+/**
+ * Returns a location if its coordinates are known.
+ *
+ * @param {LatLong|undefined} location the location
+ * @returns {LatLong|undefined} the location, or undefined if it has no coordinates
+ */
+function _getKnownLocation(location: LatLong | undefined): LatLong | undefined {
+  return location == undefined || location.latitude == undefined || location.longitude == undefined
+      ? undefined
+      : location;
+}
+
+/**
+ * Find the location of a stop near a campus which is served by one of a set of routes.
+ *
+ * @param {TransitCampus} campus      the campus
+ * @param {number[]}      routes      numbers of the routes
+ * @param {object}        stopDetails details of each transit stop, by stop ID
+ * @returns {LatLong|undefined} the first stop near the campus on one of the routes, the campus if the stop's
+ *                              location is not known, or undefined if neither location is known
+ */
+function _getRouteStop(campus: TransitCampus, routes: number[], stopDetails: object): LatLong | undefined {
+  for (const stopId in campus.stops) {
+    if (campus.stops.hasOwnProperty(stopId)
+        && (campus.stops as any)[stopId].some((route: any) => routes.indexOf(route.number) >= 0)) {
+      const stop = _getKnownLocation((stopDetails as any)[stopId]);
+      if (stop != undefined) {
+        return stop;
+      }
+    }
+  }
+
+  return _getKnownLocation(campus);
+}
+
+/**
+ * Build links between campuses. The shuttle links each pair of its stops, and transit links each pair of campuses
+ * which are served by the same routes.
+ *
+ * @param {ShuttleInfo|undefined}   shuttle information about the university shuttle
+ * @param {TransitSystem|undefined} transit the city transit system, with the campuses it serves
+ * @returns {CampusLinks} links from each campus
+ */
+export function buildCampusLinks(shuttle: ShuttleInfo | undefined, transit: TransitSystem | undefined): CampusLinks {
+  const links: CampusLinks = new Map();
+
+  const stops: ShuttleStop[] = shuttle == undefined ? [] : shuttle.stops;
+  for (const source of stops) {
+    for (const target of stops) {
+      if (source.id !== target.id) {
+        // The shuttle leaves from a stop on its outgoing route, and arrives on its incoming route
+        _addLink(links, {
+          routes: [],
+          source: source.id,
+          sourceName: source,
+          sourceStop: _getKnownLocation(source.outgoing),
+          target: target.id,
+          targetName: target,
+          targetStop: _getKnownLocation(target.incoming),
+        });
+      }
+    }
+  }
+
+  // Numbers of the routes which stop near each campus
+  const campusRoutes: Map<TransitCampus, Set<number>> = new Map();
+  const campuses: TransitCampus[] = transit == undefined ? [] : transit.campuses;
+  const stopDetails: object = transit == undefined ? {} : transit.stopDetails || {};
+  for (const campus of campuses) {
+    const routes: Set<number> = new Set();
+    for (const stopId in campus.stops) {
+      if (campus.stops.hasOwnProperty(stopId)) {
+        for (const route of (campus.stops as any)[stopId]) {
+          routes.add(route.number);
+        }
+      }
+    }
+    campusRoutes.set(campus, routes);
+  }
+
+  campusRoutes.forEach((sourceRoutes: Set<number>, source: TransitCampus) => {
+    campusRoutes.forEach((targetRoutes: Set<number>, target: TransitCampus) => {
+      const sharedRoutes = [ ...sourceRoutes ].filter((route: number) => targetRoutes.has(route));
+      if (source.id !== target.id && sharedRoutes.length > 0) {
+        sharedRoutes.sort((a: number, b: number) => a - b);
+        _addLink(links, {
+          routes: sharedRoutes,
+          source: source.id,
+          sourceName: source,
+          sourceStop: _getRouteStop(source, sharedRoutes, stopDetails),
+          target: target.id,
+          targetName: target,
+          targetStop: _getRouteStop(target, sharedRoutes, stopDetails),
+        });
+      }
+    });
+  });
+
+  return links;
+}
+
+/**
+ * Find the links to take from one campus to another, taking as few as possible. The shuttle is preferred over
+ * transit between the same campuses.
+ *
+ * @param {CampusLinks} links  links from each campus
+ * @param {string}      source ID of the campus to start from
+ * @param {string}      target ID of the campus to reach
+ * @returns {CampusLink[]|undefined} the links to take in order, or undefined if the campuses are not connected
+ */
+export function findCampusRoute(links: CampusLinks, source: string, target: string): CampusLink[] | undefined {
+  // Link used to reach each campus
+  const previous: Map<string, CampusLink | undefined> = new Map();
+  previous.set(source, undefined);
+
+  const queue = [ source ];
+  while (queue.length > 0 && !previous.has(target)) {
+    const campus = queue.shift();
+    for (const link of links.get(campus) || []) {
+      if (!previous.has(link.target)) {
+        previous.set(link.target, link);
+        queue.push(link.target);
+      }
+    }
+  }
+
+  if (!previous.has(target)) {
+    return undefined;
+  }
+
+  const route: CampusLink[] = [];
+  let link = previous.get(target);
+  while (link != undefined) {
+    route.unshift(link);
+    link = previous.get(link.source);
+  }
+
+  return route;
+}
+
+/**
+ * Load a configuration file, or undefined if it is not available.
+ *
+ * @param {string} configFile name of the config file
+ * @returns {Promise<any>} the parsed file, or undefined
+ */
+async function _getOptionalConfig(configFile: string): Promise<any> {
+  const Configuration = require('../Configuration');
+  try {
+    return await Configuration.getConfig(configFile);
+  } catch (err) {
+    console.error(`Configuration file ${configFile} could not be loaded for campus links.`, err);
+
+    return undefined;
+  }
+}
+
+/**
+ * Load the links between campuses from the shuttle and transit configuration, only once.
+ *
+ * @returns {Promise<CampusLinks>} links from each campus
+ */
+function _getCampusLinks(): Promise<CampusLinks> {
+  if (loadedLinks == undefined) {
+    loadedLinks = Promise.all([
+      _getOptionalConfig('/shuttle.json'),
+      _getOptionalConfig('/transit.json'),
+    ]).then(([ shuttle, transit ]: [ ShuttleInfo | undefined, TransitSystem | undefined ]) =>
+      buildCampusLinks(shuttle, transit));
+  }
+
+  return loadedLinks;
+}
+
+/**
+ * Find the links to take from one campus to another.
+ *
+ * @param {string} source ID of the campus to start from
+ * @param {string} target ID of the campus to reach
+ * @returns {Promise<CampusLink[]|undefined>} the links to take in order, or undefined if there are none
+ */
+export async function getCampusRoute(source: string, target: string): Promise<CampusLink[] | undefined> {
+  return findCampusRoute(await _getCampusLinks(), source, target);
+}
+
+/**
+ * Forget the links between campuses, so they are loaded again. Should be called when new configuration files are
+ * installed.
+ */
+export function invalidateCampusLinks(): void {
+  loadedLinks = undefined;
+}
@@ -0,0 +1,250 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-12
+ * @file Closures.ts
+ * @description Edges closed at runtime, on top of the excluded edges in each graph file. Closures are loaded from a
+ *              feed, and applied to parsed graphs as a bitset over their edges, so graphs are not parsed again.
+ */
+
+// Types
+import { Edge, Graph } from './CampusGraph';
+import Node from './Node';
+
+/** A closed passage between two nodes. Edges between the nodes are closed in both directions. */
+export interface EdgeClosure {
+  building: string; // Shorthand of the building whose graph has the edges
+  from: string;     // Formatted ID of the node at one end of the edges
+  to: string;       // Formatted ID of the node at the other end of the edges
+}
+
+/** Closures, as they are listed in a feed or file. */
+export interface ClosureFeed {
+  closures: EdgeClosure[]; // Edges which are currently closed
+}
+
+/** Closed edges of a parsed graph. */
+interface ClosureOverlay {
+  closed: Uint32Array;        // One bit for each edge, set for closed edges
+  edgeIds: Map<Edge, number>; // Index of each edge, in the order of the graph's adjacencies
+  version: number;            // Version of the closures the bits were set from
+}
+
+/** Number of bits in each word of an overlay. */
+const BITS_PER_WORD = 32;
+
+/** Shift from the index of an edge to the word with its bit. */
+const WORD_SHIFT = 5;
+
+/** Name of the config file with closures, for testing without a feed. */
+const CLOSURES_CONFIG_FILE = '/closures.json';
+
+/** Keys of the pairs of nodes with closed edges between them, in both directions, by building. */
+let closedPairs: Map<string, Set<string>> = new Map();
+
+/** Incremented each time the closures change, so overlays built from older closures are rebuilt. */
+let closureVersion = 0;
+
+/** Closed edges of each parsed graph, built when the graph is first searched. */
+const overlays: WeakMap<Graph, ClosureOverlay> = new WeakMap();
+
+/**
+ * Get the key of an edge between two nodes.
+ *
+ * @param {string} from ID of the node the edge starts from
+ * @param {string} to   ID of the node the edge leads to
+ * @returns {string} the key of the edge
+ */
+function _getPairKey(from: string, to: string): string {
+  return `${from}>${to}`;
+}
+
+/**
+ * Get the closed edges of a graph, numbering its edges if it has not been searched yet, and setting their bits if
+ * the closures changed since they were last set.
+ *
+ * @param {Graph} graph the graph
+ * @returns {ClosureOverlay} the closed edges of the graph
+ */
+function _getOverlay(graph: Graph): ClosureOverlay {
+  let overlay = overlays.get(graph);
+  if (overlay == undefined) {
+    const edgeIds: Map<Edge, number> = new Map();
+    graph.adjacencies.forEach((edges: Edge[]) => {
+      for (const edge of edges) {
+        edgeIds.set(edge, edgeIds.size);
+      }
+    });
+
+    overlay = {
+      closed: new Uint32Array(Math.ceil(edgeIds.size / BITS_PER_WORD)),
+      edgeIds,
+      version: -1,
+    };
+    overlays.set(graph, overlay);
+  }
+
+  if (overlay.version !== closureVersion) {
+    const closed = overlay.closed;
+    const edgeIds = overlay.edgeIds;
+    closed.fill(0);
+
+    const pairs = closedPairs.get(graph.building);
+    if (pairs != undefined) {
+      graph.adjacencies.forEach((edges: Edge[], node: Node) => {
+        for (const edge of edges) {
+          if (pairs.has(_getPairKey(node.getId(), edge.node.getId()))) {
+            const id = edgeIds.get(edge);
+            closed[id >>> WORD_SHIFT] |= 1 << (id % BITS_PER_WORD);
+          }
+        }
+      });
+    }
+
+    overlay.version = closureVersion;
+  }
+
+  return overlay;
+}
+
+/**
+ * Returns true if an edge of a graph has been closed.
+ *
+ * @param {Graph} graph graph with the edge
+ * @param {Edge}  edge  the edge
+ * @returns {boolean} true if the edge is closed, false otherwise
+ */
+export function isEdgeClosed(graph: Graph, edge: Edge): boolean {
+  if (closedPairs.size === 0) {
+    return false;
+  }
+
+  const overlay = _getOverlay(graph);
+  const id = overlay.edgeIds.get(edge);
+
+  return id != undefined && (overlay.closed[id >>> WORD_SHIFT] & (1 << (id % BITS_PER_WORD))) !== 0;
+}
+
+/**
+ * Replace the closed edges. Cached routes which follow a newly closed edge are removed, and if any edges were
+ * opened, every cached route is removed, since routes around the edges may no longer be the best. Routes between
+ * the user's lectures are then found again.
+ *
+ * @param {EdgeClosure[]} closures the edges which are closed
+ * @returns {Promise<void>} a promise which resolves when the closures have been applied
+ */
+export async function setClosures(closures: EdgeClosure[]): Promise<void> {
+  const updatedPairs: Map<string, Set<string>> = new Map();
+  for (const closure of closures) {
+    const pairs = updatedPairs.get(closure.building) || new Set();
+    pairs.add(_getPairKey(closure.from, closure.to));
+    pairs.add(_getPairKey(closure.to, closure.from));
+    updatedPairs.set(closure.building, pairs);
+  }
+
+  // Edges closed by the update, and buildings whose closures changed
+  const closedEdges: Array<[string, string]> = [];
+  const changedBuildings: Set<string> = new Set();
+  let edgesOpened = false;
+  updatedPairs.forEach((pairs: Set<string>, building: string) => {
+    const previousPairs = closedPairs.get(building) || new Set();
+    for (const pair of pairs) {
+      if (!previousPairs.has(pair)) {
+        const [ from, to ] = pair.split('>');
+        closedEdges.push([ from, to ]);
+        changedBuildings.add(building);
+      }
+    }
+  });
+  closedPairs.forEach((pairs: Set<string>, building: string) => {
+    const updated = updatedPairs.get(building) || new Set();
+    for (const pair of pairs) {
+      if (!updated.has(pair)) {
+        edgesOpened = true;
+        changedBuildings.add(building);
+      }
+    }
+  });
+
+  if (changedBuildings.size === 0) {
+    return;
+  }
+
+  closedPairs = updatedPairs;
+  closureVersion++;
+
+  const NativeNavigation = require('./NativeNavigation');
+  if (NativeNavigation.isAvailable()) {
+    for (const building of changedBuildings) {
+      const nodeIds: string[] = [];
+      for (const pair of closedPairs.get(building) || []) {
+        nodeIds.push(...pair.split('>'));
+      }
+      await NativeNavigation.setClosedEdges(building, nodeIds);
+    }
+  }
+
+  const Isochrone = require('./Isochrone');
+  Isochrone.invalidateIsochrones();
+
+  const RouteCache = require('./RouteCache');
+  if (edgesOpened) {
+    await RouteCache.invalidateAllRoutes();
+  } else {
+    await RouteCache.invalidateRoutesThrough(closedEdges);
+  }
+
+  const RoutePrecompute = require('./RoutePrecompute');
+  RoutePrecompute.precomputeSavedScheduleRoutes()
+      .catch((err: any) => console.error('Routes between lectures could not be found.', err));
+
+  const ScheduleDistances = require('./ScheduleDistances');
+  ScheduleDistances.computeSavedScheduleDistances()
+      .catch((err: any) => console.error('Distances between lectures could not be found.', err));
+}
+
+/**
+ * Load the closed edges from a feed.
+ *
+ * @param {string} feedURL URL of the feed, which returns a `ClosureFeed`
+ * @returns {Promise<void>} a promise which resolves when the closures have been applied
+ */
+export async function updateClosuresFromFeed(feedURL: string): Promise<void> {
+  const response = await fetch(feedURL);
+  const feed: ClosureFeed = await response.json();
+
+  return setClosures(feed.closures);
+}
+
+/**
+ * Load the closed edges from the closures config file, for testing without a feed. Closures are left unchanged if
+ * the file does not exist.
+ *
+ * @returns {Promise<void>} a promise which resolves when the closures have been applied
+ */
+export async function updateClosuresFromFile(): Promise<void> {
+  const Configuration = require('../Configuration');
+  let feed: ClosureFeed;
+  try {
+    feed = await Configuration.getConfig(CLOSURES_CONFIG_FILE);
+  } catch (err) {
+    return;
+  }
+
+  return setClosures(feed.closures);
+}
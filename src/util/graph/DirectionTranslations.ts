@@ -30,6 +30,7 @@ import * as TextUtils from '../TextUtils';
 import { Description } from '../../../typings/global';
 import { Direction } from './Directions';
 import { Graph, Edge, EdgeDirection } from './CampusGraph';
+import { CampusLink } from './CampusTransit';
 import { Language } from '../Translations';
 import { default as Node, Type as NodeType } from './Node';
 /**
@@ -318,15 +319,6 @@ export function translateEnterBuilding(
     default: throw new Error(`Invalid direction: ${passingDirection}`);
   }
 
-  let turnEn: string;
-  let turnFr: string;
-  switch (turningDirection) {
-    case Direction.Left: turnEn = _turnLeft('en'); turnFr = _turnLeft('fr'); break;
-    case Direction.Right: turnEn = _turnRight('en'); turnFr = _turnRight('fr'); break;
-    case Direction.Straight: turnEn = _proceedStraight('en'); turnFr = _proceedStraight('fr'); break;
-    default: throw new Error(`Invalid direction: ${turningDirection}`);
-  }
-
   const streetNameEn = outdoorNode.getType() === NodeType.Street
       ? getNodeStreetName(outdoorNode, graph, 'en')
       : _thisPath('en').toLowerCase();
@@ -344,15 +336,35 @@ export function translateEnterBuilding(
       description_en: `${door.getBuilding()} will be ${passingEn.toLowerCase()}`,
       description_fr: `${door.getBuilding()} sera ${passingFr.toLowerCase()}`,
     },
-    {
-      description_en: `Enter ${door.getBuilding()} (through ${getNodeTypeName(door.getType(), 'en')}`
-          + ` ${door.getName()}) and ${turnEn.toLowerCase()}`,
-      description_fr: `Entre dans ${door.getBuilding()} (à travers la`
-          + ` ${getNodeTypeName(door.getType(), 'fr').toLowerCase()} ${door.getName()}) et ${turnFr.toLowerCase()}`,
-    },
+    translateEnterBuildingThroughDoor(door, turningDirection),
   ];
 }
 
+/**
+ * Get translations for all languages to enter a building through a door.
+ *
+ * @param {Node}      door      door to enter
+ * @param {Direction} direction direction to turn after entering
+ * @returns {Description} directions to enter the building, in all languages
+ */
+export function translateEnterBuildingThroughDoor(door: Node, direction: Direction): Description {
+  let turnEn: string;
+  let turnFr: string;
+  switch (direction) {
+    case Direction.Left: turnEn = _turnLeft('en'); turnFr = _turnLeft('fr'); break;
+    case Direction.Right: turnEn = _turnRight('en'); turnFr = _turnRight('fr'); break;
+    case Direction.Straight: turnEn = _proceedStraight('en'); turnFr = _proceedStraight('fr'); break;
+    default: throw new Error(`Invalid direction: ${direction}`);
+  }
+
+  return {
+    description_en: `Enter ${door.getBuilding()} (through ${getNodeTypeName(door.getType(), 'en')}`
+        + ` ${door.getName()}) and ${turnEn.toLowerCase()}`,
+    description_fr: `Entre dans ${door.getBuilding()} (à travers la`
+        + ` ${getNodeTypeName(door.getType(), 'fr').toLowerCase()} ${door.getName()}) et ${turnFr.toLowerCase()}`,
+  };
+}
+
 /**
  * Get translations for all languages to exit a building.
  *
@@ -607,3 +619,70 @@ export function translateTakeOutdoorSteps(
         + ` ${stepsOrRampFr}`,
   };
 }
+
+/**
+ * Get translations for all languages to travel between campuses by the shuttle or transit.
+ *
+ * @param {CampusLink} link the shuttle or transit link between the campuses
+ * @returns {Description} directions to travel to the next campus, in all languages
+ */
+export function translateTakeCampusLink(link: CampusLink): Description {
+  const sourceEn = Translations.getName(link.sourceName, 'en');
+  const sourceFr = Translations.getName(link.sourceName, 'fr');
+  const contractedSourceFr = _prependFrenchPreposition('de', sourceFr);
+  const fromFr = contractedSourceFr === sourceFr ? `de ${sourceFr}` : contractedSourceFr;
+  const targetEn = Translations.getName(link.targetName, 'en');
+  const targetFr = Translations.getName(link.targetName, 'fr');
+
+  if (link.routes.length === 0) {
+    return {
+      description_en: `Take the university shuttle from ${sourceEn} to ${targetEn}`,
+      description_fr: `Prenez la navette universitaire ${fromFr} à ${targetFr}`,
+    };
+  }
+
+  const routes = link.routes.join(', ');
+
+  return {
+    description_en: `Take transit route ${routes} from ${sourceEn} to ${targetEn}`,
+    description_fr: `Prenez la ligne ${routes} ${fromFr} à ${targetFr}`,
+  };
+}
+
+/**
+ * Get translations for all languages to walk to the stop to take the shuttle or transit from.
+ *
+ * @param {CampusLink}     link the shuttle or transit link to take
+ * @param {Node|undefined} door door of the building beside the stop, or undefined if it is not known
+ * @returns {Description} directions to walk to the stop, in all languages
+ */
+export function translateWalkToCampusStop(link: CampusLink, door: Node | undefined): Description {
+  const sourceEn = Translations.getName(link.sourceName, 'en');
+  const sourceFr = Translations.getName(link.sourceName, 'fr');
+  const besideEn = door == undefined ? '' : `, beside ${door.getBuilding()}`;
+  const besideFr = door == undefined ? '' : `, à côté de ${door.getBuilding()}`;
+
+  return {
+    description_en: `Walk to the stop at ${sourceEn}${besideEn}`,
+    description_fr: `Marchez jusqu'à l'arrêt ${sourceFr}${besideFr}`,
+  };
+}
+
+/**
+ * Get translations for all languages to get off the shuttle or transit at the stop on the target campus.
+ *
+ * @param {CampusLink}     link the last shuttle or transit link taken
+ * @param {Node|undefined} door door of the building beside the stop, or undefined if it is not known
+ * @returns {Description} directions to leave the shuttle or transit, in all languages
+ */
+export function translateLeaveCampusStop(link: CampusLink, door: Node | undefined): Description {
+  const targetEn = Translations.getName(link.targetName, 'en');
+  const targetFr = Translations.getName(link.targetName, 'fr');
+  const besideEn = door == undefined ? '' : `, beside ${door.getBuilding()}`;
+  const besideFr = door == undefined ? '' : `, à côté de ${door.getBuilding()}`;
+
+  return {
+    description_en: `Get off at ${targetEn}${besideEn}`,
+    description_fr: `Descendez à ${targetFr}${besideFr}`,
+  };
+}
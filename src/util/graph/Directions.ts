@@ -22,18 +22,24 @@
  */
 
 import * as Analytics from '../Analytics';
+import * as Constants from '../../constants';
 import * as DirectionTranslations from './DirectionTranslations';
 import * as Navigation from './Navigation';
+import * as NativeNavigation from './NativeNavigation';
 import * as Translations from '../Translations';
 import * as TextUtils from '../TextUtils';
 import * as CampusGraph from './CampusGraph';
+import * as CampusTransit from './CampusTransit';
+import * as RouteCache from './RouteCache';
+import { findClosestBuilding } from '../Navigation';
 
 // Types
-import { Description, Icon } from '../../../typings/global';
-import { Destination } from '../../../typings/university';
+import { Description, Icon, LatLong } from '../../../typings/global';
+import { Building, BuildingRoom, Destination, RoomTypeId } from '../../../typings/university';
 import { Path } from './Navigation';
 import { default as Node, Type as NodeType } from './Node';
 import { Graph, Edge, EdgeDirection } from './CampusGraph';
+import { CampusLink } from './CampusTransit';
 
 /** Information on step by step navigation. */
 export interface Step extends Description {
@@ -43,10 +49,18 @@ export interface Step extends Description {
 
 /** Container for results of requesting directions between two destinations. */
 export interface DirectionResults {
+  cancelled?: boolean;  // True if a newer request for directions superseded this one before it finished
   showReport: boolean;  // True indicates an error was encountered and an option to report should appear
   steps: Step[];        // Steps to between two destinations.
 }
 
+/** A room near a starting point, and the distance to walk to it. */
+export interface NearbyRoom {
+  destination: Destination; // The room
+  distance: number;         // Distance of the path to the room, in metres
+  minutes: number;          // Estimated time to walk to the room, in minutes, rounded up
+}
+
 /** Possible directions for path traversal. */
 export enum Direction {
   Left = 0,
@@ -61,6 +75,11 @@ interface MissedHalls {
   straight: number; // Number of straight ahead missed halls
 }
 
+/** Number of hallways leading from a node, by the direction of their edges. */
+interface HallwayDegrees {
+  [direction: string]: number;
+}
+
 /** Properties on a part of a path */
 interface PathProps extends MissedHalls {
   distance: number;       // Distance travelled on the current straight path
@@ -72,12 +91,71 @@ interface PathExtension {
   nodeSkips: number;  // Number of nodes to skip
 }
 
+/** Paths to follow between two destinations, and the steps to follow them. */
+interface Route {
+  paths: Path[];  // Paths the route follows, in order
+  steps: Step[];  // Steps to follow the route
+}
+
+/** Part of a route on one campus, between a destination and a shuttle or transit stop. */
+interface StopLeg {
+  path: Path | undefined;     // Path between the destination and the stop, or undefined if there is none
+  stopDoor: Node | undefined; // Door beside the stop which the path reaches, or undefined if the stop was not reached
+}
+
+/** Functions to search graphs for paths, from either the JS or native routing engine. */
+interface PathFinder {
+  findShortestPathBetween(
+      startNode: Node,
+      targetNode: Node,
+      graph: Graph,
+      accessible: boolean,
+      reverse: boolean): Path | undefined | Promise<Path | undefined>;
+  findBestPathAcross(
+      startNode: Node,
+      startDoors: Set<Node>,
+      targetNode: Node,
+      targetDoors: Set<Node>,
+      graphs: Map<string, Graph>,
+      accessible: boolean,
+      shortest: boolean): Path | undefined | Promise<Path | undefined>;
+  findNearestPathsBetween(
+      startNode: Node,
+      targetNodes: Set<Node>,
+      count: number,
+      graph: Graph,
+      accessible: boolean): Map<Node, Path> | Promise<Map<Node, Path>>;
+}
+
 /** Constant for 10 metres. */
 const TEN_METRES = 10;
 
+/** Maximum distance from a shuttle or transit stop to the building considered beside it, in kilometres. */
+const MAX_STOP_DISTANCE = 0.3;
+
+/** Set to true to search for paths with the native routing engine, when it is available. */
+const preferNativeRouting = true;
+
 /** Key for a report button step. */
 export const REPORT_STEP_KEY = 'report';
 
+/** Incremented by each request for directions which supersedes the requests before it. */
+let latestDirectionsRequest = 0;
+
+/** Direction to turn to change from facing the first direction to the second, by first and second direction. */
+const TURNING_DIRECTIONS: { [first: string]: { [second: string]: Direction } } = {
+  D: { D: Direction.Straight, L: Direction.Right, R: Direction.Left, U: Direction.Straight },
+  L: { D: Direction.Left, L: Direction.Straight, R: Direction.Straight, U: Direction.Right },
+  R: { D: Direction.Right, L: Direction.Straight, R: Direction.Straight, U: Direction.Left },
+  U: { D: Direction.Straight, L: Direction.Left, R: Direction.Right, U: Direction.Straight },
+};
+
+/** Degrees of nodes with no hallways leading from them. */
+const NO_HALLWAYS: HallwayDegrees = { D: 0, L: 0, R: 0, U: 0 };
+
+/** Number of hallways leading from each node in each direction, by graph. */
+const hallwayDegrees: WeakMap<Graph, Map<Node, HallwayDegrees>> = new WeakMap();
+
 /**
  * Convert a distance to metres.
  *
@@ -97,86 +175,65 @@ function _distanceToMetres(distance: number): number {
  * @returns {Direction} the direction to turn
  */
 function _getTurningDirection(firstDirection: EdgeDirection, secondDirection: EdgeDirection): Direction {
+  const turns = TURNING_DIRECTIONS[firstDirection];
 
-  /* tslint:disable no-multi-spaces */
-  /* Better to line up statements */
-
-  if (
-      (firstDirection === EdgeDirection.Down  && secondDirection === EdgeDirection.Left) ||
-      (firstDirection === EdgeDirection.Up    && secondDirection === EdgeDirection.Right) ||
-      (firstDirection === EdgeDirection.Left  && secondDirection === EdgeDirection.Up) ||
-      (firstDirection === EdgeDirection.Right && secondDirection === EdgeDirection.Down)) {
-    return Direction.Right;
-  } else if (
-      (firstDirection === EdgeDirection.Down  && secondDirection === EdgeDirection.Right) ||
-      (firstDirection === EdgeDirection.Up    && secondDirection === EdgeDirection.Left) ||
-      (firstDirection === EdgeDirection.Left  && secondDirection === EdgeDirection.Down) ||
-      (firstDirection === EdgeDirection.Right && secondDirection === EdgeDirection.Up)) {
-    return Direction.Left;
-  }
+  return turns == undefined || turns[secondDirection] == undefined ? Direction.Straight : turns[secondDirection];
+}
 
-  /* tslint:enable no-multi-spaces */
+/**
+ * Get the number of hallways leading from a node in each direction. The numbers are counted for every node in a
+ * graph the first time one of its nodes is passed, rather than for each path.
+ *
+ * @param {Graph} graph graph with the node
+ * @param {Node}  node  the node
+ * @returns {HallwayDegrees} the number of hallways leading from the node, by direction
+ */
+function _getHallwayDegrees(graph: Graph, node: Node): HallwayDegrees {
+  let graphDegrees = hallwayDegrees.get(graph);
+  if (graphDegrees == undefined) {
+    graphDegrees = new Map();
+    graph.adjacencies.forEach((edges: Edge[], source: Node) => {
+      const degrees: HallwayDegrees = { D: 0, L: 0, R: 0, U: 0 };
+      for (const edge of edges) {
+        if (edge.node.getType() === NodeType.Hallway) {
+          degrees[edge.direction] += 1;
+        }
+      }
+      graphDegrees.set(source, degrees);
+    });
+    hallwayDegrees.set(graph, graphDegrees);
+  }
 
-  return Direction.Straight;
+  return graphDegrees.get(node) || NO_HALLWAYS;
 }
 
 /**
  * Count the number of halls skipped when walking a certain direction down a hallway.
  *
- * @param {Edge[]}        adjacentEdges the edges being passed
- * @param {EdgeDirection} direction     the current travelling direction
+ * @param {HallwayDegrees} degrees   the number of hallways leading from the node being passed, by direction
+ * @param {EdgeDirection}  direction the current travelling direction
  * @returns {MissedHalls} the number of missed left, right and straight hallways
  */
-function _countMissedHalls(adjacentEdges: Edge[], direction: EdgeDirection): MissedHalls {
-  let left = 0;
-  let right = 0;
-  let straight = 0;
+function _countMissedHalls(degrees: HallwayDegrees, direction: EdgeDirection): MissedHalls {
+  const turns = TURNING_DIRECTIONS[direction];
+  if (turns == undefined) {
+    throw new Error(`Invalid edge direction '${direction}'`);
+  }
 
-  for (const edge of adjacentEdges) {
-    if (edge.node.getType() !== NodeType.Hallway) {
+  const missedHalls: MissedHalls = { left: 0, right: 0, straight: degrees[direction] };
+  for (const hallDirection in degrees) {
+    if (!degrees.hasOwnProperty(hallDirection) || hallDirection === direction) {
       continue;
     }
 
-    if (edge.direction === direction) {
-      straight += 1;
-      continue;
-    }
-
-    switch (direction) {
-      case EdgeDirection.Down:
-        if (edge.direction === EdgeDirection.Left) {
-          right += 1;
-        } else if (edge.direction === EdgeDirection.Right) {
-          left += 1;
-        }
-        break;
-      case EdgeDirection.Up:
-        if (edge.direction === EdgeDirection.Right) {
-          right += 1;
-        } else if (edge.direction === EdgeDirection.Left) {
-          left += 1;
-        }
-        break;
-      case EdgeDirection.Left:
-        if (edge.direction === EdgeDirection.Up) {
-          right += 1;
-        } else if (edge.direction === EdgeDirection.Down) {
-          left += 1;
-        }
-        break;
-      case EdgeDirection.Right:
-        if (edge.direction === EdgeDirection.Down) {
-          right += 1;
-        } else if (edge.direction === EdgeDirection.Up) {
-          left += 1;
-        }
-        break;
-      default:
-        throw new Error(`Invalid edge direction '${direction}'`);
+    if (turns[hallDirection] === Direction.Left) {
+      missedHalls.left += degrees[hallDirection];
+    } else if (turns[hallDirection] === Direction.Right) {
+      missedHalls.right += degrees[hallDirection];
     }
   }
 
-  return { left, right, straight };
+  return missedHalls;
 }
 
 /**
@@ -317,6 +374,83 @@ function _arriveBuildingDestination(currentEdge: Edge, nextEdge: Edge, overrideS
   };
 }
 
+/**
+ * Provides translated directions to enter a building from outside, at the start of a path.
+ *
+ * @param {Node} door        the door to enter through
+ * @param {Edge} currentEdge the edge leaving the door
+ * @param {Edge} nextEdge    the following edge
+ * @returns {Step} instruction to enter the building
+ */
+function _enterBuildingThroughDoor(door: Node, currentEdge: Edge, nextEdge: Edge): Step {
+  const turningDirection = _getTurningDirection(currentEdge.direction, nextEdge.direction);
+  const translations = DirectionTranslations.translateEnterBuildingThroughDoor(door, turningDirection);
+
+  return {
+    description_en: Translations.getDescription(translations, 'en'),
+    description_fr: Translations.getDescription(translations, 'fr'),
+    key: `enterBuilding_${door}`,
+  };
+}
+
+/**
+ * Provides translated directions to travel to another campus.
+ *
+ * @param {CampusLink} link the shuttle or transit link to take
+ * @returns {Step} instruction to take the shuttle or transit
+ */
+function _takeCampusLink(link: CampusLink): Step {
+  const translations = DirectionTranslations.translateTakeCampusLink(link);
+
+  return {
+    description_en: Translations.getDescription(translations, 'en'),
+    description_fr: Translations.getDescription(translations, 'fr'),
+    icon: {
+      class: 'material',
+      name: 'directions-bus',
+    },
+    key: `campusLink_${link.source}_${link.target}`,
+  };
+}
+
+/**
+ * Provides translated directions to walk to the stop to take the shuttle or transit from.
+ *
+ * @param {CampusLink}     link the shuttle or transit link to take
+ * @param {Node|undefined} door door of the building beside the stop, or undefined if it is not known
+ * @returns {Step} instruction to walk to the stop
+ */
+function _walkToCampusStop(link: CampusLink, door: Node | undefined): Step {
+  const translations = DirectionTranslations.translateWalkToCampusStop(link, door);
+
+  return {
+    description_en: Translations.getDescription(translations, 'en'),
+    description_fr: Translations.getDescription(translations, 'fr'),
+    icon: {
+      class: 'material',
+      name: 'directions-walk',
+    },
+    key: `walkToStop_${link.source}`,
+  };
+}
+
+/**
+ * Provides translated directions to get off the shuttle or transit at the stop on the target campus.
+ *
+ * @param {CampusLink}     link the last shuttle or transit link taken
+ * @param {Node|undefined} door door of the building beside the stop, or undefined if it is not known
+ * @returns {Step} instruction to leave the shuttle or transit
+ */
+function _leaveCampusStop(link: CampusLink, door: Node | undefined): Step {
+  const translations = DirectionTranslations.translateLeaveCampusStop(link, door);
+
+  return {
+    description_en: Translations.getDescription(translations, 'en'),
+    description_fr: Translations.getDescription(translations, 'fr'),
+    key: `leaveStop_${link.target}`,
+  };
+}
+
 /**
  * Provides translated directions to enter a staircase or elevator, change floors, and exit.
  *
@@ -530,19 +664,15 @@ function _extendPath(
   const nextDirection = _getTurningDirection(currentEdge.direction, nextEdge.direction);
 
   switch (currentNode.getType()) {
-    case NodeType.Hallway:
-      if (nextDirection === Direction.Straight) {
-        const skippedNode = currentEdge.node;
-        const adjacentEdges = graphs.get(skippedNode.getBuilding()).adjacencies.get(skippedNode);
-        const missedHalls = _countMissedHalls(adjacentEdges, currentEdge.direction);
+    case NodeType.Hallway: {
+      const skippedNode = currentEdge.node;
+      const degrees = _getHallwayDegrees(graphs.get(skippedNode.getBuilding()), skippedNode);
+      const missedHalls = _countMissedHalls(degrees, currentEdge.direction);
 
+      if (nextDirection === Direction.Straight) {
         pathProps.left += missedHalls.left;
         pathProps.right += missedHalls.right;
       } else {
-        const skippedNode = currentEdge.node;
-        const adjacentEdges = graphs.get(skippedNode.getBuilding()).adjacencies.get(skippedNode);
-        const missedHalls = _countMissedHalls(adjacentEdges, currentEdge.direction);
-
         pathProps.straight += missedHalls.straight;
 
         let missed: number;
@@ -559,6 +689,7 @@ function _extendPath(
         pathProps.straight = 0;
       }
       break;
+    }
     case NodeType.Path:
     case NodeType.Street:
       if (nextEdge.node.getType() === NodeType.Door) {
@@ -829,6 +960,38 @@ function _directionsError(
   };
 }
 
+/**
+ * Throw if a newer request for directions has superseded a request, so it stops searching.
+ *
+ * @param {number} request the request
+ */
+function _checkSuperseded(request: number): void {
+  if (request !== latestDirectionsRequest) {
+    const err: any = new Error('Directions were superseded by a newer request');
+    err.code = NativeNavigation.SEARCH_CANCELLED_ERROR;
+    throw err;
+  }
+}
+
+/**
+ * Returns true if an error was thrown because a search was cancelled.
+ *
+ * @param {any} err the error
+ * @returns {boolean} true if the search was cancelled, false if it failed
+ */
+function _isCancelled(err: any): boolean {
+  return err != undefined && err.code === NativeNavigation.SEARCH_CANCELLED_ERROR;
+}
+
+/**
+ * Get the routing engine to search for paths with.
+ *
+ * @returns {PathFinder} the native routing engine if it is preferred and available, otherwise the JS engine
+ */
+function _getPathFinder(): PathFinder {
+  return preferNativeRouting && NativeNavigation.isAvailable() ? NativeNavigation : Navigation;
+}
+
 /**
  * Find the best path between two points in different buildings.
  *
@@ -837,14 +1000,18 @@ function _directionsError(
  * @param {Map<string,Graph>} graphs     graphs of the buildings
  * @param {boolean}           accessible true to force accessible paths, false for any path
  * @param {boolean}           shortest   true to get the shortest path, false for the most easily followable
- * @returns {Path|undefined} the path between the points, or undefined if path could not be found
+ * @param {PathFinder}        pathFinder routing engine to search with
+ * @param {number}            request    the request for directions, which stops searching when superseded
+ * @returns {Promise<Path|undefined>} the path between the points, or undefined if path could not be found
  */
-function _getBestPathAcrossBuildings(
+async function _getBestPathAcrossBuildings(
     start: Destination,
     target: Destination,
     graphs: Map<string, Graph>,
     accessible: boolean,
-    shortest: boolean): Path | undefined {
+    shortest: boolean,
+    pathFinder: PathFinder,
+    request: number): Promise<Path | undefined> {
   const startGraph = graphs.get(start.shorthand);
   const targetGraph = graphs.get(target.shorthand);
   const outdoorGraph = graphs.get('OUT');
@@ -852,7 +1019,6 @@ function _getBestPathAcrossBuildings(
   const doors = CampusGraph.getDoorsForBuildings(outdoorGraph, new Set([start.shorthand, target.shorthand]));
   const startDoors = doors.get(start.shorthand);
   const targetDoors = doors.get(target.shorthand);
-  const exitDistances = Navigation.findDistancesBetweenDoors(startDoors, targetDoors, outdoorGraph);
 
   let startNodes: Node[] = [];
   let targetNodes: Node[] = [];
@@ -883,22 +1049,15 @@ function _getBestPathAcrossBuildings(
 
   if (startNodes.length === 1 && targetNodes.length === 1) {
     // Find the shortest/bet path between two rooms and return
-    const startToExits = Navigation.findShortestPathsBetween(
+    return pathFinder.findBestPathAcross(
       startNodes[0],
       startDoors,
-      startGraph,
-      accessible,
-      false
-    );
-    const exitsToTarget = Navigation.findShortestPathsBetween(
       targetNodes[0],
       targetDoors,
-      targetGraph,
+      graphs,
       accessible,
-      true
+      shortest
     );
-
-    return Navigation.getBestPathAcross(startToExits, exitsToTarget, exitDistances, graphs, accessible, shortest);
   } else {
     // Find the best path, when there are multiple possible starting points (doors)
     let startNodeIdx = 0;
@@ -907,23 +1066,17 @@ function _getBestPathAcrossBuildings(
     let path: Path|undefined;
 
     while (path == undefined && startNodeIdx < startNodes.length && targetNodeIdx < targetNodes.length) {
-      const startToExits = Navigation.findShortestPathsBetween(
+      _checkSuperseded(request);
+      path = await pathFinder.findBestPathAcross(
         startNodes[startNodeIdx],
         startDoors,
-        startGraph,
-        accessible,
-        false
-      );
-      const exitsToTarget = Navigation.findShortestPathsBetween(
         targetNodes[targetNodeIdx],
         targetDoors,
-        targetGraph,
+        graphs,
         accessible,
-        true
+        shortest
       );
 
-      path = Navigation.getBestPathAcross(startToExits, exitsToTarget, exitDistances, graphs, accessible, shortest);
-
       if (path == undefined) {
         if ((startNodeIdx <= targetNodeIdx || targetNodeIdx >= targetNodes.length - 1)
             && startNodeIdx < startNodes.length - 1) {
@@ -945,13 +1098,15 @@ function _getBestPathAcrossBuildings(
  * @param {Destination} target     the ending point for directions
  * @param {Graph}       graph      graph of the building which the path is in
  * @param {boolean}     accessible true to force accessible paths, false for any path
- * @returns {Path|undefined} the path between the points, or undefined if path could not be found
+ * @param {PathFinder}  pathFinder routing engine to search with
+ * @returns {Promise<Path|undefined>} the path between the points, or undefined if path could not be found
  */
-function _getPathInBuilding(
+async function _getPathInBuilding(
     start: Destination,
     target: Destination,
     graph: Graph,
-    accessible: boolean): Path | undefined {
+    accessible: boolean,
+    pathFinder: PathFinder): Promise<Path | undefined> {
   let path: Path | undefined;
 
   const startNode = Navigation.getCachedNodeOrBuild(
@@ -966,11 +1121,314 @@ function _getPathInBuilding(
     graph.formattingRules
   );
 
-  path = Navigation.findShortestPathBetween(startNode, targetNode, graph, accessible, false);
+  path = await pathFinder.findShortestPathBetween(startNode, targetNode, graph, accessible, false);
 
   return path;
 }
 
+/**
+ * Join two paths, where the second starts at the node the first ends at.
+ *
+ * @param {Path} first  the first path
+ * @param {Path} second the second path
+ * @returns {Path} the path following the first path, then the second
+ */
+function _joinPaths(first: Path, second: Path): Path {
+  return {
+    distance: first.distance + second.distance,
+    edges: first.edges.concat(second.edges),
+    seconds: first.seconds + second.seconds,
+    source: first.source,
+  };
+}
+
+/**
+ * Find the paths between a destination and each exit of its building. A destination without a room is treated as
+ * each of its building's doors, with a path of no edges.
+ *
+ * @param {Destination} destination the destination
+ * @param {Graph}       graph       graph of the destination's building
+ * @param {boolean}     accessible  true to force accessible paths, false for any path
+ * @param {PathFinder}  pathFinder  routing engine to search with
+ * @returns {Promise<Map<Node, Path>>} path from the destination to each exit it can reach, from nearest to farthest
+ */
+async function _getPathsToExits(
+    destination: Destination,
+    graph: Graph,
+    accessible: boolean,
+    pathFinder: PathFinder): Promise<Map<Node, Path>> {
+  const exits: Set<Node> = new Set(graph.exits.keys());
+  if (!destination.room) {
+    const doorPaths: Map<Node, Path> = new Map();
+    exits.forEach((exit: Node) => doorPaths.set(exit, { distance: 0, edges: [], seconds: 0, source: exit }));
+
+    return doorPaths;
+  }
+
+  const roomNode = Navigation.getCachedNodeOrBuild(
+    `R${destination.room}`,
+    destination.shorthand,
+    graph.formattingRules
+  );
+  const exitPaths = await pathFinder.findNearestPathsBetween(roomNode, exits, exits.size, graph, accessible);
+  if (exitPaths.size === 0) {
+    throw new Error(`No exit could be reached from ${destination.shorthand} ${destination.room}`);
+  }
+
+  return exitPaths;
+}
+
+/**
+ * Find the doors of the building nearest to a shuttle or transit stop, which a path outside can reach the stop
+ * from. Outdoor graphs have no coordinates to find the node nearest the stop itself.
+ *
+ * @param {LatLong|undefined} stop         location of the stop
+ * @param {Graph}             outdoorGraph the outdoor graph
+ * @returns {Set<Node>} doors of the building nearest the stop, or an empty set if the stop is not known, or no
+ *                      building in the outdoor graph is near it
+ */
+function _getDoorsNearStop(stop: LatLong | undefined, outdoorGraph: Graph): Set<Node> {
+  if (stop == undefined) {
+    return new Set();
+  }
+
+  const buildings: Building[] = require('../../../assets/js/Buildings');
+  const doors = CampusGraph.getDoorsForBuildings(
+    outdoorGraph,
+    new Set(buildings.map((building: Building) => building.shorthand))
+  );
+  const nearestBuilding = findClosestBuilding(
+    stop,
+    buildings.filter((building: Building) => doors.has(building.shorthand)),
+    MAX_STOP_DISTANCE
+  );
+
+  return nearestBuilding == undefined ? new Set() : doors.get(nearestBuilding.shorthand);
+}
+
+/**
+ * Find the path outside from each exit to the nearest of a set of doors, and return the exit and door with the
+ * shortest time to walk between the destination and the doors.
+ *
+ * @param {Map<Node, Path>} exitPaths    path between the destination and each exit
+ * @param {Set<Node>}       stopDoors    doors beside a shuttle or transit stop
+ * @param {Graph}           outdoorGraph the outdoor graph
+ * @param {boolean}         accessible   true to force accessible paths, false for any path
+ * @param {PathFinder}      pathFinder   routing engine to search with
+ * @returns {Promise<[Node, Path]|undefined>} the exit, and the path outside from it to the stop's door, or
+ *                                            undefined if no door of the stop can be reached
+ */
+async function _getBestExitToStop(
+    exitPaths: Map<Node, Path>,
+    stopDoors: Set<Node>,
+    outdoorGraph: Graph,
+    accessible: boolean,
+    pathFinder: PathFinder): Promise<[ Node, Path ] | undefined> {
+  let best: [ Node, Path ] | undefined;
+  let bestSeconds = Infinity;
+  if (stopDoors.size === 0) {
+    return best;
+  }
+
+  for (const [ exit, exitPath ] of exitPaths) {
+    const outdoorPaths = await pathFinder.findNearestPathsBetween(exit, stopDoors, 1, outdoorGraph, accessible);
+    const outdoorPath = outdoorPaths.values().next();
+    if (!outdoorPath.done && exitPath.seconds + outdoorPath.value.seconds < bestSeconds) {
+      bestSeconds = exitPath.seconds + outdoorPath.value.seconds;
+      best = [ exit, outdoorPath.value ];
+    }
+  }
+
+  return best;
+}
+
+/**
+ * Get the node a path ends at.
+ *
+ * @param {Path} path the path
+ * @returns {Node} the last node of the path
+ */
+function _getPathTarget(path: Path): Node {
+  return path.edges.length === 0 ? path.source : path.edges[path.edges.length - 1].node;
+}
+
+/**
+ * Find the path from a starting point to the stop where a shuttle or transit link is boarded, leaving by the exit
+ * with the shortest walk to the stop. When the stop cannot be reached outside, the path only leads to the exit
+ * nearest the starting point.
+ *
+ * @param {Destination}       start      the starting point
+ * @param {LatLong|undefined} stop       location of the stop
+ * @param {Map<string,Graph>} graphs     graphs of the buildings, and the outdoor graph
+ * @param {boolean}           accessible true to force accessible paths, false for any path
+ * @param {PathFinder}        pathFinder routing engine to search with
+ * @returns {Promise<StopLeg>} the path, and the door beside the stop it reaches
+ */
+async function _getPathToStop(
+    start: Destination,
+    stop: LatLong | undefined,
+    graphs: Map<string, Graph>,
+    accessible: boolean,
+    pathFinder: PathFinder): Promise<StopLeg> {
+  const outdoorGraph = graphs.get('OUT');
+  const exitPaths = await _getPathsToExits(start, graphs.get(start.shorthand), accessible, pathFinder);
+  const best = await _getBestExitToStop(
+    exitPaths,
+    _getDoorsNearStop(stop, outdoorGraph),
+    outdoorGraph,
+    accessible,
+    pathFinder
+  );
+
+  if (best == undefined) {
+    return {
+      path: start.room ? exitPaths.values().next().value : undefined,
+      stopDoor: undefined,
+    };
+  }
+
+  const [ exit, outdoorPath ] = best;
+
+  return {
+    path: _joinPaths(exitPaths.get(exit), outdoorPath),
+    stopDoor: _getPathTarget(outdoorPath),
+  };
+}
+
+/**
+ * Find the path from the stop where a shuttle or transit link is left to a target, entering by the door with the
+ * shortest walk from the stop. When the stop cannot be reached outside, the path only leads from the exit nearest
+ * the target.
+ *
+ * @param {Destination}       target     the target
+ * @param {LatLong|undefined} stop       location of the stop
+ * @param {Map<string,Graph>} graphs     graphs of the buildings, and the outdoor graph
+ * @param {boolean}           accessible true to force accessible paths, false for any path
+ * @param {PathFinder}        pathFinder routing engine to search with
+ * @returns {Promise<StopLeg>} the path, and the door beside the stop it starts from
+ */
+async function _getPathFromStop(
+    target: Destination,
+    stop: LatLong | undefined,
+    graphs: Map<string, Graph>,
+    accessible: boolean,
+    pathFinder: PathFinder): Promise<StopLeg> {
+  const graph = graphs.get(target.shorthand);
+  const outdoorGraph = graphs.get('OUT');
+  const exitPaths = await _getPathsToExits(target, graph, accessible, pathFinder);
+  const best = await _getBestExitToStop(
+    exitPaths,
+    _getDoorsNearStop(stop, outdoorGraph),
+    outdoorGraph,
+    accessible,
+    pathFinder
+  );
+
+  if (best == undefined && !target.room) {
+    return { path: undefined, stopDoor: undefined };
+  }
+
+  // The searches found paths leading away from the target, so find them again in the direction they are followed
+  const entrance = best == undefined ? exitPaths.keys().next().value : best[0];
+  const exitPath = exitPaths.get(entrance);
+  const entrancePath = exitPath.edges.length === 0
+      ? exitPath
+      : await pathFinder.findShortestPathBetween(exitPath.source, entrance, graph, accessible, true);
+  if (entrancePath == undefined) {
+    throw new Error(`No exit could be reached from ${target.shorthand} ${target.room}`);
+  }
+
+  if (best == undefined || best[1].edges.length === 0) {
+    return { path: entrancePath, stopDoor: best == undefined ? undefined : entrance };
+  }
+
+  const outdoorPath = await pathFinder.findShortestPathBetween(
+    entrance,
+    _getPathTarget(best[1]),
+    outdoorGraph,
+    accessible,
+    true
+  );
+  if (outdoorPath == undefined) {
+    throw new Error(`No path could be found from the stop to ${target.shorthand}`);
+  }
+
+  return {
+    path: _joinPaths(outdoorPath, entrancePath),
+    stopDoor: outdoorPath.source,
+  };
+}
+
+/**
+ * Find a route between two points on different campuses. The part of the route on each campus is found
+ * independently, and joined by the fewest shuttle or transit links between the campuses. On each campus, the route
+ * walks outside between the building and the doors of the building nearest the stop.
+ *
+ * @param {Destination}       start       the starting point for directions
+ * @param {Destination}       target      the ending point for directions
+ * @param {Map<string,Graph>} graphs      graphs of the buildings, and the outdoor graph
+ * @param {CampusLink[]}      campusRoute links to take between the campuses
+ * @param {boolean}           accessible  true to force accessible paths, false for any path
+ * @param {PathFinder}        pathFinder  routing engine to search with
+ * @returns {Promise<Route>} the paths on each campus, and the steps of the full route
+ */
+async function _getRouteAcrossCampuses(
+    start: Destination,
+    target: Destination,
+    graphs: Map<string, Graph>,
+    campusRoute: CampusLink[],
+    accessible: boolean,
+    pathFinder: PathFinder): Promise<Route> {
+  const firstLink = campusRoute[0];
+  const lastLink = campusRoute[campusRoute.length - 1];
+
+  // Searches on the starting and target campuses do not depend on each other, so run them together
+  const [ startLeg, targetLeg ] = await Promise.all([
+    _getPathToStop(start, firstLink.sourceStop, graphs, accessible, pathFinder),
+    _getPathFromStop(target, lastLink.targetStop, graphs, accessible, pathFinder),
+  ]);
+
+  const paths: Path[] = [];
+  const steps: Step[] = [];
+  const startPath = startLeg.path;
+  if (startPath != undefined) {
+    paths.push(startPath);
+    if (startPath.edges.length >= 2) {
+      steps.push(..._buildDirectionsFromPath(startPath, graphs));
+    }
+  }
+
+  // Arriving at the building beside the stop is replaced by walking to the stop
+  if (startLeg.stopDoor != undefined
+      && steps.length > 0
+      && steps[steps.length - 1].key === `enterBuilding_${startLeg.stopDoor}`) {
+    steps.pop();
+  }
+  steps.push(_walkToCampusStop(firstLink, startLeg.stopDoor));
+
+  for (const link of campusRoute) {
+    steps.push(_takeCampusLink(link));
+  }
+
+  steps.push(_leaveCampusStop(lastLink, targetLeg.stopDoor));
+  const targetPath = targetLeg.path;
+  if (targetPath != undefined) {
+    paths.push(targetPath);
+    if (targetPath.edges.length >= 2) {
+      // Directions start by exiting the door, so walk away from the stop outside, or enter through the door
+      const targetSteps = _buildDirectionsFromPath(targetPath, graphs);
+      if (targetPath.edges[0].node.isOutside()) {
+        targetSteps.shift();
+      } else {
+        targetSteps[0] = _enterBuildingThroughDoor(targetPath.source, targetPath.edges[0], targetPath.edges[1]);
+      }
+      steps.push(...targetSteps);
+    }
+  }
+
+  return { paths, steps };
+}
+
 /**
  * Add the starting point and destination to the steps, with appropriate formatting.
  *
@@ -1004,6 +1462,26 @@ function _padStepsWithStartAndTarget(steps: Step[], start: Destination, target:
   });
 }
 
+/**
+ * Get the graphs needed to find paths between two destinations.
+ *
+ * @param {Destination} start  the starting point for directions
+ * @param {Destination} target the ending point for directions
+ * @returns {Promise<Map<string,Graph>>} graphs of the buildings, and the outdoor graph if the buildings differ
+ */
+function _getGraphsBetween(start: Destination, target: Destination): Promise<Map<string, Graph>> {
+  // Get set of building graphs to request
+  const graphRequests: Set<string> = new Set();
+  graphRequests.add(start.shorthand);
+  graphRequests.add(target.shorthand);
+
+  if (start.shorthand !== target.shorthand) {
+    graphRequests.add('OUT');
+  }
+
+  return CampusGraph.getGraphs(graphRequests);
+}
+
 /**
  * Get a list of steps to travel between two destinations.
  *
@@ -1011,51 +1489,227 @@ function _padStepsWithStartAndTarget(steps: Step[], start: Destination, target:
  * @param {Destination} target     the ending point for directions
  * @param {boolean}     accessible true to force accessible paths, false for any path
  * @param {boolean}     shortest   true to get shortest possible route, false for easiest
+ * @param {boolean}     supersede  true to cancel the searches of earlier requests, so this request does not wait
+ *                                 behind them
  * @returns {Promise<DirectionResults>} a list of directions between the destinations
  */
 export async function getDirectionsBetween(
     start: Destination,
     target: Destination,
     accessible: boolean,
-    shortest: boolean): Promise<DirectionResults> {
-  const inSingleBuilding = start.shorthand === target.shorthand;
-
-  // Get set of building graphs to request
-  const graphRequests: Set<string> = new Set();
-  graphRequests.add(start.shorthand);
-  graphRequests.add(target.shorthand);
+    shortest: boolean,
+    supersede: boolean = false): Promise<DirectionResults> {
+  if (supersede) {
+    latestDirectionsRequest++;
+    if (NativeNavigation.isAvailable()) {
+      NativeNavigation.cancelSearches();
+    }
+  }
+  const request = latestDirectionsRequest;
 
-  if (!inSingleBuilding) {
-    graphRequests.add('OUT');
+  try {
+    const cachedRoute = await RouteCache.getRoute(start, target, accessible, shortest);
+    if (cachedRoute != undefined) {
+      return {
+        showReport: false,
+        steps: cachedRoute.steps,
+      };
+    }
+  } catch (err) {
+    // Find the route again if the cache cannot be read
+    console.error('Cached route could not be read.', err);
   }
 
+  const inSingleBuilding = start.shorthand === target.shorthand;
+
   let graphs: Map<string, Graph>;
   try {
-    graphs = await CampusGraph.getGraphs(graphRequests);
+    graphs = await _getGraphsBetween(start, target);
   } catch (err) {
     return _directionsError(start, target, accessible, false, err);
   }
 
-  // TODO: remove when directions can be done between campuses
-  if (graphs.get(start.shorthand).campus !== graphs.get(target.shorthand).campus) {
-    return _directionsError(start, target, accessible, true, undefined);
-  }
+  const startCampus = graphs.get(start.shorthand).campus;
+  const targetCampus = graphs.get(target.shorthand).campus;
+  let campusRoute: CampusLink[] | undefined;
+  if (startCampus !== targetCampus) {
+    try {
+      campusRoute = await CampusTransit.getCampusRoute(startCampus, targetCampus);
+    } catch (err) {
+      return _directionsError(start, target, accessible, true, err);
+    }
 
-  const path: Path = inSingleBuilding
-      ? _getPathInBuilding(start, target, graphs.get(start.shorthand), accessible)
-      : _getBestPathAcrossBuildings(start, target, graphs, accessible, shortest);
+    if (campusRoute == undefined) {
+      return _directionsError(start, target, accessible, true, undefined);
+    }
+  }
 
-  let steps: Step[];
+  let route: Route;
   try {
-    steps = _buildDirectionsFromPath(path, graphs);
+    const pathFinder = _getPathFinder();
+    if (campusRoute != undefined) {
+      route = await _getRouteAcrossCampuses(start, target, graphs, campusRoute, accessible, pathFinder);
+    } else {
+      const path = inSingleBuilding
+          ? await _getPathInBuilding(start, target, graphs.get(start.shorthand), accessible, pathFinder)
+          : await _getBestPathAcrossBuildings(start, target, graphs, accessible, shortest, pathFinder, request);
+      route = {
+        paths: [ path ],
+        steps: _buildDirectionsFromPath(path, graphs),
+      };
+    }
   } catch (err) {
+    if (_isCancelled(err)) {
+      return {
+        cancelled: true,
+        showReport: false,
+        steps: [],
+      };
+    }
+
     return _directionsError(start, target, accessible, false, err);
   }
 
+  const steps = route.steps;
   _padStepsWithStartAndTarget(steps, start, target);
 
+  RouteCache.saveRoute(start, target, accessible, shortest, route.paths, steps)
+      .catch((err: any) => console.error('Route could not be cached.', err));
+
   return {
     showReport: false,
     steps,
   };
 }
+
+/**
+ * Find the rooms of a type nearest to a starting point in the same building, such as the nearest washrooms to a
+ * class. Searches the building's graph once, stopping at the first rooms of the type it reaches.
+ *
+ * @param {Destination}    start      the starting point
+ * @param {BuildingRoom[]} rooms      rooms of the starting point's building
+ * @param {RoomTypeId}     type       type of rooms to find
+ * @param {number}         count      maximum number of rooms to find
+ * @param {boolean}        accessible true to force accessible paths, false for any path
+ * @returns {Promise<NearbyRoom[]>} the nearest rooms of the type which can be reached, from nearest to farthest
+ */
+export async function getNearestRoomsOfType(
+    start: Destination,
+    rooms: BuildingRoom[],
+    type: RoomTypeId,
+    count: number,
+    accessible: boolean): Promise<NearbyRoom[]> {
+  const graphs = await CampusGraph.getGraphs(new Set([start.shorthand]));
+  const graph = graphs.get(start.shorthand);
+
+  const startNode = Navigation.getCachedNodeOrBuild(
+    start.room ? `R${start.room}` : `D1`,
+    start.shorthand,
+    graph.formattingRules
+  );
+
+  const targetNodes: Set<Node> = new Set();
+  for (const room of rooms) {
+    if (room.type !== type || room.name === start.room) {
+      continue;
+    }
+
+    const node = Navigation.getCachedNodeOrBuild(`R${room.name}`, start.shorthand, graph.formattingRules);
+    if (graph.adjacencies.has(node)) {
+      targetNodes.add(node);
+    }
+  }
+
+  const pathFinder = _getPathFinder();
+  const paths = await pathFinder.findNearestPathsBetween(startNode, targetNodes, count, graph, accessible);
+
+  const nearbyRooms: NearbyRoom[] = [];
+  paths.forEach((path: Path, node: Node) => {
+    nearbyRooms.push({
+      destination: { shorthand: start.shorthand, room: node.getName() },
+      distance: _distanceToMetres(path.distance),
+      minutes: Math.ceil(path.seconds / Constants.Time.SECONDS_IN_MINUTE),
+    });
+  });
+
+  return nearbyRooms;
+}
+
+/**
+ * Get lists of steps for alternative routes between two destinations, from best to worst. In a single building,
+ * the alternatives are the shortest paths between the destinations. Between buildings, each alternative uses a
+ * different pair of doors. Routes between campuses have no alternatives.
+ *
+ * @param {Destination} start      the starting point for directions
+ * @param {Destination} target     the ending point for directions
+ * @param {number}      count      maximum number of alternatives
+ * @param {boolean}     accessible true to force accessible paths, false for any path
+ * @param {boolean}     shortest   true to rank routes by distance, false by how easily they are followed
+ * @returns {Promise<Step[][]>} steps of each alternative, or only the steps of {@link getDirectionsBetween} if
+ *                              there are no alternatives
+ */
+export async function getAlternativeDirectionsBetween(
+    start: Destination,
+    target: Destination,
+    count: number,
+    accessible: boolean,
+    shortest: boolean): Promise<Step[][]> {
+  let paths: Path[] = [];
+  let graphs: Map<string, Graph> | undefined;
+  try {
+    graphs = await _getGraphsBetween(start, target);
+    const startGraph = graphs.get(start.shorthand);
+    const targetGraph = graphs.get(target.shorthand);
+
+    const startNode = start.room
+        ? Navigation.getCachedNodeOrBuild(`R${start.room}`, start.shorthand, startGraph.formattingRules)
+        : undefined;
+    const targetNode = target.room
+        ? Navigation.getCachedNodeOrBuild(`R${target.room}`, target.shorthand, targetGraph.formattingRules)
+        : undefined;
+
+    if (start.shorthand === target.shorthand) {
+      paths = Navigation.findKShortestPathsBetween(
+        startNode || Navigation.getCachedNodeOrBuild('D1', start.shorthand, startGraph.formattingRules),
+        targetNode || Navigation.getCachedNodeOrBuild('D1', target.shorthand, targetGraph.formattingRules),
+        count,
+        startGraph,
+        accessible
+      );
+    } else if (startGraph.campus === targetGraph.campus) {
+      const doors = CampusGraph.getDoorsForBuildings(graphs.get('OUT'), new Set([ start.shorthand, target.shorthand ]));
+      const startDoors = doors.get(start.shorthand);
+      const targetDoors = doors.get(target.shorthand);
+      paths = Navigation.findBestPathsAcross(
+        startNode || [ ...startDoors ].sort()[0],
+        startDoors,
+        targetNode || [ ...targetDoors ].sort()[0],
+        targetDoors,
+        graphs,
+        accessible,
+        shortest,
+        count
+      );
+    }
+  } catch (err) {
+    console.error('Alternative routes could not be found.', err);
+    paths = [];
+  }
+
+  const alternatives: Step[][] = [];
+  for (const path of paths) {
+    try {
+      const steps = _buildDirectionsFromPath(path, graphs);
+      _padStepsWithStartAndTarget(steps, start, target);
+      alternatives.push(steps);
+    } catch (err) {
+      // Skip paths which directions cannot be given for
+    }
+  }
+
+  if (alternatives.length === 0) {
+    alternatives.push((await getDirectionsBetween(start, target, accessible, shortest)).steps);
+  }
+
+  return alternatives;
+}
@@ -0,0 +1,298 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-13
+ * @file Isochrone.ts
+ * @description Finds the rooms, doors, and buildings which can be walked to from a starting point within a time.
+ */
+
+// Imports
+import * as CampusGraph from './CampusGraph';
+import * as Constants from '../../constants';
+import * as Navigation from './Navigation';
+import { default as Node, Type as NodeType } from './Node';
+
+// Types
+import { Destination } from '../../../typings/university';
+import { Graph } from './CampusGraph';
+import { Reach } from './Navigation';
+
+/** A room, door, or building which can be walked to within a time. */
+export interface ReachablePlace {
+  destination: Destination; // The place, without a room for doors and buildings
+  distance: number;         // Distance walked along the fastest path to the place, in metres
+  door?: string;            // ID of the door, for doors
+  minutes: number;          // Time to walk to the place, in minutes, rounded up
+}
+
+/** Places which can be walked to from a starting point within a time, each from nearest to farthest. */
+export interface WalkingIsochrone {
+  buildings: ReachablePlace[];  // Buildings, by their nearest door
+  doors: ReachablePlace[];      // Doors of the buildings
+  rooms: ReachablePlace[];      // Rooms of the starting building other than the start, and of the buildings reached
+}
+
+/** An isochrone found from a starting point, and the time it was found for. */
+interface CachedIsochrone {
+  isochrone: WalkingIsochrone;  // Places reached within the time
+  minutes: number;              // Time the places were searched for, in minutes
+}
+
+/** Average walking speed, in metres per minute. */
+export const WALKING_METRES_PER_MINUTE = Navigation.WALKING_METRES_PER_MINUTE;
+
+/** Maximum number of isochrones to keep. */
+const MAX_CACHED_ISOCHRONES = 8;
+
+/** Isochrones by starting point and accessibility, from least to most recently used. */
+const isochroneCache: Map<string, CachedIsochrone> = new Map();
+
+/** Incremented when the graphs or closures change, so isochrones found from the old graphs are not cached. */
+let isochroneVersion = 0;
+
+/**
+ * Get the key to cache an isochrone with.
+ *
+ * @param {Destination} start      the starting point
+ * @param {boolean}     accessible true for accessible paths, false for any path
+ * @returns {string} the key of the isochrone
+ */
+function _getIsochroneKey(start: Destination, accessible: boolean): string {
+  return `${start.shorthand}/${start.room || ''}/${accessible ? 'A' : 'N'}`;
+}
+
+/**
+ * Keep the fastest path to each node from two searches.
+ *
+ * @param {Map<Node, Reach>} reaches paths to update
+ * @param {Map<Node, Reach>} reached paths found by another search
+ */
+function _mergeReaches(reaches: Map<Node, Reach>, reached: Map<Node, Reach>): void {
+  reached.forEach((reach: Reach, node: Node) => {
+    if (!reaches.has(node) || reach.seconds < reaches.get(node).seconds) {
+      reaches.set(node, reach);
+    }
+  });
+}
+
+/**
+ * Build a place which can be walked to.
+ *
+ * @param {Destination} destination the place
+ * @param {Reach}       reach       distance and time of the path to the place
+ * @param {string}      door        ID of the door, for doors
+ * @returns {ReachablePlace} the place, and the time to walk to it
+ */
+function _toPlace(destination: Destination, reach: Reach, door?: string): ReachablePlace {
+  const place: ReachablePlace = {
+    destination,
+    distance: reach.distance,
+    minutes: Math.ceil(reach.seconds / Constants.Time.SECONDS_IN_MINUTE),
+  };
+  if (door != undefined) {
+    place.door = door;
+  }
+
+  return place;
+}
+
+/**
+ * Sort places from nearest to farthest, by the time to walk to them and then by their distance.
+ *
+ * @param {ReachablePlace[]} places the places to sort
+ * @returns {ReachablePlace[]} the places, sorted
+ */
+function _sortPlaces(places: ReachablePlace[]): ReachablePlace[] {
+  return places.sort((a: ReachablePlace, b: ReachablePlace) => a.minutes - b.minutes || a.distance - b.distance);
+}
+
+/**
+ * Get the places of an isochrone within a shorter time, so an isochrone found for a longer time answers requests
+ * for shorter times from the same starting point.
+ *
+ * @param {WalkingIsochrone} isochrone the isochrone
+ * @param {number}           minutes   the shorter time, in minutes
+ * @returns {WalkingIsochrone} the places of the isochrone within the time
+ */
+function _limitIsochrone(isochrone: WalkingIsochrone, minutes: number): WalkingIsochrone {
+  const isWithin = (place: ReachablePlace): boolean => place.minutes <= minutes;
+
+  return {
+    buildings: isochrone.buildings.filter(isWithin),
+    doors: isochrone.doors.filter(isWithin),
+    rooms: isochrone.rooms.filter(isWithin),
+  };
+}
+
+/**
+ * Search for the places which can be walked to from a starting point within a time. The starting building is
+ * searched first, then the outdoor graph from the doors it reaches, then each building from the doors reached
+ * outside. Every search stops at the time, including the time to climb stairs, wait for elevators, pass through
+ * doors, and cross streets.
+ *
+ * @param {Destination} start      the starting point. Starts from each of the building's doors without a room
+ * @param {number}      minutes    the time to walk, in minutes
+ * @param {boolean}     accessible true to force accessible paths, false for any path
+ * @returns {Promise<WalkingIsochrone>} the places reached within the time
+ */
+async function _findIsochrone(start: Destination, minutes: number, accessible: boolean): Promise<WalkingIsochrone> {
+  const maxSeconds = minutes * Constants.Time.SECONDS_IN_MINUTE;
+  const startGraphs = await CampusGraph.getGraphs(new Set([ start.shorthand, 'OUT' ]));
+  const startGraph = startGraphs.get(start.shorthand);
+  const outdoorGraph = startGraphs.get('OUT');
+
+  const starts: Map<Node, Reach> = new Map();
+  if (start.room) {
+    const room = Navigation.getCachedNodeOrBuild(`R${start.room}`, start.shorthand, startGraph.formattingRules);
+    starts.set(room, { distance: 0, seconds: 0 });
+  } else {
+    for (const door of startGraph.exits.keys()) {
+      if (door.getBuilding() === start.shorthand) {
+        starts.set(door, { distance: 0, seconds: 0 });
+      }
+    }
+  }
+
+  const reaches = Navigation.findReachableWithin(
+    starts,
+    maxSeconds,
+    Navigation.INNER_UNIT_TO_M,
+    startGraph,
+    accessible
+  );
+
+  const exits: Map<Node, Reach> = new Map();
+  reaches.forEach((reach: Reach, node: Node) => {
+    if (node.getType() === NodeType.Door) {
+      exits.set(node, reach);
+    }
+  });
+
+  const outdoorReaches = Navigation.findReachableWithin(
+    exits,
+    maxSeconds,
+    Navigation.OUTER_UNIT_TO_M,
+    outdoorGraph,
+    accessible
+  );
+  _mergeReaches(reaches, outdoorReaches);
+
+  // Doors of other buildings reached outside, by building
+  const entrances: Map<string, Map<Node, Reach>> = new Map();
+  outdoorReaches.forEach((reach: Reach, node: Node) => {
+    if (node.getType() !== NodeType.Door || node.getBuilding() === start.shorthand) {
+      return;
+    }
+
+    const buildingEntrances = entrances.get(node.getBuilding()) || new Map();
+    buildingEntrances.set(node, reach);
+    entrances.set(node.getBuilding(), buildingEntrances);
+  });
+
+  for (const [ building, buildingEntrances ] of entrances) {
+    let graph: Graph;
+    try {
+      graph = (await CampusGraph.getGraphs(new Set([ building ]))).get(building);
+    } catch (err) {
+      // The building is still reached, even if its rooms cannot be searched
+      console.error(`Graph of ${building} could not be loaded.`, err);
+      continue;
+    }
+
+    _mergeReaches(
+      reaches,
+      Navigation.findReachableWithin(buildingEntrances, maxSeconds, Navigation.INNER_UNIT_TO_M, graph, accessible)
+    );
+  }
+
+  const buildingReaches: Map<string, Reach> = new Map();
+  const isochrone: WalkingIsochrone = { buildings: [], doors: [], rooms: [] };
+  reaches.forEach((reach: Reach, node: Node) => {
+    const shorthand = node.getBuilding();
+    switch (node.getType()) {
+      case NodeType.Room:
+        if (!starts.has(node)) {
+          isochrone.rooms.push(_toPlace({ shorthand, room: node.getName() }, reach));
+        }
+        break;
+      case NodeType.Door:
+        isochrone.doors.push(_toPlace({ shorthand }, reach, node.getId()));
+        if (!buildingReaches.has(shorthand) || reach.seconds < buildingReaches.get(shorthand).seconds) {
+          buildingReaches.set(shorthand, reach);
+        }
+        break;
+      default:
+        // Hallways, stairs, and outdoor nodes are not places to go
+    }
+  });
+
+  buildingReaches.forEach((reach: Reach, shorthand: string) => {
+    isochrone.buildings.push(_toPlace({ shorthand }, reach));
+  });
+
+  _sortPlaces(isochrone.buildings);
+  _sortPlaces(isochrone.doors);
+  _sortPlaces(isochrone.rooms);
+
+  return isochrone;
+}
+
+/**
+ * Get the rooms, doors, and buildings which can be walked to from a starting point within a time, such as to find
+ * places to study or eat between classes. Isochrones are cached by starting point, and a cached isochrone answers
+ * any request for the same or a shorter time without searching.
+ *
+ * @param {Destination} start      the starting point. Starts from each of the building's doors without a room
+ * @param {number}      minutes    the time to walk, in minutes
+ * @param {boolean}     accessible true to force accessible paths, false for any path
+ * @returns {Promise<WalkingIsochrone>} the places reached within the time
+ */
+export async function getReachableWithin(
+    start: Destination,
+    minutes: number,
+    accessible: boolean): Promise<WalkingIsochrone> {
+  const key = _getIsochroneKey(start, accessible);
+  const cached = isochroneCache.get(key);
+  if (cached != undefined && cached.minutes >= minutes) {
+    isochroneCache.delete(key);
+    isochroneCache.set(key, cached);
+
+    return _limitIsochrone(cached.isochrone, minutes);
+  }
+
+  const version = isochroneVersion;
+  const isochrone = await _findIsochrone(start, minutes, accessible);
+  if (version === isochroneVersion) {
+    isochroneCache.delete(key);
+    isochroneCache.set(key, { isochrone, minutes });
+    if (isochroneCache.size > MAX_CACHED_ISOCHRONES) {
+      isochroneCache.delete(isochroneCache.keys().next().value);
+    }
+  }
+
+  return isochrone;
+}
+
+/**
+ * Forget every cached isochrone. Should be called when new configuration files are installed, or when edges are
+ * closed or opened.
+ */
+export function invalidateIsochrones(): void {
+  isochroneVersion++;
+  isochroneCache.clear();
+}
@@ -0,0 +1,427 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-02
+ * @file NativeNavigation.ts
+ * @description Search graphs with the native routing engine, off of the JS thread.
+ */
+
+// Imports
+import { DeviceEventEmitter, NativeModules } from 'react-native';
+import { getCachedNodeOrBuild, joinPathsAcross } from './Navigation';
+import { getGraphCacheStats as getParsedGraphCacheStats, getGraphFileName, trimGraphCache } from './CampusGraph';
+
+// Types
+import { Edge, EdgeDirection, Graph, GraphCacheStats } from './CampusGraph';
+import { DistanceMatrix, Path } from './Navigation';
+import { default as Node, Type as NodeType } from './Node';
+
+/** A path, as returned by the native routing engine. */
+interface NativePath {
+  distance: number;       // Distance of the path
+  edgeIndices: number[];  // Index of each edge in its starting node's list of edges
+  edgeSources: number[];  // Index of the node each edge starts from
+  seconds: number;        // Estimated time to walk the path, in seconds
+  source: number;         // Index of the node the path starts from
+  target: number;         // Index of the node the path was searched for
+}
+
+/** A graph, as parsed by the native routing engine. */
+interface NativeGraph {
+  building: string;           // Shorthand of the building the graph describes
+  campus: string;             // Name or ID of the campus the building is on
+  formattingRules: string[];  // Alternating keys and values of the formatting rules, in order
+  streetNames: string[];      // Alternating IDs and names of streets
+  nodeIds: string[];          // Formatted IDs of the nodes
+  sources: number[];          // Nodes with edges, in the order they were listed
+  edgeOffsets: number[];      // Index of the first edge of each node, and the end of the last node's edges
+  edgeTargets: number[];      // Node each edge leads to
+  edgeDistances: number[];    // Distance of each edge
+  edgeDirections: string;     // Direction of each edge, one character per edge
+  edgeAccessible: string;     // 'T' for each accessible edge, and 'F' for others
+  excluded: number[];         // Pairs of nodes with closed edges between them
+  exits: number[];            // Doors, in the order they were listed
+  exitCoordinates: number[];  // Outdoor x and y coordinates of each door
+  details: number[];          // Intersections and streets, in the order they were listed
+  detailTexts: string[];      // Details of each intersection and street
+}
+
+/** Sent by the native routing engine when the system is low on memory. */
+interface TrimMemoryEvent {
+  keepFraction: number; // Fraction of cached graphs to keep
+}
+
+/** Native module which runs the searches. Only available on Android. */
+const RoutingModule = NativeModules.CampusGuideRouting;
+
+/** Event sent by the native routing engine when the system is low on memory. */
+const TRIM_MEMORY_EVENT = 'CampusGuideRoutingTrimMemory';
+
+/** Error code of searches which were cancelled before they finished. */
+export const SEARCH_CANCELLED_ERROR = 'E_SEARCH_CANCELLED';
+
+if (RoutingModule != undefined) {
+  // Shrink the cache of parsed graphs along with the native engine's
+  DeviceEventEmitter.addListener(TRIM_MEMORY_EVENT, (event: TrimMemoryEvent) => {
+    trimGraphCache(Math.floor(getParsedGraphCacheStats().size * event.keepFraction));
+  });
+}
+
+/**
+ * Returns true if the native routing engine is available on this platform.
+ *
+ * @returns {boolean} true if searches can be run natively
+ */
+export function isAvailable(): boolean {
+  return RoutingModule != undefined;
+}
+
+/**
+ * Compile the graph files in a directory to the native binary format, so searches can load graphs without
+ * parsing them.
+ *
+ * @param {string} directory absolute path to the directory with the graph files
+ * @returns {Promise<number>} the number of graphs compiled
+ */
+export function compileGraphs(directory: string): Promise<number> {
+  return RoutingModule.compileGraphs(directory);
+}
+
+/**
+ * Get the hits, misses, and size of the native routing engine's cache of loaded graphs.
+ *
+ * @returns {Promise<GraphCacheStats>} statistics of the native cache
+ */
+export function getGraphCacheStats(): Promise<GraphCacheStats> {
+  return RoutingModule.getGraphCacheStats();
+}
+
+/**
+ * Close the edges between pairs of nodes in a building, in both directions, replacing the edges closed in the
+ * building before. Graphs the native routing engine has already loaded are not parsed again.
+ *
+ * @param {string}   building      building shorthand
+ * @param {string[]} closedNodeIds alternating IDs of the nodes at each end of the closed edges
+ * @returns {Promise<void>} a promise which resolves when the edges have been closed
+ */
+export function setClosedEdges(building: string, closedNodeIds: string[]): Promise<void> {
+  return RoutingModule.setClosedEdges(building, closedNodeIds);
+}
+
+/**
+ * Cancel every native search which has not finished yet, so a newer search does not wait behind them. Cancelled
+ * searches reject with `SEARCH_CANCELLED_ERROR`.
+ */
+export function cancelSearches(): void {
+  RoutingModule.cancelSearches();
+}
+
+/**
+ * Add a pair of nodes with closed edges between them to a graph.
+ *
+ * @param {Node}  nodeA the first excluded node
+ * @param {Node}  nodeB the second excluded node
+ * @param {Graph} graph graph to add the exclusion to
+ */
+function _addExcludedNode(nodeA: Node, nodeB: Node, graph: Graph): void {
+  const excluded = graph.excluded.has(nodeA) ? graph.excluded.get(nodeA) : new Set<Node>();
+  excluded.add(nodeB);
+  graph.excluded.set(nodeA, excluded);
+}
+
+/**
+ * Convert a graph parsed by the native routing engine to a graph of nodes and edges, the same as parsing the
+ * graph file would produce.
+ *
+ * @param {NativeGraph} nativeGraph the graph to convert
+ * @returns {Graph} the graph
+ */
+function _toGraph(nativeGraph: NativeGraph): Graph {
+  const graph: Graph = {
+    adjacencies: new Map(),
+    building: nativeGraph.building,
+    campus: nativeGraph.campus,
+    excluded: new Map(),
+    exits: new Map(),
+    formattingRules: new Map(),
+    intersections: new Map(),
+    nodes: [],
+    streetNames: new Map(),
+    streets: new Map(),
+  };
+
+  for (let i = 0; i < nativeGraph.formattingRules.length; i += 2) {
+    graph.formattingRules.set(nativeGraph.formattingRules[i], nativeGraph.formattingRules[i + 1]);
+  }
+  for (let i = 0; i < nativeGraph.streetNames.length; i += 2) {
+    graph.streetNames.set(nativeGraph.streetNames[i], nativeGraph.streetNames[i + 1]);
+  }
+
+  const nodes = nativeGraph.nodeIds.map((id: string) =>
+    getCachedNodeOrBuild(id, nativeGraph.building, graph.formattingRules));
+  graph.nodes = nodes;
+
+  for (const source of nativeGraph.sources) {
+    const edges: Edge[] = [];
+    for (let edge = nativeGraph.edgeOffsets[source]; edge < nativeGraph.edgeOffsets[source + 1]; edge++) {
+      edges.push({
+        accessible: nativeGraph.edgeAccessible.charAt(edge) === 'T',
+        direction: nativeGraph.edgeDirections.charAt(edge) as EdgeDirection,
+        distance: nativeGraph.edgeDistances[edge],
+        node: nodes[nativeGraph.edgeTargets[edge]],
+      });
+    }
+    graph.adjacencies.set(nodes[source], edges);
+  }
+
+  nativeGraph.exits.forEach((door: number, index: number) => {
+    graph.exits.set(nodes[door], {
+      x: nativeGraph.exitCoordinates[index * 2],
+      y: nativeGraph.exitCoordinates[index * 2 + 1],
+    });
+  });
+
+  nativeGraph.details.forEach((detailNode: number, index: number) => {
+    const node = nodes[detailNode];
+    if (node.getType() === NodeType.Intersection) {
+      graph.intersections.set(node, nativeGraph.detailTexts[index]);
+    } else {
+      graph.streets.set(node, nativeGraph.detailTexts[index]);
+    }
+  });
+
+  for (let i = 0; i < nativeGraph.excluded.length; i += 2) {
+    const nodeA = nodes[nativeGraph.excluded[i]];
+    const nodeB = nodes[nativeGraph.excluded[i + 1]];
+    _addExcludedNode(nodeA, nodeB, graph);
+    _addExcludedNode(nodeB, nodeA, graph);
+  }
+
+  return graph;
+}
+
+/**
+ * Parse a building's graph on a background thread, so the JS thread does not need to read or split its text.
+ *
+ * @param {string} building building shorthand
+ * @returns {Promise<Graph>} the building's graph
+ */
+export async function parseGraph(building: string): Promise<Graph> {
+  const Configuration = require('../Configuration');
+  const nativeGraph: NativeGraph = await RoutingModule.parseGraph(
+    Configuration.getTextFilePath(getGraphFileName(building)),
+    building
+  );
+
+  return _toGraph(nativeGraph);
+}
+
+/**
+ * Convert a path from the native routing engine to a path of edges in the graph.
+ *
+ * @param {NativePath} nativePath the path to convert
+ * @param {Graph}      graph      graph which the path was found in
+ * @returns {Path} the path, with the same edges as the graph
+ */
+function _toPath(nativePath: NativePath, graph: Graph): Path {
+  const edges = nativePath.edgeSources.map((source: number, index: number) =>
+    graph.adjacencies.get(graph.nodes[source])[nativePath.edgeIndices[index]]);
+
+  return {
+    distance: nativePath.distance,
+    edges,
+    seconds: nativePath.seconds,
+    source: graph.nodes[nativePath.source],
+  };
+}
+
+/**
+ * Given a starting node, returns the shortest path from the starting node to each of the target nodes.
+ *
+ * @param {Node}      startNode   starting node for paths
+ * @param {Set<Node>} targetNodes set of nodes to reach
+ * @param {Graph}     graph       graph of building with edges and distances
+ * @param {boolean}   accessible  true to force an accessible path, false for any path
+ * @param {boolean}   reverse     true to return path from target to start
+ * @returns {Promise<Map<Node, Path>>} mapping from the target node to the path to it from the starting node
+ */
+export async function findShortestPathsBetween(
+    startNode: Node,
+    targetNodes: Set<Node>,
+    graph: Graph,
+    accessible: boolean,
+    reverse: boolean): Promise<Map<Node, Path>> {
+  const nodesById: Map<string, Node> = new Map();
+  nodesById.set(startNode.getId(), startNode);
+  for (const node of targetNodes) {
+    nodesById.set(node.getId(), node);
+  }
+
+  const Configuration = require('../Configuration');
+  const nativePaths: NativePath[] = await RoutingModule.findShortestPathsBetween(
+    Configuration.getTextFilePath(getGraphFileName(graph.building)),
+    graph.building,
+    startNode.getId(),
+    [...targetNodes].map((node: Node) => node.getId()),
+    accessible,
+    reverse
+  );
+
+  const paths: Map<Node, Path> = new Map();
+  for (const nativePath of nativePaths) {
+    paths.set(nodesById.get(graph.nodes[nativePath.target].getId()), _toPath(nativePath, graph));
+  }
+
+  return paths;
+}
+
+/**
+ * Given a starting node, returns the shortest paths to the targets nearest to the starting node, with a single
+ * search.
+ *
+ * @param {Node}      startNode   starting node for paths
+ * @param {Set<Node>} targetNodes set of candidate nodes to reach
+ * @param {number}    count       maximum number of targets to find paths to
+ * @param {Graph}     graph       graph of building with edges and distances
+ * @param {boolean}   accessible  true to force an accessible path, false for any path
+ * @returns {Promise<Map<Node, Path>>} mapping from the nearest target nodes to the paths to them, from nearest to
+ *                                     farthest
+ */
+export async function findNearestPathsBetween(
+    startNode: Node,
+    targetNodes: Set<Node>,
+    count: number,
+    graph: Graph,
+    accessible: boolean): Promise<Map<Node, Path>> {
+  const nodesById: Map<string, Node> = new Map();
+  for (const node of targetNodes) {
+    nodesById.set(node.getId(), node);
+  }
+
+  const Configuration = require('../Configuration');
+  const nativePaths: NativePath[] = await RoutingModule.findNearestPathsBetween(
+    Configuration.getTextFilePath(getGraphFileName(graph.building)),
+    graph.building,
+    startNode.getId(),
+    [...targetNodes].map((node: Node) => node.getId()),
+    count,
+    accessible
+  );
+
+  const paths: Map<Node, Path> = new Map();
+  for (const nativePath of nativePaths) {
+    paths.set(nodesById.get(graph.nodes[nativePath.target].getId()), _toPath(nativePath, graph));
+  }
+
+  return paths;
+}
+
+/**
+ * Find the shortest path in a graph between two nodes.
+ *
+ * @param {Node}    startNode  path start
+ * @param {Node}    targetNode path end
+ * @param {Graph}   graph      graph to generate path from
+ * @param {boolean} accessible true to force an accessible path, false for any path
+ * @param {boolean} reverse    true to return path from target to start
+ * @returns {Promise<Path|undefined>} the path between the startNode and targetNode, or undefined if
+ *                                    there isn't one
+ */
+export async function findShortestPathBetween(
+    startNode: Node,
+    targetNode: Node,
+    graph: Graph,
+    accessible: boolean,
+    reverse: boolean): Promise<Path | undefined> {
+  const paths = await findShortestPathsBetween(startNode, new Set([targetNode]), graph, accessible, reverse);
+
+  return paths.get(targetNode);
+}
+
+/**
+ * Find the best path between two nodes in different buildings, through the doors of each building. Doors are
+ * ranked with the distances precomputed when the graphs were compiled, so only the paths through the best doors
+ * are searched.
+ *
+ * @param {Node}               startNode   starting node, in the first building
+ * @param {Set<Node>}          startDoors  doors of the first building
+ * @param {Node}               targetNode  target node, in the second building
+ * @param {Set<Node>}          targetDoors doors of the second building
+ * @param {Map<string, Graph>} graphs      graphs for each building, and the outdoor graph
+ * @param {boolean}            accessible  true to force an accessible path, false for any path
+ * @param {boolean}            shortest    true for shortest path, false for easiest to follow
+ * @returns {Promise<Path|undefined>} the best path between the nodes, or undefined if there are no
+ *                                    possible paths
+ */
+export async function findBestPathAcross(
+    startNode: Node,
+    startDoors: Set<Node>,
+    targetNode: Node,
+    targetDoors: Set<Node>,
+    graphs: Map<string, Graph>,
+    accessible: boolean,
+    shortest: boolean): Promise<Path | undefined> {
+  const startGraph = graphs.get(startNode.getBuilding());
+  const targetGraph = graphs.get(targetNode.getBuilding());
+  const outdoorGraph = graphs.get('OUT');
+
+  const Configuration = require('../Configuration');
+  const nativePaths: NativePath[] | undefined = await RoutingModule.findPathAcross(
+    Configuration.getTextFilePath(getGraphFileName(startGraph.building)),
+    startGraph.building,
+    startNode.getId(),
+    [...startDoors].map((node: Node) => node.getId()),
+    Configuration.getTextFilePath(getGraphFileName(targetGraph.building)),
+    targetGraph.building,
+    targetNode.getId(),
+    [...targetDoors].map((node: Node) => node.getId()),
+    Configuration.getTextFilePath(getGraphFileName(outdoorGraph.building)),
+    accessible,
+    shortest
+  );
+
+  if (nativePaths == undefined) {
+    return undefined;
+  }
+
+  return joinPathsAcross(
+    _toPath(nativePaths[0], startGraph),
+    _toPath(nativePaths[1], outdoorGraph),
+    _toPath(nativePaths[2], targetGraph)
+  );
+}
+
+/**
+ * Find the walking distance and time between every pair of locations, with one search from each location. Searches
+ * for directions started while the distances are found do not wait for every location.
+ *
+ * @param {Node[]}  locations  the locations, each in the graph of its building
+ * @param {boolean} accessible true to force accessible paths, false for any path
+ * @returns {Promise<DistanceMatrix>} the distance and time from each location to each other
+ */
+export async function findDistanceMatrix(locations: Node[], accessible: boolean): Promise<DistanceMatrix> {
+  const Configuration = require('../Configuration');
+
+  return RoutingModule.findDistanceMatrix(
+    locations.map((node: Node) => Configuration.getTextFilePath(getGraphFileName(node.getBuilding()))),
+    locations.map((node: Node) => node.getBuilding()),
+    locations.map((node: Node) => node.getId()),
+    Configuration.getTextFilePath(getGraphFileName('OUT')),
+    accessible
+  );
+}
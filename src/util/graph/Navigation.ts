@@ -23,10 +23,12 @@
 
 // Imports
 import FastPriorityQueue from 'fastpriorityqueue';
+import * as Constants from '../../constants';
+import * as Closures from './Closures';
 import { default as Node, Type as NodeType } from './Node';
 
 // Types
-import { Graph, Edge } from './CampusGraph';
+import { Graph, Edge, EdgeDirection } from './CampusGraph';
 
 /** Intermediate interface for building a path. */
 interface PartialPath {
@@ -35,7 +37,7 @@ interface PartialPath {
 }
 
 /** Pair of doors and the distance associated with them, for sorting. */
-interface DoorPair {
+export interface DoorPair {
   exit: Node;       // Exit from the first building
   entrance: Node;   // Entrance to the second building
   distance: number; // Distance between the two doors
@@ -45,14 +47,63 @@ interface DoorPair {
 export interface Path {
   distance: number;
   edges: Edge[];
+  seconds: number;  // Estimated time to walk the path, found by the search which found the path
   source: Node;
 }
 
+/** Distance and estimated time to walk to a node. */
+export interface Reach {
+  distance: number; // Distance of the path to the node, in metres
+  seconds: number;  // Estimated time to walk the path to the node
+}
+
+/** Walking distance and time between every pair of a set of locations. */
+export interface DistanceMatrix {
+  distances: number[][];  // Distance from each location to each other, in metres, or -1 if there is no path
+  seconds: number[][];    // Estimated time to walk from each location to each other, or -1 if there is no path
+}
+
+/** Shortest paths from every node to a single target, ignoring penalties. */
+interface TargetTree {
+  distances: Map<Node, number>; // Distance from each node to the target
+  next: Map<Node, Edge>;        // Edge each node follows towards the target
+}
+
+/** An edge leading into a node, and the node it starts from. */
+interface IncomingEdge {
+  edge: Edge;   // The edge
+  source: Node; // Node the edge starts from
+}
+
+/** Cost to reach each node along a path. */
+interface PathCosts {
+  distances: number[];        // Cost of the path up to each node, with penalties
+  nodes: Node[];              // Nodes of the path, starting with its source
+  seconds: number[];          // Estimated time to walk the path up to each node
+  usedFloorChange: boolean[]; // True for each node which the path reaches after changing floors in its building
+}
+
+/** A node reached by the easiest route search, along an edge of one of the graphs between two buildings. */
+interface EasiestState {
+  cost: number;                         // Cost of the route to the state, in metres with penalties
+  edge: Edge | undefined;               // Edge followed to reach the node, or undefined for the start
+  graph: Graph;                         // Graph with the edge
+  node: Node;                           // Node the route has reached
+  previous: EasiestState | undefined;   // State the edge was followed from
+  seconds: number;                      // Estimated time to walk the route to the state
+  usedFloorChange: boolean;             // True if the route has changed floors in the node's building
+}
+
 /** Compare two paths. */
 const partialPathComparator = (a: PartialPath, b: PartialPath): boolean => {
   return a.dist < b.dist;
 };
 
+/** Compare two states of the easiest route search. */
+const easiestStateComparator = (a: EasiestState, b: EasiestState): boolean => {
+  return a.cost < b.cost;
+};
+
 /** Compare two door pairs. */
 const doorPairingComparator = (a: DoorPair, b: DoorPair): boolean => {
   return a.distance < b.distance;
@@ -69,6 +120,24 @@ export const INNER_UNIT_TO_M = 0.29;
 const MAX_FLOOR_DIFF_FOR_STAIRS = 2;
 /** Penalty to elongate paths which are not ideal, but still possible. */
 const NAVIGATION_PENALTY = 10000;
+/** Penalty for each turn in the easiest route, in metres. */
+const EASIEST_TURN_PENALTY = 20;
+/** Penalty for each staircase or elevator taken in the easiest route, in metres. */
+const EASIEST_FLOOR_CHANGE_PENALTY = 40;
+/** Penalty for each street crossed in the easiest route, in metres. */
+const EASIEST_CROSSING_PENALTY = 30;
+/** Average walking speed, in metres per minute. */
+export const WALKING_METRES_PER_MINUTE = 80;
+/** Time to climb or descend the stairs between two floors, in seconds. */
+const STAIRS_SECONDS_PER_FLOOR = 15;
+/** Time to wait for an elevator, in seconds. */
+const ELEVATOR_WAIT_SECONDS = 30;
+/** Time for an elevator to travel between two floors, in seconds. */
+const ELEVATOR_SECONDS_PER_FLOOR = 5;
+/** Time to pass through a door of a building, in seconds. */
+const DOOR_SECONDS = 5;
+/** Time to cross a street, including waiting to cross, in seconds. */
+const CROSSING_SECONDS = 20;
 
 /**
  * Get a node from the cache if available, or build it and add it to the cache.
@@ -87,12 +156,22 @@ export function getCachedNodeOrBuild(id: string, building: string, formats: Map<
   return node;
 }
 
+/**
+ * Remove every node from the cache, so nodes built with formatting rules from old configuration files can be
+ * garbage collected.
+ */
+export function pruneNodeCache(): void {
+  graphNodeCache.clear();
+}
+
 /**
  * Get the path from a start node to a target node.
  *
  * @param {Node}           startNode  starting node
  * @param {Node}           targetNode target node
  * @param {number}         distance   distance of path
+ * @param {number}         seconds    estimated time to walk the path. The time of a reversed path is the time of the
+ *                                    path searched, since each fixed cost is paid once in either direction
  * @param {Map<Node,Node>} previous   node which led to another node
  * @param {Graph}          graph      adjacency graph
  * @param {boolean}        reverse    true to build a path from target to start
@@ -101,12 +180,14 @@ function _rebuildPath(
     startNode: Node,
     targetNode: Node,
     distance: number,
+    seconds: number,
     previous: Map<Node, Node>,
     graph: Graph,
     reverse: boolean): Path {
   const path: Path = {
     distance,
     edges: [],
+    seconds,
     source: startNode,
   };
 
@@ -168,51 +249,175 @@ export function findShortestPathBetween(
 }
 
 /**
- * Given a path, determine if a staircase or elevator was previously taken on the path, in the current building.
+ * Returns true if a node moves a user between floors.
+ *
+ * @param {Node} node the node to check
+ * @returns {boolean} true for stairs and elevators, false otherwise
+ */
+function _isFloorChange(node: Node): boolean {
+  return node.getType() === NodeType.Elevator || node.getType() === NodeType.Stairs;
+}
+
+/**
+ * Returns true if a path has taken a staircase or elevator since entering a node's building, after following an
+ * edge to the node.
  *
- * @param {string}          building the building to check
- * @param {Map<Node, Node>} previous mapping of nodes to previous node in the path
- * @param {Node}            start    starting point of the search
+ * @param {Node}    node            node the edge starts from
+ * @param {Node}    nextNode        node the edge leads to
+ * @param {boolean} usedFloorChange true if the path to the first node has changed floors in its building
+ * @returns {boolean} true if the path to the next node has changed floors in its building
  */
-function _pathContainsPreviousFloorChange(building: string, previous: Map<Node, Node>, start: Node): boolean {
-  let currentNode = start;
-  while (currentNode && building === currentNode.getBuilding()) {
-    if (currentNode.getType() === NodeType.Elevator || currentNode.getType() === NodeType.Stairs) {
-      return true;
+function _hasUsedFloorChange(node: Node, nextNode: Node, usedFloorChange: boolean): boolean {
+  return _isFloorChange(nextNode) || (nextNode.getBuilding() === node.getBuilding() && usedFloorChange);
+}
+
+/**
+ * Get the graph to search for a path. Accessible paths are searched for in a graph with only accessible edges, so
+ * searches do not check each edge.
+ *
+ * @param {Graph}   graph      graph of building with edges and distances
+ * @param {boolean} accessible true to force an accessible path, false for any path
+ * @returns {Graph} the graph to search
+ */
+function _getSearchGraph(graph: Graph, accessible: boolean): Graph {
+  const CampusGraph = require('./CampusGraph');
+
+  return accessible ? CampusGraph.getAccessibleGraph(graph) : graph;
+}
+
+/**
+ * Get the cost of following an edge in a search, including penalties for paths which are not ideal.
+ *
+ * @param {Node}                node            node the edge starts from
+ * @param {Edge}                edge            the edge to follow
+ * @param {Node|undefined}      previousNode    node which led to the first node
+ * @param {boolean}             usedFloorChange true if the path to the first node has changed floors in its building
+ * @param {Set<Node>|undefined} targetNodes     nodes the search is trying to reach, or undefined to reach every room
+ * @param {Graph}               graph           graph of building with edges and distances
+ * @returns {number} the cost of the edge, or -1 if it cannot be followed
+ */
+function _getEdgeCost(
+    node: Node,
+    edge: Edge,
+    previousNode: Node | undefined,
+    usedFloorChange: boolean,
+    targetNodes: Set<Node> | undefined,
+    graph: Graph): number {
+  if (edge.node.getType() === NodeType.Room && targetNodes != undefined && !targetNodes.has(edge.node)) {
+    // Optimization: You'll never have to pass through a room to get to another room, so skip nodes
+    // that aren't targets
+    return -1;
+  }
+
+  if (graph.excluded.has(node) && graph.excluded.get(node).has(edge.node) || Closures.isEdgeClosed(graph, edge)) {
+    // Skip routes which are closed. Accessible routes search graphs with only accessible edges, so edges do not
+    // need to be checked for them.
+    return -1;
+  }
+
+  let cost = edge.distance;
+
+  // If node is a staircase and neighbour is more than X floors away, add extra weight
+  if (node.getType() === NodeType.Stairs) {
+    const diff = Math.abs(previousNode.getFloorInt() - edge.node.getFloorInt());
+    if (diff > MAX_FLOOR_DIFF_FOR_STAIRS) {
+      cost += NAVIGATION_PENALTY;
     }
-    currentNode = previous.get(currentNode);
   }
 
-  return false;
+  // Add penalty to taking stairs and elevator in same building, should only need one
+  const sameBuilding = edge.node.getBuilding() === node.getBuilding();
+  if (_isFloorChange(edge.node) && sameBuilding && usedFloorChange) {
+    cost += NAVIGATION_PENALTY;
+  }
+
+  return cost;
 }
 
 /**
- * Given a starting node, returns the shortest path from the starting node to each of the target nodes.
+ * Returns true if a node's floor is known.
+ *
+ * @param {Node} node the node to check
+ * @returns {boolean} true for rooms and hallways on a floor, false otherwise
+ */
+function _hasFloor(node: Node): boolean {
+  return (node.getType() === NodeType.Room || node.getType() === NodeType.Hallway) && node.getFloor() != undefined;
+}
+
+/**
+ * Get the estimated time to follow an edge, from the distance walked and fixed costs. Stairs and elevators cost
+ * time for each floor between the nodes before and after them, and elevators cost a wait when they are entered. A
+ * door costs time when a path inside a building reaches it, or starts from it, so a route through a door pays for
+ * it once. Crossings are edges between two intersections, the same as the easiest route penalizes. Searches add
+ * the time of an edge when they reach a node along it, so each path's time is known as soon as the path is found.
+ * Mirrors `WalkingTime` in the native routing engine.
+ *
+ * @param {Node}           node         node the edge starts from
+ * @param {Edge}           edge         the edge to follow
+ * @param {Node|undefined} previousNode node which led to the first node
+ * @param {Graph}          graph        graph of building with edges and distances
+ * @returns {number} the time to follow the edge, in seconds
+ */
+function _getEdgeSeconds(node: Node, edge: Edge, previousNode: Node | undefined, graph: Graph): number {
+  const outdoor = graph.building === 'OUT';
+  const unitToM = outdoor ? OUTER_UNIT_TO_M : INNER_UNIT_TO_M;
+  let seconds = edge.distance * unitToM * Constants.Time.SECONDS_IN_MINUTE / WALKING_METRES_PER_MINUTE;
+
+  if (_isFloorChange(node) && previousNode != undefined && _hasFloor(previousNode) && _hasFloor(edge.node)) {
+    const floors = Math.abs(previousNode.getFloorInt() - edge.node.getFloorInt());
+    seconds += floors * (node.getType() === NodeType.Stairs ? STAIRS_SECONDS_PER_FLOOR : ELEVATOR_SECONDS_PER_FLOOR);
+  }
+
+  if (edge.node.getType() === NodeType.Elevator && node.getType() !== NodeType.Elevator) {
+    seconds += ELEVATOR_WAIT_SECONDS;
+  }
+
+  if (!outdoor
+      && (edge.node.getType() === NodeType.Door || (node.getType() === NodeType.Door && previousNode == undefined))) {
+    seconds += DOOR_SECONDS;
+  }
+
+  if (node.getType() === NodeType.Intersection && edge.node.getType() === NodeType.Intersection) {
+    seconds += CROSSING_SECONDS;
+  }
+
+  return seconds;
+}
+
+/**
+ * Search a graph from a starting node until enough targets are reached, or no more nodes can be reached.
  * See https://github.com/mburst/dijkstras-algorithm/blob/524c76fd26e2d522d9d53e2acb10fc72ea99e266/dijkstras.js#L1
  *
- * @param {Node}      startNode   starting node for paths
- * @param {Set<Node>} targetNodes set of nodes to reach
- * @param {Graph}     graph       graph of building with edges and distances
- * @param {boolean}   accessible true to force an accessible path, false for any path
- * @param {boolean}   reverse    true to return path from target to start
- * @returns {Map<Node, Path>} mapping from the target node to the path to it from the starting node
+ * @param {Node}             startNode   starting node for paths
+ * @param {Set<Node>}        targetNodes set of nodes to reach
+ * @param {number}           maxTargets  number of targets to reach before stopping
+ * @param {Graph}            graph       graph of building with edges and distances
+ * @param {Map<Node,number>} distances   distance of each node from the start, filled by the search
+ * @param {Map<Node,number>} seconds     estimated time to walk to each node, filled by the search
+ * @param {Map<Node,Node>}   previous    node which led to each node, filled by the search
+ * @returns {Set<Node>} the targets which were reached, in order from nearest to farthest
  */
-export function findShortestPathsBetween(
+function _search(
     startNode: Node,
     targetNodes: Set<Node>,
+    maxTargets: number,
     graph: Graph,
-    accessible: boolean,
-    reverse: boolean): Map<Node, Path> {
-  const paths: Map<Node, Path> = new Map();
+    distances: Map<Node, number>,
+    seconds: Map<Node, number>,
+    previous: Map<Node, Node>): Set<Node> {
   const targetsFound: Set<Node> = new Set();
-
   const nodes = new FastPriorityQueue(partialPathComparator);
-  const distances: Map<Node, number> = new Map();
-  const previous: Map<Node, Node> = new Map();
+
+  // Nodes whose path has already taken a staircase or elevator since entering the node's building
+  const usedFloorChange: Set<Node> = new Set();
+  if (_isFloorChange(startNode)) {
+    usedFloorChange.add(startNode);
+  }
 
   for (const node of graph.adjacencies.keys()) {
     if (node === startNode) {
       distances.set(node, 0);
+      seconds.set(node, 0);
       nodes.add({ dist: 0, node });
     } else {
       distances.set(node, Infinity);
@@ -220,70 +425,652 @@ export function findShortestPathsBetween(
     }
   }
 
+  while (!nodes.isEmpty()) {
+    const smallest: PartialPath = nodes.poll();
+
+    if (smallest == undefined || distances.get(smallest.node) === Infinity) {
+      continue;
+    }
+
+    if (targetNodes.has(smallest.node) && !targetsFound.has(smallest.node)) {
+      targetsFound.add(smallest.node);
+      if (targetsFound.size === targetNodes.size || targetsFound.size >= maxTargets) {
+        break;
+      }
+    }
+
+    const smallestPrevious = previous.get(smallest.node);
+    const smallestUsedFloorChange = usedFloorChange.has(smallest.node);
+    for (const neighbour of graph.adjacencies.get(smallest.node)) {
+      const cost = _getEdgeCost(
+        smallest.node,
+        neighbour,
+        smallestPrevious,
+        smallestUsedFloorChange,
+        targetNodes,
+        graph
+      );
+      if (cost < 0) {
+        continue;
+      }
+
+      const alt = distances.get(smallest.node) + cost;
+      if (alt < distances.get(neighbour.node)) {
+        distances.set(neighbour.node, alt);
+        seconds.set(
+          neighbour.node,
+          seconds.get(smallest.node) + _getEdgeSeconds(smallest.node, neighbour, smallestPrevious, graph)
+        );
+        previous.set(neighbour.node, smallest.node);
+        nodes.add({ dist: alt, node: neighbour.node });
+
+        if (_hasUsedFloorChange(smallest.node, neighbour.node, smallestUsedFloorChange)) {
+          usedFloorChange.add(neighbour.node);
+        } else {
+          usedFloorChange.delete(neighbour.node);
+        }
+      }
+    }
+  }
+
+  return targetsFound;
+}
+
+/**
+ * Given a starting node, returns the shortest path from the starting node to each of the target nodes.
+ *
+ * @param {Node}      startNode   starting node for paths
+ * @param {Set<Node>} targetNodes set of nodes to reach
+ * @param {Graph}     graph       graph of building with edges and distances
+ * @param {boolean}   accessible true to force an accessible path, false for any path
+ * @param {boolean}   reverse    true to return path from target to start
+ * @returns {Map<Node, Path>} mapping from the target node to the path to it from the starting node
+ */
+export function findShortestPathsBetween(
+    startNode: Node,
+    targetNodes: Set<Node>,
+    graph: Graph,
+    accessible: boolean,
+    reverse: boolean): Map<Node, Path> {
+  const paths: Map<Node, Path> = new Map();
+  const distances: Map<Node, number> = new Map();
+  const seconds: Map<Node, number> = new Map();
+  const previous: Map<Node, Node> = new Map();
+  let targetsFound: Set<Node>;
+
   const firstTargetNode = targetNodes.values().next().value;
 
   if (startNode.getType() === NodeType.Door && firstTargetNode.getBuilding() === startNode.getBuilding()) {
     targetNodes = new Set();
     targetNodes.add(startNode);
-    targetsFound.add(startNode);
+    targetsFound = new Set(targetNodes);
+    distances.set(startNode, 0);
+    seconds.set(startNode, 0);
   } else {
-    while (!nodes.isEmpty()) {
-      const smallest: PartialPath = nodes.poll();
+    const searchGraph = _getSearchGraph(graph, accessible);
+    targetsFound = _search(startNode, targetNodes, targetNodes.size, searchGraph, distances, seconds, previous);
+  }
+
+  for (const node of targetNodes) {
+    if (targetsFound.has(node)) {
+      paths.set(node, _rebuildPath(startNode, node, distances.get(node), seconds.get(node), previous, graph, reverse));
+    }
+  }
+
+  return paths;
+}
+
+/**
+ * Given a starting node, returns the shortest paths to the targets nearest to the starting node. Expands the graph
+ * once, and stops as soon as enough targets are reached.
+ *
+ * @param {Node}      startNode   starting node for paths
+ * @param {Set<Node>} targetNodes set of candidate nodes to reach
+ * @param {number}    count       maximum number of targets to find paths to
+ * @param {Graph}     graph       graph of building with edges and distances
+ * @param {boolean}   accessible  true to force an accessible path, false for any path
+ * @returns {Map<Node, Path>} mapping from the nearest target nodes to the paths to them, from nearest to farthest
+ */
+export function findNearestPathsBetween(
+    startNode: Node,
+    targetNodes: Set<Node>,
+    count: number,
+    graph: Graph,
+    accessible: boolean): Map<Node, Path> {
+  const paths: Map<Node, Path> = new Map();
+  if (count < 1 || targetNodes.size === 0) {
+    return paths;
+  }
 
-      if (smallest == undefined || distances.get(smallest.node) === Infinity) {
+  const distances: Map<Node, number> = new Map();
+  const seconds: Map<Node, number> = new Map();
+  const previous: Map<Node, Node> = new Map();
+  const searchGraph = _getSearchGraph(graph, accessible);
+  const targetsFound = _search(startNode, targetNodes, count, searchGraph, distances, seconds, previous);
+  for (const node of targetsFound) {
+    paths.set(node, _rebuildPath(startNode, node, distances.get(node), seconds.get(node), previous, graph, false));
+  }
+
+  return paths;
+}
+
+/**
+ * Find every node which can be reached from a set of starting nodes within a time, and the distance and estimated
+ * time to walk to each. Starting nodes may already have been reached, such as doors reached through another graph.
+ * Nodes are reached along their fastest path, so stairs, elevators, doors, and crossings count against the limit,
+ * and the distance of each node is the distance walked along that path, without the penalties routes use to avoid
+ * long staircases. Nodes reached after the limit are never added to the frontier, so the search stops as soon as
+ * every node within the limit is expanded. Rooms are reached, but never passed through unless they are a starting
+ * node.
+ *
+ * @param {Map<Node, Reach>} starts     distance and time to each starting node
+ * @param {number}           maxSeconds longest time to walk, in seconds
+ * @param {number}           unitToM    ratio of the graph's units to metres
+ * @param {Graph}            graph      graph of building with edges and distances
+ * @param {boolean}          accessible true to force accessible paths, false for any path
+ * @returns {Map<Node, Reach>} distance and time to each node reached, from fastest to slowest
+ */
+export function findReachableWithin(
+    starts: Map<Node, Reach>,
+    maxSeconds: number,
+    unitToM: number,
+    graph: Graph,
+    accessible: boolean): Map<Node, Reach> {
+  const searchGraph = _getSearchGraph(graph, accessible);
+  const reached: Map<Node, Reach> = new Map();
+  const distances: Map<Node, number> = new Map();
+  const seconds: Map<Node, number> = new Map();
+  const previous: Map<Node, Node> = new Map();
+  const usedFloorChange: Set<Node> = new Set();
+  const nodes = new FastPriorityQueue(partialPathComparator);
+
+  // Nodes are queued by the time to walk to them
+  starts.forEach((start: Reach, node: Node) => {
+    if (start.seconds <= maxSeconds && searchGraph.adjacencies.has(node)) {
+      distances.set(node, start.distance);
+      seconds.set(node, start.seconds);
+      nodes.add({ dist: start.seconds, node });
+      if (_isFloorChange(node)) {
+        usedFloorChange.add(node);
+      }
+    }
+  });
+
+  while (!nodes.isEmpty()) {
+    const fastest: PartialPath = nodes.poll();
+    if (reached.has(fastest.node) || fastest.dist > seconds.get(fastest.node)) {
+      // Skip nodes which were already reached by a faster path
+      continue;
+    }
+
+    reached.set(fastest.node, { distance: distances.get(fastest.node), seconds: fastest.dist });
+    const edges = searchGraph.adjacencies.get(fastest.node);
+    if (edges == undefined || fastest.node.getType() === NodeType.Room && !starts.has(fastest.node)) {
+      continue;
+    }
+
+    const fastestPrevious = previous.get(fastest.node);
+    const fastestUsedFloorChange = usedFloorChange.has(fastest.node);
+    for (const neighbour of edges) {
+      // Only edges which routes cannot follow are skipped. Their penalties are not walked, so they are not counted
+      const cost = _getEdgeCost(
+        fastest.node,
+        neighbour,
+        fastestPrevious,
+        fastestUsedFloorChange,
+        undefined,
+        searchGraph
+      );
+      if (cost < 0) {
         continue;
       }
 
-      if (targetNodes.has(smallest.node) && !targetsFound.has(smallest.node)) {
-        targetsFound.add(smallest.node);
-        if (targetsFound.size === targetNodes.size) {
-          break;
+      const altSeconds = fastest.dist + _getEdgeSeconds(fastest.node, neighbour, fastestPrevious, searchGraph);
+      if (altSeconds <= maxSeconds && (!seconds.has(neighbour.node) || altSeconds < seconds.get(neighbour.node))) {
+        distances.set(neighbour.node, distances.get(fastest.node) + neighbour.distance * unitToM);
+        seconds.set(neighbour.node, altSeconds);
+        previous.set(neighbour.node, fastest.node);
+        nodes.add({ dist: altSeconds, node: neighbour.node });
+
+        if (_hasUsedFloorChange(fastest.node, neighbour.node, fastestUsedFloorChange)) {
+          usedFloorChange.add(neighbour.node);
+        } else {
+          usedFloorChange.delete(neighbour.node);
         }
       }
+    }
+  }
 
-      for (const neighbour of graph.adjacencies.get(smallest.node)) {
-        if (neighbour.node.getType() === NodeType.Room && !targetNodes.has(neighbour.node)) {
-          // Optimization: You'll never have to pass through a room to get to another room, so skip nodes
-          // that aren't targets
-          continue;
-        }
+  return reached;
+}
 
-        if ((accessible && !(neighbour.accessible || neighbour.node.isAccessible()))
-            || graph.excluded.has(smallest.node) && graph.excluded.get(smallest.node).has(neighbour.node)) {
-          // Skip non-accessible edges when the user wants an accessible route, and skip
-          // routes which are closed.
-          continue;
-        }
+/**
+ * Find the walking distance and time between every pair of locations, with one search of each location's building,
+ * and one search outside from the doors it reaches. The path from a door to a location is taken from the location's
+ * own search, the same as the native routing engine does. Locations in different buildings are joined through the
+ * pair of doors with the shortest distance, and the time is the time of that route.
+ *
+ * @param {Node[]}             locations  the locations
+ * @param {Map<string, Graph>} graphs     graphs of the locations' buildings, and the outdoor graph
+ * @param {boolean}            accessible true to force accessible paths, false for any path
+ * @returns {DistanceMatrix} the distance and time from each location to each other
+ */
+export function findDistanceMatrix(
+    locations: Node[],
+    graphs: Map<string, Graph>,
+    accessible: boolean): DistanceMatrix {
+  const outdoorGraph = graphs.get('OUT');
+  const reached = locations.map((location: Node) => {
+    const inside = findReachableWithin(
+      new Map([[ location, { distance: 0, seconds: 0 } ]]),
+      Infinity,
+      INNER_UNIT_TO_M,
+      graphs.get(location.getBuilding()),
+      accessible
+    );
 
-        let alt = distances.get(smallest.node) + neighbour.distance;
+    // Doors of the location's building, and the path to them from the location
+    const doors: Map<Node, Reach> = new Map();
+    inside.forEach((reach: Reach, node: Node) => {
+      if (node.getType() === NodeType.Door && node.getBuilding() === location.getBuilding()) {
+        doors.set(node, reach);
+      }
+    });
+
+    const outside = findReachableWithin(doors, Infinity, OUTER_UNIT_TO_M, outdoorGraph, accessible);
 
-        // If node is a staircase and neighbour is more than X floors away, add extra weight
-        if (smallest.node.getType() === NodeType.Stairs) {
-          const diff = Math.abs(previous.get(smallest.node).getFloorInt() - neighbour.node.getFloorInt());
-          if (diff > MAX_FLOOR_DIFF_FOR_STAIRS) {
-            alt += NAVIGATION_PENALTY;
+    return { doors, inside, outside };
+  });
+
+  const matrix: DistanceMatrix = { distances: [], seconds: [] };
+  locations.forEach((start: Node, i: number) => {
+    matrix.distances.push([]);
+    matrix.seconds.push([]);
+    locations.forEach((target: Node, j: number) => {
+      let best: Reach | undefined;
+      if (i === j) {
+        best = { distance: 0, seconds: 0 };
+      } else if (start.getBuilding() === target.getBuilding()) {
+        best = reached[i].inside.get(target);
+      } else {
+        reached[j].doors.forEach((entrance: Reach, entranceNode: Node) => {
+          const outer = reached[i].outside.get(entranceNode);
+          if (outer != undefined && (best == undefined || outer.distance + entrance.distance < best.distance)) {
+            best = { distance: outer.distance + entrance.distance, seconds: outer.seconds + entrance.seconds };
           }
+        });
+      }
+
+      matrix.distances[i].push(best == undefined ? -1 : best.distance);
+      matrix.seconds[i].push(best == undefined ? -1 : best.seconds);
+    });
+  });
+
+  return matrix;
+}
+
+/**
+ * Build the tree of shortest paths from every node to a target, ignoring penalties, by searching backwards from the
+ * target. Its distances are lower bounds of the cost to reach the target from each node, in any search.
+ *
+ * @param {Node}  targetNode the target
+ * @param {Graph} graph      graph of building with edges and distances
+ * @returns {TargetTree} the distance from each node which can reach the target, and the edge it follows
+ */
+function _buildTargetTree(targetNode: Node, graph: Graph): TargetTree {
+  // Edges leading into each node, with the node they start from
+  const incoming: Map<Node, IncomingEdge[]> = new Map();
+  graph.adjacencies.forEach((edges: Edge[], node: Node) => {
+    for (const edge of edges) {
+      if (graph.excluded.has(node) && graph.excluded.get(node).has(edge.node) || Closures.isEdgeClosed(graph, edge)) {
+        continue;
+      }
+
+      const nodeIncoming = incoming.get(edge.node) || [];
+      nodeIncoming.push({ edge, source: node });
+      incoming.set(edge.node, nodeIncoming);
+    }
+  });
+
+  const tree: TargetTree = {
+    distances: new Map(),
+    next: new Map(),
+  };
+
+  const nodes = new FastPriorityQueue(partialPathComparator);
+  tree.distances.set(targetNode, 0);
+  nodes.add({ dist: 0, node: targetNode });
+
+  while (!nodes.isEmpty()) {
+    const smallest: PartialPath = nodes.poll();
+    if (smallest.dist > tree.distances.get(smallest.node)) {
+      // The node was queued again with a shorter distance
+      continue;
+    }
+
+    for (const { edge, source } of incoming.get(smallest.node) || []) {
+      const alt = smallest.dist + edge.distance;
+      if (!tree.distances.has(source) || alt < tree.distances.get(source)) {
+        tree.distances.set(source, alt);
+        tree.next.set(source, edge);
+        nodes.add({ dist: alt, node: source });
+      }
+    }
+  }
+
+  return tree;
+}
+
+/**
+ * Get the cost of a path at each of its nodes, with the same penalties and times as a search.
+ *
+ * @param {Path}      path        the path
+ * @param {Set<Node>} targetNodes nodes the path may end at
+ * @param {Graph}     graph       graph of building with edges and distances
+ * @returns {PathCosts} the cost to reach each node along the path
+ */
+function _getPathCosts(path: Path, targetNodes: Set<Node>, graph: Graph): PathCosts {
+  const costs: PathCosts = {
+    distances: [ 0 ],
+    nodes: [ path.source ],
+    seconds: [ 0 ],
+    usedFloorChange: [ _isFloorChange(path.source) ],
+  };
+
+  for (let i = 0; i < path.edges.length; i++) {
+    const node = costs.nodes[i];
+    const edge = path.edges[i];
+    const cost = _getEdgeCost(node, edge, costs.nodes[i - 1], costs.usedFloorChange[i], targetNodes, graph);
+    costs.distances.push(costs.distances[i] + Math.max(cost, 0));
+    costs.nodes.push(edge.node);
+    costs.seconds.push(costs.seconds[i] + _getEdgeSeconds(node, edge, costs.nodes[i - 1], graph));
+    costs.usedFloorChange.push(_hasUsedFloorChange(node, edge.node, costs.usedFloorChange[i]));
+  }
+
+  return costs;
+}
+
+/**
+ * Find the shortest path from a node partway along a path to the target, without using blocked nodes or edges.
+ * The path the target tree takes from the node is used without searching when it is not blocked and has no
+ * penalties, since no path can be shorter. Otherwise, the graph is searched towards the target, using the target
+ * tree's distances as estimates of the distance remaining.
+ *
+ * @param {Node}           spurNode        the node to find a path from
+ * @param {Node|undefined} previousNode    node before the spur node in the path, or undefined
+ * @param {number}         distance        cost of the path to the spur node
+ * @param {number}         seconds         estimated time to walk the path to the spur node
+ * @param {boolean}        usedFloorChange true if the path to the spur node has changed floors in its building
+ * @param {Node}           targetNode      the target
+ * @param {Set<Node>}      blockedNodes    nodes the path may not use
+ * @param {Set<Edge>}      blockedEdges    edges the path may not use
+ * @param {TargetTree}     tree            shortest paths from every node to the target, ignoring penalties
+ * @param {Graph}          graph           graph of building with edges and distances
+ * @returns {Path|undefined} the path from the spur node, with the cost and time of the full path, or undefined
+ */
+function _findSpurPath(
+    spurNode: Node,
+    previousNode: Node | undefined,
+    distance: number,
+    seconds: number,
+    usedFloorChange: boolean,
+    targetNode: Node,
+    blockedNodes: Set<Node>,
+    blockedEdges: Set<Edge>,
+    tree: TargetTree,
+    graph: Graph): Path | undefined {
+  const targetNodes: Set<Node> = new Set([ targetNode ]);
+  if (!tree.distances.has(spurNode)) {
+    return undefined;
+  }
+
+  // Follow the target tree, until it uses a blocked edge or incurs a penalty
+  const treePath: Path = { distance, edges: [], seconds, source: spurNode };
+  let treeNode = spurNode;
+  let treePrevious = previousNode;
+  let treeUsedFloorChange = usedFloorChange;
+  while (treeNode !== targetNode) {
+    const edge = tree.next.get(treeNode);
+    if (blockedEdges.has(edge) || blockedNodes.has(edge.node)) {
+      break;
+    }
+
+    const cost = _getEdgeCost(treeNode, edge, treePrevious, treeUsedFloorChange, targetNodes, graph);
+    if (cost !== edge.distance) {
+      break;
+    }
+
+    treePath.distance += cost;
+    treePath.seconds += _getEdgeSeconds(treeNode, edge, treePrevious, graph);
+    treePath.edges.push(edge);
+    treeUsedFloorChange = _hasUsedFloorChange(treeNode, edge.node, treeUsedFloorChange);
+    treePrevious = treeNode;
+    treeNode = edge.node;
+  }
+
+  if (treeNode === targetNode) {
+    return treePath;
+  }
+
+  const distances: Map<Node, number> = new Map();
+  const times: Map<Node, number> = new Map();
+  const previous: Map<Node, Node> = new Map();
+  const previousEdges: Map<Node, Edge> = new Map();
+  const usedFloorChanges: Set<Node> = new Set();
+  const nodes = new FastPriorityQueue(partialPathComparator);
+
+  distances.set(spurNode, distance);
+  times.set(spurNode, seconds);
+  if (previousNode != undefined) {
+    previous.set(spurNode, previousNode);
+  }
+  if (usedFloorChange) {
+    usedFloorChanges.add(spurNode);
+  }
+  nodes.add({ dist: distance + tree.distances.get(spurNode), node: spurNode });
+
+  let reachedTarget = false;
+  while (!nodes.isEmpty() && !reachedTarget) {
+    const smallest: PartialPath = nodes.poll();
+    const smallestDistance = distances.get(smallest.node);
+    if (smallest.dist > smallestDistance + tree.distances.get(smallest.node)) {
+      // The node was queued again with a shorter distance
+      continue;
+    }
+
+    if (smallest.node === targetNode) {
+      reachedTarget = true;
+      continue;
+    }
+
+    const smallestPrevious = previous.get(smallest.node);
+    const smallestUsedFloorChange = usedFloorChanges.has(smallest.node);
+    for (const neighbour of graph.adjacencies.get(smallest.node)) {
+      if (blockedEdges.has(neighbour) || blockedNodes.has(neighbour.node) || !tree.distances.has(neighbour.node)) {
+        continue;
+      }
+
+      const cost = _getEdgeCost(
+        smallest.node,
+        neighbour,
+        smallestPrevious,
+        smallestUsedFloorChange,
+        targetNodes,
+        graph
+      );
+      if (cost < 0) {
+        continue;
+      }
+
+      const alt = smallestDistance + cost;
+      if (!distances.has(neighbour.node) || alt < distances.get(neighbour.node)) {
+        distances.set(neighbour.node, alt);
+        times.set(
+          neighbour.node,
+          times.get(smallest.node) + _getEdgeSeconds(smallest.node, neighbour, smallestPrevious, graph)
+        );
+        previous.set(neighbour.node, smallest.node);
+        previousEdges.set(neighbour.node, neighbour);
+        nodes.add({ dist: alt + tree.distances.get(neighbour.node), node: neighbour.node });
+
+        if (_hasUsedFloorChange(smallest.node, neighbour.node, smallestUsedFloorChange)) {
+          usedFloorChanges.add(neighbour.node);
+        } else {
+          usedFloorChanges.delete(neighbour.node);
         }
+      }
+    }
+  }
+
+  if (!reachedTarget) {
+    return undefined;
+  }
+
+  const spurPath: Path = {
+    distance: distances.get(targetNode),
+    edges: [],
+    seconds: times.get(targetNode),
+    source: spurNode,
+  };
+  for (let node = targetNode; node !== spurNode; node = previous.get(node)) {
+    spurPath.edges.push(previousEdges.get(node));
+  }
+  spurPath.edges.reverse();
+
+  return spurPath;
+}
+
+/**
+ * Returns true if a path starts with a set of edges.
+ *
+ * @param {Path}   path  the path to check
+ * @param {Edge[]} edges the edges the path should start with
+ * @returns {boolean} true if the path's first edges are the same edges, in order
+ */
+function _pathStartsWith(path: Path, edges: Edge[]): boolean {
+  if (path.edges.length < edges.length) {
+    return false;
+  }
+
+  for (let i = 0; i < edges.length; i++) {
+    if (path.edges[i] !== edges[i]) {
+      return false;
+    }
+  }
+
+  return true;
+}
+
+/**
+ * Get a key to identify the nodes a path passes through.
+ *
+ * @param {Path} path the path
+ * @returns {string} the IDs of each node in the path
+ */
+function _getPathKey(path: Path): string {
+  return [ path.source, ...path.edges.map((edge: Edge) => edge.node) ]
+      .map((node: Node) => node.getId())
+      .join('>');
+}
 
-        // Add penalty to taking stairs and elevator in same building, should only need one
-        if ((neighbour.node.getType() === NodeType.Stairs || neighbour.node.getType() === NodeType.Elevator)
-            && _pathContainsPreviousFloorChange(neighbour.node.getBuilding(), previous, smallest.node)) {
-          alt += NAVIGATION_PENALTY;
+/**
+ * Find the shortest paths between two nodes, from shortest to longest, with Yen's algorithm. The first path is the
+ * same as {@link findShortestPathBetween}, and each other path leaves the paths before it at some node, called its
+ * spur node. The tree of shortest paths to the target is built once and shared by every spur search, so most spur
+ * paths are found without searching, and the rest are searched directly towards the target.
+ *
+ * @param {Node}    startNode  path start
+ * @param {Node}    targetNode path end
+ * @param {number}  count      maximum number of paths to find
+ * @param {Graph}   graph      graph to generate paths from
+ * @param {boolean} accessible true to force accessible paths, false for any path
+ * @returns {Path[]} up to `count` different paths between the nodes, from shortest to longest
+ */
+export function findKShortestPathsBetween(
+    startNode: Node,
+    targetNode: Node,
+    count: number,
+    graph: Graph,
+    accessible: boolean): Path[] {
+  const shortestPath = count < 1
+      ? undefined
+      : findShortestPathBetween(startNode, targetNode, graph, accessible, false);
+  if (shortestPath == undefined) {
+    return [];
+  }
+
+  const paths: Path[] = [ shortestPath ];
+  if (shortestPath.edges.length === 0) {
+    // There are no alternatives when the start is already the destination
+    return paths;
+  }
+
+  const targetNodes: Set<Node> = new Set([ targetNode ]);
+  const searchGraph = _getSearchGraph(graph, accessible);
+  const tree = _buildTargetTree(targetNode, searchGraph);
+  const candidates: Path[] = [];
+  const pathKeys: Set<string> = new Set([ _getPathKey(shortestPath) ]);
+
+  while (paths.length < count) {
+    const lastPath = paths[paths.length - 1];
+    const costs = _getPathCosts(lastPath, targetNodes, searchGraph);
+    const blockedNodes: Set<Node> = new Set();
+
+    for (let i = 0; i < lastPath.edges.length; i++) {
+      const rootEdges = lastPath.edges.slice(0, i);
+
+      // Leave the spur node by a different edge than any path found with the same root
+      const blockedEdges: Set<Edge> = new Set();
+      for (const path of paths) {
+        if (path.edges.length > i && _pathStartsWith(path, rootEdges)) {
+          blockedEdges.add(path.edges[i]);
         }
+      }
+
+      const spurPath = _findSpurPath(
+        costs.nodes[i],
+        costs.nodes[i - 1],
+        costs.distances[i],
+        costs.seconds[i],
+        costs.usedFloorChange[i],
+        targetNode,
+        blockedNodes,
+        blockedEdges,
+        tree,
+        searchGraph
+      );
 
-        if (alt < distances.get(neighbour.node)) {
-          distances.set(neighbour.node, alt);
-          previous.set(neighbour.node, smallest.node);
-          nodes.add({ dist: alt, node: neighbour.node });
+      if (spurPath != undefined) {
+        const candidate: Path = {
+          distance: spurPath.distance,
+          edges: rootEdges.concat(spurPath.edges),
+          seconds: spurPath.seconds,
+          source: startNode,
+        };
+
+        const candidateKey = _getPathKey(candidate);
+        if (!pathKeys.has(candidateKey)) {
+          pathKeys.add(candidateKey);
+          candidates.push(candidate);
         }
       }
+
+      // Paths from later spur nodes may not loop back through the root
+      blockedNodes.add(costs.nodes[i]);
     }
-  }
 
-  for (const node of targetNodes) {
-    if (targetsFound.has(node)) {
-      paths.set(node, _rebuildPath(startNode, node, distances.get(node), previous, graph, reverse));
+    if (candidates.length === 0) {
+      break;
+    }
+
+    let shortestCandidate = 0;
+    for (let i = 1; i < candidates.length; i++) {
+      if (candidates[i].distance < candidates[shortestCandidate].distance) {
+        shortestCandidate = i;
+      }
     }
+
+    paths.push(candidates.splice(shortestCandidate, 1)[0]);
   }
 
   return paths;
@@ -321,23 +1108,20 @@ export function findDistancesBetweenDoors(
 }
 
 /**
- * Builds the best path possible between two nodes across multiple graphs.
+ * Ranks each pairing of an exit from the first building and an entrance to the second building. For the easiest
+ * routes, the paths inside each building are ranked by their turns and changes of floor as well as distance.
  *
  * @param {Map<Node, Path>}              startToExits          shortest paths from the start node to each exit
  * @param {Map<Node, Path>}              exitsToTarget         shortest paths from the target node to each exit
  * @param {Map<Node, Map<Node, number>>} distancesBetweenExits distances between each pair of building entrances
- * @param {Map<string, Graph>}           graphs                graphs for each building
- * @param {boolean}                      accessible            true to force an accessible path, false for any path
  * @param {boolean}                      shortest              true for shortest path, false for easiest to follow
- * @returns {Path|undefined} the shortest path between the nodes, or undefined if there are no possible paths
+ * @returns {DoorPair[]} the door pairings, from best to worst
  */
-export function getBestPathAcross(
+export function rankDoorPairings(
     startToExits: Map<Node, Path>,
     exitsToTarget: Map<Node, Path>,
     distancesBetweenExits: Map<Node, Map<Node, number>>,
-    graphs: Map<string, Graph>,
-    accessible: boolean,
-    shortest: boolean): Path | undefined {
+    shortest: boolean): DoorPair[] {
   const doorPairings = new FastPriorityQueue(doorPairingComparator);
 
   for (const exit of startToExits.keys()) {
@@ -357,7 +1141,9 @@ export function getBestPathAcross(
         distance += entrancePath.distance * INNER_UNIT_TO_M;
         distance += distancesBetweenExits.get(exit).get(entrance) * OUTER_UNIT_TO_M;
       } else {
-        distance = parseInt(exit.getName()) + parseInt(entrance.getName());
+        distance = _getEasiestCost(exitPath, INNER_UNIT_TO_M);
+        distance += _getEasiestCost(entrancePath, INNER_UNIT_TO_M);
+        distance += distancesBetweenExits.get(exit).get(entrance) * OUTER_UNIT_TO_M;
       }
 
       doorPairings.add({
@@ -368,23 +1154,346 @@ export function getBestPathAcross(
     }
   }
 
+  const rankedPairings: DoorPair[] = [];
   let doors: DoorPair = doorPairings.poll();
   while (doors != undefined) {
+    rankedPairings.push(doors);
+    doors = doorPairings.poll();
+  }
+
+  return rankedPairings;
+}
+
+/**
+ * Joins the paths inside the first building, outside, and inside the second building into a single path.
+ *
+ * @param {Path} exitPath     path from the start node to the exit of the first building
+ * @param {Path} outerPath    path from the exit of the first building to the entrance of the second
+ * @param {Path} entrancePath path from the entrance of the second building to the target node
+ * @returns {Path} the full path between the start and target nodes
+ */
+export function joinPathsAcross(exitPath: Path, outerPath: Path, entrancePath: Path): Path {
+  return {
+    distance: exitPath.distance + outerPath.distance + entrancePath.distance,
+    edges: exitPath.edges.concat(outerPath.edges, entrancePath.edges),
+    seconds: exitPath.seconds + outerPath.seconds + entrancePath.seconds,
+    source: exitPath.source,
+  };
+}
+
+/**
+ * Builds the best paths possible between two nodes across multiple graphs, each through a different pair of doors.
+ * The paths inside each building are shared by every pair of doors, so only the paths outside are searched for.
+ *
+ * @param {Map<Node, Path>}              startToExits          shortest paths from the start node to each exit
+ * @param {Map<Node, Path>}              exitsToTarget         shortest paths from the target node to each exit
+ * @param {Map<Node, Map<Node, number>>} distancesBetweenExits distances between each pair of building entrances
+ * @param {Map<string, Graph>}           graphs                graphs for each building
+ * @param {boolean}                      accessible            true to force an accessible path, false for any path
+ * @param {boolean}                      shortest              true for shortest path, false for easiest to follow
+ * @param {number}                       count                 maximum number of paths to build
+ * @returns {Path[]} up to `count` paths between the nodes, from best to worst
+ */
+export function getBestPathsAcross(
+    startToExits: Map<Node, Path>,
+    exitsToTarget: Map<Node, Path>,
+    distancesBetweenExits: Map<Node, Map<Node, number>>,
+    graphs: Map<string, Graph>,
+    accessible: boolean,
+    shortest: boolean,
+    count: number): Path[] {
+  const paths: Path[] = [];
+  for (const doors of rankDoorPairings(startToExits, exitsToTarget, distancesBetweenExits, shortest)) {
+    if (paths.length >= count) {
+      break;
+    }
+
     const outerPath = findShortestPathBetween(doors.exit, doors.entrance, graphs.get('OUT'), accessible, false);
-    if (outerPath == undefined) {
-      doors = doorPairings.poll();
+    if (outerPath != undefined) {
+      paths.push(joinPathsAcross(startToExits.get(doors.exit), outerPath, exitsToTarget.get(doors.entrance)));
+    }
+  }
+
+  return paths;
+}
+
+/**
+ * Builds the best path possible between two nodes across multiple graphs.
+ *
+ * @param {Map<Node, Path>}              startToExits          shortest paths from the start node to each exit
+ * @param {Map<Node, Path>}              exitsToTarget         shortest paths from the target node to each exit
+ * @param {Map<Node, Map<Node, number>>} distancesBetweenExits distances between each pair of building entrances
+ * @param {Map<string, Graph>}           graphs                graphs for each building
+ * @param {boolean}                      accessible            true to force an accessible path, false for any path
+ * @param {boolean}                      shortest              true for shortest path, false for easiest to follow
+ * @returns {Path|undefined} the shortest path between the nodes, or undefined if there are no possible paths
+ */
+export function getBestPathAcross(
+    startToExits: Map<Node, Path>,
+    exitsToTarget: Map<Node, Path>,
+    distancesBetweenExits: Map<Node, Map<Node, number>>,
+    graphs: Map<string, Graph>,
+    accessible: boolean,
+    shortest: boolean): Path | undefined {
+  return getBestPathsAcross(startToExits, exitsToTarget, distancesBetweenExits, graphs, accessible, shortest, 1)[0];
+}
+
+/**
+ * Find the best paths between two nodes in different buildings, each through a different pair of doors.
+ *
+ * @param {Node}               startNode   starting node, in the first building
+ * @param {Set<Node>}          startDoors  doors of the first building
+ * @param {Node}               targetNode  target node, in the second building
+ * @param {Set<Node>}          targetDoors doors of the second building
+ * @param {Map<string, Graph>} graphs      graphs for each building, and the outdoor graph
+ * @param {boolean}            accessible  true to force an accessible path, false for any path
+ * @param {boolean}            shortest    true for shortest path, false for easiest to follow
+ * @param {number}             count       maximum number of paths to find
+ * @returns {Path[]} up to `count` paths between the nodes, from best to worst
+ */
+export function findBestPathsAcross(
+    startNode: Node,
+    startDoors: Set<Node>,
+    targetNode: Node,
+    targetDoors: Set<Node>,
+    graphs: Map<string, Graph>,
+    accessible: boolean,
+    shortest: boolean,
+    count: number): Path[] {
+  const startToExits = findShortestPathsBetween(
+    startNode,
+    startDoors,
+    graphs.get(startNode.getBuilding()),
+    accessible,
+    false
+  );
+  const exitsToTarget = findShortestPathsBetween(
+    targetNode,
+    targetDoors,
+    graphs.get(targetNode.getBuilding()),
+    accessible,
+    true
+  );
+  const exitDistances = findDistancesBetweenDoors(startDoors, targetDoors, graphs.get('OUT'));
+
+  return getBestPathsAcross(startToExits, exitsToTarget, exitDistances, graphs, accessible, shortest, count);
+}
+
+/**
+ * Returns true if changing from one direction to another is a turn, rather than continuing straight.
+ *
+ * @param {EdgeDirection} first  the direction being faced
+ * @param {EdgeDirection} second the direction to face
+ * @returns {boolean} true if one direction is up or down and the other is left or right
+ */
+function _isTurn(first: EdgeDirection, second: EdgeDirection): boolean {
+  const firstVertical = first === EdgeDirection.Up || first === EdgeDirection.Down;
+  const secondVertical = second === EdgeDirection.Up || second === EdgeDirection.Down;
+
+  return firstVertical !== secondVertical;
+}
+
+/**
+ * Get the penalty of the easiest route for following an edge, for turning onto it, starting to change floors, or
+ * crossing a street.
+ *
+ * @param {Node}           node         node the edge starts from
+ * @param {Edge}           edge         the edge to follow
+ * @param {Edge|undefined} previousEdge edge followed to reach the node, or undefined
+ * @returns {number} the penalty, in metres
+ */
+function _getEasiestPenalty(node: Node, edge: Edge, previousEdge: Edge | undefined): number {
+  let penalty = 0;
+  if (previousEdge != undefined && _isTurn(previousEdge.direction, edge.direction)) {
+    penalty += EASIEST_TURN_PENALTY;
+  }
+  if (_isFloorChange(edge.node) && !_isFloorChange(node)) {
+    penalty += EASIEST_FLOOR_CHANGE_PENALTY;
+  }
+  if (node.getType() === NodeType.Intersection && edge.node.getType() === NodeType.Intersection) {
+    penalty += EASIEST_CROSSING_PENALTY;
+  }
+
+  return penalty;
+}
+
+/**
+ * Get the cost of a path in a single graph for the easiest route, with its distance and penalties.
+ *
+ * @param {Path}   path     the path
+ * @param {number} unitToM  metres per unit of distance in the path's graph
+ * @returns {number} the cost of the path, in metres
+ */
+function _getEasiestCost(path: Path, unitToM: number): number {
+  let cost = 0;
+  let node = path.source;
+  let previousEdge: Edge | undefined;
+  for (const edge of path.edges) {
+    cost += edge.distance * unitToM + _getEasiestPenalty(node, edge, previousEdge);
+    node = edge.node;
+    previousEdge = edge;
+  }
+
+  return cost;
+}
+
+/**
+ * Find the easiest path between two nodes in different buildings, with a single search over the edges of the
+ * buildings' graphs and the outdoor graph. Searching edges instead of nodes lets the cost of each edge depend on the
+ * edge before it, so turns, changes of floor, and street crossings are penalized on top of the distance walked.
+ * The route leaves the first building through one of its doors and enters the second through one of its doors,
+ * or through the starting or target node if it is one of those doors.
+ *
+ * @param {Node}               startNode   starting node, in the first building
+ * @param {Set<Node>}          startDoors  doors of the first building
+ * @param {Node}               targetNode  target node, in the second building
+ * @param {Set<Node>}          targetDoors doors of the second building
+ * @param {Map<string, Graph>} graphs      graphs for each building, and the outdoor graph
+ * @param {boolean}            accessible  true to force an accessible path, false for any path
+ * @returns {Path|undefined} the easiest path between the nodes, or undefined if there are no possible paths
+ */
+export function findEasiestPathAcross(
+    startNode: Node,
+    startDoors: Set<Node>,
+    targetNode: Node,
+    targetDoors: Set<Node>,
+    graphs: Map<string, Graph>,
+    accessible: boolean): Path | undefined {
+  const startGraph = _getSearchGraph(graphs.get(startNode.getBuilding()), accessible);
+  const targetGraph = _getSearchGraph(graphs.get(targetNode.getBuilding()), accessible);
+  const outdoorGraph = _getSearchGraph(graphs.get('OUT'), accessible);
+  const targetNodes = new Set([ targetNode ]);
+  const noTargets: Set<Node> = new Set();
+  const startsAtDoor = startNode.getType() === NodeType.Door && startDoors.has(startNode);
+  const endsAtDoor = targetNode.getType() === NodeType.Door;
+
+  // Lowest cost of the states reached along each edge, or from the start
+  const costs: Map<Edge | Node, number> = new Map();
+  const states = new FastPriorityQueue(easiestStateComparator);
+
+  /**
+   * Queue the states reached by following each edge of a node in a graph.
+   *
+   * @param {EasiestState} state the state which reached the node
+   * @param {Graph}        graph graph to follow the node's edges in
+   */
+  const expand = (state: EasiestState, graph: Graph): void => {
+    const unitToM = graph === outdoorGraph ? OUTER_UNIT_TO_M : INNER_UNIT_TO_M;
+    const previousNode = state.graph === graph && state.previous != undefined ? state.previous.node : undefined;
+    // Each graph is drawn in its own orientation, so the first edge in a graph is never a turn
+    const previousEdge = state.graph === graph ? state.edge : undefined;
+    for (const edge of graph.adjacencies.get(state.node) || []) {
+      if (!graph.adjacencies.has(edge.node)) {
+        continue;
+      }
+
+      const distance = _getEdgeCost(
+        state.node,
+        edge,
+        previousNode,
+        state.usedFloorChange,
+        graph === targetGraph ? targetNodes : noTargets,
+        graph
+      );
+      if (distance < 0) {
+        continue;
+      }
+
+      const cost = state.cost + distance * unitToM + _getEasiestPenalty(state.node, edge, previousEdge);
+      if (cost < (costs.has(edge) ? costs.get(edge) : Infinity)) {
+        costs.set(edge, cost);
+        states.add({
+          cost,
+          edge,
+          graph,
+          node: edge.node,
+          previous: state,
+          seconds: state.seconds + _getEdgeSeconds(state.node, edge, previousNode, graph),
+          usedFloorChange: _hasUsedFloorChange(state.node, edge.node, state.usedFloorChange),
+        });
+      }
+    }
+  };
+
+  costs.set(startNode, 0);
+  states.add({
+    cost: 0,
+    edge: undefined,
+    graph: startGraph,
+    node: startNode,
+    previous: undefined,
+    seconds: 0,
+    usedFloorChange: _isFloorChange(startNode),
+  });
+
+  while (!states.isEmpty()) {
+    const state: EasiestState = states.poll();
+    if (state.cost > costs.get(state.edge == undefined ? state.node : state.edge)) {
+      // A cheaper route to the state was already visited
       continue;
     }
 
-    const firstPathComponent = startToExits.get(doors.exit);
-    const secondPathComponent = exitsToTarget.get(doors.entrance);
+    if (state.node === targetNode && (state.graph === targetGraph || (endsAtDoor && state.graph === outdoorGraph))) {
+      const edges: Edge[] = [];
+      let distance = 0;
+      for (let current = state; current.edge != undefined; current = current.previous) {
+        edges.push(current.edge);
+        distance += current.edge.distance;
+      }
+      edges.reverse();
+
+      return {
+        distance,
+        edges,
+        seconds: state.seconds,
+        source: startNode,
+      };
+    }
 
-    return {
-      distance: firstPathComponent.distance + outerPath.distance + secondPathComponent.distance,
-      edges: firstPathComponent.edges.concat(outerPath.edges, secondPathComponent.edges),
-      source: firstPathComponent.source,
-    };
+    // Doors are the same nodes in the building and outdoor graphs, so the route moves between graphs at doors
+    if (state.graph === startGraph) {
+      if (!startsAtDoor) {
+        expand(state, startGraph);
+      }
+      if (startDoors.has(state.node)) {
+        expand(state, outdoorGraph);
+      }
+    } else if (state.graph === outdoorGraph) {
+      expand(state, outdoorGraph);
+      if (!endsAtDoor && targetDoors.has(state.node)) {
+        expand(state, targetGraph);
+      }
+    } else {
+      expand(state, targetGraph);
+    }
   }
 
   return undefined;
-}
\ No newline at end of file
+}
+
+/**
+ * Find the best path between two nodes in different buildings, through the doors of each building.
+ *
+ * @param {Node}               startNode   starting node, in the first building
+ * @param {Set<Node>}          startDoors  doors of the first building
+ * @param {Node}               targetNode  target node, in the second building
+ * @param {Set<Node>}          targetDoors doors of the second building
+ * @param {Map<string, Graph>} graphs      graphs for each building, and the outdoor graph
+ * @param {boolean}            accessible  true to force an accessible path, false for any path
+ * @param {boolean}            shortest    true for shortest path, false for easiest to follow
+ * @returns {Path|undefined} the best path between the nodes, or undefined if there are no possible paths
+ */
+export function findBestPathAcross(
+    startNode: Node,
+    startDoors: Set<Node>,
+    targetNode: Node,
+    targetDoors: Set<Node>,
+    graphs: Map<string, Graph>,
+    accessible: boolean,
+    shortest: boolean): Path | undefined {
+  if (!shortest) {
+    return findEasiestPathAcross(startNode, startDoors, targetNode, targetDoors, graphs, accessible);
+  }
+
+  return findBestPathsAcross(startNode, startDoors, targetNode, targetDoors, graphs, accessible, shortest, 1)[0];
+}
@@ -34,9 +34,66 @@ export enum Type {
   Street = 'T',
 }
 
+/** A rule to find the floor of a node from its name. */
+interface FloorFormat {
+  floor: string | undefined;  // Floor of nodes whose names match, or undefined to use the first group matched
+  regex: RegExp;              // Expression to match against node names
+}
+
+/** Floor formats compiled from a graph's formatting rules. */
+interface CompiledFloorFormats {
+  floorFormats: FloorFormat[];  // Compiled formats, in the order of the rules
+  ruleCount: number;            // Number of formatting rules when the formats were compiled
+}
+
 /** Length of the floor format key. */
 const FLOOR_FORMAT_KEY_LENGTH = 'floor'.length;
 
+/** Floor formats compiled from each graph's formatting rules, so they are only compiled once per graph. */
+const compiledFloorFormats: WeakMap<Map<string, string>, CompiledFloorFormats> = new WeakMap();
+
+/**
+ * Get the floor formats from a graph's formatting rules, compiling them if they have not been compiled yet, or
+ * if rules were added since.
+ *
+ * @param {Map<string, string>} formats formatting rules of a graph
+ * @returns {FloorFormat[]} the compiled floor formats
+ */
+function _getFloorFormats(formats: Map<string, string>): FloorFormat[] {
+  const compiled = compiledFloorFormats.get(formats);
+  if (compiled != undefined && compiled.ruleCount === formats.size) {
+    return compiled.floorFormats;
+  }
+
+  const floorFormats: FloorFormat[] = [];
+  formats.forEach((rule: string, format: string) => {
+    if (format.startsWith('floor')) {
+      floorFormats.push({
+        floor: format.endsWith('*') ? undefined : format.substr(FLOOR_FORMAT_KEY_LENGTH),
+        regex: new RegExp(rule),
+      });
+    }
+  });
+
+  compiledFloorFormats.set(formats, { floorFormats, ruleCount: formats.size });
+
+  return floorFormats;
+}
+
+/**
+ * Convert a floor to an integer, where 00 is -1.
+ *
+ * @param {string} floor the floor
+ * @returns {number} the floor as an integer
+ */
+function _floorToInt(floor: string): number {
+  if (floor.length > 1 && floor.charAt(0) === '0') {
+    return 1 - floor.length;
+  } else {
+    return parseInt(floor);
+  }
+}
+
 export default class Node {
 
   /** Original ID used to construct the node. */
@@ -57,6 +114,9 @@ export default class Node {
   /** Floor which the node is on. */
   _floor: string | undefined;
 
+  /** Floor which the node is on, as an integer. */
+  _floorInt: number | undefined;
+
   /**
    * Construct a node ID.
    *
@@ -79,15 +139,11 @@ export default class Node {
 
     // Get floor of the node by comparing it to available floors
     if (this._type === Type.Room || this._type === Type.Hallway) {
-      for (const format of formats.keys()) {
-        if (!format.startsWith('floor')) {
-          continue;
-        }
-
-        const floorRegex = new RegExp(formats.get(format));
-        const match = floorRegex.exec(this._name);
+      for (const floorFormat of _getFloorFormats(formats)) {
+        const match = floorFormat.regex.exec(this._name);
         if (match != undefined) {
-          this._floor = format.endsWith('*') ? match[1] : format.substr(FLOOR_FORMAT_KEY_LENGTH);
+          this._floor = floorFormat.floor == undefined ? match[1] : floorFormat.floor;
+          this._floorInt = this._floor == undefined ? undefined : _floorToInt(this._floor);
           break;
         }
       }
@@ -112,15 +168,11 @@ export default class Node {
    * Gets the floor this room is on, as an integer, where 00 is -1.
    */
   getFloorInt(): number {
-    if (this._floor == undefined) {
+    if (this._floorInt == undefined) {
       throw new Error('Attempting to access floor on non Hallway/Room node');
     }
 
-    if (this._floor.length > 1 && this._floor.charAt(0) === '0') {
-      return 1 - this._floor.length;
-    } else {
-      return parseInt(this._floor);
-    }
+    return this._floorInt;
   }
 
   /**
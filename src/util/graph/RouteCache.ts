@@ -0,0 +1,271 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-09
+ * @file RouteCache.ts
+ * @description Cache of directions between destinations, in memory and on disk.
+ */
+
+// Imports
+import * as Database from '../Database';
+
+// Types
+import { Destination } from '../../../typings/university';
+import { Edge } from './CampusGraph';
+import { Step } from './Directions';
+import { Path } from './Navigation';
+
+/** A route between two destinations, as it is cached. */
+export interface CachedRoute {
+  distance: number; // Distance of the route
+  nodes: string[];  // IDs of the nodes along each path of the route, each starting with the path's source
+  steps: Step[];    // Directions to follow the route
+}
+
+/** Routes saved on disk. */
+export interface StoredRoutes {
+  keys: string[];                         // Keys of the routes, from least to most recently saved
+  routes: { [key: string]: CachedRoute }; // Routes, by key
+}
+
+/** Maximum number of routes to keep in memory. */
+const MAX_MEMORY_ROUTES = 16;
+
+/** Maximum number of routes to keep on disk. */
+const MAX_STORED_ROUTES = 100;
+
+/** Routes most recently used, by key, from least to most recently used. */
+const memoryRoutes: Map<string, CachedRoute> = new Map();
+
+/** Version of the configuration routes are cached for, or undefined if it has not been read yet. */
+let configVersion: number | undefined;
+
+/** Changes to the routes on disk, chained so each one reads the result of the last. */
+let pendingWrite: Promise<void> = Promise.resolve();
+
+/**
+ * Get the version of the configuration which routes are cached for.
+ *
+ * @returns {Promise<number>} the lastUpdatedAt of the configuration
+ */
+async function _getConfigVersion(): Promise<number> {
+  if (configVersion == undefined) {
+    configVersion = await Database.getConfigLastUpdatedAt();
+  }
+
+  return configVersion;
+}
+
+/**
+ * Get the key to cache a route with.
+ *
+ * @param {Destination} start      the starting point of the route
+ * @param {Destination} target     the ending point of the route
+ * @param {boolean}     accessible true for accessible routes, false for any route
+ * @param {boolean}     shortest   true for the shortest route, false for the easiest
+ * @param {number}      version    lastUpdatedAt of the configuration the route was found in
+ * @returns {string} the key for the route
+ */
+function _getRouteKey(
+    start: Destination,
+    target: Destination,
+    accessible: boolean,
+    shortest: boolean,
+    version: number): string {
+  const startKey = `${start.shorthand}/${start.room || ''}`;
+  const targetKey = `${target.shorthand}/${target.room || ''}`;
+
+  return `${startKey}>${targetKey}|${accessible ? 'A' : '-'}${shortest ? 'S' : 'E'}|${version}`;
+}
+
+/**
+ * Add a route to the memory cache, removing the least recently used route if it is full.
+ *
+ * @param {string}      key   key of the route
+ * @param {CachedRoute} route the route
+ */
+function _rememberRoute(key: string, route: CachedRoute): void {
+  memoryRoutes.delete(key);
+  memoryRoutes.set(key, route);
+  if (memoryRoutes.size > MAX_MEMORY_ROUTES) {
+    memoryRoutes.delete(memoryRoutes.keys().next().value);
+  }
+}
+
+/**
+ * Change the routes on disk, after any earlier changes have finished.
+ *
+ * @param {(stored: StoredRoutes) => StoredRoutes} update returns the routes to save, given the routes saved
+ * @returns {Promise<void>} a promise which resolves when the routes have been saved
+ */
+function _updateStoredRoutes(update: (stored: StoredRoutes) => StoredRoutes): Promise<void> {
+  const write = pendingWrite.then(async() => {
+    const stored = await Database.getRoutes();
+    await Database.saveRoutes(update(stored));
+  });
+
+  // Later changes should still be saved if this one fails
+  pendingWrite = write.catch(() => undefined);
+
+  return write;
+}
+
+/**
+ * Get a route from the cache, if it was found for the current configuration.
+ *
+ * @param {Destination} start      the starting point of the route
+ * @param {Destination} target     the ending point of the route
+ * @param {boolean}     accessible true for accessible routes, false for any route
+ * @param {boolean}     shortest   true for the shortest route, false for the easiest
+ * @returns {Promise<CachedRoute|undefined>} the route, or undefined if it is not cached
+ */
+export async function getRoute(
+    start: Destination,
+    target: Destination,
+    accessible: boolean,
+    shortest: boolean): Promise<CachedRoute | undefined> {
+  const key = _getRouteKey(start, target, accessible, shortest, await _getConfigVersion());
+  let route = memoryRoutes.get(key);
+  if (route == undefined) {
+    await pendingWrite;
+    const stored = await Database.getRoutes();
+    route = stored.routes[key];
+  }
+
+  if (route != undefined) {
+    _rememberRoute(key, route);
+  }
+
+  return route;
+}
+
+/**
+ * Save a route to the cache, in memory and on disk.
+ *
+ * @param {Destination} start      the starting point of the route
+ * @param {Destination} target     the ending point of the route
+ * @param {boolean}     accessible true for accessible routes, false for any route
+ * @param {boolean}     shortest   true for the shortest route, false for the easiest
+ * @param {Path[]}      paths      the paths the route follows, in order
+ * @param {Step[]}      steps      directions to follow the route
+ * @returns {Promise<void>} a promise which resolves when the route has been saved to disk
+ */
+export async function saveRoute(
+    start: Destination,
+    target: Destination,
+    accessible: boolean,
+    shortest: boolean,
+    paths: Path[],
+    steps: Step[]): Promise<void> {
+  const key = _getRouteKey(start, target, accessible, shortest, await _getConfigVersion());
+  const route: CachedRoute = {
+    distance: 0,
+    nodes: [],
+    steps,
+  };
+
+  for (const path of paths) {
+    route.distance += path.distance;
+    route.nodes.push(path.source.getId(), ...path.edges.map((edge: Edge) => edge.node.getId()));
+  }
+
+  _rememberRoute(key, route);
+
+  return _updateStoredRoutes((stored: StoredRoutes) => {
+    const keys = stored.keys.filter((storedKey: string) => storedKey !== key);
+    keys.push(key);
+    stored.routes[key] = route;
+    while (keys.length > MAX_STORED_ROUTES) {
+      delete stored.routes[keys.shift()];
+    }
+
+    return { keys, routes: stored.routes };
+  });
+}
+
+/**
+ * Remove every route from the cache.
+ *
+ * @returns {Promise<void>} a promise which resolves when the routes have been removed from disk
+ */
+export function invalidateAllRoutes(): Promise<void> {
+  memoryRoutes.clear();
+
+  return _updateStoredRoutes(() => ({ keys: [], routes: {} }));
+}
+
+/**
+ * Remove every route from the cache. Should be called when new configuration files are installed, since routes
+ * may have changed.
+ *
+ * @param {number} version lastUpdatedAt of the configuration which was installed
+ * @returns {Promise<void>} a promise which resolves when the routes have been removed from disk
+ */
+export function invalidateRoutes(version: number): Promise<void> {
+  configVersion = version;
+
+  return invalidateAllRoutes();
+}
+
+/**
+ * Returns true if a route follows any of a set of edges.
+ *
+ * @param {CachedRoute} route the route
+ * @param {Set<string>} edges keys of the edges, as `<from>><to>`
+ * @returns {boolean} true if the route follows one of the edges
+ */
+function _followsAnyEdge(route: CachedRoute, edges: Set<string>): boolean {
+  for (let i = 1; i < route.nodes.length; i++) {
+    if (edges.has(`${route.nodes[i - 1]}>${route.nodes[i]}`)) {
+      return true;
+    }
+  }
+
+  return false;
+}
+
+/**
+ * Remove the routes which follow any of a set of edges from the cache, leaving other routes cached. Should be
+ * called when edges are closed.
+ *
+ * @param {Array<[string, string]>} edges IDs of the nodes each edge starts from and leads to
+ * @returns {Promise<void>} a promise which resolves when the routes have been removed from disk
+ */
+export function invalidateRoutesThrough(edges: Array<[string, string]>): Promise<void> {
+  const edgeKeys: Set<string> = new Set(edges.map(([ from, to ]: [string, string]) => `${from}>${to}`));
+
+  memoryRoutes.forEach((route: CachedRoute, key: string) => {
+    if (_followsAnyEdge(route, edgeKeys)) {
+      memoryRoutes.delete(key);
+    }
+  });
+
+  return _updateStoredRoutes((stored: StoredRoutes) => {
+    const keys = stored.keys.filter((key: string) => {
+      if (_followsAnyEdge(stored.routes[key], edgeKeys)) {
+        delete stored.routes[key];
+
+        return false;
+      }
+
+      return true;
+    });
+
+    return { keys, routes: stored.routes };
+  });
+}
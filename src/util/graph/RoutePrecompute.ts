@@ -0,0 +1,160 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-10
+ * @file RoutePrecompute.ts
+ * @description Finds directions between the user's consecutive lectures ahead of time, so they are cached.
+ */
+
+// React imports
+import { AsyncStorage } from 'react-native';
+
+// Imports
+import * as Constants from '../../constants';
+import * as Database from '../Database';
+import * as Directions from './Directions';
+import * as Preferences from '../Preferences';
+
+// Types
+import { Course, Destination, Lecture } from '../../../typings/university';
+
+/** A route between the locations of two lectures. */
+export interface LectureRoute {
+  start: Destination;   // Location of the earlier lecture
+  target: Destination;  // Location of the later lecture
+}
+
+/** Longest time between two lectures, in minutes, for the route between them to be found ahead of time. */
+const MAX_MINUTES_BETWEEN_LECTURES = Constants.Time.MINUTES_IN_HOUR;
+
+/** Identifier of the most recently requested job. Older jobs stop when a new one is requested. */
+let latestJob = 0;
+
+/** The job finding routes, or the last job to finish. */
+let runningJob: Promise<void> = Promise.resolve();
+
+/**
+ * Returns true if two destinations are the same place.
+ *
+ * @param {Destination} first  the first destination
+ * @param {Destination} second the second destination
+ * @returns {boolean} true if the destinations are the same building and room
+ */
+function _isSameDestination(first: Destination, second: Destination): boolean {
+  return first.shorthand === second.shorthand && (first.room || '') === (second.room || '');
+}
+
+/**
+ * Get the routes between each pair of back-to-back lectures in the user's schedule, in every semester. Lectures
+ * without a location, or in the same location, are skipped.
+ *
+ * @param {any} semesters the user's schedule, by semester ID
+ * @returns {LectureRoute[]} the unique routes between consecutive lectures
+ */
+export function getConsecutiveLectureRoutes(semesters: any): LectureRoute[] {
+  const routes: LectureRoute[] = [];
+  const routeKeys: Set<string> = new Set();
+
+  for (const semesterId in semesters) {
+    if (!semesters.hasOwnProperty(semesterId)) {
+      continue;
+    }
+
+    // Lectures with locations, by day
+    const lecturesByDay: Map<number, Lecture[]> = new Map();
+    const courses: Course[] = semesters[semesterId].courses || [];
+    for (const course of courses) {
+      for (const lecture of course.lectures) {
+        if (lecture.location == undefined) {
+          continue;
+        }
+
+        const lectures = lecturesByDay.get(lecture.day) || [];
+        lectures.push(lecture);
+        lecturesByDay.set(lecture.day, lectures);
+      }
+    }
+
+    lecturesByDay.forEach((lectures: Lecture[]) => {
+      lectures.sort((a: Lecture, b: Lecture) => a.startTime - b.startTime);
+      for (let i = 0; i < lectures.length - 1; i++) {
+        const start = lectures[i].location;
+        const target = lectures[i + 1].location;
+        if (lectures[i + 1].startTime - lectures[i].endTime > MAX_MINUTES_BETWEEN_LECTURES
+            || _isSameDestination(start, target)) {
+          continue;
+        }
+
+        const routeKey = `${start.shorthand}/${start.room || ''}>${target.shorthand}/${target.room || ''}`;
+        if (!routeKeys.has(routeKey)) {
+          routeKeys.add(routeKey);
+          routes.push({ start, target });
+        }
+      }
+    });
+  }
+
+  return routes;
+}
+
+/**
+ * Find directions between each pair of back-to-back lectures in the user's schedule, so they are cached by the
+ * route cache and available without searching, or downloading any files, when the user asks for them. Routes are
+ * found one at a time, after any earlier job, and a job stops early when a newer one is requested.
+ *
+ * @param {any}     semesters  the user's schedule, by semester ID
+ * @param {boolean} accessible true to find accessible routes, false for any route
+ * @param {boolean} shortest   true to find the shortest routes, false for the easiest
+ * @returns {Promise<void>} a promise which resolves when the routes have been found
+ */
+export function precomputeScheduleRoutes(semesters: any, accessible: boolean, shortest: boolean): Promise<void> {
+  latestJob += 1;
+  const job = latestJob;
+  const routes = getConsecutiveLectureRoutes(semesters);
+
+  runningJob = runningJob.then(async() => {
+    for (const route of routes) {
+      if (job !== latestJob) {
+        // The schedule or configuration changed, so the newer job will find the routes
+        return;
+      }
+
+      try {
+        await Directions.getDirectionsBetween(route.start, route.target, accessible, shortest);
+      } catch (err) {
+        console.error('Route between lectures could not be found.', err);
+      }
+    }
+  });
+
+  return runningJob;
+}
+
+/**
+ * Find directions between each pair of back-to-back lectures in the schedule saved on the device, with the user's
+ * saved routing preferences. Should be called after new configuration files are installed.
+ *
+ * @returns {Promise<void>} a promise which resolves when the routes have been found
+ */
+export async function precomputeSavedScheduleRoutes(): Promise<void> {
+  const semesters = await Database.getSchedule();
+  const accessible = await Preferences.getPrefersWheelchair(AsyncStorage);
+  const shortest = await Preferences.getPrefersShortestRoute(AsyncStorage);
+
+  return precomputeScheduleRoutes(semesters || {}, accessible, shortest);
+}
@@ -0,0 +1,200 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-14
+ * @file ScheduleDistances.ts
+ * @description Finds the walking distance between every pair of lecture locations in each semester of the schedule.
+ */
+
+// React imports
+import { AsyncStorage } from 'react-native';
+
+// Imports
+import * as CampusGraph from './CampusGraph';
+import * as Constants from '../../constants';
+import * as Database from '../Database';
+import * as NativeNavigation from './NativeNavigation';
+import * as Navigation from './Navigation';
+import * as Preferences from '../Preferences';
+
+// Types
+import { Course, Destination } from '../../../typings/university';
+import { DistanceMatrix } from './Navigation';
+
+/** Walking distances between the locations of a semester's lectures. */
+export interface SemesterDistances {
+  accessible: boolean;      // True if the distances only follow accessible paths
+  distances: number[][];    // Distance from each location to each other, in metres, or -1 if there is no path
+  locations: Destination[]; // Locations of the semester's lectures, without duplicates
+  seconds: number[][];      // Time to walk from each location to each other, or -1 if there is no path
+}
+
+/** Walking distances between lecture locations, by semester ID. */
+export interface ScheduleDistances {
+  [semesterId: string]: SemesterDistances;
+}
+
+/** Identifier of the most recently requested job. Older jobs stop when a new one is requested. */
+let latestJob = 0;
+
+/** The job finding distances, or the last job to finish. */
+let runningJob: Promise<void> = Promise.resolve();
+
+/**
+ * Get the key of a location, so each location is only searched once.
+ *
+ * @param {Destination} location the location
+ * @returns {string} the key of the building and room
+ */
+function _getLocationKey(location: Destination): string {
+  return `${location.shorthand}/${location.room || ''}`;
+}
+
+/**
+ * Get the locations of a semester's lectures, without duplicates. Lectures without a location are skipped.
+ *
+ * @param {any} semester the semester, with its courses
+ * @returns {Destination[]} the unique locations, in the order they first appear
+ */
+export function getLectureLocations(semester: any): Destination[] {
+  const locations: Destination[] = [];
+  const locationKeys: Set<string> = new Set();
+  const courses: Course[] = semester.courses || [];
+  for (const course of courses) {
+    for (const lecture of course.lectures) {
+      if (lecture.location == undefined || locationKeys.has(_getLocationKey(lecture.location))) {
+        continue;
+      }
+
+      locationKeys.add(_getLocationKey(lecture.location));
+      locations.push(lecture.location);
+    }
+  }
+
+  return locations;
+}
+
+/**
+ * Find the walking distance and time between every pair of locations, with one search from each location, on the
+ * native routing engine when it is available. Locations without a room start from the building's first door.
+ *
+ * @param {Destination[]} locations  the locations
+ * @param {boolean}       accessible true to force accessible paths, false for any path
+ * @returns {Promise<DistanceMatrix>} the distance and time from each location to each other
+ */
+async function _findDistances(locations: Destination[], accessible: boolean): Promise<DistanceMatrix> {
+  const buildings: Set<string> = new Set(locations.map((location: Destination) => location.shorthand));
+  buildings.add('OUT');
+
+  const graphs = await CampusGraph.getGraphs(buildings);
+  const nodes = locations.map((location: Destination) => Navigation.getCachedNodeOrBuild(
+    location.room ? `R${location.room}` : 'D1',
+    location.shorthand,
+    graphs.get(location.shorthand).formattingRules
+  ));
+
+  if (NativeNavigation.isAvailable()) {
+    return NativeNavigation.findDistanceMatrix(nodes, accessible);
+  }
+
+  return Navigation.findDistanceMatrix(nodes, graphs, accessible);
+}
+
+/**
+ * Find the walking distance between every pair of lecture locations in each semester of the user's schedule, and
+ * save them alongside the schedule. Semesters are searched one at a time, after any earlier job, and a job stops
+ * early without saving when a newer one is requested.
+ *
+ * @param {any}     semesters  the user's schedule, by semester ID
+ * @param {boolean} accessible true to find accessible distances, false for any path
+ * @returns {Promise<void>} a promise which resolves when the distances have been saved
+ */
+export function computeScheduleDistances(semesters: any, accessible: boolean): Promise<void> {
+  latestJob += 1;
+  const job = latestJob;
+
+  runningJob = runningJob.then(async() => {
+    const scheduleDistances: ScheduleDistances = {};
+    for (const semesterId in semesters) {
+      if (!semesters.hasOwnProperty(semesterId)) {
+        continue;
+      }
+
+      if (job !== latestJob) {
+        // The schedule or configuration changed, so the newer job will find the distances
+        return;
+      }
+
+      const locations = getLectureLocations(semesters[semesterId]);
+      try {
+        const matrix = await _findDistances(locations, accessible);
+        scheduleDistances[semesterId] = { accessible, distances: matrix.distances, locations, seconds: matrix.seconds };
+      } catch (err) {
+        console.error(`Distances between lectures in ${semesterId} could not be found.`, err);
+      }
+    }
+
+    if (job === latestJob) {
+      await Database.saveScheduleDistances(scheduleDistances);
+    }
+  });
+
+  return runningJob;
+}
+
+/**
+ * Find the walking distance between every pair of lecture locations in the schedule saved on the device, with the
+ * user's saved routing preferences. Should be called after new configuration files are installed, or edges are
+ * closed or opened.
+ *
+ * @returns {Promise<void>} a promise which resolves when the distances have been saved
+ */
+export async function computeSavedScheduleDistances(): Promise<void> {
+  const semesters = await Database.getSchedule();
+  const accessible = await Preferences.getPrefersWheelchair(AsyncStorage);
+
+  return computeScheduleDistances(semesters || {}, accessible);
+}
+
+/**
+ * Get the time to walk between two lecture locations of a semester, from its saved times. The times include
+ * climbing stairs, waiting for elevators, passing through doors, and crossing streets.
+ *
+ * @param {SemesterDistances} semesterDistances distances between the semester's lecture locations
+ * @param {Destination}       start             location of the earlier lecture
+ * @param {Destination}       target            location of the later lecture
+ * @returns {number|undefined} the time to walk, in minutes, rounded up, or undefined if either location is not a
+ *                             lecture location, the time is not known, or there is no path
+ */
+export function getWalkingMinutes(
+    semesterDistances: SemesterDistances,
+    start: Destination,
+    target: Destination): number | undefined {
+  const locationKeys = semesterDistances.locations.map(_getLocationKey);
+  const startIndex = locationKeys.indexOf(_getLocationKey(start));
+  const targetIndex = locationKeys.indexOf(_getLocationKey(target));
+  if (startIndex < 0
+      || targetIndex < 0
+      || semesterDistances.seconds == undefined
+      || semesterDistances.seconds[startIndex][targetIndex] < 0) {
+    // Distances saved before times were found are unknown until they are found again
+    return undefined;
+  }
+
+  return Math.ceil(semesterDistances.seconds[startIndex][targetIndex] / Constants.Time.SECONDS_IN_MINUTE);
+}
@@ -37,7 +37,7 @@ import path from 'path';
 import { getCachedNodeOrBuild } from '../Navigation';
 
 // Type imports
-import { Graph } from '../CampusGraph';
+import { Edge, Graph } from '../CampusGraph';
 
 const graphTextFiles: Map<string, string> = new Map();
 const testingGraphs = ['GSD_graph.txt', 'OUT_graph.txt', 'STE_graph.txt'];
@@ -90,6 +90,42 @@ describe('CampusGraph-test', () => {
     expect(testGraphs.get('STE')).toBeUndefined();
   });
 
+  it('tests that parsed graphs are cached', async() => {
+    const statsBefore = CampusGraph.getGraphCacheStats();
+    const testGraphs = await CampusGraph.getGraphs(new Set(['GSD']));
+    const statsAfter = CampusGraph.getGraphCacheStats();
+    expect(testGraphs.get('GSD')).toBe(graphs.get('GSD'));
+    expect(statsAfter.hits).toBe(statsBefore.hits + 1);
+    expect(statsAfter.misses).toBe(statsBefore.misses);
+  });
+
+  it('tests that graphs are parsed again after the configuration changes', async() => {
+    CampusGraph.invalidateGraphCache(Date.now());
+    expect(CampusGraph.getGraphCacheStats().size).toBe(0);
+
+    const testGraphs = await CampusGraph.getGraphs(new Set(['GSD']));
+    expect(testGraphs.get('GSD')).not.toBe(graphs.get('GSD'));
+    expect(testGraphs.get('GSD').adjacencies.size).toBe(graphs.get('GSD').adjacencies.size);
+  });
+
+  it('tests that trimming the cache keeps the most recently used graphs', async() => {
+    await CampusGraph.getGraphs(new Set(['STE']));
+    CampusGraph.trimGraphCache(1);
+    expect(CampusGraph.getGraphCacheStats().size).toBe(1);
+
+    const testGraphs = await CampusGraph.getGraphs(new Set(['STE']));
+    expect(testGraphs.get('STE')).toBe(graphs.get('STE'));
+  });
+
+  it('tests that evicted graphs can still be searched with cached nodes', async() => {
+    const gsdGraph = (await CampusGraph.getGraphs(new Set(['GSD']))).get('GSD');
+    CampusGraph.trimGraphCache(0);
+    expect(CampusGraph.getGraphCacheStats().size).toBe(0);
+
+    const gsdDoorNode = getCachedNodeOrBuild('D1', 'GSD', gsdGraph.formattingRules);
+    expect(gsdGraph.adjacencies.has(gsdDoorNode)).toBeTruthy();
+  });
+
   it('tests that graphs are successfully loaded', () => {
     const gsdGraph = graphs.get('GSD');
     const outGraph = graphs.get('OUT');
@@ -252,4 +288,28 @@ describe('CampusGraph-test', () => {
 
   });
 
+  it('tests that accessible graphs only have edges accessible paths can follow', () => {
+    const gsdGraph = graphs.get('GSD');
+    const accessibleGraph = CampusGraph.getAccessibleGraph(gsdGraph);
+    expect(CampusGraph.getAccessibleGraph(gsdGraph)).toBe(accessibleGraph);
+    expect(accessibleGraph.adjacencies.size).toBe(gsdGraph.adjacencies.size);
+
+    const hallNode = getCachedNodeOrBuild('H1h5', 'GSD', gsdGraph.formattingRules);
+    const stairNode = getCachedNodeOrBuild('SB', 'GSD', gsdGraph.formattingRules);
+    const hallEdges = gsdGraph.adjacencies.get(hallNode).filter((edge: Edge) => edge.node !== stairNode);
+    expect(accessibleGraph.adjacencies.get(hallNode)).toEqual(hallEdges);
+    expect(accessibleGraph.adjacencies.get(stairNode)).toEqual(gsdGraph.adjacencies.get(stairNode));
+  });
+
+  it('tests that graphs list each of their nodes once', () => {
+    const gsdGraph = graphs.get('GSD');
+    expect(new Set(gsdGraph.nodes).size).toBe(gsdGraph.nodes.length);
+    expect(gsdGraph.nodes).toContain(getCachedNodeOrBuild('SB', 'GSD', gsdGraph.formattingRules));
+    gsdGraph.adjacencies.forEach((edges: Edge[]) => {
+      for (const edge of edges) {
+        expect(gsdGraph.nodes).toContain(edge.node);
+      }
+    });
+  });
+
 });
\ No newline at end of file
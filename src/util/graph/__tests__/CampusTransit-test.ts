@@ -0,0 +1,159 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-11
+ * @file CampusTransit-test.ts
+ * @description Tests the links between campuses.
+ */
+'use strict';
+
+const configFiles: Map<string, any> = new Map();
+
+jest.setMock('../../Configuration', {
+  getConfig: async(configFile: string): Promise<any> => {
+    if (!configFiles.has(configFile)) {
+      throw new Error(`Config file ${configFile} does not exist`);
+    }
+
+    return configFiles.get(configFile);
+  },
+});
+
+// Imports
+import * as CampusTransit from '../CampusTransit';
+
+const shuttle = {
+  additional_info: [],
+  schedules: [],
+  stops: [
+    {
+      id: 'main',
+      incoming: { latitude: 45.4225, longitude: -75.6840 },
+      name: 'Main campus',
+      outgoing: { latitude: 45.4226, longitude: -75.6842 },
+    },
+    { id: 'alta', incoming: {}, name_en: 'Alta Vista', name_fr: 'Alta Vista', outgoing: {} },
+  ],
+};
+
+const transitCampuses = [
+  {
+    id: 'main',
+    latitude: 45.4231,
+    longitude: -75.6831,
+    name: 'Main',
+    stops: { 1: [{ number: 95, sign: 'A' }], 2: [{ number: 7, sign: 'B' }] },
+  },
+  {
+    id: 'alta',
+    latitude: 45.3925,
+    longitude: -75.6517,
+    name: 'Alta Vista',
+    stops: { 3: [{ number: 106, sign: 'C' }] },
+  },
+  {
+    id: 'lees',
+    latitude: 45.4163,
+    longitude: -75.6696,
+    name: 'Lees',
+    stops: { 4: [{ number: 16, sign: 'D' }, { number: 7, sign: 'E' }] },
+  },
+  { id: 'far', latitude: 45.3, longitude: -75.9, name: 'Far', stops: { 5: [{ number: 300, sign: 'F' }] } },
+];
+
+const transitSystem = {
+  campuses: transitCampuses,
+  stopDetails: {
+    1: { code: '3000', latitude: 45.4228, longitude: -75.6838, name: 'Campus' },
+    2: { code: '3001', latitude: 45.4234, longitude: -75.6825, name: 'King Edward' },
+    3: { code: '3002', latitude: 45.3921, longitude: -75.6520, name: 'Smyth' },
+    4: { code: '3003', latitude: 45.4160, longitude: -75.6701, name: 'Lees' },
+    5: { code: '3004', latitude: 45.3003, longitude: -75.9004, name: 'Far' },
+  },
+};
+
+describe('CampusTransit', () => {
+
+  beforeEach(() => {
+    configFiles.clear();
+    configFiles.set('/shuttle.json', shuttle);
+    configFiles.set('/transit.json', transitSystem);
+    CampusTransit.invalidateCampusLinks();
+  });
+
+  it('links each pair of shuttle stops, and campuses on the same transit routes', () => {
+    const links = CampusTransit.buildCampusLinks(shuttle as any, transitSystem as any);
+    expect(links.get('main').map((link: CampusTransit.CampusLink) => link.target)).toEqual([ 'alta', 'lees' ]);
+    expect(links.get('lees')).toEqual([{
+      routes: [ 7 ],
+      source: 'lees',
+      sourceName: transitCampuses[2],
+      sourceStop: transitSystem.stopDetails[4],
+      target: 'main',
+      targetName: transitCampuses[0],
+      targetStop: transitSystem.stopDetails[2],
+    }]);
+    expect(links.has('far')).toBeFalsy();
+  });
+
+  it('builds no links without shuttle or transit information', () => {
+    expect(CampusTransit.buildCampusLinks(undefined, undefined).size).toBe(0);
+  });
+
+  it('prefers the shuttle between the same campuses', async() => {
+    const route = await CampusTransit.getCampusRoute('main', 'alta');
+    expect(route.length).toBe(1);
+    expect(route[0].routes).toEqual([]);
+    expect(route[0].targetName).toBe(shuttle.stops[1]);
+    expect(route[0].sourceStop).toBe(shuttle.stops[0].outgoing);
+    expect(route[0].targetStop).toBeUndefined();
+  });
+
+  it('takes multiple links between campuses which are not linked directly', async() => {
+    const route = await CampusTransit.getCampusRoute('lees', 'alta');
+    expect(route.map((link: CampusTransit.CampusLink) => [ link.source, link.target ])).toEqual([
+      [ 'lees', 'main' ],
+      [ 'main', 'alta' ],
+    ]);
+  });
+
+  it('finds no route to unlinked campuses', async() => {
+    expect(await CampusTransit.getCampusRoute('main', 'far')).toBeUndefined();
+    expect(await CampusTransit.getCampusRoute('main', 'unknown')).toBeUndefined();
+  });
+
+  it('links campuses by transit when the shuttle is not available', async() => {
+    console.error = jest.fn();
+    configFiles.delete('/shuttle.json');
+
+    const route = await CampusTransit.getCampusRoute('main', 'lees');
+    expect(route[0].routes).toEqual([ 7 ]);
+    expect(await CampusTransit.getCampusRoute('main', 'alta')).toBeUndefined();
+    expect(console.error).toHaveBeenCalledTimes(1);
+  });
+
+  it('loads the links only once until they are invalidated', async() => {
+    await CampusTransit.getCampusRoute('main', 'alta');
+    configFiles.clear();
+    expect(await CampusTransit.getCampusRoute('main', 'alta')).toBeDefined();
+
+    console.error = jest.fn();
+    CampusTransit.invalidateCampusLinks();
+    expect(await CampusTransit.getCampusRoute('main', 'alta')).toBeUndefined();
+  });
+});
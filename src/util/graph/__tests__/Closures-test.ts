@@ -0,0 +1,162 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-12
+ * @file Closures-test.ts
+ * @description Tests closing edges of parsed graphs at runtime.
+ */
+'use strict';
+
+const graphTextFiles: Map<string, string> = new Map();
+const configFiles: Map<string, any> = new Map();
+
+jest.setMock('../../Configuration', {
+  getConfig: async(configFile: string): Promise<any> => {
+    if (!configFiles.has(configFile)) {
+      throw new Error(`Config file ${configFile} does not exist`);
+    }
+
+    return configFiles.get(configFile);
+  },
+  getTextFile: async(textFile: string): Promise<string> => {
+    return graphTextFiles.get(textFile);
+  },
+});
+
+// Mock the route cache, so routes are not removed from disk
+jest.mock('../RouteCache', () => ({
+  invalidateAllRoutes: jest.fn(async() => undefined),
+  invalidateRoutesThrough: jest.fn(async() => undefined),
+}));
+
+// Mock finding routes between lectures, so routes are not searched for
+jest.mock('../RoutePrecompute', () => ({
+  precomputeSavedScheduleRoutes: jest.fn(async() => undefined),
+}));
+
+// Imports
+import fs from 'fs';
+import path from 'path';
+import Node from '../Node';
+import * as CampusGraph from '../CampusGraph';
+import * as Closures from '../Closures';
+import * as Navigation from '../Navigation';
+import * as RouteCache from '../RouteCache';
+import * as RoutePrecompute from '../RoutePrecompute';
+
+// Types
+import { Graph } from '../CampusGraph';
+
+/* tslint:disable no-magic-numbers */
+
+// Distance of the shortest path from H1h12 to H1h11, and of the shortest path without the edge from H1h9 to H1h11
+const openDistance = 292;
+const closedDistance = 461;
+
+/* tslint:enable no-magic-numbers */
+
+const h1h9 = Node.buildId('H1h9', 'STE');
+const h1h11 = Node.buildId('H1h11', 'STE');
+const closure = { building: 'STE', from: h1h9, to: h1h11 };
+
+let steGraph: Graph;
+
+/**
+ * Get the distance of the shortest path from H1h12 to H1h11.
+ *
+ * @returns {number|undefined} the distance, or undefined if there is no path
+ */
+function _getDistance(): number | undefined {
+  const startNode = Navigation.getCachedNodeOrBuild('H1h12', 'STE', steGraph.formattingRules);
+  const targetNode = Navigation.getCachedNodeOrBuild('H1h11', 'STE', steGraph.formattingRules);
+  const shortestPath = Navigation.findShortestPathBetween(startNode, targetNode, steGraph, false, false);
+
+  return shortestPath == undefined ? undefined : shortestPath.distance;
+}
+
+describe('Closures', () => {
+
+  beforeEach(async() => {
+    const dir = path.join(__dirname, '..', '__mocks__', 'STE_graph.txt');
+    graphTextFiles.set('/STE_graph.txt', fs.readFileSync(dir, 'utf8'));
+    steGraph = (await CampusGraph.getGraphs(new Set([ 'STE' ]))).get('STE');
+
+    configFiles.clear();
+    await Closures.setClosures([]);
+    (RouteCache.invalidateAllRoutes as jest.Mock<any>).mockClear();
+    (RouteCache.invalidateRoutesThrough as jest.Mock<any>).mockClear();
+    (RoutePrecompute.precomputeSavedScheduleRoutes as jest.Mock<any>).mockClear();
+  });
+
+  it('avoids closed edges in both directions', async() => {
+    expect(_getDistance()).toBe(openDistance);
+
+    await Closures.setClosures([ closure ]);
+    expect(_getDistance()).toBe(closedDistance);
+    const targetNode = Navigation.getCachedNodeOrBuild('H1h11', 'STE', steGraph.formattingRules);
+    for (const edge of steGraph.adjacencies.get(targetNode)) {
+      expect(Closures.isEdgeClosed(steGraph, edge)).toBe(edge.node.getId() === h1h9);
+    }
+  });
+
+  it('opens edges which are no longer closed', async() => {
+    await Closures.setClosures([ closure ]);
+    await Closures.setClosures([]);
+    expect(_getDistance()).toBe(openDistance);
+  });
+
+  it('only closes edges in the closure\'s building', async() => {
+    await Closures.setClosures([{ ...closure, building: 'GSD' }]);
+    expect(_getDistance()).toBe(openDistance);
+  });
+
+  it('removes cached routes through newly closed edges', async() => {
+    await Closures.setClosures([ closure ]);
+    expect(RouteCache.invalidateRoutesThrough).toHaveBeenCalledWith([[ h1h9, h1h11 ], [ h1h11, h1h9 ]]);
+    expect(RouteCache.invalidateAllRoutes).not.toHaveBeenCalled();
+    expect(RoutePrecompute.precomputeSavedScheduleRoutes).toHaveBeenCalledTimes(1);
+  });
+
+  it('removes every cached route when edges are opened', async() => {
+    await Closures.setClosures([ closure ]);
+    await Closures.setClosures([]);
+    expect(RouteCache.invalidateAllRoutes).toHaveBeenCalledTimes(1);
+  });
+
+  it('does nothing when the closures have not changed', async() => {
+    await Closures.setClosures([ closure ]);
+    await Closures.setClosures([ closure ]);
+    expect(RouteCache.invalidateRoutesThrough).toHaveBeenCalledTimes(1);
+    expect(RoutePrecompute.precomputeSavedScheduleRoutes).toHaveBeenCalledTimes(1);
+  });
+
+  it('loads closures from a feed', async() => {
+    (global as any).fetch = jest.fn(async() => ({ json: async(): Promise<any> => ({ closures: [ closure ] }) }));
+    await Closures.updateClosuresFromFeed('http://localhost/closures.json');
+    expect(_getDistance()).toBe(closedDistance);
+  });
+
+  it('loads closures from the closures config file, if it exists', async() => {
+    await Closures.updateClosuresFromFile();
+    expect(RouteCache.invalidateRoutesThrough).not.toHaveBeenCalled();
+
+    configFiles.set('/closures.json', { closures: [ closure ] });
+    await Closures.updateClosuresFromFile();
+    expect(_getDistance()).toBe(closedDistance);
+  });
+});
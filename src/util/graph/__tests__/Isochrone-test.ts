@@ -0,0 +1,151 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-13
+ * @file Isochrone-test.ts
+ * @description Tests finding the places which can be walked to within a time.
+ */
+
+jest.setMock('../../Configuration', {
+  getTextFile: async(textFile: string): Promise<string> => {
+    return graphTextFiles.get(textFile);
+  },
+});
+
+// Mock translations for days
+jest.mock('../../../../assets/json/CoreTranslations.json', () => ({
+  en: {
+    friday: 'Day',
+    monday: 'Day',
+    saturday: 'Day',
+    sunday: 'Day',
+    thursday: 'Day',
+    tuesday: 'Day',
+    wednesday: 'Day',
+  },
+  fr: {
+    friday: 'Jour',
+    monday: 'Jour',
+    saturday: 'Jour',
+    sunday: 'Jour',
+    thursday: 'Jour',
+    tuesday: 'Jour',
+    wednesday: 'Jour',
+  },
+}));
+
+// Imports
+import fs from 'fs';
+import path from 'path';
+import * as Isochrone from '../Isochrone';
+
+// Type imports
+import { ReachablePlace } from '../Isochrone';
+
+const graphTextFiles: Map<string, string> = new Map();
+const testingGraphs = ['GSD_graph.txt', 'OUT_graph.txt', 'STE_graph.txt'];
+
+// tslint:disable no-magic-numbers
+const start = { room: '101', shorthand: 'GSD' };
+const shortWalk = 1;
+const longWalk = 60;
+// tslint:enable no-magic-numbers
+
+/**
+ * Get the names of places, by building and room.
+ *
+ * @param {ReachablePlace[]} places the places
+ * @returns {string[]} the name of each place
+ */
+function _getNames(places: ReachablePlace[]): string[] {
+  return places.map((place: ReachablePlace) => `${place.destination.shorthand} ${place.destination.room || ''}`.trim());
+}
+
+/**
+ * Check that places are sorted from nearest to farthest, and can be walked to within a time.
+ *
+ * @param {ReachablePlace[]} places  the places
+ * @param {number}           minutes the time to walk
+ */
+function _expectWithin(places: ReachablePlace[], minutes: number): void {
+  for (let i = 0; i < places.length; i++) {
+    expect(places[i].minutes).toBeLessThanOrEqual(minutes);
+    expect(places[i].distance).toBeLessThanOrEqual(minutes * Isochrone.WALKING_METRES_PER_MINUTE);
+    if (i > 0) {
+      expect(places[i].minutes).toBeGreaterThanOrEqual(places[i - 1].minutes);
+    }
+  }
+}
+
+describe('Isochrone', () => {
+
+  beforeEach(async() => {
+    for (const file of testingGraphs) {
+      const dir = path.join(__dirname, '..', '__mocks__', `${file}`);
+      graphTextFiles.set(
+        `/${file}`,
+        await fs.readFileSync(dir, 'utf8')
+      );
+    }
+
+    Isochrone.invalidateIsochrones();
+  });
+
+  it('finds rooms and buildings across the campus, from nearest to farthest', async() => {
+    const isochrone = await Isochrone.getReachableWithin(start, longWalk, false);
+    expect(_getNames(isochrone.buildings)).toEqual([ 'GSD', 'STE' ]);
+    expect(_getNames(isochrone.rooms)).toEqual(expect.arrayContaining([ 'GSD 100', 'GSD 200', 'STE 300' ]));
+    expect(_getNames(isochrone.rooms)).not.toContain('GSD 101');
+    expect(isochrone.doors.map((door: ReachablePlace) => door.door)).toContain('BSTE#D1');
+
+    _expectWithin(isochrone.buildings, longWalk);
+    _expectWithin(isochrone.doors, longWalk);
+    _expectWithin(isochrone.rooms, longWalk);
+  });
+
+  it('stops at the time to walk', async() => {
+    const isochrone = await Isochrone.getReachableWithin(start, shortWalk, false);
+    expect(_getNames(isochrone.buildings)).toEqual([ 'GSD' ]);
+    expect(_getNames(isochrone.rooms)).not.toContain('STE 300');
+
+    _expectWithin(isochrone.buildings, shortWalk);
+    _expectWithin(isochrone.doors, shortWalk);
+    _expectWithin(isochrone.rooms, shortWalk);
+  });
+
+  it('counts the time to pass through doors', async() => {
+    const isochrone = await Isochrone.getReachableWithin(start, longWalk, false);
+    expect(isochrone.doors.length).toBeGreaterThan(0);
+
+    /* tslint:disable no-magic-numbers */
+    for (const door of isochrone.doors) {
+      const walkingSeconds = door.distance * 60 / Isochrone.WALKING_METRES_PER_MINUTE;
+      expect(door.minutes).toBeGreaterThanOrEqual(Math.ceil((walkingSeconds + 5) / 60));
+    }
+    /* tslint:enable no-magic-numbers */
+  });
+
+  it('answers shorter times from the isochrone cached for the same start', async() => {
+    const shortIsochrone = await Isochrone.getReachableWithin(start, shortWalk, false);
+    Isochrone.invalidateIsochrones();
+
+    await Isochrone.getReachableWithin(start, longWalk, false);
+    expect(await Isochrone.getReachableWithin(start, shortWalk, false)).toEqual(shortIsochrone);
+  });
+
+});
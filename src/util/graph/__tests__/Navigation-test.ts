@@ -51,14 +51,14 @@ jest.mock('../../../../assets/json/CoreTranslations.json', () => ({
 
 // Imports
 import fs from 'fs';
-import Node from '../Node';
+import { default as Node, Type as NodeType } from '../Node';
 import path from 'path';
 import * as CampusGraph from '../CampusGraph';
 import * as Navigation from '../Navigation';
 
 // Type imports
-import { Graph } from '../CampusGraph';
-import { Path } from '../Navigation';
+import { Edge, Graph } from '../CampusGraph';
+import { Path, Reach } from '../Navigation';
 
 // Graphs to test on
 let graphs: Map<string, Graph>;
@@ -161,6 +161,7 @@ describe('Navigation-test', () => {
                 node: endNodes[0],
               },
             ],
+            seconds: 63.50999999999999,
             source: startNode,
           },
         ],
@@ -182,6 +183,7 @@ describe('Navigation-test', () => {
                 node: endNodes[1],
               },
             ],
+            seconds: 29.795,
             source: startNode,
           },
         ],
@@ -206,6 +208,31 @@ describe('Navigation-test', () => {
     ).toEqual(new Map());
   });
 
+  it('tests that paths are found to the nearest nodes', () => {
+    const steGraph = graphs.get('STE');
+    const startNode = Navigation.getCachedNodeOrBuild('H1h12', 'STE', steGraph.formattingRules);
+    const candidates: Set<Node> = new Set();
+    for (const node of steGraph.adjacencies.keys()) {
+      if (node !== startNode && node.getType() === NodeType.Hallway) {
+        candidates.add(node);
+      }
+    }
+
+    const allPaths = Navigation.findShortestPathsBetween(startNode, candidates, steGraph, false, false);
+    const allDistances = Array.from(allPaths.values())
+        .map((shortestPath: Path) => shortestPath.distance)
+        .sort((a: number, b: number) => a - b);
+
+    const count = 3;
+    const nearestPaths = Navigation.findNearestPathsBetween(startNode, candidates, count, steGraph, false);
+    expect(nearestPaths.size).toBe(count);
+    expect(Array.from(nearestPaths.values()).map((nearestPath: Path) => nearestPath.distance))
+        .toEqual(allDistances.slice(0, count));
+    nearestPaths.forEach((nearestPath: Path, node: Node) => {
+      expect(nearestPath).toEqual(allPaths.get(node));
+    });
+  });
+
   it('tests that a path is found between two nodes', () => {
     const steGraph = graphs.get('STE');
     const startNode = Navigation.getCachedNodeOrBuild('H1h12', 'STE', steGraph.formattingRules);
@@ -246,6 +273,7 @@ describe('Navigation-test', () => {
           node: endNode,
         },
       ],
+      seconds: 63.50999999999999,
       source: startNode,
     };
     /* tslint:enable no-magic-numbers */
@@ -255,6 +283,51 @@ describe('Navigation-test', () => {
     ).toEqual(expectedPath);
   });
 
+  it('tests that walking times include the time to wait for and ride an elevator', () => {
+    const steGraph = graphs.get('STE');
+    const startNode = Navigation.getCachedNodeOrBuild('H1h8', 'STE', steGraph.formattingRules);
+    const endNodes: Node[] = [
+      Navigation.getCachedNodeOrBuild('H2h16', 'STE', steGraph.formattingRules),
+      Navigation.getCachedNodeOrBuild('H3h17', 'STE', steGraph.formattingRules),
+    ];
+    const paths = Navigation.findShortestPathsBetween(startNode, new Set(endNodes), steGraph, false, false);
+
+    /* tslint:disable no-magic-numbers */
+    const walkingSeconds = (distance: number): number =>
+        distance * Navigation.INNER_UNIT_TO_M * 60 / Navigation.WALKING_METRES_PER_MINUTE;
+    expect(paths.get(endNodes[0]).seconds).toBeCloseTo(walkingSeconds(54 + 44) + 30 + 5);
+    expect(paths.get(endNodes[1]).seconds).toBeCloseTo(walkingSeconds(54 + 44) + 30 + 10);
+    /* tslint:enable no-magic-numbers */
+  });
+
+  it('tests that reachable nodes are reached by their fastest path, and their distance is walked', () => {
+    const steGraph = graphs.get('STE');
+    const startNode = Navigation.getCachedNodeOrBuild('H1h8', 'STE', steGraph.formattingRules);
+    const reached = Navigation.findReachableWithin(
+      new Map([[ startNode, { distance: 0, seconds: 0 } ]]),
+      Infinity,
+      Navigation.INNER_UNIT_TO_M,
+      steGraph,
+      false
+    );
+    const paths = Navigation.findShortestPathsBetween(startNode, new Set(reached.keys()), steGraph, false, false);
+
+    /* tslint:disable no-magic-numbers */
+    paths.forEach((path: Path, node: Node) => {
+      const reach = reached.get(node);
+      expect(reach.seconds).toBeLessThanOrEqual(path.seconds + 1e-6);
+      expect(reach.distance * 60 / Navigation.WALKING_METRES_PER_MINUTE).toBeLessThanOrEqual(reach.seconds + 1e-6);
+    });
+    /* tslint:enable no-magic-numbers */
+
+    // Nodes are reached from fastest to slowest
+    let lastSeconds = 0;
+    reached.forEach((reach: Reach) => {
+      expect(reach.seconds).toBeGreaterThanOrEqual(lastSeconds);
+      lastSeconds = reach.seconds;
+    });
+  });
+
   it('tests that the best path across buildings is found', () => {
     const outGraph = graphs.get('OUT');
 
@@ -410,10 +483,129 @@ describe('Navigation-test', () => {
             node: Navigation.getCachedNodeOrBuild('H1h2', 'GSD', gsdGraph.formattingRules),
           },
         ],
+        seconds: 802.5874999999999,
         source: steStartNode,
       }
     );
 
   });
 
-});
\ No newline at end of file
+  it('tests that alternative paths are found between two nodes, from shortest to longest', () => {
+    const steGraph = graphs.get('STE');
+    const startNode = Navigation.getCachedNodeOrBuild('H1h12', 'STE', steGraph.formattingRules);
+    const endNode = Navigation.getCachedNodeOrBuild('H1h11', 'STE', steGraph.formattingRules);
+
+    const count = 3;
+    const paths = Navigation.findKShortestPathsBetween(startNode, endNode, count, steGraph, false);
+    const pathNodes = paths.map((alternative: Path) =>
+      [ alternative.source, ...alternative.edges.map((edge: Edge) => edge.node) ].map((node: Node) => node.getId()));
+
+    // Only two paths do not visit a node twice
+    /* tslint:disable no-magic-numbers */
+    expect(paths.map((alternative: Path) => alternative.distance)).toEqual([ 292, 461 ]);
+    /* tslint:enable no-magic-numbers */
+    expect(paths[0]).toEqual(Navigation.findShortestPathBetween(startNode, endNode, steGraph, false, false));
+    expect(pathNodes[1]).toEqual([ 'H1h12', 'H1h1', 'H1h2', 'H1h14', 'H1h15', 'H1h11' ]
+        .map((id: string) => Node.buildId(id, 'STE')));
+
+    expect(Navigation.findKShortestPathsBetween(startNode, endNode, 1, steGraph, false)).toEqual([ paths[0] ]);
+    expect(Navigation.findKShortestPathsBetween(startNode, endNode, 0, steGraph, false)).toEqual([]);
+  });
+
+  it('tests that alternative paths across buildings use different doors', () => {
+    const outGraph = graphs.get('OUT');
+    const steGraph = graphs.get('STE');
+    const gsdGraph = graphs.get('GSD');
+    const steStartNode = Navigation.getCachedNodeOrBuild('H1h1', 'STE', steGraph.formattingRules);
+    const gsdTargetNode = Navigation.getCachedNodeOrBuild('H1h2', 'GSD', gsdGraph.formattingRules);
+
+    const doors = CampusGraph.getDoorsForBuildings(outGraph, new Set(['GSD', 'STE']));
+    const steDoors = doors.get('STE');
+    const gsdDoors = doors.get('GSD');
+
+    const count = 3;
+    const paths = Navigation.findBestPathsAcross(
+      steStartNode,
+      steDoors,
+      gsdTargetNode,
+      gsdDoors,
+      graphs,
+      true,
+      true,
+      count
+    );
+    expect(paths.length).toBeGreaterThan(0);
+    expect(paths.length).toBeLessThanOrEqual(count);
+    expect(paths[0])
+        .toEqual(Navigation.findBestPathAcross(steStartNode, steDoors, gsdTargetNode, gsdDoors, graphs, true, true));
+
+    const exits = paths.map((alternative: Path) =>
+      alternative.edges.find((edge: Edge) => edge.node.getType() === NodeType.Door).node);
+    expect(new Set(exits).size).toBe(paths.length);
+  });
+
+  it('tests that the best path across buildings is found between two nodes', () => {
+    const outGraph = graphs.get('OUT');
+    const steGraph = graphs.get('STE');
+    const gsdGraph = graphs.get('GSD');
+    const steStartNode = Navigation.getCachedNodeOrBuild('H1h1', 'STE', steGraph.formattingRules);
+    const gsdTargetNode = Navigation.getCachedNodeOrBuild('H1h2', 'GSD', gsdGraph.formattingRules);
+
+    const doors = CampusGraph.getDoorsForBuildings(outGraph, new Set(['GSD', 'STE']));
+    const steDoors = doors.get('STE');
+    const gsdDoors = doors.get('GSD');
+
+    const steStartToExits = Navigation.findShortestPathsBetween(steStartNode, steDoors, steGraph, true, false);
+    const gsdExitsToTarget = Navigation.findShortestPathsBetween(gsdTargetNode, gsdDoors, gsdGraph, true, true);
+    const exitDistances = Navigation.findDistancesBetweenDoors(steDoors, gsdDoors, outGraph);
+
+    expect(Navigation.findBestPathAcross(steStartNode, steDoors, gsdTargetNode, gsdDoors, graphs, true, true))
+        .toEqual(Navigation.getBestPathAcross(steStartToExits, gsdExitsToTarget, exitDistances, graphs, true, true));
+  });
+
+  it('tests that the easiest path across buildings is found with a single search', () => {
+    const outGraph = graphs.get('OUT');
+    const steGraph = graphs.get('STE');
+    const gsdGraph = graphs.get('GSD');
+    const steStartNode = Navigation.getCachedNodeOrBuild('H1h1', 'STE', steGraph.formattingRules);
+    const gsdTargetNode = Navigation.getCachedNodeOrBuild('R200', 'GSD', gsdGraph.formattingRules);
+
+    const doors = CampusGraph.getDoorsForBuildings(outGraph, new Set(['GSD', 'STE']));
+    const steDoors = doors.get('STE');
+    const gsdDoors = doors.get('GSD');
+
+    const easiestPath =
+        Navigation.findEasiestPathAcross(steStartNode, steDoors, gsdTargetNode, gsdDoors, graphs, false);
+    expect(Navigation.findBestPathAcross(steStartNode, steDoors, gsdTargetNode, gsdDoors, graphs, false, false))
+        .toEqual(easiestPath);
+
+    // Each edge starts from the node the last edge led to, through a door of each building
+    let node = steStartNode;
+    for (const edge of easiestPath.edges) {
+      const graph = [ steGraph, outGraph, gsdGraph ].find((candidate: Graph) =>
+        candidate.adjacencies.has(node) && candidate.adjacencies.get(node).indexOf(edge) >= 0);
+      expect(graph).toBeDefined();
+      node = edge.node;
+    }
+    expect(node).toBe(gsdTargetNode);
+    expect(easiestPath.edges.some((edge: Edge) => steDoors.has(edge.node))).toBeTruthy();
+    expect(easiestPath.edges.some((edge: Edge) => gsdDoors.has(edge.node))).toBeTruthy();
+    expect(easiestPath.distance)
+        .toBe(easiestPath.edges.reduce((distance: number, edge: Edge) => distance + edge.distance, 0));
+  });
+
+  it('tests that the easiest path across buildings starts and ends at doors', () => {
+    const outGraph = graphs.get('OUT');
+    const steGraph = graphs.get('STE');
+    const gsdGraph = graphs.get('GSD');
+    const steDoor = Navigation.getCachedNodeOrBuild('D2', 'STE', steGraph.formattingRules);
+    const gsdDoor = Navigation.getCachedNodeOrBuild('D1', 'GSD', gsdGraph.formattingRules);
+
+    const doors = CampusGraph.getDoorsForBuildings(outGraph, new Set(['GSD', 'STE']));
+    const easiestPath =
+        Navigation.findEasiestPathAcross(steDoor, doors.get('STE'), gsdDoor, doors.get('GSD'), graphs, false);
+    expect(easiestPath.edges.every((edge: Edge) => outGraph.adjacencies.has(edge.node))).toBeTruthy();
+    expect(easiestPath.edges[easiestPath.edges.length - 1].node).toBe(gsdDoor);
+  });
+
+});
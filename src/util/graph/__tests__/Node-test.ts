@@ -68,4 +68,13 @@ describe('Node-test', () => {
     expect(testNode.getFloorInt()).toBe(-1);
   });
 
+  it('tests that floor rules added after nodes are built are used', () => {
+    const graphRules: Map<string, string> = new Map();
+    graphRules.set('floor1', '^(1).*$');
+    expect(new Node('H1h1', 'STE', graphRules).getFloorInt()).toBe(1);
+
+    graphRules.set('floor2', '^(2).*$');
+    expect(new Node('H2h1', 'STE', graphRules).getFloorInt()).toBe(2);
+  });
+
 });
\ No newline at end of file
@@ -0,0 +1,180 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-09
+ * @file RouteCache-test.ts
+ * @description Tests the cache of directions between destinations.
+ */
+'use strict';
+
+// Mock the react-native-simple-store module
+jest.mock('react-native-simple-store');
+
+// Types
+import { Step } from '../Directions';
+import { Path } from '../Navigation';
+
+// Number of routes the cache keeps on disk
+const maxStoredRoutes = 100;
+
+// Number of routes the cache keeps in memory
+const maxMemoryRoutes = 16;
+
+// Configuration version routes are initially cached for
+const initialVersion = 1234;
+
+const start = { shorthand: 'HMA', room: '101' };
+const target = { shorthand: 'HMA', room: '102' };
+
+const path = {
+  distance: 10,
+  edges: [
+    { node: { getId: (): string => 'N2' } },
+    { node: { getId: (): string => 'R2' } },
+  ],
+  source: { getId: (): string => 'R1' },
+} as any as Path;
+
+const steps = [
+  { description: 'Leave the room', key: 0 },
+  { description: 'Enter the room', key: 1 },
+] as any as Step[];
+
+/**
+ * Get a destination to cache a route to.
+ *
+ * @param {number} room number of the room
+ * @returns {any} a destination in HMA
+ */
+function _getTarget(room: number): any {
+  return { shorthand: 'HMA', room: `${room}` };
+}
+
+describe('RouteCache', () => {
+
+  let store: any;
+  let Database: any;
+  let RouteCache: any;
+
+  /**
+   * Load the cache as it would be when the app starts, with a set of values on disk.
+   *
+   * @param {any} datastore values on disk, by key
+   */
+  function _startSession(datastore: any): void {
+    jest.resetModules();
+    store = require('react-native-simple-store').default;
+    store.__setDatastore(datastore);
+    Database = require('../../Database');
+    RouteCache = require('../RouteCache');
+  }
+
+  beforeEach(() => {
+    _startSession({ configLastUpdatedAt: JSON.stringify({ time: initialVersion }) });
+  });
+
+  it('returns undefined for routes which were not cached', async() => {
+    expect(await RouteCache.getRoute(start, target, false, true)).toBeUndefined();
+  });
+
+  it('returns saved routes', async() => {
+    await RouteCache.saveRoute(start, target, false, true, [ path ], steps);
+    expect(await RouteCache.getRoute(start, target, false, true)).toEqual({
+      distance: 10,
+      nodes: [ 'R1', 'N2', 'R2' ],
+      steps,
+    });
+  });
+
+  it('saves routes which follow multiple paths', async() => {
+    await RouteCache.saveRoute(start, target, false, true, [ path, path ], steps);
+    expect(await RouteCache.getRoute(start, target, false, true)).toEqual({
+      distance: 20,
+      nodes: [ 'R1', 'N2', 'R2', 'R1', 'N2', 'R2' ],
+      steps,
+    });
+  });
+
+  it('caches routes separately by their options', async() => {
+    await RouteCache.saveRoute(start, target, true, false, [ path ], steps);
+    expect(await RouteCache.getRoute(start, target, true, false)).toBeDefined();
+    expect(await RouteCache.getRoute(start, target, false, false)).toBeUndefined();
+    expect(await RouteCache.getRoute(start, target, true, true)).toBeUndefined();
+    expect(await RouteCache.getRoute(target, start, true, false)).toBeUndefined();
+  });
+
+  it('returns routes saved to disk by an earlier session', async() => {
+    await RouteCache.saveRoute(start, target, false, true, [ path ], steps);
+    _startSession({
+      configLastUpdatedAt: JSON.stringify({ time: initialVersion }),
+      routes: JSON.stringify(await Database.getRoutes()),
+    });
+
+    expect((await RouteCache.getRoute(start, target, false, true)).steps).toEqual(steps);
+  });
+
+  it('reads routes from disk which are no longer in memory', async() => {
+    for (let i = 0; i <= maxMemoryRoutes; i++) {
+      await RouteCache.saveRoute(start, _getTarget(i), false, true, [ path ], steps);
+    }
+
+    expect(await RouteCache.getRoute(start, _getTarget(0), false, true)).toBeDefined();
+  });
+
+  it('removes the oldest routes from disk', async() => {
+    for (let i = 0; i <= maxStoredRoutes; i++) {
+      await RouteCache.saveRoute(start, _getTarget(i), false, true, [ path ], steps);
+    }
+
+    const stored = await Database.getRoutes();
+    expect(stored.keys.length).toBe(maxStoredRoutes);
+    expect(Object.keys(stored.routes).length).toBe(maxStoredRoutes);
+    expect(await RouteCache.getRoute(start, _getTarget(0), false, true)).toBeUndefined();
+    expect(await RouteCache.getRoute(start, _getTarget(maxStoredRoutes), false, true)).toBeDefined();
+  });
+
+  it('removes every route when the configuration changes', async() => {
+    await RouteCache.saveRoute(start, target, false, true, [ path ], steps);
+    await RouteCache.invalidateRoutes(initialVersion + 1);
+
+    expect(await RouteCache.getRoute(start, target, false, true)).toBeUndefined();
+    expect((await Database.getRoutes()).keys).toEqual([]);
+  });
+
+  it('does not return routes found in an older configuration', async() => {
+    await RouteCache.saveRoute(start, target, false, true, [ path ], steps);
+    _startSession({
+      configLastUpdatedAt: JSON.stringify({ time: initialVersion + 1 }),
+      routes: JSON.stringify(await Database.getRoutes()),
+    });
+
+    expect(await RouteCache.getRoute(start, target, false, true)).toBeUndefined();
+  });
+
+  it('saves later routes when an earlier save fails', async() => {
+    const save = store.save;
+    store.save = jest.fn()
+        .mockImplementationOnce(async() => { throw new Error('Disk full'); })
+        .mockImplementation(save);
+
+    await expect(RouteCache.saveRoute(start, _getTarget(1), false, true, [ path ], steps)).rejects.toThrow();
+    await RouteCache.saveRoute(start, _getTarget(2), false, true, [ path ], steps);
+    expect(store.save).toHaveBeenCalledTimes(2);
+    expect(await Database.getRoutes()).toHaveProperty('keys', [ 'HMA/101>HMA/2|-S|1234' ]);
+  });
+});
@@ -0,0 +1,156 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-10
+ * @file RoutePrecompute-test.ts
+ * @description Tests finding directions between consecutive lectures ahead of time.
+ */
+'use strict';
+
+// Mock the react-native-simple-store module
+jest.mock('react-native-simple-store');
+
+// Mock directions, so routes are not searched for
+jest.mock('../Directions', () => ({
+  getDirectionsBetween: jest.fn(async() => ({ showReport: false, steps: [] })),
+}));
+
+// Mock preferences, so routes are accessible and shortest
+jest.mock('../../Preferences', () => ({
+  getPrefersShortestRoute: async(): Promise<boolean> => true,
+  getPrefersWheelchair: async(): Promise<boolean> => true,
+}));
+
+import * as Database from '../../Database';
+import * as Directions from '../Directions';
+import * as RoutePrecompute from '../RoutePrecompute';
+
+const hma101 = { shorthand: 'HMA', room: '101' };
+const hma102 = { shorthand: 'HMA', room: '102' };
+const cdb200 = { shorthand: 'CDB', room: '200' };
+
+/**
+ * Create a lecture for a schedule.
+ *
+ * @param {number} day       day of the week
+ * @param {number} startTime start of the lecture, in minutes since midnight
+ * @param {number} endTime   end of the lecture, in minutes since midnight
+ * @param {any}    location  location of the lecture
+ * @returns {any} the lecture
+ */
+function _lecture(day: number, startTime: number, endTime: number, location: any): any {
+  return { day, endTime, format: 0, location, startTime };
+}
+
+const schedule = {
+  fall: {
+    courses: [
+      {
+        code: 'CSI 1100',
+        lectures: [
+          _lecture(0, 510, 590, hma101),
+          _lecture(0, 870, 950, hma101),
+          _lecture(2, 510, 590, hma101),
+        ],
+      },
+      {
+        code: 'MAT 1300',
+        lectures: [
+          _lecture(0, 600, 680, cdb200),
+          _lecture(0, 960, 1040, hma101),
+          _lecture(2, 600, 680, cdb200),
+          _lecture(2, 690, 770, undefined),
+        ],
+      },
+      {
+        code: 'PHY 1100',
+        lectures: [
+          _lecture(0, 780, 860, hma102),
+          _lecture(1, 510, 590, hma102),
+        ],
+      },
+    ],
+    id: 'fall',
+  },
+  winter: {
+    id: 'winter',
+  },
+};
+
+describe('RoutePrecompute', () => {
+
+  beforeEach(() => {
+    (Directions.getDirectionsBetween as jest.Mock<any>).mockClear();
+  });
+
+  it('finds the routes between back-to-back lectures', () => {
+    expect(RoutePrecompute.getConsecutiveLectureRoutes(schedule)).toEqual([
+      { start: hma101, target: cdb200 },
+      { start: hma102, target: hma101 },
+    ]);
+  });
+
+  it('finds no routes without a schedule', () => {
+    expect(RoutePrecompute.getConsecutiveLectureRoutes({})).toEqual([]);
+  });
+
+  it('finds directions for each route', async() => {
+    await RoutePrecompute.precomputeScheduleRoutes(schedule, false, true);
+    expect((Directions.getDirectionsBetween as jest.Mock<any>).mock.calls).toEqual([
+      [ hma101, cdb200, false, true ],
+      [ hma102, hma101, false, true ],
+    ]);
+  });
+
+  it('stops finding routes when a newer job is requested', async() => {
+    const first = RoutePrecompute.precomputeScheduleRoutes(schedule, false, true);
+    const second = RoutePrecompute.precomputeScheduleRoutes(schedule, true, false);
+    await Promise.all([ first, second ]);
+
+    expect((Directions.getDirectionsBetween as jest.Mock<any>).mock.calls).toEqual([
+      [ hma101, cdb200, true, false ],
+      [ hma102, hma101, true, false ],
+    ]);
+  });
+
+  it('continues when a route cannot be found', async() => {
+    console.error = jest.fn();
+    (Directions.getDirectionsBetween as jest.Mock<any>).mockImplementationOnce(async() => {
+      throw new Error('No graph');
+    });
+
+    await RoutePrecompute.precomputeScheduleRoutes(schedule, false, false);
+    expect(Directions.getDirectionsBetween).toHaveBeenCalledTimes(2);
+    expect(console.error).toHaveBeenCalledTimes(1);
+  });
+
+  it('finds routes for the saved schedule and preferences', async() => {
+    await Database.saveSchedule(schedule);
+    await RoutePrecompute.precomputeSavedScheduleRoutes();
+    expect((Directions.getDirectionsBetween as jest.Mock<any>).mock.calls).toEqual([
+      [ hma101, cdb200, true, true ],
+      [ hma102, hma101, true, true ],
+    ]);
+  });
+
+  it('finds no routes when there is no saved schedule', async() => {
+    require('react-native-simple-store').default.__setDatastore({});
+    await RoutePrecompute.precomputeSavedScheduleRoutes();
+    expect(Directions.getDirectionsBetween).not.toHaveBeenCalled();
+  });
+});
@@ -0,0 +1,154 @@
+/**
+ *
+ * @license
+ * Copyright (C) 2018 Joseph Roque
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author Joseph Roque
+ * @created 2018-07-14
+ * @file ScheduleDistances-test.ts
+ * @description Tests finding the walking distances between lecture locations.
+ */
+'use strict';
+
+// Mock the react-native-simple-store module
+jest.mock('react-native-simple-store');
+
+jest.setMock('../../Configuration', {
+  getTextFile: async(textFile: string): Promise<string> => {
+    return graphTextFiles.get(textFile);
+  },
+});
+
+// Mock translations for days
+jest.mock('../../../../assets/json/CoreTranslations.json', () => ({
+  en: {
+    friday: 'Day',
+    monday: 'Day',
+    saturday: 'Day',
+    sunday: 'Day',
+    thursday: 'Day',
+    tuesday: 'Day',
+    wednesday: 'Day',
+  },
+  fr: {
+    friday: 'Jour',
+    monday: 'Jour',
+    saturday: 'Jour',
+    sunday: 'Jour',
+    thursday: 'Jour',
+    tuesday: 'Jour',
+    wednesday: 'Jour',
+  },
+}));
+
+// Imports
+import fs from 'fs';
+import path from 'path';
+import * as Database from '../../Database';
+import * as ScheduleDistances from '../ScheduleDistances';
+
+const graphTextFiles: Map<string, string> = new Map();
+const testingGraphs = ['GSD_graph.txt', 'OUT_graph.txt', 'STE_graph.txt'];
+
+const gsd100 = { shorthand: 'GSD', room: '100' };
+const gsd200 = { shorthand: 'GSD', room: '200' };
+const ste300 = { shorthand: 'STE', room: '300' };
+
+// tslint:disable no-magic-numbers
+const schedule = {
+  fall: {
+    courses: [
+      {
+        code: 'CSI 1100',
+        lectures: [
+          { day: 0, endTime: 590, format: 0, location: gsd100, startTime: 510 },
+          { day: 0, endTime: 680, format: 0, location: ste300, startTime: 600 },
+          { day: 2, endTime: 590, format: 0, location: gsd100, startTime: 510 },
+        ],
+      },
+      {
+        code: 'MAT 1300',
+        lectures: [
+          { day: 0, endTime: 770, format: 0, location: gsd200, startTime: 690 },
+          { day: 1, endTime: 770, format: 0, location: undefined, startTime: 690 },
+        ],
+      },
+    ],
+    id: 'fall',
+  },
+  winter: {
+    id: 'winter',
+  },
+};
+// tslint:enable no-magic-numbers
+
+describe('ScheduleDistances', () => {
+
+  beforeEach(async() => {
+    require('react-native-simple-store').default.__setDatastore({});
+    for (const file of testingGraphs) {
+      const dir = path.join(__dirname, '..', '__mocks__', `${file}`);
+      graphTextFiles.set(
+        `/${file}`,
+        await fs.readFileSync(dir, 'utf8')
+      );
+    }
+  });
+
+  it('finds each lecture location once', () => {
+    expect(ScheduleDistances.getLectureLocations(schedule.fall)).toEqual([ gsd100, ste300, gsd200 ]);
+    expect(ScheduleDistances.getLectureLocations(schedule.winter)).toEqual([]);
+  });
+
+  it('saves the distance between every pair of lecture locations', async() => {
+    await ScheduleDistances.computeScheduleDistances(schedule, false);
+    const saved = await Database.getScheduleDistances();
+    expect(saved.winter).toEqual({ accessible: false, distances: [], locations: [], seconds: [] });
+
+    const fall = saved.fall;
+    expect(fall.locations).toEqual([ gsd100, ste300, gsd200 ]);
+    for (let i = 0; i < fall.locations.length; i++) {
+      expect(fall.distances[i][i]).toBe(0);
+      expect(fall.seconds[i][i]).toBe(0);
+      for (let j = 0; j < fall.locations.length; j++) {
+        if (i !== j) {
+          expect(fall.distances[i][j]).toBeGreaterThan(0);
+
+          // Doors, stairs, and crossings only add to the time to walk the distance
+          /* tslint:disable no-magic-numbers */
+          expect(fall.seconds[i][j]).toBeGreaterThanOrEqual(fall.distances[i][j] * 60 / 80);
+          /* tslint:enable no-magic-numbers */
+        }
+      }
+    }
+
+    // Walking to another building takes longer than staying in the same one
+    expect(fall.distances[0][1]).toBeGreaterThan(fall.distances[0][2]);
+    expect(ScheduleDistances.getWalkingMinutes(fall, gsd100, ste300))
+        .toBeGreaterThanOrEqual(ScheduleDistances.getWalkingMinutes(fall, gsd100, gsd200));
+    /* tslint:disable no-magic-numbers */
+    expect(ScheduleDistances.getWalkingMinutes(fall, gsd100, ste300)).toBe(Math.ceil(fall.seconds[0][1] / 60));
+    /* tslint:enable no-magic-numbers */
+    expect(ScheduleDistances.getWalkingMinutes(fall, gsd100, { shorthand: 'HMA', room: '101' })).toBeUndefined();
+  });
+
+  it('does not know the time between locations saved without times', async() => {
+    await ScheduleDistances.computeScheduleDistances(schedule, false);
+    const fall = (await Database.getScheduleDistances()).fall;
+    delete fall.seconds;
+    expect(ScheduleDistances.getWalkingMinutes(fall, gsd100, ste300)).toBeUndefined();
+  });
+
+});